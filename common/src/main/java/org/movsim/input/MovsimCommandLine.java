@@ -94,8 +94,16 @@ public class MovsimCommandLine {
         options.addOption("l", "log", false,
                 "writes the file \"log4j.properties\" to file to adjust the logging properties on an individual level");
         options.addOption("d", "write_dot", false, "writes a 'dot' network file for further analysis of the xodr");
-	options.addOption("s", "simulation scanning mode", false,
-	        "invokes the simulator repeatedly in a loop (needs to be programmed by user)");
+        options.addOption("c", "compile_network", false,
+                "compiles the xodr network to a binary file which is loaded faster (without simulation)");
+        options.addOption("a", "landmark_routing", false,
+                "finds routes with A* search and landmarks precomputed next to the xodr network (for large networks)");
+
+        OptionBuilder.withArgName("file");
+        OptionBuilder.hasArg();
+        OptionBuilder.withDescription("invokes the simulator for all parameter combinations of the scan configuration");
+        final Option scanOption = OptionBuilder.create("s");
+        options.addOption(scanOption);
 
         OptionBuilder.withArgName("file");
         OptionBuilder.hasArg();
@@ -105,6 +113,18 @@ public class MovsimCommandLine {
         final Option xmlSimFile = OptionBuilder.create("f");
         options.addOption(xmlSimFile);
 
+        OptionBuilder.withArgName("threads");
+        OptionBuilder.hasArg();
+        OptionBuilder.withDescription("builds and updates the road segments in parallel with the given number of threads");
+        final Option parallelOption = OptionBuilder.create("p");
+        options.addOption(parallelOption);
+
+        OptionBuilder.withArgName("directory");
+        OptionBuilder.hasArg();
+        OptionBuilder.withDescription("caches the equilibrium properties of the vehicle types in the given directory");
+        final Option equilibriumCacheOption = OptionBuilder.create("e");
+        options.addOption(equilibriumCacheOption);
+
         OptionBuilder.withArgName("directory");
         OptionBuilder.hasArg();
         OptionBuilder.withDescription("argument is the output path relative to calling directory");
@@ -134,13 +154,44 @@ public class MovsimCommandLine {
         if (cmdline.hasOption("d")) {
             ProjectMetaData.getInstance().setWriteDotFile(true);
         }
-	if (cmdline.hasOption("s")) {
-	    ProjectMetaData.getInstance().setScanMode(true);
-	}
+        if (cmdline.hasOption("c")) {
+            ProjectMetaData.getInstance().setCompileNetwork(true);
+        }
+        if (cmdline.hasOption("a")) {
+            ProjectMetaData.getInstance().setLandmarkRouting(true);
+        }
+        if (cmdline.hasOption("s")) {
+            optionScan(cmdline);
+        }
+        if (cmdline.hasOption("p")) {
+            optionParallelism(cmdline);
+        }
+        if (cmdline.hasOption("e")) {
+            ProjectMetaData.getInstance().setEquilibriumCacheDirectory(new File(cmdline.getOptionValue('e')));
+        }
         requiredOptionOutputPath(cmdline);
         requiredOptionSimulation(cmdline);
     }
 
+    private static void optionScan(CommandLine cmdline) {
+        final String filename = cmdline.getOptionValue('s');
+        if (!FileUtils.fileExists(filename)) {
+            System.err.println("Scan configuration file \"" + filename + "\" not found!");
+            System.exit(-1);
+        }
+        ProjectMetaData.getInstance().setScanConfigurationFile(new File(filename));
+    }
+
+    private static void optionParallelism(CommandLine cmdline) {
+        final String threads = cmdline.getOptionValue('p');
+        try {
+            ProjectMetaData.getInstance().setParallelism(Integer.parseInt(threads));
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid number of threads \"" + threads + "\" provided via option -p.");
+            System.exit(-1);
+        }
+    }
+
     /**
      * @param cmdline
      */
@@ -53,7 +53,20 @@ public final class ProjectMetaData {
 
     private boolean writeDotFile = false;
 
-    private boolean scanMode = false;
+    /** compiles the xodr network of the project to its binary form instead of simulating */
+    private boolean compileNetwork = false;
+
+    /** answers route queries with A* search and landmark lower bounds instead of Dijkstra's algorithm */
+    private boolean landmarkRouting = false;
+
+    /** directory caching the equilibrium properties of the vehicle prototypes, no cache if null */
+    private File equilibriumCacheDirectory;
+
+    /** configuration file of the parameter scan, single simulation if null */
+    private File scanConfigurationFile;
+
+    /** number of threads for building and updating the road network in parallel, serial if <= 1 */
+    private int parallelism = 1;
 
     private long timeOffsetMillis = 0;
 
@@ -75,18 +88,46 @@ public final class ProjectMetaData {
     private InputStream projectProperties;
 
     /**
-     * private constructor: singleton pattern.
+     * Creates project meta data independent of the process-wide instance, e.g. for running several simulations in one
+     * process.
      */
-    private ProjectMetaData() {}
+    public ProjectMetaData() {}
 
     /**
-     * Gets the single instance of ProjectMetaData.
-     * @return single instance of ProjectMetaData
+     * Gets the process-wide instance of ProjectMetaData used by the command line and the viewer.
+     * @return process-wide instance of ProjectMetaData
      */
     public static ProjectMetaData getInstance() {
         return singleton;
     }
 
+    /**
+     * Creates a copy of the file related settings with another project name, e.g. for the cases of a parameter scan. The
+     * scan configuration is not copied.
+     * 
+     * @param projectName
+     *            the project name of the copy
+     * @return the copy
+     */
+    public ProjectMetaData copyWithProjectName(String projectName) {
+        final ProjectMetaData copy = new ProjectMetaData();
+        copy.projectName = projectName;
+        copy.pathToProjectXmlFile = pathToProjectXmlFile;
+        copy.outputPath = outputPath;
+        copy.xodrNetworkFilename = xodrNetworkFilename;
+        copy.xodrPath = xodrPath;
+        copy.consumptionFilename = consumptionFilename;
+        copy.consumptionPath = consumptionPath;
+        copy.instantaneousFileOutput = instantaneousFileOutput;
+        copy.writeDotFile = writeDotFile;
+        copy.equilibriumCacheDirectory = equilibriumCacheDirectory;
+        copy.landmarkRouting = landmarkRouting;
+        copy.parallelism = parallelism;
+        copy.timeOffsetMillis = timeOffsetMillis;
+        copy.xmlFromResources = xmlFromResources;
+        return copy;
+    }
+
     public boolean hasProjectName() {
         return projectName != null && !projectName.isEmpty();
     }
@@ -301,17 +342,53 @@ public final class ProjectMetaData {
         return writeDotFile;
     }
 
+    public void setEquilibriumCacheDirectory(File equilibriumCacheDirectory) {
+        this.equilibriumCacheDirectory = equilibriumCacheDirectory;
+    }
+
+    public File getEquilibriumCacheDirectory() {
+        return equilibriumCacheDirectory;
+    }
+
+    public void setLandmarkRouting(boolean landmarkRouting) {
+        this.landmarkRouting = landmarkRouting;
+    }
+
+    public boolean isLandmarkRouting() {
+        return landmarkRouting;
+    }
+
+    public void setCompileNetwork(boolean compileNetwork) {
+        this.compileNetwork = compileNetwork;
+    }
+
+    public boolean isCompileNetwork() {
+        return compileNetwork;
+    }
+
     public File getFile(String filename) {
         Preconditions.checkNotNull(filename);
         Preconditions.checkArgument(!filename.isEmpty(), "filename=" + filename);
         return new File(getPathToProjectFile() + filename);
     }
     
-    public void setScanMode(boolean scanMode) {
-        this.scanMode = scanMode;
+    public void setScanConfigurationFile(File scanConfigurationFile) {
+        this.scanConfigurationFile = scanConfigurationFile;
+    }
+
+    public File getScanConfigurationFile() {
+        return scanConfigurationFile;
     }
 
     public boolean isScanMode() {
-        return scanMode;
+        return scanConfigurationFile != null;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public int getParallelism() {
+        return parallelism;
     }
 }
@@ -49,15 +49,30 @@ public class FileOutputBase implements SimulationShutDown {
     protected String filename;
     protected PrintWriter writer;
 
+    private final ShutdownHooks shutdownHooks;
+
     public FileOutputBase(String path, String baseFilename) {
+        this(path, baseFilename, ShutdownHooks.INSTANCE);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param path
+     * @param baseFilename
+     * @param shutdownHooks
+     *            the hooks which close the writer at the end of the simulation
+     */
+    public FileOutputBase(String path, String baseFilename, ShutdownHooks shutdownHooks) {
         this.path = path;
         this.baseFilename = baseFilename;
+        this.shutdownHooks = Preconditions.checkNotNull(shutdownHooks);
     }
 
     public PrintWriter createWriter(String extension) {
         filename = getFilename(extension);
         Preconditions.checkArgument(filename.length() > 0);
-        ShutdownHooks.INSTANCE.addCallback(this);
+        shutdownHooks.addCallback(this);
         return FileUtils.getWriter(filename);
     }
 
@@ -1,30 +1,60 @@
 package org.movsim.shutdown;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
 
-public enum ShutdownHooks implements SimulationShutDown {
+/**
+ * Collects the callbacks which are performed when a simulation ends. Each simulation context has its own instance,
+ * {@link #INSTANCE} is shared by the applications running a single simulation per process.
+ */
+public final class ShutdownHooks implements SimulationShutDown {
 
-    INSTANCE;
+    /** all instances not yet garbage collected, see {@link #onShutDownAll()} */
+    private static final Set<ShutdownHooks> ALL = Collections.newSetFromMap(new WeakHashMap<ShutdownHooks, Boolean>());
+
+    public static final ShutdownHooks INSTANCE = new ShutdownHooks();
 
     private final List<SimulationShutDown> callbacks = new ArrayList<>();
 
-    public void addCallback(final SimulationShutDown callback) {
+    public ShutdownHooks() {
+        synchronized (ALL) {
+            ALL.add(this);
+        }
+    }
+
+    public synchronized void addCallback(final SimulationShutDown callback) {
 	if (callback != null) {
 	    callbacks.add(callback);
 	}
     }
 
     @Override
-    public void onShutDown() {
+    public synchronized void onShutDown() {
         System.out.println("perform shutdown callbacks=" + callbacks.size());
         for (final SimulationShutDown shutDownCallback : callbacks) {
             shutDownCallback.onShutDown();
         }
     }
 
-    public void clear() {
+    public synchronized void clear() {
 	callbacks.clear();
     }
 
+    /**
+     * Performs the callbacks of all instances, used when the process ends unexpectedly. The instances are only weakly
+     * referenced, so the hooks of finished simulations do not keep them from being garbage collected.
+     */
+    public static void onShutDownAll() {
+        final List<ShutdownHooks> instances;
+        synchronized (ALL) {
+            instances = new ArrayList<>(ALL);
+        }
+        for (final ShutdownHooks shutdownHooks : instances) {
+            shutdownHooks.onShutDown();
+        }
+    }
+
 }
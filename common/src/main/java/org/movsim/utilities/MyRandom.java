@@ -20,12 +20,30 @@ public final class MyRandom {
 
     private static Random rand = new Random();
 
+    /** seed of the per-entity random streams, see {@link #newStream(String, long)} */
+    private static long seed = rand.nextLong();
+
     private MyRandom() {
         throw new IllegalStateException("do not instanciate");
     }
 
     public static void initializeWithSeed(long randomSeed) {
         rand = new Random(randomSeed);
+        seed = randomSeed;
+    }
+
+    /**
+     * Creates the random stream of a simulation entity. The stream only depends on the seed and on the given key, so the
+     * numbers drawn by an entity do not depend on the draws of other entities or on the order of their update.
+     * 
+     * @param domain
+     *            the kind of entity, e.g. "vehicle"
+     * @param id
+     *            the id of the entity within its domain
+     * @return the random stream of the entity
+     */
+    public static RandomStream newStream(String domain, long id) {
+        return RandomStream.forKey(seed, domain, id);
     }
 
     public static boolean isInitialized() {
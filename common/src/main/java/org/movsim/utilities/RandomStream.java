@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden <movsim.org@gmail.com>
+ * ----------------------------------------------------------------------------------------- This file is part of MovSim - the
+ * multi-model open-source vehicular-traffic simulator. MovSim is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version. MovSim is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * for more details. You should have received a copy of the GNU General Public License along with MovSim. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.movsim.org>.
+ * -----------------------------------------------------------------------------------------
+ */
+package org.movsim.utilities;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * <p>
+ * A stream of pseudo-random numbers owned by a single simulation entity (vehicle, traffic composition, service provider).
+ * </p>
+ * <p>
+ * The numbers are generated by the SplitMix64 algorithm (G. L. Steele, D. Lea, C. H. Flood, Fast splittable pseudorandom
+ * number generators, OOPSLA 2014). The state is a single counter, so streams are cheap to create and a stream derived from
+ * the simulation seed and the entity key gives the same sequence independently of the order in which the entities are
+ * updated. See {@link #forKey(long, String, long)}.
+ * </p>
+ * <p>
+ * A stream is not thread-safe and must only be used by the entity owning it.
+ * </p>
+ */
+public final class RandomStream {
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+    private long state;
+
+    private double nextNextGaussian;
+
+    private boolean haveNextNextGaussian;
+
+    public RandomStream(long seed) {
+        state = mix64(seed);
+    }
+
+    /**
+     * Mixes the bits of the given value (variant 13 of D. Stafford's 64-bit finalizer).
+     *
+     * @param z
+     * @return the mixed value
+     */
+    public static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Combines a seed with a key to the seed of a derived stream.
+     *
+     * @param seed
+     * @param key
+     * @return the derived seed
+     */
+    public static long combine(long seed, long key) {
+        return mix64(seed + GOLDEN_GAMMA * (key + 1));
+    }
+
+    /**
+     * Creates the stream of a simulation entity which only depends on the seed and on the key of the entity.
+     *
+     * @param seed
+     *            the simulation seed
+     * @param domain
+     *            the kind of entity, e.g. "vehicle"
+     * @param id
+     *            the id of the entity within its domain
+     * @return the random stream of the entity
+     */
+    public static RandomStream forKey(long seed, String domain, long id) {
+        return new RandomStream(combine(combine(seed, domain.hashCode()), id));
+    }
+
+    public long nextLong() {
+        state += GOLDEN_GAMMA;
+        return mix64(state);
+    }
+
+    /**
+     * @return the next pseudo-random, uniformly distributed {@code double} value in [0, 1)
+     */
+    public double nextDouble() {
+        return (nextLong() >>> 11) * DOUBLE_UNIT;
+    }
+
+    /**
+     * @param n
+     *            the bound, must be positive
+     * @return the next pseudo-random, uniformly distributed {@code int} value in [0, n)
+     */
+    public int nextInt(int n) {
+        Preconditions.checkArgument(n > 0, "bound must be positive");
+        final long m = n;
+        long r = nextLong() >>> 33;
+        // reject the values from the last incomplete interval to avoid a bias
+        for (long u = r; u - (r = u % m) + m - 1 > Integer.MAX_VALUE; u = nextLong() >>> 33) {
+        }
+        return (int) r;
+    }
+
+    /**
+     * @return the next pseudo-random, Gaussian distributed {@code double} value with mean 0 and standard deviation 1
+     */
+    public double nextGaussian() {
+        if (haveNextNextGaussian) {
+            haveNextNextGaussian = false;
+            return nextNextGaussian;
+        }
+        // polar method of G. E. P. Box, M. E. Muller and G. Marsaglia as in java.util.Random
+        double v1, v2, s;
+        do {
+            v1 = 2 * nextDouble() - 1;
+            v2 = 2 * nextDouble() - 1;
+            s = v1 * v1 + v2 * v2;
+        } while (s >= 1 || s == 0);
+        final double multiplier = Math.sqrt(-2 * Math.log(s) / s);
+        nextNextGaussian = v2 * multiplier;
+        haveNextNextGaussian = true;
+        return v1 * multiplier;
+    }
+
+    /**
+     * returns a realization of a uniformly distributed random variable in [-1, 1]
+     *
+     * @return a uniformly distributed realization in [-1, 1]
+     */
+    public double getUniformDistribution() {
+        return 2 * nextDouble() - 1;
+    }
+
+    public double getUniformlyDistributedRandomizedFactor(double randomizationStrength) {
+        return 1 + randomizationStrength * getUniformDistribution();
+    }
+
+    public double getGaussiansDistributedRandomizedFactor(double sigma, double nSigmaCutoff) {
+        return 1 + Math.max(-nSigmaCutoff * sigma, Math.min(nSigmaCutoff, sigma * nextGaussian()));
+    }
+}
@@ -1,7 +1,12 @@
 package org.movsim.xml;
 
 import java.io.File;
+import java.io.IOException;
 import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
@@ -22,19 +27,24 @@ public final class FileUnmarshaller<T> {
 
     private static final String W3C_XML_SCHEMA_NS_URI = "http://www.w3.org/2001/XMLSchema";
 
-    /** Assure that only one loading/jaxb operation is active. */
-    private static final Object SYNC_OBJECT = new Object();
+    /** The JAXB contexts by object factory. Contexts are expensive to create and thread-safe. */
+    private static final ConcurrentMap<Class<?>, JAXBContext> CONTEXTS = new ConcurrentHashMap<>();
+
+    /** The compiled schemas by xsd url. Schemas are expensive to create and thread-safe. */
+    private static final ConcurrentMap<String, Schema> SCHEMAS = new ConcurrentHashMap<>();
+
+    /** The unmarshallers of a thread by object factory and xsd url. Unmarshallers are not thread-safe. */
+    private static final ThreadLocal<Map<String, Unmarshaller>> UNMARSHALLERS =
+            new ThreadLocal<Map<String, Unmarshaller>>() {
+                @Override
+                protected Map<String, Unmarshaller> initialValue() {
+                    return new HashMap<>();
+                }
+            };
 
     public final T load(StreamSource source, Class<T> clazz, Class<?> factory, URL xsdFile) throws JAXBException,
             SAXException {
-        T result;
-        synchronized (SYNC_OBJECT) {
-            // TODO creating a JaxbContext is expensive, consider pooling.
-            Unmarshaller unmarshaller = createUnmarshaller(factory, xsdFile);
-            unmarshaller.setEventHandler(new XmlValidationEventHandler());
-            result = unmarshaller.unmarshal(source, clazz).getValue();
-        }
-        return result;
+        return getUnmarshaller(factory, xsdFile).unmarshal(source, clazz).getValue();
     }
     
 //    public final T load(InputSource source, Class<T> clazz, Class<?> factory, URL xsdFile) throws JAXBException,
@@ -76,20 +86,85 @@ public final class FileUnmarshaller<T> {
         return data;
     }
     
-    private final Unmarshaller createUnmarshaller(final Class<?> objectFactoryClass, final URL xsdFile)
+    /**
+     * Validates the file against the xsd without unmarshalling it. The file is streamed, the memory needed does not depend on
+     * the size of the file.
+     * 
+     * @throws IllegalStateException
+     *             if the file cannot be read or is not valid
+     */
+    public static void validate(File file, URL xsdFile) {
+        Preconditions.checkNotNull(xsdFile);
+        LOG.info("validate file={} against xsd={}", file, xsdFile);
+        try {
+            getSchema(xsdFile).newValidator().validate(new StreamSource(file));
+        } catch (SAXException | IOException e) {
+            throw new IllegalStateException(e.toString());
+        }
+    }
+
+    /**
+     * Returns the unmarshaller of the current thread for single elements of a document, e.g. the elements of a document
+     * streamed by a {@link javax.xml.stream.XMLStreamReader}. The unmarshaller does not validate since the schema only
+     * declares the root element, see {@link #validate(File, URL)} for validating the whole document.
+     */
+    public static Unmarshaller getElementUnmarshaller(final Class<?> objectFactoryClass) throws JAXBException {
+        final String key = objectFactoryClass.getName();
+        final Map<String, Unmarshaller> unmarshallers = UNMARSHALLERS.get();
+        Unmarshaller unmarshaller = unmarshallers.get(key);
+        if (unmarshaller == null) {
+            unmarshaller = getContext(objectFactoryClass).createUnmarshaller();
+            unmarshaller.setEventHandler(new XmlValidationEventHandler());
+            unmarshallers.put(key, unmarshaller);
+        }
+        return unmarshaller;
+    }
+
+    /**
+     * Returns the unmarshaller of the current thread for the given object factory and xsd file. The unmarshaller is created
+     * on first use from the cached JAXB context and schema and reused by the later loads of the thread.
+     */
+    private static Unmarshaller getUnmarshaller(final Class<?> objectFactoryClass, final URL xsdFile)
             throws JAXBException, SAXException {
-        JAXBContext context = JAXBContext.newInstance(objectFactoryClass);
-        Unmarshaller unmarshaller = context.createUnmarshaller();
+        final String key = objectFactoryClass.getName() + "|" + xsdFile.toExternalForm();
+        final Map<String, Unmarshaller> unmarshallers = UNMARSHALLERS.get();
+        Unmarshaller unmarshaller = unmarshallers.get(key);
         if (unmarshaller == null) {
-            throw new JAXBException("Created unmarshaller is null.");
+            unmarshaller = getContext(objectFactoryClass).createUnmarshaller();
+            if (unmarshaller == null) {
+                throw new JAXBException("Created unmarshaller is null.");
+            }
+            unmarshaller.setSchema(getSchema(xsdFile));
+            unmarshaller.setEventHandler(new XmlValidationEventHandler());
+            unmarshallers.put(key, unmarshaller);
         }
-        unmarshaller.setSchema(getSchema(xsdFile));
         return unmarshaller;
     }
 
+    private static JAXBContext getContext(final Class<?> objectFactoryClass) throws JAXBException {
+        JAXBContext context = CONTEXTS.get(objectFactoryClass);
+        if (context == null) {
+            // concurrent first loads may create the context twice, only one is kept
+            final JAXBContext newContext = JAXBContext.newInstance(objectFactoryClass);
+            context = CONTEXTS.putIfAbsent(objectFactoryClass, newContext);
+            if (context == null) {
+                context = newContext;
+            }
+        }
+        return context;
+    }
+
     private static Schema getSchema(final URL xsdFile) throws SAXException {
-        SchemaFactory sf = SchemaFactory.newInstance(W3C_XML_SCHEMA_NS_URI);
-        return sf.newSchema(xsdFile);
+        final String key = xsdFile.toExternalForm();
+        Schema schema = SCHEMAS.get(key);
+        if (schema == null) {
+            final Schema newSchema = SchemaFactory.newInstance(W3C_XML_SCHEMA_NS_URI).newSchema(xsdFile);
+            schema = SCHEMAS.putIfAbsent(key, newSchema);
+            if (schema == null) {
+                schema = newSchema;
+            }
+        }
+        return schema;
     }
 
 }
@@ -11,10 +11,17 @@
  */
 package org.movsim.xml;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.net.URL;
 
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+
 import org.movsim.autogen.Movsim;
 import org.movsim.network.autogen.opendrive.OpenDRIVE;
 import org.movsim.scenario.boundary.autogen.MovsimMicroscopicBoundaryConditions;
@@ -63,6 +70,29 @@ public final class InputLoader {
         return fileUnmarshaller.load(xmlFile, Movsim.class, xsdResourcen.factory, xsdResourcen.getUrl());
     }
 
+    /**
+     * Creates a deep copy of the movsim input, e.g. to modify the input of a simulation without affecting the input of
+     * other simulations.
+     * 
+     * @param movsim
+     *            the input to copy
+     * @return the copy
+     * @throws IllegalStateException
+     */
+    public static Movsim copy(Movsim movsim) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                out.writeObject(movsim);
+            }
+            try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+                return (Movsim) in.readObject();
+            }
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException("cannot copy movsim input", e);
+        }
+    }
+
     /**
      * @throws IllegalStateException
      */
@@ -83,6 +113,24 @@ public final class InputLoader {
                 xsdResourcen.getUrl());
     }
 
+    /**
+     * Validates the microscopic boundary conditions without unmarshalling them, see
+     * {@link FileUnmarshaller#validate(File, URL)}.
+     * 
+     * @throws IllegalStateException
+     */
+    public static void validateMicroBoundaryConditions(File xmlFile) {
+        FileUnmarshaller.validate(xmlFile, XmlInput.MICRO_BOUNDARY_CONDITIONS.getUrl());
+    }
+
+    /**
+     * Returns the unmarshaller of the current thread for single elements of streamed microscopic boundary conditions, see
+     * {@link FileUnmarshaller#getElementUnmarshaller(Class)}.
+     */
+    public static Unmarshaller microBoundaryConditionsElementUnmarshaller() throws JAXBException {
+        return FileUnmarshaller.getElementUnmarshaller(XmlInput.MICRO_BOUNDARY_CONDITIONS.factory);
+    }
+
     /**
      * @throws IllegalStateException
      */
@@ -103,6 +151,23 @@ public final class InputLoader {
                 xsdResourcen.factory, xsdResourcen.getUrl());
     }
 
+    /**
+     * Validates the OpenDRIVE network without unmarshalling it, see {@link FileUnmarshaller#validate(File, URL)}.
+     * 
+     * @throws IllegalStateException
+     */
+    public static void validateOpenDriveNetwork(final File xmlFile) {
+        FileUnmarshaller.validate(xmlFile, XmlInput.XODR_ROADNETWORK.getUrl());
+    }
+
+    /**
+     * Returns the unmarshaller of the current thread for single elements of a streamed OpenDRIVE network, see
+     * {@link FileUnmarshaller#getElementUnmarshaller(Class)}.
+     */
+    public static Unmarshaller openDriveElementUnmarshaller() throws JAXBException {
+        return FileUnmarshaller.getElementUnmarshaller(XmlInput.XODR_ROADNETWORK.factory);
+    }
+
     /**
      * writes all movsim xsd files and the xodr xsd to the current working directory.
      * 
@@ -0,0 +1,43 @@
+package org.movsim.utilities;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.not;
+
+import org.junit.Test;
+
+public class RandomStreamTest {
+
+    @Test
+    public void testStreamDependsOnlyOnSeedAndKey() {
+        MyRandom.initializeWithSeed(42);
+        final RandomStream first = MyRandom.newStream("vehicle", 1);
+        final RandomStream second = MyRandom.newStream("vehicle", 2);
+        final double firstValue = first.nextDouble();
+        // draws from other streams do not influence a stream
+        second.nextDouble();
+        MyRandom.newStream("vehicle", 3).nextDouble();
+        final double firstNextValue = first.nextDouble();
+
+        MyRandom.initializeWithSeed(42);
+        final RandomStream replay = MyRandom.newStream("vehicle", 1);
+        assertThat(replay.nextDouble(), is(firstValue));
+        assertThat(replay.nextDouble(), is(firstNextValue));
+        assertThat(MyRandom.newStream("trafficComposition", 1).nextDouble(), not(is(firstValue)));
+    }
+
+    @Test
+    public void testRanges() {
+        final RandomStream random = new RandomStream(1);
+        for (int i = 0; i < 1000; i++) {
+            final double value = random.nextDouble();
+            assertThat(value, greaterThanOrEqualTo(0.0));
+            assertThat(value, lessThan(1.0));
+            final int n = random.nextInt(7);
+            assertThat(n, greaterThanOrEqualTo(0));
+            assertThat(n, lessThan(7));
+        }
+    }
+}
@@ -25,6 +25,7 @@
  */
 package org.movsim;
 
+import java.io.File;
 import java.util.Locale;
 
 import javax.xml.bind.JAXBException;
@@ -32,7 +33,10 @@ import javax.xml.bind.JAXBException;
 import org.movsim.autogen.Movsim;
 import org.movsim.input.MovsimCommandLine;
 import org.movsim.input.ProjectMetaData;
+import org.movsim.input.network.CompiledNetwork;
 import org.movsim.logging.Logger;
+import org.movsim.scan.ParameterSweep;
+import org.movsim.scan.ScanConfiguration;
 import org.movsim.simulator.Simulator;
 import org.movsim.xml.InputLoader;
 import org.xml.sax.SAXException;
@@ -52,8 +56,9 @@ public class MovsimCoreMain {
      *            the command line arguments
      * @throws SAXException
      * @throws JAXBException
+     * @throws InterruptedException
      */
-    public static void main(String[] args) throws JAXBException, SAXException {
+    public static void main(String[] args) throws JAXBException, SAXException, InterruptedException {
 
         Locale.setDefault(Locale.US);
 
@@ -71,9 +76,15 @@ public class MovsimCoreMain {
 
         // unmarshall movsim configuration file
         Movsim movsimInput = InputLoader.unmarshallMovsim(projectMetaData.getInputFile());
-        if (projectMetaData.isScanMode()) {
+        if (projectMetaData.isCompileNetwork()) {
+            projectMetaData.setXodrNetworkFilename(movsimInput.getScenario().getNetworkFilename());
+            File compiledFile = CompiledNetwork.compile(projectMetaData.getFile(projectMetaData
+                    .getXodrNetworkFilename()));
+            System.out.println("compiled network written to " + compiledFile);
+        } else if (projectMetaData.isScanMode()) {
             System.out.println("scanning mode");
-            SimulationScan.invokeSimulationScan(movsimInput);
+            ScanConfiguration scanConfiguration = ScanConfiguration.load(projectMetaData.getScanConfigurationFile());
+            new ParameterSweep(movsimInput, projectMetaData, scanConfiguration).run();
         } else {
             invokeSingleSimulation(movsimInput);
         }
@@ -0,0 +1,214 @@
+package org.movsim.input.network;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32;
+
+import javax.xml.bind.JAXBException;
+
+import org.movsim.network.autogen.opendrive.OpenDRIVE.Controller;
+import org.movsim.network.autogen.opendrive.OpenDRIVE.Junction;
+import org.movsim.network.autogen.opendrive.OpenDRIVE.Road;
+import org.movsim.xml.InputLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.SAXException;
+
+/**
+ * <p>
+ * Compiled form of an OpenDrive network file. Compiling validates the xodr file once and stores its &lt;road&gt;,
+ * &lt;controller&gt; and &lt;junction&gt; elements in a binary file next to it (the name of the xodr file with the extension
+ * {@value #EXTENSION}). Loading a compiled network memory-maps that file and decodes the elements directly, so neither the xml
+ * parser nor the schema validation is needed. The road network itself is built by the {@link OpenDriveHandler} in both cases
+ * and is therefore the same.
+ * </p>
+ * <p>
+ * The compiled file records the length and the CRC32 checksum of the xodr file and the layout of the generated OpenDrive
+ * classes. A compiled file that does not match is ignored with a warning and the xodr file is read instead.
+ * </p>
+ */
+public final class CompiledNetwork {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CompiledNetwork.class);
+
+    public static final String EXTENSION = ".bin";
+
+    /** "MVNW" */
+    private static final int MAGIC = 0x4d564e57;
+
+    private static final int VERSION = 1;
+
+    private static final byte END = 0;
+    private static final byte ROAD = 1;
+    private static final byte CONTROLLER = 2;
+    private static final byte JUNCTION = 3;
+
+    private static final ElementCodec CODEC = new ElementCodec(Road.class, Controller.class, Junction.class);
+
+    private CompiledNetwork() {
+        throw new IllegalStateException("do not instanciate");
+    }
+
+    /**
+     * Returns the compiled file of the given xodr file.
+     *
+     * @param xodrFile
+     * @return the compiled file, which need not exist
+     */
+    public static File compiledFile(File xodrFile) {
+        return new File(xodrFile.getPath() + EXTENSION);
+    }
+
+    /**
+     * Validates the xodr file and writes its compiled form, replacing an existing compiled file.
+     *
+     * @param xodrFile
+     * @return the compiled file
+     * @throws IllegalStateException
+     *             if the xodr file cannot be read or is not valid
+     */
+    public static File compile(File xodrFile) throws JAXBException, SAXException {
+        InputLoader.validateOpenDriveNetwork(xodrFile);
+        final File compiledFile = compiledFile(xodrFile);
+        final File tmpFile = new File(compiledFile.getPath() + ".tmp");
+        try {
+            try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(
+                    tmpFile), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(CODEC.layoutFingerprint());
+                out.writeLong(xodrFile.length());
+                out.writeLong(checksum(xodrFile));
+                OpenDriveReader.readElements(xodrFile, new ElementWriter(CODEC.newEncoder(out), out));
+                out.writeByte(END);
+            }
+            Files.move(tmpFile.toPath(), compiledFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            tmpFile.delete();
+            throw new IllegalStateException(e.toString());
+        }
+        LOG.info("compiled network {} to {} ({} bytes)", new Object[] { xodrFile, compiledFile, compiledFile.length() });
+        return compiledFile;
+    }
+
+    /**
+     * Reads the elements of the compiled form of the xodr file, if it exists and matches the xodr file.
+     *
+     * @param xodrFile
+     * @param elementHandler
+     * @return true if the elements have been read from the compiled file, false if there is no valid compiled file
+     * @throws IllegalStateException
+     *             if the compiled file cannot be read or is corrupt
+     */
+    static boolean read(File xodrFile, OpenDriveElementHandler elementHandler) {
+        final File compiledFile = compiledFile(xodrFile);
+        if (!compiledFile.isFile()) {
+            return false;
+        }
+        try (RandomAccessFile file = new RandomAccessFile(compiledFile, "r"); FileChannel channel = file.getChannel()) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                LOG.warn("compiled network {} is too large to be mapped, ignore it.", compiledFile);
+                return false;
+            }
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (!isUpToDate(buffer, xodrFile)) {
+                LOG.warn("compiled network {} does not match {}, ignore it.", compiledFile, xodrFile);
+                return false;
+            }
+            LOG.info("read compiled network {}", compiledFile);
+            readElements(buffer, elementHandler);
+            return true;
+        } catch (IOException | BufferUnderflowException e) {
+            throw new IllegalStateException("cannot read compiled network " + compiledFile + ": " + e);
+        }
+    }
+
+    private static boolean isUpToDate(ByteBuffer buffer, File xodrFile) throws IOException {
+        return buffer.remaining() >= 32 && buffer.getInt() == MAGIC && buffer.getInt() == VERSION
+                && buffer.getLong() == CODEC.layoutFingerprint() && buffer.getLong() == xodrFile.length()
+                && buffer.getLong() == checksum(xodrFile);
+    }
+
+    private static void readElements(ByteBuffer buffer, OpenDriveElementHandler elementHandler) {
+        final ElementCodec.Decoder decoder = CODEC.newDecoder(buffer);
+        int countRoads = 0;
+        byte tag;
+        while ((tag = buffer.get()) != END) {
+            switch (tag) {
+            case ROAD:
+                elementHandler.addRoad(decoder.read(Road.class));
+                countRoads++;
+                break;
+            case CONTROLLER:
+                elementHandler.addController(decoder.read(Controller.class));
+                break;
+            case JUNCTION:
+                elementHandler.addJunction(decoder.read(Junction.class));
+                break;
+            default:
+                throw new IllegalStateException("corrupt compiled network, unknown element tag " + tag);
+            }
+        }
+        LOG.info("read {} roads.", countRoads);
+    }
+
+    private static long checksum(File file) throws IOException {
+        final CRC32 crc = new CRC32();
+        final byte[] bytes = new byte[1 << 16];
+        try (InputStream in = new FileInputStream(file)) {
+            int n;
+            while ((n = in.read(bytes)) > 0) {
+                crc.update(bytes, 0, n);
+            }
+        }
+        return crc.getValue();
+    }
+
+    /** Writes the streamed elements as tagged records. */
+    private static final class ElementWriter implements OpenDriveElementHandler {
+
+        private final ElementCodec.Encoder encoder;
+        private final DataOutputStream out;
+
+        ElementWriter(ElementCodec.Encoder encoder, DataOutputStream out) {
+            this.encoder = encoder;
+            this.out = out;
+        }
+
+        @Override
+        public void addRoad(Road road) {
+            write(ROAD, road);
+        }
+
+        @Override
+        public void addController(Controller controller) {
+            write(CONTROLLER, controller);
+        }
+
+        @Override
+        public void addJunction(Junction junction) {
+            write(JUNCTION, junction);
+        }
+
+        private void write(byte tag, Object element) {
+            try {
+                out.writeByte(tag);
+                encoder.write(element);
+            } catch (IOException e) {
+                throw new IllegalStateException(e.toString());
+            }
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package org.movsim.input.network;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Binary encoding of the JAXB beans generated from the OpenDrive xsd. The fields of a bean are written in the order of their
+ * names, so the encoding only depends on the class layout, see {@link #layoutFingerprint()}. The generated beans only have
+ * fields of type {@code Double}, {@code Integer}, {@code String}, nested beans and lists of nested beans; the mixed content of
+ * &lt;userData&gt; is supported as long as it consists of text only.
+ * <p>
+ * Strings are written once and referenced by their index afterwards, the ids of roads, lanes and signals repeat a lot in the
+ * links.
+ * </p>
+ */
+final class ElementCodec {
+
+    private static final int NULL = -1;
+
+    private enum Kind {
+        DOUBLE, INTEGER, STRING, BEAN, BEAN_LIST, STRING_LIST
+    }
+
+    private static final class Property {
+        final Field field;
+        final Kind kind;
+        final Class<?> type;
+
+        Property(Field field, Kind kind, Class<?> type) {
+            this.field = field;
+            this.kind = kind;
+            this.type = type;
+            field.setAccessible(true);
+        }
+    }
+
+    private static final Comparator<Field> BY_NAME = new Comparator<Field>() {
+        @Override
+        public int compare(Field o1, Field o2) {
+            return o1.getName().compareTo(o2.getName());
+        }
+    };
+
+    private final Class<?>[] rootClasses;
+
+    private final Map<Class<?>, Property[]> propertiesByClass = new LinkedHashMap<>();
+
+    ElementCodec(Class<?>... rootClasses) {
+        this.rootClasses = rootClasses;
+        for (Class<?> rootClass : rootClasses) {
+            properties(rootClass);
+        }
+    }
+
+    private Property[] properties(Class<?> beanClass) {
+        Property[] properties = propertiesByClass.get(beanClass);
+        if (properties != null) {
+            return properties;
+        }
+        final List<Field> fields = new ArrayList<>();
+        for (Field field : beanClass.getDeclaredFields()) {
+            if (!Modifier.isStatic(field.getModifiers())) {
+                fields.add(field);
+            }
+        }
+        final Field[] sortedFields = fields.toArray(new Field[fields.size()]);
+        Arrays.sort(sortedFields, BY_NAME);
+        properties = new Property[sortedFields.length];
+        propertiesByClass.put(beanClass, properties);
+        for (int i = 0; i < sortedFields.length; i++) {
+            properties[i] = property(sortedFields[i]);
+            if (properties[i].kind == Kind.BEAN || properties[i].kind == Kind.BEAN_LIST) {
+                properties(properties[i].type);
+            }
+        }
+        return properties;
+    }
+
+    private static Property property(Field field) {
+        final Class<?> type = field.getType();
+        if (type == Double.class) {
+            return new Property(field, Kind.DOUBLE, type);
+        } else if (type == Integer.class) {
+            return new Property(field, Kind.INTEGER, type);
+        } else if (type == String.class) {
+            return new Property(field, Kind.STRING, type);
+        } else if (type == List.class) {
+            final Type elementType = ((ParameterizedType) field.getGenericType()).getActualTypeArguments()[0];
+            if (elementType == Object.class || elementType == String.class) {
+                return new Property(field, Kind.STRING_LIST, String.class);
+            }
+            return new Property(field, Kind.BEAN_LIST, checkBean((Class<?>) elementType, field));
+        }
+        return new Property(field, Kind.BEAN, checkBean(type, field));
+    }
+
+    private static Class<?> checkBean(Class<?> type, Field field) {
+        if (type.isPrimitive() || type.isEnum() || type.getName().startsWith("java.")) {
+            throw new IllegalArgumentException("unsupported type " + type.getName() + " of field " + field);
+        }
+        return type;
+    }
+
+    /**
+     * Returns a checksum of the layout of all classes that can be encoded. An encoding is only valid for the same layout.
+     *
+     * @return the layout fingerprint
+     */
+    long layoutFingerprint() {
+        final StringBuilder sb = new StringBuilder();
+        for (Class<?> rootClass : rootClasses) {
+            sb.append(rootClass.getName()).append(';');
+        }
+        for (Map.Entry<Class<?>, Property[]> entry : propertiesByClass.entrySet()) {
+            sb.append(entry.getKey().getName()).append('{');
+            for (Property property : entry.getValue()) {
+                sb.append(property.field.getName()).append(':').append(property.kind).append(':')
+                        .append(property.type.getName()).append(',');
+            }
+            sb.append('}');
+        }
+        final CRC32 crc = new CRC32();
+        crc.update(sb.toString().getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+
+    /**
+     * Creates an encoder writing to the given output. The encoder has its own string table.
+     */
+    Encoder newEncoder(DataOutputStream out) {
+        return new Encoder(out);
+    }
+
+    /**
+     * Creates a decoder reading from the given buffer. The decoder has its own string table.
+     */
+    Decoder newDecoder(ByteBuffer buffer) {
+        return new Decoder(buffer);
+    }
+
+    final class Encoder {
+
+        private final DataOutputStream out;
+
+        private final Map<String, Integer> stringIndices = new HashMap<>();
+
+        private Encoder(DataOutputStream out) {
+            this.out = out;
+        }
+
+        void write(Object bean) throws IOException {
+            final Property[] properties = propertiesByClass.get(bean.getClass());
+            if (properties == null) {
+                throw new IllegalArgumentException("cannot encode " + bean.getClass().getName());
+            }
+            try {
+                for (Property property : properties) {
+                    write(property, property.field.get(bean));
+                }
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private void write(Property property, Object value) throws IOException {
+            switch (property.kind) {
+            case DOUBLE:
+                out.writeBoolean(value != null);
+                if (value != null) {
+                    out.writeDouble((Double) value);
+                }
+                break;
+            case INTEGER:
+                out.writeBoolean(value != null);
+                if (value != null) {
+                    out.writeInt((Integer) value);
+                }
+                break;
+            case STRING:
+                writeString((String) value);
+                break;
+            case BEAN:
+                out.writeBoolean(value != null);
+                if (value != null) {
+                    write(value);
+                }
+                break;
+            case BEAN_LIST:
+            case STRING_LIST:
+                final List<?> list = (List<?>) value;
+                out.writeInt(list == null ? NULL : list.size());
+                if (list != null) {
+                    for (Object element : list) {
+                        if (property.kind == Kind.BEAN_LIST) {
+                            write(element);
+                        } else if (element instanceof String) {
+                            writeString((String) element);
+                        } else {
+                            throw new IllegalArgumentException("unsupported content " + element + " in field "
+                                    + property.field);
+                        }
+                    }
+                }
+                break;
+            default:
+                throw new IllegalStateException("unknown kind " + property.kind);
+            }
+        }
+
+        private void writeString(String value) throws IOException {
+            if (value == null) {
+                out.writeInt(NULL);
+                return;
+            }
+            final Integer index = stringIndices.get(value);
+            if (index != null) {
+                out.writeInt(index);
+                return;
+            }
+            final int newIndex = stringIndices.size();
+            stringIndices.put(value, newIndex);
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(newIndex);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    final class Decoder {
+
+        private final ByteBuffer buffer;
+
+        private final List<String> strings = new ArrayList<>();
+
+        private Decoder(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        <T> T read(Class<T> beanClass) {
+            final Property[] properties = propertiesByClass.get(beanClass);
+            if (properties == null) {
+                throw new IllegalArgumentException("cannot decode " + beanClass.getName());
+            }
+            try {
+                final T bean = beanClass.newInstance();
+                for (Property property : properties) {
+                    property.field.set(bean, read(property));
+                }
+                return bean;
+            } catch (InstantiationException | IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private Object read(Property property) {
+            switch (property.kind) {
+            case DOUBLE:
+                return buffer.get() != 0 ? Double.valueOf(buffer.getDouble()) : null;
+            case INTEGER:
+                return buffer.get() != 0 ? Integer.valueOf(buffer.getInt()) : null;
+            case STRING:
+                return readString();
+            case BEAN:
+                return buffer.get() != 0 ? read(property.type) : null;
+            case BEAN_LIST:
+            case STRING_LIST:
+                final int size = buffer.getInt();
+                if (size == NULL) {
+                    return null;
+                }
+                final List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(property.kind == Kind.BEAN_LIST ? read(property.type) : readString());
+                }
+                return list;
+            default:
+                throw new IllegalStateException("unknown kind " + property.kind);
+            }
+        }
+
+        private String readString() {
+            final int index = buffer.getInt();
+            if (index == NULL) {
+                return null;
+            }
+            if (index < strings.size()) {
+                return strings.get(index);
+            }
+            if (index != strings.size()) {
+                throw new IllegalStateException("corrupt string table, unexpected index " + index);
+            }
+            final byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            final String value = new String(bytes, StandardCharsets.UTF_8);
+            strings.add(value);
+            return value;
+        }
+    }
+}
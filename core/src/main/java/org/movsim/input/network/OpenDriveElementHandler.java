@@ -0,0 +1,17 @@
+package org.movsim.input.network;
+
+import org.movsim.network.autogen.opendrive.OpenDRIVE.Controller;
+import org.movsim.network.autogen.opendrive.OpenDRIVE.Junction;
+import org.movsim.network.autogen.opendrive.OpenDRIVE.Road;
+
+/**
+ * Receives the elements of an OpenDrive network one by one in document order, see {@link OpenDriveReader}.
+ */
+interface OpenDriveElementHandler {
+
+    void addRoad(Road road);
+
+    void addController(Controller controller);
+
+    void addJunction(Junction junction);
+}
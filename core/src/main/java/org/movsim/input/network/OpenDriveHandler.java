@@ -1,13 +1,21 @@
 package org.movsim.input.network;
 
 import java.io.File;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import javax.annotation.CheckForNull;
 
 import org.movsim.network.autogen.opendrive.Lane;
 import org.movsim.network.autogen.opendrive.OpenDRIVE;
@@ -27,6 +35,7 @@ import org.movsim.roadmappings.RoadMapping;
 import org.movsim.roadmappings.RoadMappingPeer;
 import org.movsim.roadmappings.RoadMappingUtils;
 import org.movsim.simulator.MovsimConstants;
+import org.movsim.simulator.SimulationContext;
 import org.movsim.simulator.roadnetwork.LaneSegment;
 import org.movsim.simulator.roadnetwork.Lanes;
 import org.movsim.simulator.roadnetwork.Lanes.LaneSectionType;
@@ -35,7 +44,6 @@ import org.movsim.simulator.roadnetwork.Link;
 import org.movsim.simulator.roadnetwork.RoadNetwork;
 import org.movsim.simulator.roadnetwork.RoadSegment;
 import org.movsim.simulator.roadnetwork.RoadSegmentDirection;
-import org.movsim.simulator.roadnetwork.RoadTypeSpeeds;
 import org.movsim.simulator.roadnetwork.controller.GradientProfile;
 import org.movsim.simulator.roadnetwork.controller.RoadObject;
 import org.movsim.simulator.roadnetwork.controller.SpeedLimit;
@@ -47,74 +55,253 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Preconditions;
 
-public class OpenDriveHandler {
+/**
+ * Creates the road network from the elements of an OpenDrive network. The elements are passed one by one in document order,
+ * so the network can be built from a streamed file without keeping the whole document in memory, see {@link OpenDriveReader}.
+ * Only the links and lanes of the roads are kept until {@link #finish()} connects the roads.
+ * <p>
+ * If the project is configured for parallel execution (see {@link org.movsim.input.ProjectMetaData#getParallelism()}), the road
+ * mappings and road segments of the roads are built concurrently on a pool. The ids of the road segments and obstacles are
+ * reserved in document order and the road segments are added to the road network in document order, so the road network is
+ * the same as the one built serially.
+ * </p>
+ */
+public class OpenDriveHandler implements OpenDriveElementHandler {
     private static final Logger LOG = LoggerFactory.getLogger(OpenDriveHandler.class);
 
+    /** Limits the roads kept in memory while their road segments are built concurrently. */
+    private static final int PENDING_ROADS_PER_THREAD = 64;
+
     /** Mapping of signal-ids of single trafficlights to controller. */
     private final Map<String, Controller> signalIdsToController = new HashMap<>();
 
     /** Checks uniqueness of signal ids in <road> definitions. */
     private final Set<String> uniqueTrafficLightIdsInRoads = new HashSet<>();
 
+    /** Signals of the roads, the trafficlights are created when all controllers are known. */
+    private final List<RoadSignal> roadSignals = new ArrayList<>();
+
+    /** The roads by id in document order, reduced to the links and lanes needed to connect them. */
+    private final Map<String, Road> roadLinksById = new LinkedHashMap<>();
+
+    private final List<Junction> junctions = new ArrayList<>();
+
+    /** context providing the ids of the road segments and obstacles and the road type speeds */
+    private final SimulationContext context;
+
+    private final RoadNetwork roadNetwork;
+
+    /** builds the road segments concurrently, null for a serial build */
+    @CheckForNull
+    private final ForkJoinPool forkJoinPool;
+
+    /** The road segments in the making in document order. */
+    private final Deque<Future<RoadSegments>> pendingRoadSegments = new ArrayDeque<>();
+
+    OpenDriveHandler(SimulationContext context, RoadNetwork roadNetwork) {
+        this.context = Preconditions.checkNotNull(context);
+        this.roadNetwork = Preconditions.checkNotNull(roadNetwork);
+        final int parallelism = context.getProjectMetaData().getParallelism();
+        this.forkJoinPool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+    }
+
     /**
-     * Reads an OpenDrive format file, creating a road network.
+     * Reads an OpenDrive format file, creating a road network within the given simulation context. The whole file is
+     * unmarshalled before the road network is created, {@link OpenDriveReader} streams the file instead.
      * 
      * @return true if the road network file exists and was successfully parsed, false otherwise.
      */
-    public static boolean loadRoadNetwork(RoadNetwork roadNetwork, File file) {
+    public static boolean loadRoadNetwork(SimulationContext context, RoadNetwork roadNetwork, File file) {
         OpenDRIVE openDriveNetwork = InputLoader.unmarshallOpenDriveNetwork(file);
-        OpenDriveHandler openDriveHandlerJaxb = new OpenDriveHandler();
-        return openDriveHandlerJaxb.create(openDriveNetwork, roadNetwork);
+        OpenDriveHandler openDriveHandlerJaxb = new OpenDriveHandler(context, roadNetwork);
+        for (Road road : openDriveNetwork.getRoad()) {
+            openDriveHandlerJaxb.addRoad(road);
+        }
+        for (Controller controller : openDriveNetwork.getController()) {
+            openDriveHandlerJaxb.addController(controller);
+        }
+        for (Junction junction : openDriveNetwork.getJunction()) {
+            openDriveHandlerJaxb.addJunction(junction);
+        }
+        return openDriveHandlerJaxb.finish();
     }
 
-    private boolean create(OpenDRIVE openDriveNetwork, RoadNetwork roadNetwork) throws IllegalArgumentException {
-        createControllerMapping(openDriveNetwork, roadNetwork);
-        createRoadSegments(openDriveNetwork, roadNetwork);
-        joinRoads(openDriveNetwork, roadNetwork);
-        handleJunctions(openDriveNetwork, roadNetwork);
+    /**
+     * Creates the road segments of the road, concurrently if a pool is used. The road segments are connected by
+     * {@link #finish()}.
+     * 
+     * @param road
+     */
+    @Override
+    public void addRoad(final Road road) {
+        if (roadLinksById.containsKey(road.getId())) {
+            throw new IllegalArgumentException("road with ID=" + road.getId() + " not unique in xodr!");
+        }
+        roadLinksById.put(road.getId(), roadLinks(road));
+        final RoadSegments roadSegments = reserveIds(road);
+        if (forkJoinPool == null) {
+            createRoadSegments(road, roadSegments);
+            addRoadSegments(roadSegments);
+            return;
+        }
+        pendingRoadSegments.add(forkJoinPool.submit(new Callable<RoadSegments>() {
+            @Override
+            public RoadSegments call() {
+                createRoadSegments(road, roadSegments);
+                return roadSegments;
+            }
+        }));
+        if (pendingRoadSegments.size() > PENDING_ROADS_PER_THREAD * forkJoinPool.getParallelism()) {
+            addRoadSegments(pendingRoadSegments.poll());
+        }
+    }
+
+    @Override
+    public void addController(Controller controller) {
+        for (Control control : controller.getControl()) {
+            if (signalIdsToController.put(control.getSignalId(), controller) != null) {
+                throw new IllegalArgumentException("trafficlight id=" + control.getSignalId()
+                        + " is referenced more than once in xodr <controller> definitions.");
+            }
+        }
+    }
+
+    @Override
+    public void addJunction(Junction junction) {
+        junctions.add(junction);
+    }
+
+    /**
+     * Creates the trafficlights and connects the road segments after all elements have been added.
+     * 
+     * @return true
+     */
+    boolean finish() throws IllegalArgumentException {
+        while (!pendingRoadSegments.isEmpty()) {
+            addRoadSegments(pendingRoadSegments.poll());
+        }
+        if (forkJoinPool != null) {
+            forkJoinPool.shutdown();
+        }
+        LOG.info("created {} roadSegments.", roadNetwork.size());
+        LOG.info("registered {} traffic light signals in road network.", signalIdsToController.size());
+        createTrafficLights();
+        joinRoads();
+        handleJunctions();
         addDefaultSinksToUnconnectedRoad(roadNetwork);
         checkIfAllLanesAreConnected(roadNetwork);
         return true;
     }
 
-    private void createControllerMapping(OpenDRIVE openDriveNetwork, RoadNetwork roadNetwork) {
-        Preconditions.checkArgument(roadNetwork.size() == 0, "parse controllers first");
-        for (Controller controller : openDriveNetwork.getController()) {
-            for (Control control : controller.getControl()) {
-                if (signalIdsToController.put(control.getSignalId(), controller) != null) {
-                    throw new IllegalArgumentException("trafficlight id=" + control.getSignalId()
-                            + " is referenced more than once in xodr <controller> definitions.");
+    /**
+     * Reserves the ids of the road segments and obstacles of the road in the order in which they are created.
+     */
+    private RoadSegments reserveIds(Road road) {
+        int roadSegmentCount = 0;
+        int obstacleCount = 0;
+        for (LaneSectionType laneType : Lanes.LaneSectionType.values()) {
+            if (hasLaneSectionType(road, laneType)) {
+                roadSegmentCount++;
+                LaneSection laneSection = road.getLanes().getLaneSection().get(0);
+                List<Lane> lanes = (laneType == Lanes.LaneSectionType.LEFT) ? laneSection.getLeft().getLane()
+                        : laneSection.getRight().getLane();
+                for (Lane lane : lanes) {
+                    if (hasObstacle(lane)) {
+                        obstacleCount++;
+                    }
                 }
             }
         }
-        LOG.info("registered {} traffic light signals in road network.", signalIdsToController.size());
+        return new RoadSegments(context.reserveRoadSegmentIds(roadSegmentCount),
+                context.reserveVehicleIds(obstacleCount));
     }
 
-    private void createRoadSegments(OpenDRIVE openDriveNetwork, RoadNetwork roadNetwork) {
-        for (Road road : openDriveNetwork.getRoad()) {
-            boolean hasPeer = hasPeer(road);
-            if (hasPeer) {
-                LOG.info("road={} consists of peers", road.getId());
-            }
-            final RoadMapping roadMapping = createRoadMappings(road);
-            for (LaneSectionType laneType : Lanes.LaneSectionType.values()) {
-                if (hasLaneSectionType(road, laneType)) {
-                    RoadSegment roadSegment = createRoadSegment(laneType, road, hasPeer, roadMapping);
-                    if (roadSegment == null) {
-                        throw new IllegalStateException("could not create roadSegment for road=" + road.getId());
-                    }
-                    roadNetwork.add(roadSegment);
-                    LOG.info("created roadSegment={} with laneCount={}", roadSegment.userId(), roadSegment.laneCount());
+    /**
+     * Creates the road mapping and the road segments of the road. Only uses the given road and the reserved ids, so roads
+     * can be handled concurrently.
+     */
+    private void createRoadSegments(Road road, RoadSegments roadSegments) {
+        boolean hasPeer = hasPeer(road);
+        if (hasPeer) {
+            LOG.info("road={} consists of peers", road.getId());
+        }
+        final RoadMapping roadMapping = createRoadMappings(road);
+        for (LaneSectionType laneType : Lanes.LaneSectionType.values()) {
+            if (hasLaneSectionType(road, laneType)) {
+                RoadSegment roadSegment = createRoadSegment(laneType, road, hasPeer, roadMapping, roadSegments);
+                if (roadSegment == null) {
+                    throw new IllegalStateException("could not create roadSegment for road=" + road.getId());
                 }
+                roadSegments.roadSegments.add(roadSegment);
+                LOG.info("created roadSegment={} with laneCount={}", roadSegment.userId(), roadSegment.laneCount());
+            }
+        }
+        if (hasPeer) {
+            RoadSegment roadSegmentLeft = roadSegments.roadSegments.get(0);
+            RoadSegment roadSegmentRight = roadSegments.roadSegments.get(1);
+            roadSegmentLeft.setPeerRoadSegment(roadSegmentRight);
+            roadSegmentRight.setPeerRoadSegment(roadSegmentLeft);
+        }
+    }
+
+    private void addRoadSegments(Future<RoadSegments> future) {
+        try {
+            addRoadSegments(future.get());
+        } catch (InterruptedException e) {
+            forkJoinPool.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while creating the road segments");
+        } catch (ExecutionException e) {
+            forkJoinPool.shutdownNow();
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
             }
-            if (hasPeer) {
-                RoadSegment roadSegmentRight = getRoadSegment(roadNetwork, road.getId(), LaneSectionType.RIGHT);
-                RoadSegment roadSegmentLeft = getRoadSegment(roadNetwork, road.getId(), LaneSectionType.LEFT);
-                roadSegmentLeft.setPeerRoadSegment(roadSegmentRight);
-                roadSegmentRight.setPeerRoadSegment(roadSegmentLeft);
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
             }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private void addRoadSegments(RoadSegments roadSegments) {
+        for (RoadSegment roadSegment : roadSegments.roadSegments) {
+            roadNetwork.add(roadSegment);
+        }
+        for (RoadSignal roadSignal : roadSegments.roadSignals) {
+            // assure uniqueness of signal id for whole network
+            boolean added = uniqueTrafficLightIdsInRoads.add(roadSignal.signal.getId());
+            if (!added) {
+                throw new IllegalArgumentException("trafficlight signal with id=" + roadSignal.signal.getId()
+                        + " is not unique in xodr network definition.");
+            }
+            // the controllers follow the roads in xodr, see createTrafficLights
+            roadSignals.add(roadSignal);
         }
-        LOG.info("created {} roadSegments.", roadNetwork.size());
+    }
+
+    /**
+     * Returns a road with the id, link and lanes of the given road only, the geometry, objects and signals are not needed
+     * after the road segments have been created.
+     */
+    private static Road roadLinks(Road road) {
+        Road roadLinks = new Road();
+        roadLinks.setId(road.getId());
+        roadLinks.setLink(road.getLink());
+        roadLinks.setLanes(road.getLanes());
+        return roadLinks;
+    }
+
+    private void createTrafficLights() {
+        for (RoadSignal roadSignal : roadSignals) {
+            Signal signal = roadSignal.signal;
+            Controller controller = signalIdsToController.get(signal.getId());
+            if (controller == null) {
+                throw new IllegalArgumentException("trafficlight signal with id=" + signal.getId()
+                        + " is not referenced in xodr <controller> definition.");
+            }
+            roadSignal.roadSegment.roadObjects().add(new TrafficLight(signal, controller, roadSignal.roadSegment));
+        }
+        roadSignals.clear();
     }
 
     private static boolean hasPeer(Road road) {
@@ -140,7 +327,7 @@ public class OpenDriveHandler {
     }
 
     private RoadSegment createRoadSegment(LaneSectionType laneType, Road road, boolean hasPeer,
-            RoadMapping roadMapping) {
+            RoadMapping roadMapping, RoadSegments roadSegments) {
 
         Preconditions.checkArgument(road.getLanes().getLaneSection().size() == 1,
                 "cannot handle more than one laneSection in roadId=" + road.getId());
@@ -156,9 +343,10 @@ public class OpenDriveHandler {
         // final RoadMapping roadMapping = createRoadMapping(laneType, road);
 
         final RoadSegment roadSegment = laneType.isReverseDirection()
-                ? new RoadSegment(roadMapping.roadLength(), lanes.size(), new RoadMappingPeer(roadMapping),
-                        RoadSegmentDirection.BACKWARD)
-                : new RoadSegment(roadMapping.roadLength(), lanes.size(), roadMapping, RoadSegmentDirection.FORWARD);
+                ? new RoadSegment(roadSegments.nextRoadSegmentId++, roadMapping.roadLength(), lanes.size(),
+                        new RoadMappingPeer(roadMapping), RoadSegmentDirection.BACKWARD)
+                : new RoadSegment(roadSegments.nextRoadSegmentId++, roadMapping.roadLength(), lanes.size(),
+                        roadMapping, RoadSegmentDirection.FORWARD);
 
         roadSegment.setUserId(getRoadSegmentId(road.getId(), laneType, hasPeer));
         roadSegment.setUserRoadname(road.getName());
@@ -167,8 +355,11 @@ public class OpenDriveHandler {
                 LOG.error("Movsim considers only first entry of the road.type and ignores the others defined for road="
                         + road.getId());
             }
-            double freeFlowSpeed = RoadTypeSpeeds.INSTANCE.getFreeFlowSpeed(road.getType().iterator().next().getType());
+            double freeFlowSpeed = context.getRoadTypeSpeeds().getFreeFlowSpeed(
+                    road.getType().iterator().next().getType());
             roadSegment.setFreeFlowSpeed((int) freeFlowSpeed);
+        } else {
+            roadSegment.setFreeFlowSpeed(context.getRoadTypeSpeeds().getDefaultFreeFlowSpeed());
         }
 
         if (road.isSetElevationProfile()) {
@@ -180,7 +371,7 @@ public class OpenDriveHandler {
 
         for (Lane lane : lanes) {
             int laneIndex = laneIdToLaneIndex(lane.getId());
-            setLaneType(laneIndex, lane, roadSegment);
+            setLaneType(laneIndex, lane, roadSegment, roadSegments);
             // speed is definied lane-wise, but movsim handles speed limits on road segment level, further
             // entries overwrite previous entry
             if (lane.isSetSpeed()) {
@@ -254,17 +445,6 @@ public class OpenDriveHandler {
                     // ignore signal for other driving direction
                     continue;
                 }
-                // assure uniqueness of signal id for whole network
-                boolean added = uniqueTrafficLightIdsInRoads.add(signal.getId());
-                if (!added) {
-                    throw new IllegalArgumentException("trafficlight signal with id=" + signal.getId()
-                            + " is not unique in xodr network definition.");
-                }
-                Controller controller = signalIdsToController.get(signal.getId());
-                if (controller == null) {
-                    throw new IllegalArgumentException("trafficlight signal with id=" + signal.getId()
-                            + " is not referenced in xodr <controller> definition.");
-                }
                 if (laneType.isReverseDirection()) {
                     double originalS = signal.getS();
                     signal.setS(roadSegment.roadLength() - originalS);
@@ -273,8 +453,7 @@ public class OpenDriveHandler {
                                     + signal.getS(),
                             signal.getId(), originalS);
                 }
-                // roadSegment.addTrafficLight(new TrafficLight(signal, controller, roadSegment));
-                roadSegment.roadObjects().add(new TrafficLight(signal, controller, roadSegment));
+                roadSegments.roadSignals.add(new RoadSignal(signal, roadSegment));
             }
         }
 
@@ -397,18 +576,25 @@ public class OpenDriveHandler {
         }
     }
 
-    private static void setLaneType(int laneNumber, Lane lane, RoadSegment roadSegment) {
+    private static boolean hasObstacle(Lane lane) {
+        return lane.getType().equals(Lanes.Type.ENTRANCE.getOpenDriveIdentifier())
+                || lane.getType().equals(Lanes.Type.RESTRICTED.getOpenDriveIdentifier());
+    }
+
+    private void setLaneType(int laneNumber, Lane lane, RoadSegment roadSegment, RoadSegments roadSegments) {
         LOG.debug("laneNumber={}, roadSegmentId={}", laneNumber, roadSegment.userId());
         if (lane.getType().equals(Lanes.Type.TRAFFIC.getOpenDriveIdentifier())) {
             roadSegment.setLaneType(laneNumber, Lanes.Type.TRAFFIC);
         } else if (lane.getType().equals(Lanes.Type.ENTRANCE.getOpenDriveIdentifier())) {
             roadSegment.setLaneType(laneNumber, Lanes.Type.ENTRANCE);
-            Vehicle obstacle = new Vehicle(roadSegment.roadLength(), 0.0, laneNumber, 1.0, 1.0);
+            Vehicle obstacle = new Vehicle(context, roadSegments.nextObstacleId++, roadSegment.roadLength(), 0.0,
+                    laneNumber, 1.0, 1.0);
             obstacle.setType(Vehicle.Type.OBSTACLE);
             roadSegment.addObstacle(obstacle);
         } else if (lane.getType().equals(Lanes.Type.RESTRICTED.getOpenDriveIdentifier())) {
             roadSegment.setLaneType(laneNumber, Lanes.Type.RESTRICTED);
-            Vehicle obstacle = new Vehicle(roadSegment.roadLength(), 0.0, laneNumber, 1.0, 1.0);
+            Vehicle obstacle = new Vehicle(context, roadSegments.nextObstacleId++, roadSegment.roadLength(), 0.0,
+                    laneNumber, 1.0, 1.0);
             obstacle.setType(Vehicle.Type.OBSTACLE);
             roadSegment.addObstacle(obstacle);
         } else if (lane.getType().equals(Lanes.Type.EXIT.getOpenDriveIdentifier())) {
@@ -422,13 +608,10 @@ public class OpenDriveHandler {
 
     /**
      * Iterates through all the roads joining them up according to the links
-     * 
-     * @param openDriveNetwork
-     * @param roadNetwork
      */
-    private static void joinRoads(OpenDRIVE openDriveNetwork, RoadNetwork roadNetwork) {
+    private void joinRoads() {
         Preconditions.checkArgument(roadNetwork.size() > 0, "no roads defined in roadNetwork");
-        for (Road road : openDriveNetwork.getRoad()) {
+        for (Road road : roadLinksById.values()) {
             if (!road.isSetLink()) {
                 LOG.info("road=" + road.getId() + " without links to other roads");
                 // addDefaultSinks(roadNetwork, road);
@@ -514,12 +697,11 @@ public class OpenDriveHandler {
                 && road.getLink().getPredecessor().getElementType().equals(RoadLinkElementType.ROAD.xodrIdentifier());
     }
 
-    private static void handleJunctions(OpenDRIVE openDriveNetwork, RoadNetwork roadNetwork) {
-        Map<String, Road> roadById = createLookupMap(openDriveNetwork.getRoad());
-        for (Junction junction : openDriveNetwork.getJunction()) {
+    private void handleJunctions() {
+        for (Junction junction : junctions) {
             for (Connection connection : junction.getConnection()) {
                 for (LaneLink laneLink : connection.getLaneLink()) {
-                    Road road = roadById.get(connection.getConnectingRoad());
+                    Road road = roadLinksById.get(connection.getConnectingRoad());
                     RoadSegment incomingRoadSegment = getRoadSegment(roadNetwork, connection.getIncomingRoad(),
                             laneLink.getFrom());
                     RoadSegment connectingRoadSegment = getRoadSegment(roadNetwork, connection.getConnectingRoad(),
@@ -577,17 +759,6 @@ public class OpenDriveHandler {
         }
     }
 
-    private static Map<String, Road> createLookupMap(Collection<Road> roads) {
-        Map<String, Road> idToRoad = new HashMap<>();
-        for (Road road : roads) {
-            Road other = idToRoad.put(road.getId(), road);
-            if (other != null) {
-                throw new IllegalArgumentException("road with ID=" + road.getId() + " not unique in xodr!");
-            }
-        }
-        return idToRoad;
-    }
-
     private static boolean roadSuccessorIsJunction(Junction junction, Road road) {
         return road.getLink().isSetSuccessor()
                 && road.getLink().getSuccessor().getElementType().equals(RoadLinkElementType.JUNCTION.xodrIdentifier())
@@ -630,4 +801,27 @@ public class OpenDriveHandler {
         return Math.abs(xodrLaneId);
     }
 
+    /** The road segments and signals of a road, created with the ids reserved for the road. */
+    private static final class RoadSegments {
+        private final List<RoadSegment> roadSegments = new ArrayList<>(2);
+        private final List<RoadSignal> roadSignals = new ArrayList<>();
+        private int nextRoadSegmentId;
+        private long nextObstacleId;
+
+        RoadSegments(int firstRoadSegmentId, long firstObstacleId) {
+            this.nextRoadSegmentId = firstRoadSegmentId;
+            this.nextObstacleId = firstObstacleId;
+        }
+    }
+
+    private static final class RoadSignal {
+        private final Signal signal;
+        private final RoadSegment roadSegment;
+
+        RoadSignal(Signal signal, RoadSegment roadSegment) {
+            this.signal = signal;
+            this.roadSegment = roadSegment;
+        }
+    }
+
 }
@@ -1,16 +1,123 @@
 package org.movsim.input.network;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 
 import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
+import org.movsim.network.autogen.opendrive.OpenDRIVE.Controller;
+import org.movsim.network.autogen.opendrive.OpenDRIVE.Junction;
+import org.movsim.network.autogen.opendrive.OpenDRIVE.Road;
+import org.movsim.simulator.SimulationContext;
 import org.movsim.simulator.roadnetwork.RoadNetwork;
+import org.movsim.xml.InputLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.xml.sax.SAXException;
 
+/**
+ * Reads an OpenDrive network road by road. The file is streamed with StAX and only the current &lt;road&gt;,
+ * &lt;controller&gt; or &lt;junction&gt; element is unmarshalled and passed to the {@link OpenDriveHandler}, so the JAXB
+ * tree of the whole network is never built. The file is validated against the xsd in a separate streaming pass before.
+ * If an up-to-date {@link CompiledNetwork compiled network} exists for the file, the elements are read from it instead.
+ */
 public class OpenDriveReader {
 
-    public static boolean loadRoadNetwork(RoadNetwork roadNetwork, File xodrFile) throws JAXBException, SAXException {
-        return OpenDriveHandler.loadRoadNetwork(roadNetwork, xodrFile);
+    private static final Logger LOG = LoggerFactory.getLogger(OpenDriveReader.class);
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = XMLInputFactory.newInstance();
+
+    /**
+     * Reads an OpenDrive format file, creating a road network within the given simulation context. Creates the same road
+     * network as {@link OpenDriveHandler#loadRoadNetwork(SimulationContext, RoadNetwork, File)}.
+     *
+     * @return true if the road network file exists and was successfully parsed, false otherwise.
+     * @throws IllegalStateException
+     *             if the file cannot be read or is not valid
+     */
+    public static boolean loadRoadNetwork(SimulationContext context, RoadNetwork roadNetwork, File xodrFile)
+            throws JAXBException, SAXException {
+        OpenDriveHandler openDriveHandler = new OpenDriveHandler(context, roadNetwork);
+        if (!CompiledNetwork.read(xodrFile, openDriveHandler)) {
+            InputLoader.validateOpenDriveNetwork(xodrFile);
+            readElements(xodrFile, openDriveHandler);
+        }
+        return openDriveHandler.finish();
+    }
+
+    /**
+     * Streams the elements of the (validated) OpenDrive file to the handler.
+     *
+     * @throws IllegalStateException
+     *             if the file cannot be read
+     */
+    static void readElements(File xodrFile, OpenDriveElementHandler elementHandler) throws JAXBException {
+        try (InputStream inputStream = new FileInputStream(xodrFile)) {
+            XMLStreamReader reader = createStreamReader(inputStream);
+            try {
+                readElements(reader, elementHandler);
+            } finally {
+                reader.close();
+            }
+        } catch (IOException | XMLStreamException e) {
+            throw new IllegalStateException(e.toString());
+        }
+    }
+
+    private static XMLStreamReader createStreamReader(InputStream inputStream) throws XMLStreamException {
+        // the factory is thread-safe once configured, the readers are not
+        synchronized (XML_INPUT_FACTORY) {
+            return XML_INPUT_FACTORY.createXMLStreamReader(inputStream);
+        }
+    }
+
+    private static void readElements(XMLStreamReader reader, OpenDriveElementHandler elementHandler)
+            throws XMLStreamException, JAXBException {
+        final Unmarshaller unmarshaller = InputLoader.openDriveElementUnmarshaller();
+        reader.nextTag(); // <OpenDRIVE>
+        int countRoads = 0;
+        int event = reader.nextTag();
+        while (event == XMLStreamConstants.START_ELEMENT) {
+            switch (reader.getLocalName()) {
+            case "road":
+                elementHandler.addRoad(unmarshaller.unmarshal(reader, Road.class).getValue());
+                countRoads++;
+                break;
+            case "controller":
+                elementHandler.addController(unmarshaller.unmarshal(reader, Controller.class).getValue());
+                break;
+            case "junction":
+                elementHandler.addJunction(unmarshaller.unmarshal(reader, Junction.class).getValue());
+                break;
+            default:
+                // <header> and <station> are not used
+                skipElement(reader);
+            }
+            // the unmarshaller stops at the event following the end of the element
+            event = reader.isStartElement() || reader.isEndElement() ? reader.getEventType() : reader.nextTag();
+        }
+        LOG.info("read {} roads.", countRoads);
+    }
+
+    /** Skips the current element including its children, stops at the event following the end of the element. */
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+        reader.next();
     }
 
 }
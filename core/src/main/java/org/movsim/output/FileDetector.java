@@ -25,8 +25,8 @@
  */
 package org.movsim.output;
 
-import org.movsim.input.ProjectMetaData;
 import org.movsim.io.FileOutputBase;
+import org.movsim.simulator.SimulationContext;
 import org.movsim.simulator.roadnetwork.Lanes;
 import org.movsim.simulator.roadnetwork.controller.LoopDetector;
 import org.movsim.utilities.Units;
@@ -61,8 +61,10 @@ public class FileDetector extends FileOutputBase {
      *            the detector
      * @param laneCount
      */
-    public FileDetector(LoopDetector detector, String roadId, int laneCount, boolean loggingLanes) {
-        super(ProjectMetaData.getInstance().getOutputPath(), ProjectMetaData.getInstance().getProjectName());
+    public FileDetector(SimulationContext context, LoopDetector detector, String roadId, int laneCount,
+            boolean loggingLanes) {
+        super(context.getProjectMetaData().getOutputPath(), context.getProjectMetaData().getProjectName(),
+                context.getShutdownHooks());
         final int xDetectorInt = (int) detector.position();
         this.detector = detector;
         this.laneCount = laneCount;
@@ -28,6 +28,7 @@ package org.movsim.output;
 import org.movsim.autogen.TrafficLightStatus;
 import org.movsim.input.ProjectMetaData;
 import org.movsim.io.FileOutputBase;
+import org.movsim.simulator.SimulationContext;
 import org.movsim.simulator.roadnetwork.controller.TrafficLight;
 import org.movsim.simulator.roadnetwork.controller.TrafficLightController;
 import org.movsim.simulator.roadnetwork.controller.TrafficLightRecordDataCallback;
@@ -40,10 +41,15 @@ import com.google.common.base.Preconditions;
 public class FileTrafficLightControllerRecorder extends FileOutputBase implements TrafficLightRecordDataCallback {
 
     private static final String extensionFormat = ".controllerGroup_%s.firstSignal_%s.csv";
+
+    private final ProjectMetaData projectMetaData;
     private final int nTimestep;
 
-    public FileTrafficLightControllerRecorder(TrafficLightController controller, int nTimestep) {
-        super(ProjectMetaData.getInstance().getOutputPath(), ProjectMetaData.getInstance().getProjectName());
+    public FileTrafficLightControllerRecorder(SimulationContext context, TrafficLightController controller,
+            int nTimestep) {
+        super(context.getProjectMetaData().getOutputPath(), context.getProjectMetaData().getProjectName(),
+                context.getShutdownHooks());
+        this.projectMetaData = context.getProjectMetaData();
         Preconditions.checkArgument(!controller.groupId().isEmpty());
         Preconditions.checkArgument(!controller.firstSignalId().isEmpty());
         this.nTimestep = nTimestep;
@@ -70,7 +76,7 @@ public class FileTrafficLightControllerRecorder extends FileOutputBase implement
         if (iterationCount % nTimestep != 0) {
             return;
         }
-        String formattedTime = ProjectMetaData.getInstance().getFormatedTimeWithOffset(simulationTime);
+        String formattedTime = projectMetaData.getFormatedTimeWithOffset(simulationTime);
         writeData(simulationTime, formattedTime, trafficLights);
     }
 
@@ -28,6 +28,7 @@ package org.movsim.output;
 
 import org.movsim.input.ProjectMetaData;
 import org.movsim.io.FileOutputBase;
+import org.movsim.simulator.SimulationContext;
 import org.movsim.simulator.vehicles.Vehicle;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -42,15 +43,19 @@ public class FileTrafficSinkData extends FileOutputBase implements
             + "     t[s], timeFormatted, totalVehiclesRemoved, lane, route, vehicleId, vehicleLabel, vehicleUserData ...\n";
     private static final String outputFormat = "%10.2f, %s, %6d, %2d, %s, %s, %s, %s %n";
 
-    public FileTrafficSinkData(String roadId) {
-        super(ProjectMetaData.getInstance().getOutputPath(), ProjectMetaData.getInstance().getProjectName());
+    private final ProjectMetaData projectMetaData;
+
+    public FileTrafficSinkData(SimulationContext context, String roadId) {
+        super(context.getProjectMetaData().getOutputPath(), context.getProjectMetaData().getProjectName(),
+                context.getShutdownHooks());
+        this.projectMetaData = context.getProjectMetaData();
         writer = createWriter(String.format(extensionFormat, roadId));
         writer.printf(outputHeading);
     }
 
     @Override
     public void recordData(double simulationTime, int totalVehiclesRemoved, Vehicle vehicle) {
-        String formattedTime = ProjectMetaData.getInstance().getFormatedTimeWithOffset(simulationTime);
+        String formattedTime = projectMetaData.getFormatedTimeWithOffset(simulationTime);
         writer.printf(outputFormat, simulationTime, formattedTime, totalVehiclesRemoved, vehicle.lane(),
                 vehicle.getRouteName(), vehicle.getId(), vehicle.getLabel(),
                 vehicle.getUserData().getString(SEPARATOR_CHAR));
@@ -25,8 +25,8 @@
  */
 package org.movsim.output;
 
-import org.movsim.input.ProjectMetaData;
 import org.movsim.io.FileOutputBase;
+import org.movsim.simulator.SimulationContext;
 import org.movsim.simulator.roadnetwork.boundaries.TrafficSourceMacro;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -50,8 +50,9 @@ public class FileTrafficSourceData extends FileOutputBase implements TrafficSour
      * @param roadId
      * 
      */
-    public FileTrafficSourceData(String roadId) {
-        super(ProjectMetaData.getInstance().getOutputPath(), ProjectMetaData.getInstance().getProjectName());
+    public FileTrafficSourceData(SimulationContext context, String roadId) {
+        super(context.getProjectMetaData().getOutputPath(), context.getProjectMetaData().getProjectName(),
+                context.getShutdownHooks());
         writer = createWriter(String.format(extensionFormat, roadId));
         writer.printf(outputHeading);
     }
@@ -45,10 +45,12 @@ import org.movsim.output.route.FileTrajectories;
 import org.movsim.output.route.IndividualTravelTimesOnRoute;
 import org.movsim.output.route.SpatioTemporal;
 import org.movsim.output.route.TravelTimeOnRoute;
+import org.movsim.simulator.SimulationContext;
 import org.movsim.simulator.SimulationTimeStep;
 import org.movsim.simulator.observer.ServiceProvider;
 import org.movsim.simulator.observer.ServiceProviders;
 import org.movsim.simulator.roadnetwork.RoadNetwork;
+import org.movsim.simulator.roadnetwork.RouteMetrics;
 import org.movsim.simulator.roadnetwork.routing.Route;
 import org.movsim.simulator.roadnetwork.routing.Routing;
 import org.movsim.simulator.vehicles.VehicleFactory;
@@ -83,13 +85,19 @@ public class SimulationOutput implements SimulationTimeStep {
 
     private final Routing routing;
 
-    public SimulationOutput(double simulationTimestep, boolean writeOutput, OutputConfiguration outputConfiguration,
-            RoadNetwork roadNetwork, Routing routing, VehicleFactory vehicleFactory,
-            @Nullable ServiceProviders serviceProviders) {
+    private final RouteMetrics routeMetrics;
 
+    private final SimulationContext context;
+
+    public SimulationOutput(SimulationContext context, double simulationTimestep, boolean writeOutput,
+            OutputConfiguration outputConfiguration, RoadNetwork roadNetwork, Routing routing,
+            RouteMetrics routeMetrics, VehicleFactory vehicleFactory, @Nullable ServiceProviders serviceProviders) {
+
+        this.context = Preconditions.checkNotNull(context);
         Preconditions.checkNotNull(outputConfiguration);
         this.roadNetwork = Preconditions.checkNotNull(roadNetwork);
         this.routing = Preconditions.checkNotNull(routing);
+        this.routeMetrics = Preconditions.checkNotNull(routeMetrics);
         this.serviceProviders = serviceProviders;
 
         initFloatingCars(writeOutput, outputConfiguration);
@@ -109,8 +117,8 @@ public class SimulationOutput implements SimulationTimeStep {
             final OutputConfiguration outputConfiguration) {
         for (final ConsumptionCalculation fuelRouteInput : outputConfiguration.getConsumptionCalculation()) {
             final Route route = getCheckedRoute(fuelRouteInput.getRoute());
-            final ConsumptionOnRoute consumption = new ConsumptionOnRoute(simulationTimestep, fuelRouteInput,
-                    roadNetwork, route, writeOutput);
+            final ConsumptionOnRoute consumption = new ConsumptionOnRoute(context, simulationTimestep,
+                    fuelRouteInput, roadNetwork, routeMetrics, route, writeOutput);
             consumptionOnRoutes.put(route, consumption);
         }
     }
@@ -119,8 +127,8 @@ public class SimulationOutput implements SimulationTimeStep {
             final OutputConfiguration outputConfiguration) {
         for (final TravelTimes travelTimeInput : outputConfiguration.getTravelTimes()) {
             final Route route = getCheckedRoute(travelTimeInput.getRoute());
-            final TravelTimeOnRoute travelTime = new TravelTimeOnRoute(simulationTimestep, travelTimeInput, roadNetwork,
-                    route, writeOutput);
+            final TravelTimeOnRoute travelTime = new TravelTimeOnRoute(context, simulationTimestep, travelTimeInput,
+                    roadNetwork, routeMetrics, route, writeOutput);
             travelTimeOnRoutes.put(route, travelTime);
         }
     }
@@ -129,8 +137,8 @@ public class SimulationOutput implements SimulationTimeStep {
             OutputConfiguration outputConfiguration) {
         for (IndividualTravelTimes input : outputConfiguration.getIndividualTravelTimes()) {
             Route route = getCheckedRoute(input.getRoute());
-            IndividualTravelTimesOnRoute travelTimes = new IndividualTravelTimesOnRoute(simulationTimestep, roadNetwork,
-                    route, writeOutput);
+            IndividualTravelTimesOnRoute travelTimes = new IndividualTravelTimesOnRoute(context, simulationTimestep,
+                    roadNetwork, route, writeOutput);
             individualTravelTimeOnRoutes.put(route, travelTimes);
         }
     }
@@ -143,7 +151,7 @@ public class SimulationOutput implements SimulationTimeStep {
                     LOG.warn("trajectory output for route \"{}\" already defined!", route.getName());
                     continue;
                 }
-                filesTrajectories.put(route, new FileTrajectories(traj, route));
+                filesTrajectories.put(route, new FileTrajectories(context, traj, route));
             }
         }
     }
@@ -152,7 +160,7 @@ public class SimulationOutput implements SimulationTimeStep {
         for (final SpatioTemporalConfiguration spatioTemporalInput : outputConfiguration
                 .getSpatioTemporalConfiguration()) {
             final Route route = getCheckedRoute(spatioTemporalInput.getRoute());
-            final SpatioTemporal spatioTemporal = new SpatioTemporal(spatioTemporalInput.getDx(),
+            final SpatioTemporal spatioTemporal = new SpatioTemporal(context, spatioTemporalInput.getDx(),
                     spatioTemporalInput.getDt(), roadNetwork, route, writeOutput);
             spatioTemporals.add(spatioTemporal);
         }
@@ -161,7 +169,7 @@ public class SimulationOutput implements SimulationTimeStep {
     private void initFloatingCars(boolean writeOutput, OutputConfiguration outputInput) {
         for (FloatingCarOutput floatingCarOutput : outputInput.getFloatingCarOutput()) {
             Route route = getCheckedRoute(floatingCarOutput.getRoute());
-            floatingCarOutputs.add(new FloatingCars(floatingCarOutput, route, writeOutput));
+            floatingCarOutputs.add(new FloatingCars(context, floatingCarOutput, route, writeOutput));
         }
     }
 
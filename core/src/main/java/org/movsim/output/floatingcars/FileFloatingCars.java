@@ -28,8 +28,8 @@ package org.movsim.output.floatingcars;
 import java.io.PrintWriter;
 import java.util.Map;
 
-import org.movsim.input.ProjectMetaData;
 import org.movsim.io.FileOutputBase;
+import org.movsim.simulator.SimulationContext;
 import org.movsim.simulator.roadnetwork.routing.Route;
 import org.movsim.simulator.vehicles.PhysicalQuantities;
 import org.movsim.simulator.vehicles.Vehicle;
@@ -62,8 +62,9 @@ class FileFloatingCars extends FileOutputBase {
      * @param floatingCars
      *            the floating cars
      */
-    FileFloatingCars() {
-        super(ProjectMetaData.getInstance().getOutputPath(), ProjectMetaData.getInstance().getProjectName());
+    FileFloatingCars(SimulationContext context) {
+        super(context.getProjectMetaData().getOutputPath(), context.getProjectMetaData().getProjectName(),
+                context.getShutdownHooks());
         String regex = baseFilename + extensionRegex;
         FileUtils.deleteFileList(path, regex);
     }
@@ -32,6 +32,7 @@ import java.util.HashSet;
 import java.util.Map;
 
 import org.movsim.autogen.FloatingCarOutput;
+import org.movsim.simulator.SimulationContext;
 import org.movsim.simulator.SimulationTimeStep;
 import org.movsim.simulator.roadnetwork.RoadSegment;
 import org.movsim.simulator.roadnetwork.routing.Route;
@@ -63,11 +64,13 @@ public class FloatingCars implements SimulationTimeStep {
     /**
      * Constructor.
      * 
+     * @param context
      * @param floatingCarOutput
      * @param route
      * @param writeFileOutput
      */
-    public FloatingCars(FloatingCarOutput floatingCarOutput, Route route, boolean writeFileOutput) {
+    public FloatingCars(SimulationContext context, FloatingCarOutput floatingCarOutput, Route route,
+            boolean writeFileOutput) {
         Preconditions.checkNotNull(route);
         this.nDtOut = floatingCarOutput.getNTimestep();
         this.randomFraction = (floatingCarOutput.getRandomFraction() < 0 || floatingCarOutput.getRandomFraction() > 1) ? 0
@@ -77,7 +80,7 @@ public class FloatingCars implements SimulationTimeStep {
         for (org.movsim.autogen.FloatingCar fc : floatingCarOutput.getFloatingCar()) {
             floatingCarVehicleNumbers.add(Integer.valueOf(fc.getNumber()));
         }
-        fileFloatingCars = (writeFileOutput) ? new FileFloatingCars() : null;
+        fileFloatingCars = (writeFileOutput) ? new FileFloatingCars(context) : null;
         printWriters = new HashMap<>(149, 0.75f);
     }
 
@@ -1,13 +1,16 @@
 package org.movsim.output.route;
 
 import org.movsim.autogen.ConsumptionCalculation;
+import org.movsim.simulator.SimulationContext;
 import org.movsim.simulator.roadnetwork.RoadNetwork;
-import org.movsim.simulator.roadnetwork.RoadNetworkUtils;
+import org.movsim.simulator.roadnetwork.RouteMetrics;
 import org.movsim.simulator.roadnetwork.routing.Route;
 import org.movsim.utilities.ExponentialMovingAverage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Preconditions;
+
 public class ConsumptionOnRoute extends OutputOnRouteBase {
 
     /** The Constant LOG. */
@@ -27,22 +30,27 @@ public class ConsumptionOnRoute extends OutputOnRouteBase {
 
     private int numberOfVehicles;
 
-    public ConsumptionOnRoute(double simulationTimestep, ConsumptionCalculation fuelRouteInput,
-            RoadNetwork roadNetwork, Route route, boolean writeOutput) {
+    private final RouteMetrics routeMetrics;
+
+    public ConsumptionOnRoute(SimulationContext context, double simulationTimestep,
+            ConsumptionCalculation fuelRouteInput, RoadNetwork roadNetwork, RouteMetrics routeMetrics, Route route,
+            boolean writeOutput) {
         super(roadNetwork, route);
+        this.routeMetrics = Preconditions.checkNotNull(routeMetrics);
+        routeMetrics.register(route);
         this.tauEMA = fuelRouteInput.getTauEMA();
         this.beta = Math.exp(-simulationTimestep / tauEMA);
-        fileWriter = (writeOutput) ? new FileConsumptionOnRoute(fuelRouteInput, route) : null;
+        fileWriter = (writeOutput) ? new FileConsumptionOnRoute(context, fuelRouteInput, route) : null;
         totalConsumption = 0;
     }
 
     @Override
     public void timeStep(double dt, double simulationTime, long iterationCount) {
 
-        instantaneousConsumptionRate = RoadNetworkUtils.instantaneousFuelUsedLiters(route);
+        instantaneousConsumptionRate = routeMetrics.instantaneousFuelUsedLiters(route);
         totalConsumption += instantaneousConsumptionRate * dt;
 
-        numberOfVehicles = RoadNetworkUtils.vehicleCount(route);
+        numberOfVehicles = routeMetrics.vehicleCount(route);
 
         instConsumptionEMA = (simulationTime == 0) ? instantaneousConsumptionRate : ExponentialMovingAverage.calc(
                 instantaneousConsumptionRate, instConsumptionEMA, beta);
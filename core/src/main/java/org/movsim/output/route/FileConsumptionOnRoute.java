@@ -1,9 +1,9 @@
 package org.movsim.output.route;
 
 import org.movsim.autogen.ConsumptionCalculation;
-import org.movsim.input.ProjectMetaData;
 import org.movsim.io.FileOutputBase;
 import org.movsim.simulator.MovsimConstants;
+import org.movsim.simulator.SimulationContext;
 import org.movsim.simulator.roadnetwork.routing.Route;
 
 import com.google.common.base.Preconditions;
@@ -23,8 +23,9 @@ public class FileConsumptionOnRoute extends FileOutputBase {
 
     private final ConsumptionCalculation consumptionConfig;
 
-    public FileConsumptionOnRoute(ConsumptionCalculation fuelRouteInput, Route route) {
-        super(ProjectMetaData.getInstance().getOutputPath(), ProjectMetaData.getInstance().getProjectName());
+    public FileConsumptionOnRoute(SimulationContext context, ConsumptionCalculation fuelRouteInput, Route route) {
+        super(context.getProjectMetaData().getOutputPath(), context.getProjectMetaData().getProjectName(),
+                context.getShutdownHooks());
         this.consumptionConfig = Preconditions.checkNotNull(fuelRouteInput);
         lastUpdateTime = 0;
         writer = createWriter(String.format(extensionFormat, route.getName()));
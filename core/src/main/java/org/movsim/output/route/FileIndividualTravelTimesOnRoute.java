@@ -1,7 +1,7 @@
 package org.movsim.output.route;
 
-import org.movsim.input.ProjectMetaData;
 import org.movsim.io.FileOutputBase;
+import org.movsim.simulator.SimulationContext;
 import org.movsim.simulator.roadnetwork.routing.Route;
 import org.movsim.simulator.vehicles.Vehicle;
 import org.movsim.utilities.Units;
@@ -14,8 +14,9 @@ public class FileIndividualTravelTimesOnRoute extends FileOutputBase {
             "entryTime[s]", "exitTime[s]", "traveltime[s]", "meanSpeed[km/h]", "VehicleID", "VehicleLabel");
     private static final String outputFormat = "%10.2f, %10.2f, %10.2f, %10.2f, %d, %s %n";
 
-    public FileIndividualTravelTimesOnRoute(Route route) {
-        super(ProjectMetaData.getInstance().getOutputPath(), ProjectMetaData.getInstance().getProjectName());
+    public FileIndividualTravelTimesOnRoute(SimulationContext context, Route route) {
+        super(context.getProjectMetaData().getOutputPath(), context.getProjectMetaData().getProjectName(),
+                context.getShutdownHooks());
         writer = createWriter(String.format(extensionFormat, route.getName()));
         writer.printf(outputHeading);
         writer.flush();
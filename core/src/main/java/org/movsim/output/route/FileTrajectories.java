@@ -29,8 +29,10 @@ import org.movsim.autogen.Trajectories;
 import org.movsim.input.ProjectMetaData;
 import org.movsim.io.FileOutputBase;
 import org.movsim.simulator.MovsimConstants;
+import org.movsim.simulator.SimulationContext;
 import org.movsim.simulator.SimulationTimeStep;
 import org.movsim.simulator.roadnetwork.LaneSegment;
+import org.movsim.simulator.roadnetwork.NeighbourRef;
 import org.movsim.simulator.roadnetwork.RoadSegment;
 import org.movsim.simulator.roadnetwork.routing.Route;
 import org.movsim.simulator.vehicles.Vehicle;
@@ -52,22 +54,28 @@ public class FileTrajectories extends FileOutputBase implements SimulationTimeSt
     /** The Constant LOG. */
     private final static Logger LOG = LoggerFactory.getLogger(FileTrajectories.class);
 
+    private final ProjectMetaData projectMetaData;
+
     private final double positionIntervalStart;
     private final double positionIntervalEnd;
     private double time;
     private double lastUpdateTime = 0;
     private final Route route;
+    private final NeighbourRef frontRef = new NeighbourRef();
 
     private final Trajectories traj;
 
     /**
      * Instantiates a new trajectories.
      * 
+     * @param context
      * @param traj
      *            the trajectories input
      */
-    public FileTrajectories(Trajectories traj, Route route) {
-        super(ProjectMetaData.getInstance().getOutputPath(), ProjectMetaData.getInstance().getProjectName());
+    public FileTrajectories(SimulationContext context, Trajectories traj, Route route) {
+        super(context.getProjectMetaData().getOutputPath(), context.getProjectMetaData().getProjectName(),
+                context.getShutdownHooks());
+        this.projectMetaData = context.getProjectMetaData();
         this.traj = Preconditions.checkNotNull(traj);
         this.route = Preconditions.checkNotNull(route);
         positionIntervalStart = 0;
@@ -94,7 +102,7 @@ public class FileTrajectories extends FileOutputBase implements SimulationTimeSt
             }
             if ((time - lastUpdateTime + MovsimConstants.SMALL_VALUE) >= traj.getDt()) {
                 lastUpdateTime = time;
-                String formattedTime = ProjectMetaData.getInstance().getFormatedTimeWithOffset(simulationTime);
+                String formattedTime = projectMetaData.getFormatedTimeWithOffset(simulationTime);
                 writeTrajectories(formattedTime);
             }
         }
@@ -120,8 +128,9 @@ public class FileTrajectories extends FileOutputBase implements SimulationTimeSt
      * @param roadSegment
      */
     private void writeTrajectories(String formattedTime) {
-        double positionOnRoute = 0.0;
-        for (final RoadSegment roadSegment : route) {
+        for (int i = 0, size = route.size(); i < size; i++) {
+            final RoadSegment roadSegment = route.get(i);
+            final double positionOnRoute = route.getStartPosition(i);
             for (LaneSegment laneSegment : roadSegment.laneSegments()) {
                 for (final Vehicle vehicle : laneSegment) {
                     if (vehicle.type() == Vehicle.Type.OBSTACLE) {
@@ -130,12 +139,12 @@ public class FileTrajectories extends FileOutputBase implements SimulationTimeSt
                     if (!traj.isSetRandomFraction() || vehicle.getRandomFix() < traj.getRandomFraction()) {
                         if (vehicle.getFrontPosition() >= positionIntervalStart
                                 && vehicle.getFrontPosition() <= positionIntervalEnd) {
-                            writeVehicleData(vehicle, positionOnRoute, laneSegment.frontVehicle(vehicle), formattedTime);
+                            writeVehicleData(vehicle, positionOnRoute, laneSegment.frontNeighbour(vehicle, frontRef),
+                                    formattedTime);
                         }
                     }
                 }
             }
-            positionOnRoute += roadSegment.roadLength();
         }
     }
 
@@ -146,7 +155,7 @@ public class FileTrajectories extends FileOutputBase implements SimulationTimeSt
      * @param positionOnRoute
      * @param frontVehicle
      */
-    private void writeVehicleData(Vehicle me, double positionOnRoute, Vehicle frontVehicle, String formattedTime) {
+    private void writeVehicleData(Vehicle me, double positionOnRoute, NeighbourRef frontVehicle, String formattedTime) {
         final double pos = me.getFrontPosition() + positionOnRoute;
         final double s = (frontVehicle == null || frontVehicle.type() == Vehicle.Type.OBSTACLE) ? 0 : me
                 .getNetDistance(frontVehicle);
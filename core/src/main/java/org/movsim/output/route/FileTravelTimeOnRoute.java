@@ -1,9 +1,9 @@
 package org.movsim.output.route;
 
-import org.movsim.input.ProjectMetaData;
 import org.movsim.io.FileOutputBase;
 import org.movsim.output.route.TravelTimeOnRoute.TravelTime;
 import org.movsim.simulator.MovsimConstants;
+import org.movsim.simulator.SimulationContext;
 import org.movsim.simulator.roadnetwork.routing.Route;
 import org.movsim.utilities.Units;
 
@@ -20,8 +20,9 @@ public class FileTravelTimeOnRoute extends FileOutputBase {
 
     private double lastUpdateTime;
 
-    public FileTravelTimeOnRoute(double dtOut, Route route, String extension) {
-        super(ProjectMetaData.getInstance().getOutputPath(), ProjectMetaData.getInstance().getProjectName());
+    public FileTravelTimeOnRoute(SimulationContext context, double dtOut, Route route, String extension) {
+        super(context.getProjectMetaData().getOutputPath(), context.getProjectMetaData().getProjectName(),
+                context.getShutdownHooks());
         this.dtOutput = dtOut;
         lastUpdateTime = 0;
         writer = createWriter(String.format(extensionFormat, extension, route.getName()));
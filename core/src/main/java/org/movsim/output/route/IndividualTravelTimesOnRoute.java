@@ -4,6 +4,7 @@ import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
+import org.movsim.simulator.SimulationContext;
 import org.movsim.simulator.roadnetwork.RoadNetwork;
 import org.movsim.simulator.roadnetwork.RoadSegment;
 import org.movsim.simulator.roadnetwork.SignalPoint;
@@ -12,8 +13,6 @@ import org.movsim.simulator.vehicles.Vehicle;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.collect.Iterators;
-
 public class IndividualTravelTimesOnRoute extends OutputOnRouteBase {
 
     final static Logger LOG = LoggerFactory.getLogger(IndividualTravelTimesOnRoute.class);
@@ -27,16 +26,16 @@ public class IndividualTravelTimesOnRoute extends OutputOnRouteBase {
 
     private final FileIndividualTravelTimesOnRoute fileWriter;
 
-    public IndividualTravelTimesOnRoute(double simulationTimestep, RoadNetwork roadNetwork, Route route,
-            boolean writeOutput) {
+    public IndividualTravelTimesOnRoute(SimulationContext context, double simulationTimestep, RoadNetwork roadNetwork,
+            Route route, boolean writeOutput) {
         super(roadNetwork, route);
-        this.fileWriter = writeOutput ? new FileIndividualTravelTimesOnRoute(route) : null;
+        this.fileWriter = writeOutput ? new FileIndividualTravelTimesOnRoute(context, route) : null;
 
         RoadSegment firstRoadSegmentOnRoute = route.get(0);
         entrySignalPoint = new SignalPoint(0, firstRoadSegmentOnRoute);
         firstRoadSegmentOnRoute.signalPoints().add(entrySignalPoint);
 
-        RoadSegment lastRoadSegmentOnRoute = Iterators.getLast(route.iterator());
+        RoadSegment lastRoadSegmentOnRoute = route.get(route.size() - 1);
         exitSignalPoint = new SignalPoint(lastRoadSegmentOnRoute.roadLength(), lastRoadSegmentOnRoute);
         lastRoadSegmentOnRoute.signalPoints().add(exitSignalPoint);
     }
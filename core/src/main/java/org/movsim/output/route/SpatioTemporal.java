@@ -28,6 +28,7 @@ package org.movsim.output.route;
 import java.util.Comparator;
 import java.util.TreeSet;
 
+import org.movsim.simulator.SimulationContext;
 import org.movsim.simulator.roadnetwork.RoadNetwork;
 import org.movsim.simulator.roadnetwork.RoadSegment;
 import org.movsim.simulator.roadnetwork.routing.Route;
@@ -55,7 +56,8 @@ public class SpatioTemporal extends OutputOnRouteBase {
 
     private final FileSpatioTemporal fileWriter;
 
-    public SpatioTemporal(double dxOut, double dtOut, RoadNetwork roadNetwork, Route route, boolean writeOutput) {
+    public SpatioTemporal(SimulationContext context, double dxOut, double dtOut, RoadNetwork roadNetwork, Route route,
+            boolean writeOutput) {
         super(roadNetwork, route);
         this.dxOutput = dxOut;
         this.dtOutput = dtOut;
@@ -65,7 +67,7 @@ public class SpatioTemporal extends OutputOnRouteBase {
         macroSpeed = new double[size];
         macroAcceleration = new double[size];
 
-        fileWriter = writeOutput ? new FileSpatioTemporal(route.getName()) : null;
+        fileWriter = writeOutput ? new FileSpatioTemporal(context, route.getName()) : null;
     }
 
     @Override
@@ -124,8 +126,9 @@ public class SpatioTemporal extends OutputOnRouteBase {
             }
         });
 
-        double positionOnRoute = 0;
-        for (final RoadSegment roadSegment : route) {
+        for (int i = 0, size = route.size(); i < size; i++) {
+            final RoadSegment roadSegment = route.get(i);
+            final double positionOnRoute = route.getStartPosition(i);
             for (Vehicle veh : roadSegment) {
                 if (veh.type() == Type.OBSTACLE) {
                     continue;
@@ -133,7 +136,6 @@ public class SpatioTemporal extends OutputOnRouteBase {
                 double position = positionOnRoute + veh.getFrontPosition();
                 dataPoints.add(new SpatialTemporal(position, veh.getSpeed(), veh.getLength(), veh.getAcc()));
             }
-            positionOnRoute += roadSegment.roadLength();
         }
         return dataPoints;
     }
@@ -31,14 +31,17 @@ import java.util.Map;
 import javax.annotation.Nullable;
 
 import org.movsim.autogen.TravelTimes;
+import org.movsim.simulator.SimulationContext;
 import org.movsim.simulator.roadnetwork.RoadNetwork;
-import org.movsim.simulator.roadnetwork.RoadNetworkUtils;
 import org.movsim.simulator.roadnetwork.RoadNetworkUtils.TravelTimeType;
+import org.movsim.simulator.roadnetwork.RouteMetrics;
 import org.movsim.simulator.roadnetwork.routing.Route;
 import org.movsim.utilities.ExponentialMovingAverage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Preconditions;
+
 public class TravelTimeOnRoute extends OutputOnRouteBase {
 
     /** The Constant LOG. */
@@ -50,25 +53,30 @@ public class TravelTimeOnRoute extends OutputOnRouteBase {
 
     private final Map<TravelTimeType, TravelTime> travelTimes = new EnumMap<>(TravelTimeType.class);
 
-    public TravelTimeOnRoute(double simulationTimestep, TravelTimes travelTimeInput, RoadNetwork roadNetwork,
-            Route route, boolean writeOutput) {
+    private final RouteMetrics routeMetrics;
+
+    public TravelTimeOnRoute(SimulationContext context, double simulationTimestep, TravelTimes travelTimeInput,
+            RoadNetwork roadNetwork, RouteMetrics routeMetrics, Route route, boolean writeOutput) {
         super(roadNetwork, route);
+        this.routeMetrics = Preconditions.checkNotNull(routeMetrics);
+        routeMetrics.register(route);
         this.tauEMA = travelTimeInput.getTauEMA();
         this.beta = Math.exp(-simulationTimestep / tauEMA);
         for (TravelTimeType type : TravelTimeType.values()) {
             FileTravelTimeOnRoute writer = writeOutput
-                    ? new FileTravelTimeOnRoute(travelTimeInput.getDt(), route, type.toString().toLowerCase()) : null;
+                    ? new FileTravelTimeOnRoute(context, travelTimeInput.getDt(), route, type.toString().toLowerCase())
+                    : null;
             travelTimes.put(type, new TravelTime(writer));
         }
     }
 
     @Override
     public void timeStep(double dt, double simulationTime, long iterationCount) {
-        int numberOfVehicles = Math.max(0, RoadNetworkUtils.vehicleCount(route) - roadNetwork.obstacleCount(route));
+        int numberOfVehicles = Math.max(0, routeMetrics.vehicleCount(route) - routeMetrics.obstacleCount(route));
         for (TravelTimeType type : TravelTimeType.values()) {
             TravelTime tt = travelTimes.get(type);
             tt.numberOfVehicles = numberOfVehicles;
-            tt.instantaneousTravelTime = RoadNetworkUtils.instantaneousTravelTime(route, type);
+            tt.instantaneousTravelTime = routeMetrics.instantaneousTravelTime(route, type);
             tt.totalTravelTime += dt * numberOfVehicles;
             tt.meanSpeed = route.getLength() / tt.instantaneousTravelTime;
             tt.instTravelTimeEMA = (simulationTime == 0) ? tt.instantaneousTravelTime
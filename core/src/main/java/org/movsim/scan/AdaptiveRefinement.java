@@ -0,0 +1,477 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ * 
+ * This file is part of
+ * 
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ * 
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ * 
+ * -----------------------------------------------------------------------------------------
+ */
+package org.movsim.scan;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.movsim.input.ProjectMetaData;
+import org.movsim.shutdown.ShutdownHooks;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * <p>
+ * Adaptive sampling of the parameter space. The scan starts with the coarse grid given by the values of the axes and refines
+ * it in rounds only where the response changes strongly or is noisy:
+ * </p>
+ * <ul>
+ * <li>A cell of the grid, spanned by neighbouring values of the axes, is subdivided at its midpoints into 2<sup>d</sup>
+ * cells (a quadtree for two axes) if the mean responses at its corners differ by more than the tolerance.</li>
+ * <li>A grid point is replicated if the standard error of its mean response exceeds the limit; this needs at least two
+ * replications per point.</li>
+ * </ul>
+ * <p>
+ * The refinement ends when nothing exceeds the criteria, when the cells have reached the maximum level or when the budget of
+ * simulation runs is used up. If the budget does not suffice for a round, the refinements with the largest violation of their
+ * criterion are preferred.
+ * </p>
+ * <p>
+ * Axes with a single value are held fixed, all other axes must have numeric values. The refinement steps are logged to
+ * {@code <project>.scan_refinement.csv} and the final irregular grid is written to {@code <project>.scan_grid.csv}.
+ * </p>
+ */
+class AdaptiveRefinement {
+
+    /** The Constant LOG. */
+    private static final Logger LOG = LoggerFactory.getLogger(AdaptiveRefinement.class);
+
+    private static final BigDecimal TWO = BigDecimal.valueOf(2);
+
+    private final ParameterSweep sweep;
+
+    private final List<ScanAxis> axes;
+
+    private final RefinementCriteria criteria;
+
+    private final int replications;
+
+    private final int baseSeed;
+
+    private final ProjectMetaData projectMetaData;
+
+    private final ShutdownHooks shutdownHooks;
+
+    /** the points of the grid by their axis values */
+    private final Map<List<String>, GridPoint> points = new LinkedHashMap<>();
+
+    private List<Cell> cells = new ArrayList<>();
+
+    private FileScanRefinement refinementLog;
+
+    /** number of scheduled simulation runs */
+    private int runCount;
+
+    AdaptiveRefinement(ParameterSweep sweep, ScanConfiguration configuration, int baseSeed,
+            ProjectMetaData projectMetaData, ShutdownHooks shutdownHooks) {
+        this.sweep = sweep;
+        this.axes = configuration.getAxes();
+        this.criteria = configuration.getRefinement();
+        this.replications = configuration.getReplications();
+        this.baseSeed = baseSeed;
+        this.projectMetaData = projectMetaData;
+        this.shutdownHooks = shutdownHooks;
+        for (ScanAxis axis : axes) {
+            if (axis.getValues().size() > 1) {
+                for (String value : axis.getValues()) {
+                    Preconditions.checkArgument(isNumeric(value), "adaptive scan needs numeric values, axis="
+                            + axis.getName() + " has value=" + value);
+                }
+            }
+        }
+    }
+
+    private static boolean isNumeric(String value) {
+        try {
+            new BigDecimal(value);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    void run() throws InterruptedException {
+        refinementLog = new FileScanRefinement(projectMetaData, axes, shutdownHooks);
+        final List<ScanCase> cases = new ArrayList<>();
+        for (List<String> values : product(coarseValues())) {
+            schedule(addPoint(values, 0), replications, cases);
+        }
+        cells = coarseCells();
+        LOG.info("adaptive scan: coarse grid with {} points and {} cells", points.size(), cells.size());
+        execute(cases);
+        int round = 1;
+        for (List<ScanCase> refinement = refine(round); !refinement.isEmpty(); refinement = refine(++round)) {
+            LOG.info("adaptive scan: refinement round {} with {} simulation runs", round, refinement.size());
+            execute(refinement);
+        }
+        new FileScanGrid(projectMetaData, axes, criteria.getResponse(), shutdownHooks).writeGrid(sortedPoints());
+        LOG.info("adaptive scan: {} grid points and {} cells after {} refinement rounds with {} simulation runs",
+                new Object[] { points.size(), cells.size(), round - 1, runCount });
+    }
+
+    private List<List<String>> coarseValues() {
+        final List<List<String>> values = new ArrayList<>(axes.size());
+        for (ScanAxis axis : axes) {
+            final List<String> axisValues = new ArrayList<>();
+            for (String value : axis.getValues()) {
+                axisValues.add(axis.getValues().size() > 1 ? canonical(value) : value);
+            }
+            values.add(axisValues);
+        }
+        return values;
+    }
+
+    private List<Cell> coarseCells() {
+        final List<List<String>> values = coarseValues();
+        final List<Cell> coarseCells = new ArrayList<>();
+        coarseCells.add(new Cell(new ArrayList<String>(), new ArrayList<String>(), 0));
+        for (List<String> axisValues : values) {
+            final List<Cell> extended = new ArrayList<>();
+            for (Cell cell : coarseCells) {
+                if (axisValues.size() == 1) {
+                    extended.add(cell.extend(axisValues.get(0), axisValues.get(0)));
+                }
+                for (int i = 0; i + 1 < axisValues.size(); i++) {
+                    extended.add(cell.extend(axisValues.get(i), axisValues.get(i + 1)));
+                }
+            }
+            coarseCells.clear();
+            coarseCells.addAll(extended);
+        }
+        return coarseCells;
+    }
+
+    private static String canonical(String value) {
+        return ScanAxis.format(new BigDecimal(value));
+    }
+
+    private static List<List<String>> product(List<? extends Iterable<String>> factors) {
+        List<List<String>> product = new ArrayList<>();
+        product.add(Collections.<String> emptyList());
+        for (Iterable<String> factor : factors) {
+            final List<List<String>> extended = new ArrayList<>();
+            for (List<String> prefix : product) {
+                for (String value : factor) {
+                    final List<String> values = new ArrayList<>(prefix);
+                    values.add(value);
+                    extended.add(values);
+                }
+            }
+            product = extended;
+        }
+        return product;
+    }
+
+    private GridPoint addPoint(List<String> values, int level) {
+        final GridPoint point = new GridPoint(values, level);
+        points.put(point.values, point);
+        return point;
+    }
+
+    private void schedule(GridPoint point, int count, List<ScanCase> cases) {
+        for (int i = 0; i < count; i++) {
+            final int replication = point.scheduled++;
+            cases.add(new ScanCase(runCount++, point.values, replication, baseSeed + replication));
+        }
+    }
+
+    private void execute(List<ScanCase> cases) throws InterruptedException {
+        for (ScanResult result : sweep.runCases(cases)) {
+            points.get(result.getScanCase().getValues()).responses.add(criteria.getResponse().value(result));
+        }
+    }
+
+    /**
+     * Selects the refinements of the round by the results of the previous rounds and schedules their simulation runs.
+     * 
+     * @param round
+     * @return the simulation runs of the round, empty if the refinement has finished
+     */
+    private List<ScanCase> refine(int round) {
+        final List<Candidate> candidates = new ArrayList<>();
+        for (Cell cell : cells) {
+            if (cell.level < criteria.getMaxLevel() && cell.isDivisible()) {
+                final double spread = spread(cell);
+                if (spread > criteria.getTolerance()) {
+                    candidates.add(new Candidate(cell, null, spread, spread / criteria.getTolerance()));
+                }
+            }
+        }
+        for (GridPoint point : points.values()) {
+            final double standardError = point.standardError();
+            if (point.scheduled < criteria.getMaxReplications() && standardError > criteria.getMaxStandardError()) {
+                candidates.add(new Candidate(null, point, standardError, standardError
+                        / criteria.getMaxStandardError()));
+            }
+        }
+        Collections.sort(candidates);
+
+        final List<ScanCase> cases = new ArrayList<>();
+        final Map<Cell, List<Cell>> divided = new IdentityHashMap<>();
+        int skipped = 0;
+        for (Candidate candidate : candidates) {
+            if (candidate.cell != null) {
+                final Cell cell = candidate.cell;
+                final List<List<String>> newPoints = new ArrayList<>();
+                for (List<String> values : product(cell.subdivisionValues())) {
+                    if (!points.containsKey(values)) {
+                        newPoints.add(values);
+                    }
+                }
+                if (runCount + newPoints.size() * replications > criteria.getBudget()) {
+                    skipped++;
+                    continue;
+                }
+                for (List<String> values : newPoints) {
+                    schedule(addPoint(values, cell.level + 1), replications, cases);
+                }
+                divided.put(cell, cell.subdivide());
+                refinementLog.writeSubdivision(round, cell.level, candidate.criterion, cell.lower, cell.upper,
+                        newPoints.size() * replications);
+            } else {
+                final GridPoint point = candidate.point;
+                final int count = Math.min(replications, criteria.getMaxReplications() - point.scheduled);
+                if (runCount + count > criteria.getBudget()) {
+                    skipped++;
+                    continue;
+                }
+                schedule(point, count, cases);
+                refinementLog.writeReplication(round, point.level, candidate.criterion, point.values, count);
+            }
+        }
+        if (skipped > 0) {
+            LOG.info("adaptive scan: {} refinements skipped, they exceed the budget of {} simulation runs", skipped,
+                    criteria.getBudget());
+        }
+
+        final List<Cell> refinedCells = new ArrayList<>(cells.size() + divided.size());
+        for (Cell cell : cells) {
+            final List<Cell> children = divided.get(cell);
+            if (children == null) {
+                refinedCells.add(cell);
+            } else {
+                refinedCells.addAll(children);
+            }
+        }
+        cells = refinedCells;
+        return cases;
+    }
+
+    /**
+     * @return the difference between the largest and the smallest mean response at the corners of the cell, NaN if the
+     *         response is not known at all corners
+     */
+    private double spread(Cell cell) {
+        double min = Double.MAX_VALUE;
+        double max = -Double.MAX_VALUE;
+        for (List<String> corner : product(cell.cornerValues())) {
+            final double mean = points.get(corner).mean();
+            if (Double.isNaN(mean)) {
+                return Double.NaN;
+            }
+            min = Math.min(min, mean);
+            max = Math.max(max, mean);
+        }
+        return max - min;
+    }
+
+    private List<GridPoint> sortedPoints() {
+        final List<GridPoint> sorted = new ArrayList<>(points.values());
+        Collections.sort(sorted, new Comparator<GridPoint>() {
+            @Override
+            public int compare(GridPoint o1, GridPoint o2) {
+                for (int i = 0; i < axes.size(); i++) {
+                    final String value1 = o1.values.get(i);
+                    final String value2 = o2.values.get(i);
+                    if (!value1.equals(value2)) {
+                        return new BigDecimal(value1).compareTo(new BigDecimal(value2));
+                    }
+                }
+                return 0;
+            }
+        });
+        return sorted;
+    }
+
+    /**
+     * A point of the grid with the responses of its finished simulation runs.
+     */
+    static final class GridPoint {
+
+        final List<String> values;
+
+        final int level;
+
+        final List<Double> responses = new ArrayList<>();
+
+        int scheduled;
+
+        GridPoint(List<String> values, int level) {
+            this.values = Collections.unmodifiableList(new ArrayList<>(values));
+            this.level = level;
+        }
+
+        double mean() {
+            if (responses.isEmpty()) {
+                return Double.NaN;
+            }
+            double sum = 0;
+            for (double response : responses) {
+                sum += response;
+            }
+            return sum / responses.size();
+        }
+
+        /**
+         * @return the standard error of the mean response, NaN for less than two responses
+         */
+        double standardError() {
+            final int n = responses.size();
+            if (n < 2) {
+                return Double.NaN;
+            }
+            final double mean = mean();
+            double sumOfSquares = 0;
+            for (double response : responses) {
+                sumOfSquares += (response - mean) * (response - mean);
+            }
+            return Math.sqrt(sumOfSquares / (n - 1) / n);
+        }
+    }
+
+    /**
+     * A cell of the grid given by its lower and upper corner. Fixed axes have the same lower and upper value.
+     */
+    private static final class Cell {
+
+        final List<String> lower;
+
+        final List<String> upper;
+
+        final int level;
+
+        Cell(List<String> lower, List<String> upper, int level) {
+            this.lower = lower;
+            this.upper = upper;
+            this.level = level;
+        }
+
+        Cell extend(String lowerValue, String upperValue) {
+            final List<String> extendedLower = new ArrayList<>(lower);
+            extendedLower.add(lowerValue);
+            final List<String> extendedUpper = new ArrayList<>(upper);
+            extendedUpper.add(upperValue);
+            return new Cell(extendedLower, extendedUpper, level);
+        }
+
+        boolean isDivisible() {
+            return !lower.equals(upper);
+        }
+
+        private String midpoint(int i) {
+            return ScanAxis.format(new BigDecimal(lower.get(i)).add(new BigDecimal(upper.get(i))).divide(TWO));
+        }
+
+        List<Set<String>> cornerValues() {
+            final List<Set<String>> values = new ArrayList<>(lower.size());
+            for (int i = 0; i < lower.size(); i++) {
+                final Set<String> axisValues = new LinkedHashSet<>();
+                axisValues.add(lower.get(i));
+                axisValues.add(upper.get(i));
+                values.add(axisValues);
+            }
+            return values;
+        }
+
+        /**
+         * @return per axis, the values of the grid points of the subdivided cell
+         */
+        List<Set<String>> subdivisionValues() {
+            final List<Set<String>> values = cornerValues();
+            for (int i = 0; i < lower.size(); i++) {
+                if (!lower.get(i).equals(upper.get(i))) {
+                    values.get(i).add(midpoint(i));
+                }
+            }
+            return values;
+        }
+
+        List<Cell> subdivide() {
+            List<Cell> children = new ArrayList<>();
+            children.add(new Cell(new ArrayList<String>(), new ArrayList<String>(), level + 1));
+            for (int i = 0; i < lower.size(); i++) {
+                final List<Cell> extended = new ArrayList<>();
+                for (Cell child : children) {
+                    if (lower.get(i).equals(upper.get(i))) {
+                        extended.add(child.extend(lower.get(i), upper.get(i)));
+                    } else {
+                        final String midpoint = midpoint(i);
+                        extended.add(child.extend(lower.get(i), midpoint));
+                        extended.add(child.extend(midpoint, upper.get(i)));
+                    }
+                }
+                children = extended;
+            }
+            return children;
+        }
+    }
+
+    /**
+     * A cell to subdivide or a grid point to replicate, ordered by decreasing violation of the criterion.
+     */
+    private static final class Candidate implements Comparable<Candidate> {
+
+        final Cell cell;
+
+        final GridPoint point;
+
+        final double criterion;
+
+        final double priority;
+
+        Candidate(Cell cell, GridPoint point, double criterion, double priority) {
+            this.cell = cell;
+            this.point = point;
+            this.criterion = criterion;
+            this.priority = priority;
+        }
+
+        @Override
+        public int compareTo(Candidate o) {
+            return Double.compare(o.priority, priority);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ * 
+ * This file is part of
+ * 
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ * 
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ * 
+ * -----------------------------------------------------------------------------------------
+ */
+package org.movsim.scan;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.movsim.simulator.ConvergenceMonitor;
+import org.movsim.simulator.Simulator;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * The settings of the {@link ConvergenceMonitor} which stops the cases of a scan when they have reached a steady state.
+ */
+public final class ConvergenceCriteria {
+
+    private final List<String> quantities;
+
+    private final double window;
+
+    private final double tolerance;
+
+    private final double holdTime;
+
+    private final double sampleInterval;
+
+    public ConvergenceCriteria(List<String> quantities, double window, double tolerance, double holdTime,
+            double sampleInterval) {
+        Preconditions.checkArgument(!quantities.isEmpty(), "no quantities to monitor");
+        this.quantities = Collections.unmodifiableList(new ArrayList<>(quantities));
+        this.window = window;
+        this.tolerance = tolerance;
+        this.holdTime = holdTime;
+        this.sampleInterval = sampleInterval;
+    }
+
+    public List<String> getQuantities() {
+        return quantities;
+    }
+
+    public double getWindow() {
+        return window;
+    }
+
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    public double getHoldTime() {
+        return holdTime;
+    }
+
+    public double getSampleInterval() {
+        return sampleInterval;
+    }
+
+    /**
+     * Creates the monitor of an initialized simulator.
+     * 
+     * @param simulator
+     * @return the convergence monitor
+     */
+    public ConvergenceMonitor createMonitor(Simulator simulator) {
+        final List<ConvergenceMonitor.Quantity> monitored = new ArrayList<>();
+        for (String quantity : quantities) {
+            monitored.add(ConvergenceMonitor.quantity(quantity, simulator.getRoadNetwork(), simulator.getRouting()));
+        }
+        return new ConvergenceMonitor(monitored, window, tolerance, holdTime, sampleInterval);
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ * 
+ * This file is part of
+ * 
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ * 
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ * 
+ * -----------------------------------------------------------------------------------------
+ */
+package org.movsim.scan;
+
+import java.util.List;
+
+import org.movsim.input.ProjectMetaData;
+import org.movsim.io.FileOutputBase;
+import org.movsim.scan.AdaptiveRefinement.GridPoint;
+import org.movsim.shutdown.ShutdownHooks;
+
+/**
+ * Writes the final irregular grid of an {@link AdaptiveRefinement} with the mean response of each grid point.
+ */
+class FileScanGrid extends FileOutputBase {
+
+    private static final String EXTENSION = ".scan_grid.csv";
+
+    private static final String outputFormat = "%d, %d, %.4f, %.4f%n";
+
+    FileScanGrid(ProjectMetaData projectMetaData, List<ScanAxis> axes, ScanResponse response,
+            ShutdownHooks shutdownHooks) {
+        super(projectMetaData.getOutputPath(), projectMetaData.getProjectName(), shutdownHooks);
+        writer = createWriter(EXTENSION);
+        final StringBuilder sb = new StringBuilder();
+        sb.append(COMMENT_CHAR);
+        for (ScanAxis axis : axes) {
+            sb.append(' ').append(axis.getName()).append(SEPARATOR_CHAR);
+        }
+        sb.append(" level, replications, mean ").append(response.getKeyword()).append(", standardError");
+        writer.println(sb.toString());
+    }
+
+    void writeGrid(List<GridPoint> points) {
+        for (GridPoint point : points) {
+            for (String value : point.values) {
+                writer.print(value);
+                writer.print(SEPARATOR_CHAR + " ");
+            }
+            writer.printf(outputFormat, point.level, point.responses.size(), point.mean(), point.standardError());
+        }
+        writer.close();
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ * 
+ * This file is part of
+ * 
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ * 
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ * 
+ * -----------------------------------------------------------------------------------------
+ */
+package org.movsim.scan;
+
+import java.util.List;
+
+import org.movsim.input.ProjectMetaData;
+import org.movsim.io.FileOutputBase;
+import org.movsim.shutdown.ShutdownHooks;
+
+/**
+ * Logs the steps of an {@link AdaptiveRefinement}: the subdivided cells with the spread of the response at their corners and
+ * the replicated grid points with the standard error of their mean response.
+ */
+class FileScanRefinement extends FileOutputBase {
+
+    private static final String EXTENSION = ".scan_refinement.csv";
+
+    FileScanRefinement(ProjectMetaData projectMetaData, List<ScanAxis> axes, ShutdownHooks shutdownHooks) {
+        super(projectMetaData.getOutputPath(), projectMetaData.getProjectName(), shutdownHooks);
+        writer = createWriter(EXTENSION);
+        writeHeader(axes);
+    }
+
+    private void writeHeader(List<ScanAxis> axes) {
+        final StringBuilder sb = new StringBuilder();
+        sb.append(COMMENT_CHAR).append(" round, action, level, criterion");
+        for (ScanAxis axis : axes) {
+            sb.append(SEPARATOR_CHAR).append(' ').append(axis.getName()).append(" lower");
+            sb.append(SEPARATOR_CHAR).append(' ').append(axis.getName()).append(" upper");
+        }
+        sb.append(", runs");
+        writer.println(sb.toString());
+        writer.flush();
+    }
+
+    void writeSubdivision(int round, int level, double spread, List<String> lower, List<String> upper, int runs) {
+        writeLine(round, "subdivide", level, spread, lower, upper, runs);
+    }
+
+    void writeReplication(int round, int level, double standardError, List<String> values, int runs) {
+        writeLine(round, "replicate", level, standardError, values, values, runs);
+    }
+
+    private void writeLine(int round, String action, int level, double criterion, List<String> lower,
+            List<String> upper, int runs) {
+        final StringBuilder sb = new StringBuilder();
+        sb.append(round).append(SEPARATOR_CHAR).append(' ').append(action).append(SEPARATOR_CHAR).append(' ')
+                .append(level).append(SEPARATOR_CHAR).append(' ').append(String.format("%.4f", criterion));
+        for (int i = 0; i < lower.size(); i++) {
+            sb.append(SEPARATOR_CHAR).append(' ').append(lower.get(i));
+            sb.append(SEPARATOR_CHAR).append(' ').append(upper.get(i));
+        }
+        sb.append(SEPARATOR_CHAR).append(' ').append(runs);
+        writer.println(sb.toString());
+        writer.flush();
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ * 
+ * This file is part of
+ * 
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ * 
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ * 
+ * -----------------------------------------------------------------------------------------
+ */
+package org.movsim.scan;
+
+import java.util.List;
+
+import org.movsim.input.ProjectMetaData;
+import org.movsim.io.FileOutputBase;
+import org.movsim.shutdown.ShutdownHooks;
+
+/**
+ * Writes one line per {@link ScanResult} in the order in which the cases finish.
+ */
+class FileScanResults extends FileOutputBase {
+
+    private static final String EXTENSION = ".scan.csv";
+
+    private static final String outputFormat = "%.3f, %.3f, %.3f, %.4f, %.2f, %s, %d%n";
+
+    FileScanResults(ProjectMetaData projectMetaData, List<ScanAxis> axes, ShutdownHooks shutdownHooks) {
+        super(projectMetaData.getOutputPath(), projectMetaData.getProjectName(), shutdownHooks);
+        writer = createWriter(EXTENSION);
+        writeHeader(axes);
+    }
+
+    private void writeHeader(List<ScanAxis> axes) {
+        final StringBuilder sb = new StringBuilder();
+        sb.append(COMMENT_CHAR).append(" case, replication, seed");
+        for (ScanAxis axis : axes) {
+            sb.append(SEPARATOR_CHAR).append(' ').append(axis.getName());
+        }
+        sb.append(", vehiclesRemoved, avgTravelTime[s], totalTravelTime[s], totalTravelDistance[m], fuelUsed[l]")
+                .append(", simulationTime[s], stopReason, elapsedTime[ms]");
+        writer.println(sb.toString());
+        writer.flush();
+    }
+
+    void writeResult(ScanResult result) {
+        final ScanCase scanCase = result.getScanCase();
+        final StringBuilder sb = new StringBuilder();
+        sb.append(scanCase.getIndex()).append(SEPARATOR_CHAR).append(' ').append(scanCase.getReplication())
+                .append(SEPARATOR_CHAR).append(' ').append(scanCase.getSeed());
+        for (String value : scanCase.getValues()) {
+            sb.append(SEPARATOR_CHAR).append(' ').append(value);
+        }
+        sb.append(SEPARATOR_CHAR).append(' ').append(result.getVehiclesRemoved()).append(SEPARATOR_CHAR).append(' ');
+        writer.print(sb.toString());
+        write(outputFormat, result.getAverageTravelTime(), result.getTotalTravelTime(),
+                result.getTotalTravelDistance(), result.getTotalFuelUsedLiters(), result.getSimulationTime(),
+                result.getStopReason(), result.getElapsedTimeMillis());
+    }
+
+    void writeFailure(ScanCase scanCase, Throwable cause) {
+        write("%s case %d failed: %s%n", COMMENT_CHAR, scanCase.getIndex(), cause);
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ * 
+ * This file is part of
+ * 
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ * 
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ * 
+ * -----------------------------------------------------------------------------------------
+ */
+package org.movsim.scan;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * <p>
+ * A path into the JAXB tree of the movsim input, similar to a simple XPath expression. Example:
+ * {@code Scenario/Simulation/TrafficComposition/VehicleType[@label='ACC2']/@fraction}.
+ * </p>
+ * <p>
+ * The steps are the names of the xml elements and attributes as in the input file; the optional root element
+ * {@code Movsim} may be omitted. A step selecting a list of elements can be restricted by a 1-based index, e.g.
+ * {@code Inflow[1]}, or by the value of an attribute, e.g. {@code Road[@id='1']}. Without restriction all elements of the
+ * list are selected. The last step is the attribute or simple element which is set.
+ * </p>
+ */
+public final class InputPath {
+
+    private static final Pattern STEP = Pattern.compile("@?([A-Za-z_][\\w\\-]*)(?:\\[(.+)\\])?");
+
+    private static final Pattern INDEX = Pattern.compile("\\d+");
+
+    private static final Pattern ATTRIBUTE = Pattern.compile("@([A-Za-z_][\\w\\-]*)\\s*=\\s*['\"](.*)['\"]");
+
+    private final String expression;
+
+    private final List<Step> steps;
+
+    private final String property;
+
+    private InputPath(String expression, List<Step> steps, String property) {
+        this.expression = expression;
+        this.steps = steps;
+        this.property = property;
+    }
+
+    /**
+     * Parses the path expression.
+     * 
+     * @param expression
+     * @return the path
+     * @throws IllegalArgumentException
+     *             if the expression is malformed
+     */
+    public static InputPath parse(String expression) {
+        Preconditions.checkArgument(expression != null && !expression.trim().isEmpty(), "empty input path");
+        String trimmed = expression.trim();
+        if (trimmed.startsWith("/")) {
+            trimmed = trimmed.substring(1);
+        }
+        final String[] tokens = trimmed.split("/");
+        final List<Step> steps = new ArrayList<>();
+        for (int i = 0; i < tokens.length; i++) {
+            final Matcher matcher = STEP.matcher(tokens[i].trim());
+            if (!matcher.matches()) {
+                throw new IllegalArgumentException("invalid step \"" + tokens[i] + "\" in input path=" + expression);
+            }
+            if (i == 0 && tokens.length > 1 && matcher.group(1).equals("Movsim") && matcher.group(2) == null) {
+                continue; // root element
+            }
+            steps.add(new Step(matcher.group(1), matcher.group(2), expression));
+        }
+        final Step last = steps.remove(steps.size() - 1);
+        if (last.hasPredicate()) {
+            throw new IllegalArgumentException("last step of input path=" + expression + " must not have a predicate");
+        }
+        return new InputPath(expression, Collections.unmodifiableList(steps), last.name);
+    }
+
+    /**
+     * Sets the value of the selected attributes or elements.
+     * 
+     * @param root
+     *            the root of the JAXB tree
+     * @param value
+     *            the value, converted to the type of the property
+     * @throws IllegalArgumentException
+     *             if the path does not select any element or the value cannot be converted
+     */
+    public void setValue(Object root, String value) {
+        List<Object> nodes = Collections.singletonList(Preconditions.checkNotNull(root));
+        for (Step step : steps) {
+            nodes = step.select(nodes);
+        }
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("input path=" + expression + " does not select any element");
+        }
+        for (Object node : nodes) {
+            final Method setter = findMethod(node.getClass(), 1, "set" + property);
+            if (setter == null) {
+                throw new IllegalArgumentException("cannot set " + property + " of " + node.getClass().getSimpleName()
+                        + " selected by input path=" + expression);
+            }
+            invoke(setter, node, convert(value, setter.getParameterTypes()[0]));
+        }
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    private static final class Step {
+        private final String name;
+        private final int index;
+        private final String attribute;
+        private final String attributeValue;
+
+        Step(String name, String predicate, String expression) {
+            this.name = name;
+            if (predicate == null) {
+                index = 0;
+                attribute = null;
+                attributeValue = null;
+            } else if (INDEX.matcher(predicate.trim()).matches()) {
+                index = Integer.parseInt(predicate.trim());
+                Preconditions.checkArgument(index > 0, "index must be positive in input path=" + expression);
+                attribute = null;
+                attributeValue = null;
+            } else {
+                final Matcher matcher = ATTRIBUTE.matcher(predicate.trim());
+                if (!matcher.matches()) {
+                    throw new IllegalArgumentException("invalid predicate \"" + predicate + "\" in input path="
+                            + expression);
+                }
+                index = 0;
+                attribute = matcher.group(1);
+                attributeValue = matcher.group(2);
+            }
+        }
+
+        boolean hasPredicate() {
+            return index > 0 || attribute != null;
+        }
+
+        List<Object> select(List<Object> nodes) {
+            final List<Object> selected = new ArrayList<>();
+            for (Object node : nodes) {
+                final Method getter = findGetter(node.getClass(), name);
+                if (getter == null) {
+                    continue;
+                }
+                final Object child = invoke(getter, node);
+                if (child instanceof List<?>) {
+                    final List<?> children = (List<?>) child;
+                    for (int i = 0; i < children.size(); i++) {
+                        if (matches(children.get(i), i + 1)) {
+                            selected.add(children.get(i));
+                        }
+                    }
+                } else if (child != null && matches(child, 1)) {
+                    selected.add(child);
+                }
+            }
+            return selected;
+        }
+
+        private boolean matches(Object node, int position) {
+            if (index > 0) {
+                return position == index;
+            }
+            if (attribute != null) {
+                final Method getter = findGetter(node.getClass(), attribute);
+                if (getter == null) {
+                    return false;
+                }
+                final Object value = invoke(getter, node);
+                return value != null && sameValue(value, attributeValue);
+            }
+            return true;
+        }
+    }
+
+    private static boolean sameValue(Object value, String expected) {
+        if (String.valueOf(value).equals(expected)) {
+            return true;
+        }
+        if (value instanceof Number) {
+            try {
+                return ((Number) value).doubleValue() == Double.parseDouble(expected);
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static Method findGetter(Class<?> clazz, String name) {
+        final Method getter = findMethod(clazz, 0, "get" + name);
+        return getter != null ? getter : findMethod(clazz, 0, "is" + name);
+    }
+
+    /**
+     * Finds the public method by its name ignoring case and the separators '_' and '-' of xml names, e.g.
+     * "q_per_hour" finds the JAXB property "QPerHour".
+     */
+    private static Method findMethod(Class<?> clazz, int parameterCount, String name) {
+        final String normalizedName = normalize(name);
+        for (Method method : clazz.getMethods()) {
+            if (method.getParameterTypes().length == parameterCount
+                    && normalize(method.getName()).equals(normalizedName)) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    private static String normalize(String name) {
+        return name.replace("_", "").replace("-", "").toLowerCase();
+    }
+
+    private static Object invoke(Method method, Object target, Object... args) {
+        try {
+            return method.invoke(target, args);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("cannot invoke " + method.getName(), e);
+        }
+    }
+
+    private static Object convert(String value, Class<?> type) {
+        final String trimmed = value.trim();
+        try {
+            if (type == String.class) {
+                return value;
+            } else if (type == double.class || type == Double.class) {
+                return Double.valueOf(trimmed);
+            } else if (type == int.class || type == Integer.class) {
+                return Integer.valueOf(trimmed);
+            } else if (type == long.class || type == Long.class) {
+                return Long.valueOf(trimmed);
+            } else if (type == float.class || type == Float.class) {
+                return Float.valueOf(trimmed);
+            } else if (type == boolean.class || type == Boolean.class) {
+                Preconditions.checkArgument(trimmed.equals("true") || trimmed.equals("false"), "no boolean value="
+                        + value);
+                return Boolean.valueOf(trimmed);
+            } else if (type == BigInteger.class) {
+                return new BigInteger(trimmed);
+            } else if (type == BigDecimal.class) {
+                return new BigDecimal(trimmed);
+            } else if (type.isEnum()) {
+                return convertEnum(trimmed, type);
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("cannot convert value=" + value + " to " + type.getSimpleName(), e);
+        }
+        throw new IllegalArgumentException("unsupported type " + type.getSimpleName() + " of property");
+    }
+
+    private static Object convertEnum(String value, Class<?> type) {
+        // JAXB enums map the xml values by fromValue
+        final Method fromValue = findMethod(type, 1, "fromValue");
+        if (fromValue != null && fromValue.getParameterTypes()[0] == String.class) {
+            try {
+                return fromValue.invoke(null, value);
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                // try the constant name below
+            }
+        }
+        for (Object constant : type.getEnumConstants()) {
+            if (((Enum<?>) constant).name().equals(value)) {
+                return constant;
+            }
+        }
+        throw new IllegalArgumentException("cannot convert value=" + value + " to " + type.getSimpleName());
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ * 
+ * This file is part of
+ * 
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ * 
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ * 
+ * -----------------------------------------------------------------------------------------
+ */
+package org.movsim.scan;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.movsim.autogen.Movsim;
+import org.movsim.autogen.Simulation;
+import org.movsim.input.ProjectMetaData;
+import org.movsim.shutdown.ShutdownHooks;
+import org.movsim.simulator.SimulationContext;
+import org.movsim.simulator.Simulator;
+import org.movsim.xml.InputLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * <p>
+ * Runs a simulation for each {@link ScanCase} of a {@link ScanConfiguration}. The cases run concurrently on a fixed number of
+ * threads; each case simulates its own deep copy of the input in its own {@link SimulationContext}. The results are written
+ * to the file {@code <project>.scan.csv} as soon as a case finishes, so the lines are not ordered by case.
+ * </p>
+ * <p>
+ * The file output of a case is written with the project name {@code <project>_caseNNNN}. A sweep is run by a single thread
+ * at a time.
+ * </p>
+ */
+public class ParameterSweep {
+
+    /** The Constant LOG. */
+    private static final Logger LOG = LoggerFactory.getLogger(ParameterSweep.class);
+
+    private final Movsim input;
+
+    private final ProjectMetaData projectMetaData;
+
+    private final ScanConfiguration configuration;
+
+    private ExecutorService executor;
+
+    private FileScanResults output;
+
+    private int caseCount;
+
+    private int failures;
+
+    /**
+     * Constructor.
+     * 
+     * @param input
+     *            the scenario which is modified by the scan, it is not changed itself
+     * @param projectMetaData
+     * @param configuration
+     */
+    public ParameterSweep(Movsim input, ProjectMetaData projectMetaData, ScanConfiguration configuration) {
+        this.input = Preconditions.checkNotNull(input);
+        this.projectMetaData = Preconditions.checkNotNull(projectMetaData);
+        this.configuration = Preconditions.checkNotNull(configuration);
+    }
+
+    /**
+     * Runs all cases and blocks until they are finished.
+     * 
+     * @return the number of failed cases
+     * @throws InterruptedException
+     */
+    public int run() throws InterruptedException {
+        // all paths are checked on the unmodified input before starting, to fail early on a misspelled path
+        final Movsim check = InputLoader.copy(input);
+        for (ScanAxis axis : configuration.getAxes()) {
+            axis.apply(check, axis.getValues().get(0));
+        }
+        Preconditions.checkArgument(check.getScenario().getSimulation().isSetDuration(),
+                "a parameter scan needs a simulation duration");
+
+        final ShutdownHooks shutdownHooks = new ShutdownHooks();
+        output = new FileScanResults(projectMetaData, configuration.getAxes(), shutdownHooks);
+        executor = Executors.newFixedThreadPool(configuration.getThreads());
+        caseCount = 0;
+        failures = 0;
+        try {
+            if (configuration.hasRefinement()) {
+                LOG.info("adaptive parameter scan on {} threads", configuration.getThreads());
+                new AdaptiveRefinement(this, configuration, baseSeed(), projectMetaData, shutdownHooks).run();
+            } else {
+                final List<ScanCase> cases = ScanCase.fullFactorial(configuration.getAxes(),
+                        configuration.getReplications(), baseSeed());
+                LOG.info("parameter scan with {} cases on {} threads", cases.size(), configuration.getThreads());
+                runCases(cases);
+            }
+        } finally {
+            executor.shutdownNow();
+            shutdownHooks.onShutDown();
+        }
+        LOG.info("parameter scan finished, {} of {} cases failed", failures, caseCount);
+        return failures;
+    }
+
+    /**
+     * Runs the cases concurrently and blocks until they are finished.
+     * 
+     * @param cases
+     * @return the results of the cases which did not fail, in the order in which they finished
+     * @throws InterruptedException
+     */
+    List<ScanResult> runCases(List<ScanCase> cases) throws InterruptedException {
+        final CompletionService<ScanResult> completionService = new ExecutorCompletionService<>(executor);
+        for (final ScanCase scanCase : cases) {
+            completionService.submit(new Callable<ScanResult>() {
+                @Override
+                public ScanResult call() throws Exception {
+                    return runCase(scanCase);
+                }
+            });
+        }
+        final List<ScanResult> results = new ArrayList<>(cases.size());
+        for (int i = 0; i < cases.size(); i++) {
+            final Future<ScanResult> future = completionService.take();
+            try {
+                final ScanResult result = future.get();
+                output.writeResult(result);
+                results.add(result);
+            } catch (ExecutionException e) {
+                final ScanCaseException cause = (ScanCaseException) e.getCause();
+                LOG.error("{} failed", cause.getScanCase(), cause.getCause());
+                output.writeFailure(cause.getScanCase(), cause.getCause());
+                failures++;
+            }
+        }
+        caseCount += cases.size();
+        return results;
+    }
+
+    private int baseSeed() {
+        if (configuration.hasSeed()) {
+            return configuration.getSeed();
+        }
+        return input.getScenario().getSimulation().getSeed();
+    }
+
+    private ScanResult runCase(ScanCase scanCase) throws ScanCaseException {
+        try {
+            final long startTimeMillis = System.currentTimeMillis();
+            final Movsim caseInput = InputLoader.copy(input);
+            final List<ScanAxis> axes = configuration.getAxes();
+            for (int i = 0; i < axes.size(); i++) {
+                axes.get(i).apply(caseInput, scanCase.getValues().get(i));
+            }
+            final Simulation simulation = caseInput.getScenario().getSimulation();
+            // the cases are always seeded to make the scan reproducible
+            simulation.setWithSeed(true);
+            simulation.setSeed(scanCase.getSeed());
+            final ProjectMetaData caseMetaData = projectMetaData.copyWithProjectName(String.format("%s_case%04d",
+                    projectMetaData.getProjectName(), scanCase.getIndex()));
+            // the cases are already running concurrently
+            caseMetaData.setParallelism(1);
+            final Simulator simulator = new Simulator(caseInput, new SimulationContext(caseMetaData));
+            simulator.initialize();
+            if (configuration.hasConvergence()) {
+                simulator.setStopCondition(configuration.getConvergence().createMonitor(simulator));
+            }
+            simulator.runToCompletion();
+            return new ScanResult(scanCase, simulator, System.currentTimeMillis() - startTimeMillis);
+        } catch (Exception e) {
+            throw new ScanCaseException(scanCase, e);
+        }
+    }
+
+    private static final class ScanCaseException extends Exception {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient ScanCase scanCase;
+
+        ScanCaseException(ScanCase scanCase, Exception cause) {
+            super(cause);
+            this.scanCase = scanCase;
+        }
+
+        ScanCase getScanCase() {
+            return scanCase;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ * 
+ * This file is part of
+ * 
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ * 
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ * 
+ * -----------------------------------------------------------------------------------------
+ */
+package org.movsim.scan;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * The criteria of an adaptive scan, see {@link AdaptiveRefinement}.
+ */
+public final class RefinementCriteria {
+
+    private final ScanResponse response;
+
+    private final int maxLevel;
+
+    private final double tolerance;
+
+    private final double maxStandardError;
+
+    private final int maxReplications;
+
+    private final int budget;
+
+    /**
+     * Constructor.
+     * 
+     * @param response
+     *            the quantity which is compared
+     * @param maxLevel
+     *            the maximum number of subdivisions of a coarse grid cell
+     * @param tolerance
+     *            a cell is subdivided if the responses at its corners differ by more than the tolerance
+     * @param maxStandardError
+     *            a grid point is replicated if the standard error of its mean response exceeds this value
+     * @param maxReplications
+     *            the maximum number of replications of a grid point
+     * @param budget
+     *            the maximum number of simulation runs including the coarse grid
+     */
+    public RefinementCriteria(ScanResponse response, int maxLevel, double tolerance, double maxStandardError,
+            int maxReplications, int budget) {
+        Preconditions.checkArgument(maxLevel >= 0, "maxLevel must not be negative");
+        Preconditions.checkArgument(tolerance > 0, "tolerance must be positive");
+        Preconditions.checkArgument(maxStandardError > 0, "maxStandardError must be positive");
+        Preconditions.checkArgument(maxReplications > 0, "maxReplications must be positive");
+        Preconditions.checkArgument(budget > 0, "budget must be positive");
+        this.response = Preconditions.checkNotNull(response);
+        this.maxLevel = maxLevel;
+        this.tolerance = tolerance;
+        this.maxStandardError = maxStandardError;
+        this.maxReplications = maxReplications;
+        this.budget = budget;
+    }
+
+    public ScanResponse getResponse() {
+        return response;
+    }
+
+    public int getMaxLevel() {
+        return maxLevel;
+    }
+
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    public double getMaxStandardError() {
+        return maxStandardError;
+    }
+
+    public int getMaxReplications() {
+        return maxReplications;
+    }
+
+    public int getBudget() {
+        return budget;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ * 
+ * This file is part of
+ * 
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ * 
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ * 
+ * -----------------------------------------------------------------------------------------
+ */
+package org.movsim.scan;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.movsim.autogen.Movsim;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A parameter of a scan: the values and the input paths which are set to the value of a scan case.
+ */
+public final class ScanAxis {
+
+    private final String name;
+
+    private final List<InputPath> paths;
+
+    private final List<String> values;
+
+    public ScanAxis(String name, List<InputPath> paths, List<String> values) {
+        Preconditions.checkArgument(name != null && !name.isEmpty(), "axis without name");
+        Preconditions.checkArgument(!paths.isEmpty(), "axis=" + name + " without input path");
+        Preconditions.checkArgument(!values.isEmpty(), "axis=" + name + " without values");
+        this.name = name;
+        this.paths = Collections.unmodifiableList(new ArrayList<>(paths));
+        this.values = Collections.unmodifiableList(new ArrayList<>(values));
+    }
+
+    /**
+     * Returns the values from min to max with the given step. The max value is always included, also if it is not
+     * reached by an integer number of steps.
+     * 
+     * @param min
+     * @param max
+     * @param step
+     * @return the values of the range
+     */
+    public static List<String> range(BigDecimal min, BigDecimal max, BigDecimal step) {
+        Preconditions.checkArgument(step.signum() > 0, "step of range must be positive");
+        Preconditions.checkArgument(min.compareTo(max) <= 0, "min of range must not exceed max");
+        final List<String> values = new ArrayList<>();
+        BigDecimal value = min;
+        while (value.compareTo(max) < 0) {
+            values.add(format(value));
+            value = value.add(step);
+        }
+        values.add(format(max));
+        return values;
+    }
+
+    static String format(BigDecimal value) {
+        return value.signum() == 0 ? "0" : value.stripTrailingZeros().toPlainString();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<String> getValues() {
+        return values;
+    }
+
+    public List<InputPath> getPaths() {
+        return paths;
+    }
+
+    /**
+     * Sets all input paths of this axis to the given value.
+     * 
+     * @param movsim
+     *            the input of a scan case
+     * @param value
+     */
+    public void apply(Movsim movsim, String value) {
+        for (InputPath path : paths) {
+            path.setValue(movsim, value);
+        }
+    }
+}
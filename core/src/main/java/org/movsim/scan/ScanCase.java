@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ * 
+ * This file is part of
+ * 
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ * 
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ * 
+ * -----------------------------------------------------------------------------------------
+ */
+package org.movsim.scan;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A single simulation run of a parameter scan: one value per {@link ScanAxis} and the replication number.
+ */
+public final class ScanCase {
+
+    private final int index;
+
+    private final List<String> values;
+
+    private final int replication;
+
+    private final int seed;
+
+    public ScanCase(int index, List<String> values, int replication, int seed) {
+        Preconditions.checkArgument(index >= 0 && replication >= 0);
+        this.index = index;
+        this.values = Collections.unmodifiableList(new ArrayList<>(values));
+        this.replication = replication;
+        this.seed = seed;
+    }
+
+    /**
+     * Returns the cases of the full factorial design of the given axes, with the replications of a parameter combination
+     * following each other. Replication r of each parameter combination uses the seed {@code baseSeed + r}, so that the
+     * combinations are compared with common random numbers.
+     * 
+     * @param axes
+     * @param replications
+     * @param baseSeed
+     * @return the cases in the order of the scan
+     */
+    public static List<ScanCase> fullFactorial(List<ScanAxis> axes, int replications, int baseSeed) {
+        final List<ScanCase> cases = new ArrayList<>();
+        final int[] valueIndices = new int[axes.size()];
+        final List<String> values = new ArrayList<>(axes.size());
+        while (true) {
+            values.clear();
+            for (int i = 0; i < axes.size(); i++) {
+                values.add(axes.get(i).getValues().get(valueIndices[i]));
+            }
+            for (int r = 0; r < replications; r++) {
+                cases.add(new ScanCase(cases.size(), values, r, baseSeed + r));
+            }
+            // increment the indices like an odometer, the last axis varies fastest
+            int i = axes.size() - 1;
+            while (i >= 0 && ++valueIndices[i] == axes.get(i).getValues().size()) {
+                valueIndices[i] = 0;
+                i--;
+            }
+            if (i < 0) {
+                return cases;
+            }
+        }
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public List<String> getValues() {
+        return values;
+    }
+
+    public int getReplication() {
+        return replication;
+    }
+
+    public int getSeed() {
+        return seed;
+    }
+
+    @Override
+    public String toString() {
+        return "ScanCase [index=" + index + ", values=" + values + ", replication=" + replication + ", seed=" + seed
+                + "]";
+    }
+}
@@ -0,0 +1,313 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ * 
+ * This file is part of
+ * 
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ * 
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ * 
+ * -----------------------------------------------------------------------------------------
+ */
+package org.movsim.scan;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * <p>
+ * The configuration of a parameter scan, read from a properties file:
+ * </p>
+ * 
+ * <pre>
+ * # the axes, numbered from 1; the paths are separated by commas and all set to the value of the axis
+ * axis.1.name = inflow
+ * axis.1.path = Scenario/Simulation/Road[@id='1']/TrafficSource/Inflow[1]/@q_per_hour
+ * axis.1.range = 1000, 2000, 200
+ * axis.2.path = Scenario/Simulation/TrafficComposition/VehicleType[@label='ACC1']/@fraction
+ * axis.2.values = 0.1, 0.5, 0.9
+ * # optional: simulation runs per parameter combination with the seeds seed, seed+1, ... (default 1)
+ * replications = 3
+ * # optional: the seed of the first replication (default: the seed of the scenario)
+ * seed = 42
+ * # optional: number of simulations running concurrently (default: number of processors)
+ * threads = 4
+ * </pre>
+ * <p>
+ * The grid is refined adaptively if a tolerance of the response is given, see {@link AdaptiveRefinement}:
+ * </p>
+ * 
+ * <pre>
+ * # the response compared between grid points, see ScanResponse (default avgTravelTime)
+ * refinement.response = avgTravelTime
+ * # subdivide a cell if the mean responses at its corners differ by more than the tolerance
+ * refinement.tolerance = 10
+ * # optional: maximum number of subdivisions of a coarse grid cell (default 3)
+ * refinement.levels = 3
+ * # optional: replicate a grid point while the standard error of its mean response is larger (default: no limit)
+ * refinement.standardError = 2
+ * # optional: maximum replications of a grid point (default: replications)
+ * refinement.maxReplications = 12
+ * # optional: maximum number of simulation runs including the coarse grid (default: no limit)
+ * refinement.budget = 500
+ * </pre>
+ * <p>
+ * The cases stop early when they have reached a steady state if the quantities of a {@link ConvergenceMonitor} are given:
+ * </p>
+ * 
+ * <pre>
+ * # the monitored quantities, see ConvergenceMonitor.quantity
+ * convergence.quantities = meanSpeed, vehicleCount, outflow, travelTime:main
+ * # stop if the means over two successive windows differ by less than the relative tolerance
+ * convergence.window = 300
+ * convergence.tolerance = 0.02
+ * # optional: the time for which the tolerance must hold (default 0)
+ * convergence.holdTime = 600
+ * # optional: the time between two samples (default 10)
+ * convergence.sampleInterval = 10
+ * </pre>
+ * 
+ * See {@link InputPath} for the syntax of the paths.
+ */
+public final class ScanConfiguration {
+
+    private static final Pattern AXIS_KEY = Pattern.compile("axis\\.(\\d+)\\.(name|path|values|range)");
+
+    private static final String REFINEMENT_PREFIX = "refinement.";
+
+    private static final List<String> REFINEMENT_KEYS = Arrays.asList("response", "tolerance", "levels",
+            "standardError", "maxReplications", "budget");
+
+    private static final int DEFAULT_REFINEMENT_LEVELS = 3;
+
+    private static final String CONVERGENCE_PREFIX = "convergence.";
+
+    private static final List<String> CONVERGENCE_KEYS = Arrays.asList("quantities", "window", "tolerance",
+            "holdTime", "sampleInterval");
+
+    private static final double DEFAULT_SAMPLE_INTERVAL = 10;
+
+    private final List<ScanAxis> axes;
+
+    private final int replications;
+
+    private final int threads;
+
+    private final Integer seed;
+
+    private final RefinementCriteria refinement;
+
+    private final ConvergenceCriteria convergence;
+
+    public ScanConfiguration(List<ScanAxis> axes, int replications, int threads, Integer seed) {
+        this(axes, replications, threads, seed, null, null);
+    }
+
+    /**
+     * Constructor.
+     * 
+     * @param axes
+     * @param replications
+     * @param threads
+     * @param seed
+     *            the seed of the first replication, the seed of the scenario if null
+     * @param refinement
+     *            the criteria of the adaptive refinement, full factorial scan if null
+     * @param convergence
+     *            the criteria for stopping the cases early, the cases run for the simulation duration if null
+     */
+    public ScanConfiguration(List<ScanAxis> axes, int replications, int threads, Integer seed,
+            RefinementCriteria refinement, ConvergenceCriteria convergence) {
+        Preconditions.checkArgument(replications > 0, "replications must be positive");
+        Preconditions.checkArgument(threads > 0, "threads must be positive");
+        this.axes = Collections.unmodifiableList(new ArrayList<>(axes));
+        this.replications = replications;
+        this.threads = threads;
+        this.seed = seed;
+        this.refinement = refinement;
+        this.convergence = convergence;
+    }
+
+    public static ScanConfiguration load(File file) {
+        final Properties properties = new Properties();
+        try (InputStream in = new FileInputStream(file)) {
+            properties.load(in);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("cannot read scan configuration=" + file, e);
+        }
+        return parse(properties);
+    }
+
+    public static ScanConfiguration parse(Properties properties) {
+        final TreeSet<Integer> axisNumbers = new TreeSet<>();
+        for (String key : properties.stringPropertyNames()) {
+            final Matcher matcher = AXIS_KEY.matcher(key);
+            if (matcher.matches()) {
+                axisNumbers.add(Integer.valueOf(matcher.group(1)));
+            } else if (!key.equals("replications") && !key.equals("threads") && !key.equals("seed")
+                    && !isKey(key, REFINEMENT_PREFIX, REFINEMENT_KEYS)
+                    && !isKey(key, CONVERGENCE_PREFIX, CONVERGENCE_KEYS)) {
+                throw new IllegalArgumentException("unknown key=" + key + " in scan configuration");
+            }
+        }
+        final List<ScanAxis> axes = new ArrayList<>();
+        for (Integer number : axisNumbers) {
+            axes.add(parseAxis(properties, "axis." + number + "."));
+        }
+        final int replications = Integer.parseInt(properties.getProperty("replications", "1").trim());
+        final int threads = properties.containsKey("threads") ? Integer.parseInt(properties.getProperty("threads")
+                .trim()) : Runtime.getRuntime().availableProcessors();
+        final Integer seed = properties.containsKey("seed") ? Integer.valueOf(properties.getProperty("seed").trim())
+                : null;
+        final RefinementCriteria refinement = properties.containsKey(REFINEMENT_PREFIX + "tolerance") ? parseRefinement(
+                properties, replications) : null;
+        final ConvergenceCriteria convergence = properties.containsKey(CONVERGENCE_PREFIX + "quantities")
+                ? parseConvergence(properties) : null;
+        return new ScanConfiguration(axes, replications, threads, seed, refinement, convergence);
+    }
+
+    private static boolean isKey(String key, String prefix, List<String> keys) {
+        return key.startsWith(prefix) && keys.contains(key.substring(prefix.length()));
+    }
+
+    private static RefinementCriteria parseRefinement(Properties properties, int replications) {
+        final ScanResponse response = ScanResponse.fromKeyword(property(properties, "response",
+                ScanResponse.AVG_TRAVEL_TIME.getKeyword()));
+        final double tolerance = Double.parseDouble(property(properties, "tolerance", null));
+        final int levels = Integer.parseInt(property(properties, "levels",
+                Integer.toString(DEFAULT_REFINEMENT_LEVELS)));
+        final double maxStandardError = Double.parseDouble(property(properties, "standardError",
+                Double.toString(Double.MAX_VALUE)));
+        final int maxReplications = Integer.parseInt(property(properties, "maxReplications",
+                Integer.toString(replications)));
+        final int budget = Integer.parseInt(property(properties, "budget", Integer.toString(Integer.MAX_VALUE)));
+        return new RefinementCriteria(response, levels, tolerance, maxStandardError, maxReplications, budget);
+    }
+
+    private static String property(Properties properties, String refinementKey, String defaultValue) {
+        return properties.getProperty(REFINEMENT_PREFIX + refinementKey, defaultValue).trim();
+    }
+
+    private static ConvergenceCriteria parseConvergence(Properties properties) {
+        final List<String> quantities = split(properties.getProperty(CONVERGENCE_PREFIX + "quantities"));
+        final String window = properties.getProperty(CONVERGENCE_PREFIX + "window");
+        final String tolerance = properties.getProperty(CONVERGENCE_PREFIX + "tolerance");
+        Preconditions.checkArgument(window != null && tolerance != null, "convergence needs " + CONVERGENCE_PREFIX
+                + "window and " + CONVERGENCE_PREFIX + "tolerance");
+        final double holdTime = Double.parseDouble(properties.getProperty(CONVERGENCE_PREFIX + "holdTime", "0").trim());
+        final double sampleInterval = Double.parseDouble(properties.getProperty(CONVERGENCE_PREFIX + "sampleInterval",
+                Double.toString(DEFAULT_SAMPLE_INTERVAL)).trim());
+        return new ConvergenceCriteria(quantities, Double.parseDouble(window.trim()), Double.parseDouble(tolerance
+                .trim()), holdTime, sampleInterval);
+    }
+
+    private static ScanAxis parseAxis(Properties properties, String prefix) {
+        final String pathList = properties.getProperty(prefix + "path");
+        Preconditions.checkArgument(pathList != null, "missing " + prefix + "path");
+        final List<InputPath> paths = new ArrayList<>();
+        for (String path : split(pathList)) {
+            paths.add(InputPath.parse(path));
+        }
+        final String values = properties.getProperty(prefix + "values");
+        final String range = properties.getProperty(prefix + "range");
+        Preconditions.checkArgument(values == null ^ range == null, "exactly one of " + prefix + "values and " + prefix
+                + "range must be given");
+        final String name = properties.getProperty(prefix + "name", split(pathList).get(0)).trim();
+        if (values != null) {
+            return new ScanAxis(name, paths, split(values));
+        }
+        final List<String> bounds = split(range);
+        Preconditions.checkArgument(bounds.size() == 3, prefix + "range must be given as: min, max, step");
+        return new ScanAxis(name, paths, ScanAxis.range(new BigDecimal(bounds.get(0)), new BigDecimal(bounds.get(1)),
+                new BigDecimal(bounds.get(2))));
+    }
+
+    private static List<String> split(String list) {
+        final List<String> elements = new ArrayList<>();
+        for (String element : list.split(",")) {
+            if (!element.trim().isEmpty()) {
+                elements.add(element.trim());
+            }
+        }
+        return elements;
+    }
+
+    public List<ScanAxis> getAxes() {
+        return axes;
+    }
+
+    public int getReplications() {
+        return replications;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public boolean hasSeed() {
+        return seed != null;
+    }
+
+    public int getSeed() {
+        Preconditions.checkState(hasSeed(), "no seed configured");
+        return seed;
+    }
+
+    public boolean hasRefinement() {
+        return refinement != null;
+    }
+
+    public RefinementCriteria getRefinement() {
+        Preconditions.checkState(hasRefinement(), "no refinement configured");
+        return refinement;
+    }
+
+    public boolean hasConvergence() {
+        return convergence != null;
+    }
+
+    public ConvergenceCriteria getConvergence() {
+        Preconditions.checkState(hasConvergence(), "no convergence configured");
+        return convergence;
+    }
+
+    /**
+     * Returns the number of simulation runs of a full factorial scan.
+     * 
+     * @return the number of parameter combinations times the number of replications
+     */
+    public int caseCount() {
+        int count = replications;
+        for (ScanAxis axis : axes) {
+            count *= axis.getValues().size();
+        }
+        return count;
+    }
+}
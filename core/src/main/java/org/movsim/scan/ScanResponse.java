@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ * 
+ * This file is part of
+ * 
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ * 
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ * 
+ * -----------------------------------------------------------------------------------------
+ */
+package org.movsim.scan;
+
+/**
+ * The aggregated quantities of a {@link ScanResult} which can drive an adaptive scan.
+ */
+public enum ScanResponse {
+
+    AVG_TRAVEL_TIME("avgTravelTime") {
+        @Override
+        public double value(ScanResult result) {
+            return result.getAverageTravelTime();
+        }
+    },
+
+    TOTAL_TRAVEL_TIME("totalTravelTime") {
+        @Override
+        public double value(ScanResult result) {
+            return result.getTotalTravelTime();
+        }
+    },
+
+    TOTAL_TRAVEL_DISTANCE("totalTravelDistance") {
+        @Override
+        public double value(ScanResult result) {
+            return result.getTotalTravelDistance();
+        }
+    },
+
+    FUEL_USED("fuelUsed") {
+        @Override
+        public double value(ScanResult result) {
+            return result.getTotalFuelUsedLiters();
+        }
+    },
+
+    VEHICLES_REMOVED("vehiclesRemoved") {
+        @Override
+        public double value(ScanResult result) {
+            return result.getVehiclesRemoved();
+        }
+    };
+
+    private final String keyword;
+
+    private ScanResponse(String keyword) {
+        this.keyword = keyword;
+    }
+
+    public String getKeyword() {
+        return keyword;
+    }
+
+    /**
+     * @param result
+     * @return the value of the response, NaN if it is undefined for the result
+     */
+    public abstract double value(ScanResult result);
+
+    public static ScanResponse fromKeyword(String keyword) {
+        for (ScanResponse response : values()) {
+            if (response.keyword.equalsIgnoreCase(keyword)) {
+                return response;
+            }
+        }
+        throw new IllegalArgumentException("unknown scan response=" + keyword);
+    }
+}
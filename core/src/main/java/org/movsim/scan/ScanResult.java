@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ * 
+ * This file is part of
+ * 
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ * 
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ * 
+ * -----------------------------------------------------------------------------------------
+ */
+package org.movsim.scan;
+
+import org.movsim.simulator.Simulator;
+import org.movsim.simulator.roadnetwork.RoadNetwork;
+
+/**
+ * The aggregated results of a finished {@link ScanCase}.
+ */
+public final class ScanResult {
+
+    private final ScanCase scanCase;
+
+    private final int vehiclesRemoved;
+
+    private final double totalTravelTime;
+
+    private final double totalTravelDistance;
+
+    private final double totalFuelUsedLiters;
+
+    private final double simulationTime;
+
+    private final String stopReason;
+
+    private final long elapsedTimeMillis;
+
+    ScanResult(ScanCase scanCase, Simulator simulator, long elapsedTimeMillis) {
+        this.scanCase = scanCase;
+        final RoadNetwork roadNetwork = simulator.getRoadNetwork();
+        this.vehiclesRemoved = roadNetwork.totalVehiclesRemoved();
+        this.totalTravelTime = roadNetwork.totalVehicleTravelTime();
+        this.totalTravelDistance = roadNetwork.totalVehicleTravelDistance();
+        this.totalFuelUsedLiters = roadNetwork.totalVehicleFuelUsedLiters();
+        this.simulationTime = simulator.getSimulationRunnable().simulationTime();
+        this.stopReason = simulator.getSimulationRunnable().stopReason();
+        this.elapsedTimeMillis = elapsedTimeMillis;
+    }
+
+    public ScanCase getScanCase() {
+        return scanCase;
+    }
+
+    public int getVehiclesRemoved() {
+        return vehiclesRemoved;
+    }
+
+    public double getTotalTravelTime() {
+        return totalTravelTime;
+    }
+
+    /**
+     * @return the average travel time of the vehicles which left the network, NaN if no vehicle has left the network
+     */
+    public double getAverageTravelTime() {
+        return vehiclesRemoved == 0 ? Double.NaN : totalTravelTime / vehiclesRemoved;
+    }
+
+    public double getTotalTravelDistance() {
+        return totalTravelDistance;
+    }
+
+    public double getTotalFuelUsedLiters() {
+        return totalFuelUsedLiters;
+    }
+
+    public double getSimulationTime() {
+        return simulationTime;
+    }
+
+    /**
+     * @return the reason why the simulation stopped, see {@link org.movsim.simulator.SimulationRun#stopReason()}
+     */
+    public String getStopReason() {
+        return stopReason;
+    }
+
+    public long getElapsedTimeMillis() {
+        return elapsedTimeMillis;
+    }
+}
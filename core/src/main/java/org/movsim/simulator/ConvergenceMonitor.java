@@ -0,0 +1,285 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ * 
+ * This file is part of
+ * 
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ * 
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ * 
+ * -----------------------------------------------------------------------------------------
+ */
+package org.movsim.simulator;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+import org.movsim.simulator.roadnetwork.RoadNetwork;
+import org.movsim.simulator.roadnetwork.RoadNetworkUtils;
+import org.movsim.simulator.roadnetwork.routing.Route;
+import org.movsim.simulator.roadnetwork.routing.Routing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * <p>
+ * Detects the steady state of a simulation. The monitor samples a set of network quantities in regular intervals and compares
+ * the mean of each quantity over the last window with its mean over the window before. The simulation is regarded as
+ * converged while the relative change of all quantities stays below the tolerance; the monitor stops the simulation once
+ * this has held for the hold time.
+ * </p>
+ * <p>
+ * Set it with {@link Simulator#setStopCondition(SimulationRun.StopCondition)} after the simulator has been initialized.
+ * </p>
+ */
+public class ConvergenceMonitor implements SimulationRun.StopCondition {
+
+    /** The Constant LOG. */
+    private static final Logger LOG = LoggerFactory.getLogger(ConvergenceMonitor.class);
+
+    /** stop reason of a converged simulation */
+    public static final String CONVERGED = "converged";
+
+    /**
+     * A network quantity watched by the monitor.
+     */
+    public interface Quantity {
+        /**
+         * @return the name of the quantity, used for logging
+         */
+        public String name();
+
+        /**
+         * Samples the quantity.
+         * 
+         * @param simulationTime
+         * @return the value of the quantity
+         */
+        public double value(double simulationTime);
+    }
+
+    private final List<Quantity> quantities;
+
+    private final double window;
+
+    private final double tolerance;
+
+    private final double holdTime;
+
+    private final double sampleInterval;
+
+    /** the samples of the last two windows: the simulation time followed by the values of the quantities */
+    private final Deque<double[]> samples = new ArrayDeque<>();
+
+    private double firstSampleTime;
+
+    private double nextSampleTime;
+
+    private double convergedSince;
+
+    /**
+     * Constructor.
+     * 
+     * @param quantities
+     *            the watched quantities
+     * @param window
+     *            the length of the window in seconds over which the quantities are averaged
+     * @param tolerance
+     *            the maximum relative change of the window means
+     * @param holdTime
+     *            the time in seconds for which the tolerance must hold
+     * @param sampleInterval
+     *            the time in seconds between two samples
+     */
+    public ConvergenceMonitor(List<Quantity> quantities, double window, double tolerance, double holdTime,
+            double sampleInterval) {
+        Preconditions.checkArgument(!quantities.isEmpty(), "no quantities to monitor");
+        Preconditions.checkArgument(sampleInterval > 0 && window >= sampleInterval,
+                "window must not be shorter than the positive sample interval");
+        Preconditions.checkArgument(tolerance > 0, "tolerance must be positive");
+        Preconditions.checkArgument(holdTime >= 0, "hold time must not be negative");
+        this.quantities = Collections.unmodifiableList(new ArrayList<>(quantities));
+        this.window = window;
+        this.tolerance = tolerance;
+        this.holdTime = holdTime;
+        this.sampleInterval = sampleInterval;
+        reset();
+    }
+
+    /**
+     * Returns the quantity with the given keyword: {@code meanSpeed} (mean speed of the vehicles in m/s),
+     * {@code vehicleCount} (number of vehicles in the network), {@code outflow} (vehicles leaving the network per second) or
+     * {@code travelTime:<route>} (instantaneous travel time on the route from the mean speeds in s).
+     * 
+     * @param keyword
+     * @param roadNetwork
+     * @param routing
+     * @return the quantity
+     * @throws IllegalArgumentException
+     *             if the keyword is unknown
+     */
+    public static Quantity quantity(String keyword, final RoadNetwork roadNetwork, Routing routing) {
+        switch (keyword) {
+        case "meanSpeed":
+            return new NamedQuantity(keyword) {
+                @Override
+                public double value(double simulationTime) {
+                    return roadNetwork.vehiclesMeanSpeed();
+                }
+            };
+        case "vehicleCount":
+            return new NamedQuantity(keyword) {
+                @Override
+                public double value(double simulationTime) {
+                    return roadNetwork.vehicleCount();
+                }
+            };
+        case "outflow":
+            return new NamedQuantity(keyword) {
+                private int lastVehiclesRemoved;
+                private double lastTime;
+
+                @Override
+                public double value(double simulationTime) {
+                    final int vehiclesRemoved = roadNetwork.totalVehiclesRemoved();
+                    final double outflow = simulationTime > lastTime ? (vehiclesRemoved - lastVehiclesRemoved)
+                            / (simulationTime - lastTime) : 0;
+                    lastVehiclesRemoved = vehiclesRemoved;
+                    lastTime = simulationTime;
+                    return outflow;
+                }
+            };
+        default:
+            final String travelTimePrefix = "travelTime:";
+            if (keyword.startsWith(travelTimePrefix)) {
+                final Route route = routing.get(keyword.substring(travelTimePrefix.length()));
+                return new NamedQuantity(keyword) {
+                    @Override
+                    public double value(double simulationTime) {
+                        return RoadNetworkUtils.instantaneousTravelTimeFromMeanSpeed(route);
+                    }
+                };
+            }
+            throw new IllegalArgumentException("unknown quantity=" + keyword);
+        }
+    }
+
+    @Override
+    public void reset() {
+        samples.clear();
+        firstSampleTime = Double.NaN;
+        nextSampleTime = 0;
+        convergedSince = Double.NaN;
+    }
+
+    @Override
+    public boolean isSatisfied(double simulationTime) {
+        if (simulationTime < nextSampleTime) {
+            return false;
+        }
+        nextSampleTime = simulationTime + sampleInterval;
+        final double[] sample = new double[quantities.size() + 1];
+        sample[0] = simulationTime;
+        for (int i = 0; i < quantities.size(); i++) {
+            sample[i + 1] = quantities.get(i).value(simulationTime);
+        }
+        samples.addLast(sample);
+        if (Double.isNaN(firstSampleTime)) {
+            firstSampleTime = simulationTime;
+        }
+        // the last window is compared with the window before
+        final double start = simulationTime - 2 * window;
+        while (samples.peekFirst()[0] < start) {
+            samples.removeFirst();
+        }
+        if (firstSampleTime > start || !isWithinTolerance(simulationTime - window)) {
+            convergedSince = Double.NaN;
+            return false;
+        }
+        if (Double.isNaN(convergedSince)) {
+            convergedSince = simulationTime;
+        }
+        if (simulationTime - convergedSince < holdTime) {
+            return false;
+        }
+        LOG.info(String.format("simulation converged at time=%.2fs, relative change of %s below %.4f since time=%.2fs",
+                simulationTime, names(), tolerance, convergedSince));
+        return true;
+    }
+
+    private boolean isWithinTolerance(double windowStart) {
+        for (int i = 1; i <= quantities.size(); i++) {
+            double previousSum = 0;
+            int previousCount = 0;
+            double lastSum = 0;
+            int lastCount = 0;
+            for (Iterator<double[]> iterator = samples.iterator(); iterator.hasNext();) {
+                final double[] sample = iterator.next();
+                if (sample[0] <= windowStart) {
+                    previousSum += sample[i];
+                    previousCount++;
+                } else {
+                    lastSum += sample[i];
+                    lastCount++;
+                }
+            }
+            if (previousCount == 0) {
+                return false;
+            }
+            final double previousMean = previousSum / previousCount;
+            final double lastMean = lastSum / lastCount;
+            final double scale = Math.max(Math.abs(previousMean), Math.abs(lastMean));
+            if (scale > 0 && Math.abs(lastMean - previousMean) > tolerance * scale) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String names() {
+        final StringBuilder sb = new StringBuilder();
+        for (Quantity quantity : quantities) {
+            sb.append(sb.length() == 0 ? "" : ", ").append(quantity.name());
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String reason() {
+        return CONVERGED;
+    }
+
+    private abstract static class NamedQuantity implements Quantity {
+
+        private final String name;
+
+        NamedQuantity(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ *
+ * This file is part of
+ *
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ *
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ *
+ * -----------------------------------------------------------------------------------------
+ */
+package org.movsim.simulator;
+
+import java.util.Random;
+
+import org.movsim.input.ProjectMetaData;
+import org.movsim.shutdown.ShutdownHooks;
+import org.movsim.simulator.roadnetwork.RoadTypeSpeeds;
+import org.movsim.utilities.RandomStream;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * <p>
+ * The state shared by the parts of a single simulation: project meta data, road type speeds, shutdown hooks, the seed of the
+ * random streams and the id counters of vehicles and road segments.
+ * </p>
+ * <p>
+ * Simulations with their own context are isolated from each other and can run concurrently in one process. The applications
+ * running a single simulation per process (command line, viewer) use the {@link #getDefault() default context}, which is based
+ * on the process-wide {@link ProjectMetaData#getInstance() project meta data}. Vehicles and road segments constructed without a
+ * context also take their ids from the default context.
+ * </p>
+ * <p>
+ * A context is not thread-safe, it is set up and used by the thread driving its simulation.
+ * </p>
+ */
+public final class SimulationContext {
+
+    private static final int INITIAL_ROAD_SEGMENT_ID = 1;
+
+    private static final long INITIAL_VEHICLE_ID = 1;
+
+    private static final SimulationContext DEFAULT = new SimulationContext(ProjectMetaData.getInstance(),
+            ShutdownHooks.INSTANCE);
+
+    private final ProjectMetaData projectMetaData;
+
+    private final ShutdownHooks shutdownHooks;
+
+    private final RoadTypeSpeeds roadTypeSpeeds = new RoadTypeSpeeds();
+
+    private long seed = new Random().nextLong();
+
+    private int nextRoadSegmentId = INITIAL_ROAD_SEGMENT_ID;
+
+    private long nextVehicleId = INITIAL_VEHICLE_ID;
+
+    /**
+     * Creates an isolated context with its own shutdown hooks.
+     *
+     * @param projectMetaData
+     *            the project meta data of the simulation
+     */
+    public SimulationContext(ProjectMetaData projectMetaData) {
+        this(projectMetaData, new ShutdownHooks());
+    }
+
+    private SimulationContext(ProjectMetaData projectMetaData, ShutdownHooks shutdownHooks) {
+        this.projectMetaData = Preconditions.checkNotNull(projectMetaData);
+        this.shutdownHooks = shutdownHooks;
+    }
+
+    /**
+     * Returns the context of the applications running a single simulation per process.
+     *
+     * @return the default context
+     */
+    public static SimulationContext getDefault() {
+        return DEFAULT;
+    }
+
+    public ProjectMetaData getProjectMetaData() {
+        return projectMetaData;
+    }
+
+    public ShutdownHooks getShutdownHooks() {
+        return shutdownHooks;
+    }
+
+    public RoadTypeSpeeds getRoadTypeSpeeds() {
+        return roadTypeSpeeds;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Creates the random stream of a simulation entity, see {@link RandomStream#forKey(long, String, long)}.
+     *
+     * @param domain
+     *            the kind of entity, e.g. "vehicle"
+     * @param id
+     *            the id of the entity within its domain
+     * @return the random stream of the entity
+     */
+    public RandomStream newRandomStream(String domain, long id) {
+        return RandomStream.forKey(seed, domain, id);
+    }
+
+    public int nextRoadSegmentId() {
+        return nextRoadSegmentId++;
+    }
+
+    public long nextVehicleId() {
+        return nextVehicleId++;
+    }
+
+    /**
+     * Reserves a block of road segment ids, e.g. for road segments that are created concurrently but must get the same ids
+     * as if they were created one after another.
+     * 
+     * @param count
+     *            the number of ids
+     * @return the first id of the block
+     */
+    public int reserveRoadSegmentIds(int count) {
+        Preconditions.checkArgument(count >= 0);
+        final int firstId = nextRoadSegmentId;
+        nextRoadSegmentId += count;
+        return firstId;
+    }
+
+    /**
+     * Reserves a block of vehicle ids, see {@link #reserveRoadSegmentIds(int)}.
+     * 
+     * @param count
+     *            the number of ids
+     * @return the first id of the block
+     */
+    public long reserveVehicleIds(int count) {
+        Preconditions.checkArgument(count >= 0);
+        final long firstId = nextVehicleId;
+        nextVehicleId += count;
+        return firstId;
+    }
+
+    /**
+     * Returns the number of road segments that have been created. Used for instrumentation.
+     *
+     * @return the number of road segments that have been created
+     */
+    public int roadSegmentCount() {
+        return nextRoadSegmentId - INITIAL_ROAD_SEGMENT_ID;
+    }
+
+    /**
+     * Returns the number of vehicles that have been created. Used for instrumentation.
+     *
+     * @return the number of vehicles that have been created
+     */
+    public long vehicleCount() {
+        return nextVehicleId - INITIAL_VEHICLE_ID;
+    }
+
+    public void resetRoadSegmentIds() {
+        nextRoadSegmentId = INITIAL_ROAD_SEGMENT_ID;
+    }
+
+    public void resetVehicleIds() {
+        nextVehicleId = INITIAL_VEHICLE_ID;
+    }
+}
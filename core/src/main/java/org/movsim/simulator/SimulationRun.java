@@ -27,6 +27,7 @@ package org.movsim.simulator;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.movsim.shutdown.ShutdownHooks;
 
@@ -56,6 +57,38 @@ public class SimulationRun {
 	public void updateStatus(double simulationTime);
     }
 
+    /**
+     * A condition which ends {@link SimulationRun#runToCompletion()} before the simulation duration is reached, e.g. a
+     * {@link ConvergenceMonitor}.
+     */
+    public interface StopCondition {
+        /**
+         * Called before the first timestep of a run.
+         */
+        public void reset();
+
+        /**
+         * Called after each timestep.
+         * 
+         * @param simulationTime
+         *            the logical time in the simulation after the timestep
+         * @return true if the simulation should stop
+         */
+        public boolean isSatisfied(double simulationTime);
+
+        /**
+         * Returns a short description of the reason for stopping, without commas.
+         * 
+         * @return the reason for stopping
+         */
+        public String reason();
+    }
+
+    /** stop reason of a run which has reached the simulation duration */
+    public static final String DURATION_REACHED = "duration";
+
+    private static final AtomicBoolean SHUTDOWN_HOOK_INSTALLED = new AtomicBoolean();
+
     protected double dt; // timestep, seconds
 
     protected double duration; // duration, seconds
@@ -71,9 +104,16 @@ public class SimulationRun {
 
     protected CompletionCallback completionCallback;
 
+    protected StopCondition stopCondition;
+
+    protected String stopReason;
+
     // simulation is an object that implements the SimulationTimeStep interface.
     protected final SimulationTimeStep simulation;
 
+    // callbacks performed when the simulation ends
+    protected final ShutdownHooks shutdownHooks;
+
     /**
      * Constructor, sets the simulation object.
      * 
@@ -82,8 +122,24 @@ public class SimulationRun {
      *            interface
      */
     public SimulationRun(SimulationTimeStep simulation) {
+	this(simulation, ShutdownHooks.INSTANCE);
+    }
+
+    /**
+     * Constructor, sets the simulation object and the shutdown hooks of its
+     * simulation context.
+     * 
+     * @param simulation
+     *            a simulation object that implements the SimulationTimeStep
+     *            interface
+     * @param shutdownHooks
+     *            the callbacks performed when the simulation ends
+     */
+    public SimulationRun(SimulationTimeStep simulation, ShutdownHooks shutdownHooks) {
 	assert simulation != null;
+	assert shutdownHooks != null;
 	this.simulation = simulation;
+	this.shutdownHooks = shutdownHooks;
 	initShutdownHook();
     }
 
@@ -170,6 +226,26 @@ public class SimulationRun {
 	return totalSimulationTime;
     }
 
+    /**
+     * Sets a condition which stops {@link #runToCompletion()} before the simulation duration is reached.
+     * 
+     * @param stopCondition
+     *            the stop condition, or null to run for the full simulation duration
+     */
+    public final void setStopCondition(StopCondition stopCondition) {
+        this.stopCondition = stopCondition;
+    }
+
+    /**
+     * Returns the reason why the last {@link #runToCompletion()} stopped: {@link #DURATION_REACHED} or the reason of the stop
+     * condition.
+     * 
+     * @return the stop reason, null if the simulation has not run to completion
+     */
+    public final String stopReason() {
+        return stopReason;
+    }
+
     /**
      * Resets the simulation instrumentation data.
      */
@@ -177,6 +253,7 @@ public class SimulationRun {
 	simulationTime = 0.0;
 	iterationCount = 0;
 	totalSimulationTime = 0;
+	stopReason = null;
     }
 
     /**
@@ -206,8 +283,12 @@ public class SimulationRun {
         assert duration != 0.0;
         assert duration > 0.0;
         reset();
+        if (stopCondition != null) {
+            stopCondition.reset();
+        }
         final long timeBeforeSim_ms = System.currentTimeMillis();
         final double timeLimit = duration + dt / 2.0; // allow for rounding errors
+        stopReason = DURATION_REACHED;
         while (simulationTime <= timeLimit) {
             // perform the timeStep for the road network
             simulation.timeStep(dt, simulationTime, iterationCount);
@@ -216,6 +297,10 @@ public class SimulationRun {
             }
             simulationTime += dt;
             ++iterationCount;
+            if (stopCondition != null && stopCondition.isSatisfied(simulationTime)) {
+                stopReason = stopCondition.reason();
+                break;
+            }
 
             // TODO testwise
             // if (iterationCount == 1000) {
@@ -227,16 +312,18 @@ public class SimulationRun {
         if (completionCallback != null) {
             completionCallback.simulationComplete(simulationTime);
         }
-        ShutdownHooks.INSTANCE.onShutDown();
+        shutdownHooks.onShutDown();
     }
 
     private static void initShutdownHook() {
-        Runtime.getRuntime().addShutdownHook(new Thread() {
-            @Override
-            public void run() {
-                System.out.println("Unexpected end of simulator: perform ShutdownHooks");
-                ShutdownHooks.INSTANCE.onShutDown();
-            }
-        });
+        if (SHUTDOWN_HOOK_INSTALLED.compareAndSet(false, true)) {
+            Runtime.getRuntime().addShutdownHook(new Thread() {
+                @Override
+                public void run() {
+                    System.out.println("Unexpected end of simulator: perform ShutdownHooks");
+                    ShutdownHooks.onShutDownAll();
+                }
+            });
+        }
     }
 }
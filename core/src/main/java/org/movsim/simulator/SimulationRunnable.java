@@ -104,7 +104,19 @@ public class SimulationRunnable extends SimulationRun implements Runnable {
      *            a simulation object that implements the SimulationTimeStep interface
      */
     public SimulationRunnable(SimulationTimeStep simulation) {
-        super(simulation);
+        this(simulation, ShutdownHooks.INSTANCE);
+    }
+
+    /**
+     * Constructor, sets the simulation object, the shutdown hooks of its simulation context and default sleep time.
+     * 
+     * @param simulation
+     *            a simulation object that implements the SimulationTimeStep interface
+     * @param shutdownHooks
+     *            the callbacks performed when the simulation ends
+     */
+    public SimulationRunnable(SimulationTimeStep simulation, ShutdownHooks shutdownHooks) {
+        super(simulation, shutdownHooks);
         setSleepTime(DEFAULT_SLEEP_TIME_MS);
         // defaultExceptionHandler = new DefaultExceptionHandler();
         // Cannot call Thread.setDefaultUncaughtExceptionHandler() in applet
@@ -274,10 +286,11 @@ public class SimulationRunnable extends SimulationRun implements Runnable {
         while (Thread.currentThread() == thread) {
             if (duration > 0.0 && simulationTime >= duration) {
                 stop();
+                stopReason = DURATION_REACHED;
                 if (completionCallback != null) {
                     completionCallback.simulationComplete(simulationTime);
                 }
-                ShutdownHooks.INSTANCE.onShutDown();
+                shutdownHooks.onShutDown();
                 break;
             }
             try {
@@ -293,7 +306,7 @@ public class SimulationRunnable extends SimulationRun implements Runnable {
                 try {
                     simulation.timeStep(dt, simulationTime, iterationCount);
                 } catch (final Exception e) {
-                    ShutdownHooks.INSTANCE.onShutDown();
+                    shutdownHooks.onShutDown();
                     if (handleExceptionCallback != null) {
                         handleExceptionCallback.handleException(e);
                     }
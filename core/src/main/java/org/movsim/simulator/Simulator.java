@@ -14,8 +14,7 @@ package org.movsim.simulator;
 import java.io.File;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
 
 import javax.xml.bind.JAXBException;
@@ -36,13 +35,11 @@ import org.movsim.input.network.OpenDriveReader;
 import org.movsim.output.FileTrafficSinkData;
 import org.movsim.output.FileTrafficSourceData;
 import org.movsim.output.SimulationOutput;
-import org.movsim.scenario.boundary.autogen.BoundaryConditionsType;
 import org.movsim.scenario.vehicle.autogen.MovsimExternalVehicleControl;
-import org.movsim.shutdown.ShutdownHooks;
 import org.movsim.simulator.observer.ServiceProviders;
 import org.movsim.simulator.roadnetwork.RoadNetwork;
 import org.movsim.simulator.roadnetwork.RoadSegment;
-import org.movsim.simulator.roadnetwork.RoadTypeSpeeds;
+import org.movsim.simulator.roadnetwork.RouteMetrics;
 import org.movsim.simulator.roadnetwork.boundaries.AbstractTrafficSource;
 import org.movsim.simulator.roadnetwork.boundaries.InflowTimeSeries;
 import org.movsim.simulator.roadnetwork.boundaries.MicroscopicBoundaryConditions;
@@ -75,12 +72,20 @@ public class Simulator implements SimulationTimeStep, SimulationRun.CompletionCa
     /** The Constant LOG. */
     private static final Logger LOG = LoggerFactory.getLogger(Simulator.class);
 
+    private static final String TRAFFIC_COMPOSITION_RANDOM_STREAM = "trafficComposition";
+
     private long startTimeMillis;
 
+    private final SimulationContext context;
+
     private final ProjectMetaData projectMetaData;
 
     private String projectName;
 
+    /** the parsed scenario, it is not modified by the simulator */
+    private Movsim scenarioInput;
+
+    /** the copy of the scenario used by the current initialization */
     private Movsim movsimInput;
 
     private VehicleFactory vehicleFactory;
@@ -99,35 +104,61 @@ public class Simulator implements SimulationTimeStep, SimulationRun.CompletionCa
 
     private Routing routing;
 
+    /** per-segment aggregates shared by the route outputs and the service providers */
+    private RouteMetrics routeMetrics;
+
     private final SimulationRunnable simulationRunnable;
 
     private int obstacleCount;
 
     private long timeOffsetMillis;
 
+    /** pool for the parallel road network update, created on demand */
+    private ForkJoinPool forkJoinPool;
+
     /**
-     * Constructor.
+     * Constructor, the simulator runs in the {@link SimulationContext#getDefault() default context}.
      * 
      * @param inputData
      * 
      */
     public Simulator(Movsim inputData) {
-        this.projectMetaData = ProjectMetaData.getInstance();
-        ShutdownHooks.INSTANCE.clear(); // TODO move to better place
-        this.movsimInput = Preconditions.checkNotNull(inputData);
-        if (movsimInput.isSetRoadTypeSpeedMappings()) {
-            RoadTypeSpeeds.INSTANCE.init(inputData.getRoadTypeSpeedMappings());
+        this(inputData, SimulationContext.getDefault());
+    }
+
+    /**
+     * Constructor. Simulators with different contexts can run concurrently.
+     * 
+     * @param inputData
+     * @param context
+     *            the context of the simulation
+     */
+    public Simulator(Movsim inputData, SimulationContext context) {
+        this.context = Preconditions.checkNotNull(context);
+        this.projectMetaData = context.getProjectMetaData();
+        context.getShutdownHooks().clear(); // TODO move to better place
+        this.scenarioInput = Preconditions.checkNotNull(inputData);
+        if (inputData.isSetRoadTypeSpeedMappings()) {
+            context.getRoadTypeSpeeds().init(inputData.getRoadTypeSpeedMappings());
         }
         roadNetwork = new RoadNetwork();
-        simulationRunnable = new SimulationRunnable(this);
+        simulationRunnable = new SimulationRunnable(this, context.getShutdownHooks());
         simulationRunnable.setCompletionCallback(this);
     }
 
+    /**
+     * Initializes the simulation from the scenario given to the constructor or loaded by
+     * {@link #loadScenarioFromXml(String, String)}. The scenario is parsed only once: each initialization, e.g. a reset in
+     * the viewer, works on a deep copy of the parsed scenario, since the initialization adapts parts of its input.
+     * 
+     * @throws JAXBException
+     * @throws SAXException
+     */
     public void initialize() throws JAXBException, SAXException {
         LOG.info("Copyright '\u00A9' by Arne Kesting, Martin Treiber, Ralph Germ and Martin Budden (2011-2013)");
 
         projectName = projectMetaData.getProjectName();
-        movsimInput = InputLoader.unmarshallMovsim(projectMetaData.getInputFile());
+        movsimInput = InputLoader.copy(scenarioInput);
 
         timeOffsetMillis = 0;
         if (movsimInput.getScenario().getSimulation().isSetTimeOffset()) {
@@ -135,24 +166,38 @@ public class Simulator implements SimulationTimeStep, SimulationRun.CompletionCa
                     DateTimeFormat.forPattern("YYYY-MM-dd'T'HH:mm:ssZ")).toDateTime(DateTimeZone.UTC);
             timeOffsetMillis = dateTime.getMillis();
             LOG.info("global time offset set={} --> {} milliseconds.", dateTime, timeOffsetMillis);
-            ProjectMetaData.getInstance();
-            ProjectMetaData.getInstance().setTimeOffsetMillis(timeOffsetMillis);
+            projectMetaData.setTimeOffsetMillis(timeOffsetMillis);
         }
         projectMetaData.setXodrNetworkFilename(movsimInput.getScenario().getNetworkFilename()); // TODO
 
         Simulation simulationInput = movsimInput.getScenario().getSimulation();
 
-        parseOpenDriveXml(roadNetwork, projectMetaData);
-        routing = new Routing(movsimInput.getScenario().getRoutes(), roadNetwork);
+        if (simulationInput.isWithSeed()) {
+            context.setSeed(simulationInput.getSeed());
+            if (context == SimulationContext.getDefault()) {
+                // the viewer and the model diagrams draw from the process-wide generator
+                MyRandom.initializeWithSeed(simulationInput.getSeed());
+            }
+        }
+        // the random streams are keyed by the seed and the entity ids, see SimulationContext.newRandomStream
+        context.resetVehicleIds();
+        context.resetRoadSegmentIds();
+
+        parseOpenDriveXml(context, roadNetwork);
+        routing = new Routing(movsimInput.getScenario().getRoutes(), roadNetwork, projectMetaData);
+        roadNetwork.setTravelTimeListener(routing.getTravelTimeTable());
+        routeMetrics = new RouteMetrics();
 
         if (movsimInput.isSetServiceProviders()) {
-            serviceProviders = new ServiceProviders(movsimInput.getServiceProviders(), routing, roadNetwork);
+            serviceProviders = new ServiceProviders(context, movsimInput.getServiceProviders(), routing,
+                    roadNetwork, routeMetrics);
         }
 
-        vehicleFactory = new VehicleFactory(simulationInput.getTimestep(), movsimInput.getVehiclePrototypes(),
-                movsimInput.getConsumption(), routing, serviceProviders);
+        vehicleFactory = new VehicleFactory(context, simulationInput.getTimestep(),
+                movsimInput.getVehiclePrototypes(), movsimInput.getConsumption(), routing, serviceProviders);
 
         roadNetwork.setWithCrashExit(simulationInput.isCrashExit());
+        initParallelExecution();
 
         simulationRunnable.setTimeStep(simulationInput.getTimestep());
 
@@ -161,16 +206,12 @@ public class Simulator implements SimulationTimeStep, SimulationRun.CompletionCa
 
         simulationRunnable.setDuration(duration < 0 ? Double.MAX_VALUE : duration);
 
-        if (simulationInput.isWithSeed()) {
-            MyRandom.initializeWithSeed(simulationInput.getSeed());
-        }
-
         defaultTrafficComposition = new TrafficCompositionGenerator(simulationInput.getTrafficComposition(),
-                vehicleFactory);
+                vehicleFactory, context.newRandomStream(TRAFFIC_COMPOSITION_RANDOM_STREAM, 0));
 
-        trafficLights = new TrafficLights(movsimInput.getScenario().getTrafficLights(), roadNetwork);
+        trafficLights = new TrafficLights(context, movsimInput.getScenario().getTrafficLights(), roadNetwork);
 
-        regulators = new Regulators(movsimInput.getScenario().getRegulators(), roadNetwork);
+        regulators = new Regulators(movsimInput.getScenario().getRegulators(), roadNetwork, projectMetaData);
 
         ExternalVehiclesController externalVehicleController = createExternalVehicleController();
         roadNetwork.setExternalVehicleController(externalVehicleController);
@@ -199,8 +240,21 @@ public class Simulator implements SimulationTimeStep, SimulationRun.CompletionCa
         startTimeMillis = System.currentTimeMillis();
     }
 
+    private void initParallelExecution() {
+        final int parallelism = projectMetaData.getParallelism();
+        if (parallelism <= 1) {
+            roadNetwork.setForkJoinPool(null);
+            return;
+        }
+        if (forkJoinPool == null || forkJoinPool.getParallelism() != parallelism) {
+            forkJoinPool = new ForkJoinPool(parallelism);
+        }
+        roadNetwork.setForkJoinPool(forkJoinPool);
+        LOG.info("parallel road network update with {} threads", parallelism);
+    }
+
     private ExternalVehiclesController createExternalVehicleController() {
-        ExternalVehiclesController externalVehicleController = new ExternalVehiclesController();
+        ExternalVehiclesController externalVehicleController = new ExternalVehiclesController(context);
         if (movsimInput.getScenario().isSetExternalVehicleControlFilename()) {
             String filename = movsimInput.getScenario().getExternalVehicleControlFilename();
             File file = projectMetaData.getFile(filename);
@@ -221,13 +275,32 @@ public class Simulator implements SimulationTimeStep, SimulationRun.CompletionCa
     }
 
     public ProjectMetaData getProjectMetaData() {
-        return ProjectMetaData.getInstance();
+        return projectMetaData;
+    }
+
+    public SimulationContext getContext() {
+        return context;
     }
 
     public RoadNetwork getRoadNetwork() {
         return roadNetwork;
     }
 
+    public Routing getRouting() {
+        return routing;
+    }
+
+    /**
+     * Sets a condition which stops {@link #runToCompletion()} before the simulation duration is reached, e.g. a
+     * {@link ConvergenceMonitor}.
+     * 
+     * @param stopCondition
+     *            the stop condition, or null to run for the full simulation duration
+     */
+    public void setStopCondition(SimulationRun.StopCondition stopCondition) {
+        simulationRunnable.setStopCondition(stopCondition);
+    }
+
     public SimulationRunnable getSimulationRunnable() {
         return simulationRunnable;
     }
@@ -242,8 +315,9 @@ public class Simulator implements SimulationTimeStep, SimulationRun.CompletionCa
      */
     public void loadScenarioFromXml(String scenario, String path) throws JAXBException, SAXException {
         roadNetwork.clear();
-        ProjectMetaData.getInstance().setProjectName(scenario);
-        ProjectMetaData.getInstance().setPathToProjectXmlFile(path);
+        projectMetaData.setProjectName(scenario);
+        projectMetaData.setPathToProjectXmlFile(path);
+        scenarioInput = InputLoader.unmarshallMovsim(projectMetaData.getInputFile());
         initialize();
     }
 
@@ -282,18 +356,19 @@ public class Simulator implements SimulationTimeStep, SimulationRun.CompletionCa
     /**
      * Parse the OpenDrive (.xodr) file to load the network topology and road layout.
      * 
-     * @param ProjectMetaData
-     *            .getInstance()
+     * @param context
+     * @param roadNetwork
      * @return
      * @throws SAXException
      * @throws JAXBException
      * @throws ParserConfigurationException
      */
-    private static boolean parseOpenDriveXml(RoadNetwork roadNetwork, ProjectMetaData projectMetaData)
+    private static boolean parseOpenDriveXml(SimulationContext context, RoadNetwork roadNetwork)
             throws JAXBException, SAXException {
+        final ProjectMetaData projectMetaData = context.getProjectMetaData();
         File networkFile = projectMetaData.getFile(projectMetaData.getXodrNetworkFilename());
         LOG.info("try to load {}", networkFile);
-        final boolean loaded = OpenDriveReader.loadRoadNetwork(roadNetwork, networkFile);
+        final boolean loaded = OpenDriveReader.loadRoadNetwork(context, roadNetwork, networkFile);
         LOG.info("done with parsing road network {}. Success: {}", networkFile, loaded);
         return loaded;
     }
@@ -311,7 +386,8 @@ public class Simulator implements SimulationTimeStep, SimulationRun.CompletionCa
         TrafficCompositionGenerator composition = defaultTrafficComposition;
 
         if (roadInput.isSetTrafficComposition()) {
-            composition = new TrafficCompositionGenerator(roadInput.getTrafficComposition(), vehicleFactory);
+            composition = new TrafficCompositionGenerator(roadInput.getTrafficComposition(), vehicleFactory,
+                    context.newRandomStream(TRAFFIC_COMPOSITION_RANDOM_STREAM, roadSegment.id()));
             roadSegment.setTrafficComposition(composition);
             LOG.info("road with id={} has its own vehicle composition generator.", roadSegment.id());
         }
@@ -326,12 +402,10 @@ public class Simulator implements SimulationTimeStep, SimulationRun.CompletionCa
                 trafficSource = new TrafficSourceMacro(composition, roadSegment, inflowTimeSeries);
             } else if (microBoundaryConditions != null) {
                 // microscopic boundary conditions
-                BoundaryConditionsType boundaryConditions = microBoundaryConditions
-                        .getBoundaryConditions(roadSegment.userId());
-                MicroscopicBoundaryInputData inputData = new MicroscopicBoundaryInputData(boundaryConditions,
+                MicroscopicBoundaryInputData inputData = new MicroscopicBoundaryInputData(
+                        microBoundaryConditions.openBoundaryConditions(roadSegment.userId()),
                         microBoundaryConditions.getTimeFormat(), timeOffsetMillis, routing);
-                trafficSource = new TrafficSourceMicro(composition, roadSegment);
-                addVehiclesToSource((TrafficSourceMicro) trafficSource, inputData);
+                trafficSource = new TrafficSourceMicro(composition, roadSegment, inputData);
             } else {
                 throw new IllegalStateException(
                         "no micro nor macro boundary condition data provided for traffic source on roadSegment="
@@ -340,7 +414,7 @@ public class Simulator implements SimulationTimeStep, SimulationRun.CompletionCa
 
             if (trafficSource != null) {
                 if (trafficSourceData.isLogging()) {
-                    trafficSource.setRecorder(new FileTrafficSourceData(roadSegment.userId()));
+                    trafficSource.setRecorder(new FileTrafficSourceData(context, roadSegment.userId()));
                 }
                 roadSegment.setTrafficSource(trafficSource);
             }
@@ -357,7 +431,7 @@ public class Simulator implements SimulationTimeStep, SimulationRun.CompletionCa
             InflowTimeSeries inflowTimeSeries = new InflowTimeSeries(simpleRampData.getInflow());
             SimpleRamp simpleRamp = new SimpleRamp(composition, roadSegment, simpleRampData, inflowTimeSeries);
             if (simpleRampData.isLogging()) {
-                simpleRamp.setRecorder(new FileTrafficSourceData(roadSegment.userId()));
+                simpleRamp.setRecorder(new FileTrafficSourceData(context, roadSegment.userId()));
             }
             roadSegment.setSimpleRamp(simpleRamp);
         }
@@ -368,7 +442,8 @@ public class Simulator implements SimulationTimeStep, SimulationRun.CompletionCa
             boolean logLanes = roadInput.getDetectors().isLoggingLanes();
             double sampleDt = roadInput.getDetectors().getSampleInterval();
             for (CrossSection crossSection : roadInput.getDetectors().getCrossSection()) {
-                LoopDetector det = new LoopDetector(roadSegment, crossSection.getPosition(), sampleDt, log, logLanes);
+                LoopDetector det = new LoopDetector(context, roadSegment, crossSection.getPosition(), sampleDt, log,
+                        logLanes);
                 roadSegment.roadObjects().add(det);
             }
         }
@@ -393,28 +468,21 @@ public class Simulator implements SimulationTimeStep, SimulationRun.CompletionCa
 
     }
 
-    private void addVehiclesToSource(TrafficSourceMicro trafficSource, MicroscopicBoundaryInputData inputData) {
-        Map<Long, Vehicle> vehicles = inputData.createVehicles((TrafficSourceMicro) trafficSource);
-        for (Entry<Long, Vehicle> veh : vehicles.entrySet()) {
-            trafficSource.addVehicleToQueue(veh.getKey(), veh.getValue());
-        }
-    }
-
-    private static void configureTrafficSink(TrafficSinkType trafficSinkType, RoadSegment roadSegment) {
+    private void configureTrafficSink(TrafficSinkType trafficSinkType, RoadSegment roadSegment) {
         if (!roadSegment.hasSink()) {
             throw new IllegalArgumentException("roadsegment=" + roadSegment.userId() + " does not have a TrafficSink.");
         }
         if (trafficSinkType.isLogging()) {
-            roadSegment.sink().setRecorder(new FileTrafficSinkData(roadSegment.userId()));
+            roadSegment.sink().setRecorder(new FileTrafficSinkData(context, roadSegment.userId()));
         }
     }
 
     public void reset() {
         simulationRunnable.reset();
         if (movsimInput.getScenario().isSetOutputConfiguration()) {
-            simOutput = new SimulationOutput(simulationRunnable.timeStep(), projectMetaData.isInstantaneousFileOutput(),
-                    movsimInput.getScenario().getOutputConfiguration(), roadNetwork, routing, vehicleFactory,
-                    serviceProviders);
+            simOutput = new SimulationOutput(context, simulationRunnable.timeStep(),
+                    projectMetaData.isInstantaneousFileOutput(), movsimInput.getScenario().getOutputConfiguration(),
+                    roadNetwork, routing, routeMetrics, vehicleFactory, serviceProviders);
         }
         obstacleCount = roadNetwork.obstacleCount();
     }
@@ -443,8 +511,8 @@ public class Simulator implements SimulationTimeStep, SimulationRun.CompletionCa
 
     @Override
     public void simulationComplete(double simulationTime) {
-        LOG.info(String.format("Simulator.run: stop after time = %.2fs = %.2fh of simulation project=%s",
-                simulationTime, simulationTime / 3600., projectName));
+        LOG.info(String.format("Simulator.run: stop after time = %.2fs = %.2fh of simulation project=%s, reason=%s",
+                simulationTime, simulationTime / 3600., projectName, simulationRunnable.stopReason()));
 
         regulators.simulationCompleted(simulationTime);
 
@@ -493,6 +561,7 @@ public class Simulator implements SimulationTimeStep, SimulationRun.CompletionCa
         trafficLights.timeStep(dt, simulationTime, iterationCount);
         regulators.timeStep(dt, simulationTime, iterationCount);
         roadNetwork.timeStep(dt, simulationTime, iterationCount);
+        routeMetrics.timeStep(dt, simulationTime, iterationCount);
 
         if (simOutput != null) {
             simOutput.timeStep(dt, simulationTime, iterationCount);
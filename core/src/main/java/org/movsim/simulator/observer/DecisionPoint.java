@@ -1,18 +1,23 @@
 package org.movsim.simulator.observer;
 
-import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.List;
 import java.util.SortedMap;
 import java.util.TreeMap;
 
+import javax.annotation.CheckForNull;
+
 import org.movsim.autogen.DecisionPointType;
 import org.movsim.autogen.RouteAlternativeType;
 import org.movsim.simulator.roadnetwork.routing.Route;
 import org.movsim.simulator.roadnetwork.routing.Routing;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Iterators;
 
+/**
+ * The route alternatives at a road segment. The choice probabilities of the alternatives are calculated once after each
+ * update of the disutilities and shared by all vehicles choosing at this decision point.
+ */
 public class DecisionPoint implements Iterable<RouteAlternative> {
 
     private final String roadId;
@@ -20,6 +25,14 @@ public class DecisionPoint implements Iterable<RouteAlternative> {
     /** sorted according to routeLabel for assuring a consistent */
     private final SortedMap<String, RouteAlternative> routeAlternatives = new TreeMap<>();
 
+    /** the alternatives in the order of the route labels */
+    private final RouteAlternative[] alternatives;
+
+    private final double[] cumulativeProbabilities;
+
+    /** the uncertainty the probabilities have been calculated for, NaN before the first calculation */
+    private double probabilitiesUncertainty = Double.NaN;
+
     public DecisionPoint(DecisionPointType configuration, Routing routing) {
         Preconditions.checkNotNull(configuration);
         if (!configuration.isSetRouteAlternative() || configuration.getRouteAlternative().isEmpty()) {
@@ -34,6 +47,8 @@ public class DecisionPoint implements Iterable<RouteAlternative> {
             RouteAlternative alternative = new RouteAlternative(route);
             routeAlternatives.put(alternative.getRoute().getName(), alternative);
         }
+        alternatives = routeAlternatives.values().toArray(new RouteAlternative[routeAlternatives.size()]);
+        cumulativeProbabilities = new double[alternatives.length];
     }
 
     public String getRoadId() {
@@ -42,15 +57,46 @@ public class DecisionPoint implements Iterable<RouteAlternative> {
 
     @Override
     public Iterator<RouteAlternative> iterator() {
-        return routeAlternatives.values().iterator();
+        return Iterators.forArray(alternatives);
+    }
+
+    /**
+     * Returns the alternative of the route with the given name.
+     * 
+     * @param routeName
+     * @return the alternative, null if the route is not an alternative of this decision point
+     */
+    @CheckForNull
+    public RouteAlternative getAlternative(String routeName) {
+        return routeAlternatives.get(routeName);
+    }
+
+    /**
+     * Calculates the choice probabilities of the alternatives, must be called after the disutilities have been updated.
+     * 
+     * @param uncertainty
+     *            the standard deviation of the disutility errors
+     */
+    public void updateProbabilities(double uncertainty) {
+        LogitRouteDecisionMaking.calcProbabilities(alternatives, uncertainty, cumulativeProbabilities);
+        probabilitiesUncertainty = uncertainty;
     }
 
-    public List<RouteAlternative> createRouteAlternatives() {
-        List<RouteAlternative> alternatives = new ArrayList<>(routeAlternatives.size());
-        for(RouteAlternative routeAlternative : routeAlternatives.values()){
-            alternatives.add(new RouteAlternative(routeAlternative));
+    /**
+     * Selects an alternative according to the choice probabilities. The probabilities are only recalculated if they have
+     * been calculated for a different uncertainty.
+     * 
+     * @param uncertainty
+     *            the standard deviation of the disutility errors of the choosing vehicle
+     * @param random
+     *            uniformly distributed random number in [0,1)
+     * @return the selected alternative
+     */
+    public RouteAlternative selectAlternative(double uncertainty, double random) {
+        if (uncertainty != probabilitiesUncertainty) {
+            updateProbabilities(uncertainty);
         }
-        return alternatives;
+        return alternatives[LogitRouteDecisionMaking.selectAlternative(cumulativeProbabilities, random)];
     }
 
 }
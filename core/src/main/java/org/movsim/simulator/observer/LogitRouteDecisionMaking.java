@@ -4,75 +4,74 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Preconditions;
-import com.google.common.collect.Iterables;
 
-class LogitRouteDecisionMaking {
+/**
+ * Multinomial logit model for the choice between route alternatives. The probabilities are calculated in linear time with
+ * the log-sum-exp formulation, which cannot overflow for large differences of the disutilities, and are stored as
+ * cumulative distribution so an alternative is selected by a binary search.
+ */
+final class LogitRouteDecisionMaking {
 
     /** The Constant LOG. */
     private static final Logger LOG = LoggerFactory.getLogger(LogitRouteDecisionMaking.class);
 
-    private static final int TOO_LARGE_EXPONENT = 100;
-
-    static RouteAlternative selectMostProbableAlternative(Iterable<RouteAlternative> alternatives, double random) {
-        Preconditions.checkArgument(random >= 0 && random < 1);
-        double sumProb = 0;
-        for (RouteAlternative alternative : alternatives) {
-            sumProb += alternative.getProbability();
-            LOG.debug("alternative={}, sumProb={}", alternative.toString(), sumProb);
-            if (random <= sumProb) {
-                return alternative;
-            }
-        }
-        Preconditions.checkState(false, "probabilities not sumed correctly: random=" + random + ", sumProb=" + sumProb);
-        return null;
+    private LogitRouteDecisionMaking() {
+        throw new IllegalStateException("do not instanciate");
     }
 
-    private static boolean hasTooLargeExponent(double beta, RouteAlternative alternative,
-            Iterable<RouteAlternative> alternatives) {
-        for (RouteAlternative otherAlternative : alternatives) {
-            double delta = Math.abs(alternative.getDisutility() - otherAlternative.getDisutility());
-            if (beta * delta > TOO_LARGE_EXPONENT) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    static void calcProbabilities(Iterable<RouteAlternative> alternatives, double uncertainty) {
+    /**
+     * Calculates the choice probabilities of the alternatives, sets them to the alternatives and stores their cumulative
+     * distribution.
+     * 
+     * @param alternatives
+     * @param uncertainty
+     *            the standard deviation of the disutility errors, the alternative with the lowest disutility is chosen
+     *            if 0
+     * @param cumulativeProbabilities
+     *            array with the length of the alternatives, receives the cumulative distribution
+     */
+    static void calcProbabilities(RouteAlternative[] alternatives, double uncertainty, double[] cumulativeProbabilities) {
+        Preconditions.checkArgument(alternatives.length > 0, "no alternatives");
+        Preconditions.checkArgument(cumulativeProbabilities.length == alternatives.length);
         if (uncertainty > 0) {
             calcProbabilityIfStochastic(alternatives, uncertainty);
         } else {
             calcProbabilityForDeterministic(alternatives);
         }
+        double sumProb = 0;
+        for (int i = 0; i < alternatives.length; i++) {
+            sumProb += alternatives[i].getProbability();
+            cumulativeProbabilities[i] = sumProb;
+            LOG.debug("alternative={}, sumProb={}", alternatives[i], sumProb);
+        }
+        // guard against rounding errors, the last alternative is chosen for all random numbers in [sumProb, 1)
+        cumulativeProbabilities[alternatives.length - 1] = 1;
     }
 
-    private static void calcProbabilityIfStochastic(Iterable<RouteAlternative> alternatives, double uncertainty) {
+    /**
+     * p_i = exp(beta*d_i) / sum_j exp(beta*d_j) with beta = -1/uncertainty, evaluated relative to the largest exponent.
+     */
+    private static void calcProbabilityIfStochastic(RouteAlternative[] alternatives, double uncertainty) {
         final double beta = -1 / uncertainty;
+        double maxExponent = Double.NEGATIVE_INFINITY;
         for (RouteAlternative alternative : alternatives) {
-            // check first for large exponential
-            if (hasTooLargeExponent(beta, alternative, alternatives)) {
-                // probability of 0 as trivial result
-                alternative.setProbability(0);
-
-            } else {
-                double probAlternative = calcProbability(beta, alternative, alternatives);
-                alternative.setProbability(probAlternative);
-            }
-            LOG.debug("calculated prob for stochastic case: {}", alternative);
+            maxExponent = Math.max(maxExponent, beta * alternative.getDisutility());
         }
-    }
-
-    private static double calcProbability(double beta, RouteAlternative alternative,
-            Iterable<RouteAlternative> alternatives) {
         double denom = 0;
-        for (RouteAlternative otherAlternative : alternatives) {
-            denom += Math.exp(beta * (otherAlternative.getDisutility() - alternative.getDisutility()));
+        for (RouteAlternative alternative : alternatives) {
+            final double weight = Math.exp(beta * alternative.getDisutility() - maxExponent);
+            alternative.setProbability(weight);
+            denom += weight;
+        }
+        // denom >= 1 since the alternative with the largest exponent has weight 1
+        for (RouteAlternative alternative : alternatives) {
+            alternative.setProbability(alternative.getProbability() / denom);
+            LOG.debug("calculated prob for stochastic case: {}", alternative);
         }
-        return 1. / denom;
     }
 
-    private static void calcProbabilityForDeterministic(Iterable<RouteAlternative> alternatives) {
-        RouteAlternative bestAlternative = Iterables.getLast(alternatives);
+    private static void calcProbabilityForDeterministic(RouteAlternative[] alternatives) {
+        RouteAlternative bestAlternative = alternatives[0];
         for (RouteAlternative alternative : alternatives) {
             alternative.setProbability(0);
             if (alternative.getDisutility() < bestAlternative.getDisutility()) {
@@ -82,4 +81,28 @@ class LogitRouteDecisionMaking {
         bestAlternative.setProbability(1);
     }
 
+    /**
+     * Selects an alternative by its cumulative distribution.
+     * 
+     * @param cumulativeProbabilities
+     *            the cumulative distribution, see {@link #calcProbabilities(RouteAlternative[], double, double[])}
+     * @param random
+     *            uniformly distributed random number in [0,1)
+     * @return the index of the first alternative whose cumulative probability exceeds the random number
+     */
+    static int selectAlternative(double[] cumulativeProbabilities, double random) {
+        Preconditions.checkArgument(random >= 0 && random < 1, "random=" + random);
+        // binary search, the last cumulative probability is 1 and thus always exceeds the random number
+        int low = 0;
+        int high = cumulativeProbabilities.length - 1;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (cumulativeProbabilities[mid] > random) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
 }
@@ -1,6 +1,6 @@
 package org.movsim.simulator.observer;
 
-import org.movsim.utilities.MyRandom;
+import org.movsim.utilities.RandomStream;
 
 public class Noise {
 
@@ -15,7 +15,10 @@ public class Noise {
 
     private double xiTime;
 
-    public Noise(double tau, double fluctStrength) {
+    private final RandomStream random;
+
+    public Noise(double tau, double fluctStrength, RandomStream random) {
+        this.random = random;
         xiTime = 0;
         this.fluctStrength = fluctStrength;
         this.tau = tau;
@@ -24,7 +27,7 @@ public class Noise {
 
     public void update(double dt, double xiTime) {
 
-        final double randomMu0Sigma1 = getUniformlyDistributedRealization();
+        final double randomMu0Sigma1 = getUniformlyDistributedRealization(random);
 
         if (isWienerProcess) {
             final double betaTime = Math.exp(-dt / tau);
@@ -37,8 +40,8 @@ public class Noise {
      * 
      * @return random variable realization
      */
-    private static double getUniformlyDistributedRealization() {
-        final double randomVar = MyRandom.nextDouble();
+    private static double getUniformlyDistributedRealization(RandomStream random) {
+        final double randomVar = random.nextDouble();
         final double randomMu0Sigma1 = SQRT12 * (randomVar - 0.5);
         return randomMu0Sigma1;
     }
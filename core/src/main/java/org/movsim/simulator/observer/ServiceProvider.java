@@ -1,14 +1,13 @@
 package org.movsim.simulator.observer;
 
-import java.util.List;
-
 import javax.annotation.CheckForNull;
 
 import org.movsim.autogen.ServiceProviderType;
+import org.movsim.simulator.SimulationContext;
 import org.movsim.simulator.SimulationTimeStep;
 import org.movsim.simulator.roadnetwork.RoadNetwork;
-import org.movsim.simulator.roadnetwork.RoadNetworkUtils;
 import org.movsim.simulator.roadnetwork.RoadSegment;
+import org.movsim.simulator.roadnetwork.RouteMetrics;
 import org.movsim.simulator.roadnetwork.routing.Routing;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,14 +34,24 @@ public class ServiceProvider implements SimulationTimeStep {
 
     private final ServiceProviderLogging fileOutput;
 
-    public ServiceProvider(ServiceProviderType configuration, Routing routing, RoadNetwork roadNetwork) {
+    private final RouteMetrics routeMetrics;
+
+    public ServiceProvider(SimulationContext context, ServiceProviderType configuration, Routing routing,
+            RoadNetwork roadNetwork, RouteMetrics routeMetrics) {
         Preconditions.checkNotNull(configuration);
+        this.routeMetrics = Preconditions.checkNotNull(routeMetrics);
         this.label = configuration.getLabel();
         this.serverUpdateInterval = configuration.getServerUpdateInterval();
         this.vehicleUpdateInterval = configuration.getVehicleUpdateInterval();
         this.decisionPoints = new DecisionPoints(configuration.getDecisionPoints(), routing);
-        this.noise = new Noise(configuration.getTau(), configuration.getFluctStrength());
-        this.fileOutput = configuration.isLogging() ? new ServiceProviderLogging(this) : null;
+        for (DecisionPoint decisionPoint : decisionPoints) {
+            for (RouteAlternative alternative : decisionPoint) {
+                routeMetrics.register(alternative.getRoute());
+            }
+        }
+        this.noise = new Noise(configuration.getTau(), configuration.getFluctStrength(), context.newRandomStream(
+                "serviceProvider", label.hashCode()));
+        this.fileOutput = configuration.isLogging() ? new ServiceProviderLogging(context, this) : null;
     }
 
     public String getLabel() {
@@ -68,28 +77,15 @@ public class ServiceProvider implements SimulationTimeStep {
         }
     }
 
-    /** calculate individual probabilities */
-    public static void updateRouteAlternatives(Iterable<RouteAlternative> alternatives, double uncertainty) {
-        LogitRouteDecisionMaking.calcProbabilities(alternatives, uncertainty);
-    }
-
-    public static RouteAlternative selectMostProbableAlternative(Iterable<RouteAlternative> alternatives,
-            double random) {
-        return LogitRouteDecisionMaking.selectMostProbableAlternative(alternatives, random);
-    }
-
-    @CheckForNull
-    public List<RouteAlternative> getAlternativesForDecisionPoint(RoadSegment roadSegment) {
-        DecisionPoint decisionPoint = getDecisionPoint(roadSegment.userId());
-        if (decisionPoint == null) {
-            return null;
-        }
-        return decisionPoint.createRouteAlternatives();
-    }
-
+    /**
+     * Returns the decision point at the road segment.
+     * 
+     * @param roadSegment
+     * @return the decision point, null if there is none at the road segment
+     */
     @CheckForNull
-    private DecisionPoint getDecisionPoint(String roadSegmentUserId) {
-        return decisionPoints.get(roadSegmentUserId);
+    public DecisionPoint getDecisionPoint(RoadSegment roadSegment) {
+        return decisionPoints.get(roadSegment.userId());
     }
 
     // public RouteAlternative selectRouteAlternative(Iterable<RouteAlternative> alternatives, double uncertainty,
@@ -115,14 +111,15 @@ public class ServiceProvider implements SimulationTimeStep {
                 traveltimeError = noise.getTimeError();
             }
             // traveltime is the metric for disutility
-            double traveltime = traveltimeError + RoadNetworkUtils.instantaneousTravelTimeOnGrid(alternative.getRoute(),
-                    GRID_LENGTH_TRAVELTIME_ESTIMATION);
+            double traveltime = traveltimeError
+                    + routeMetrics.instantaneousTravelTimeOnGrid(alternative.getRoute(),
+                            GRID_LENGTH_TRAVELTIME_ESTIMATION);
             alternative.setTravelTimeError(traveltimeError);
             if (serverUpdate) {
                 alternative.setDisutility(traveltime);
             }
         }
-        LogitRouteDecisionMaking.calcProbabilities(decisionPoint, uncertainty);
+        decisionPoint.updateProbabilities(uncertainty);
     }
 
 }
@@ -1,7 +1,7 @@
 package org.movsim.simulator.observer;
 
-import org.movsim.input.ProjectMetaData;
 import org.movsim.io.FileOutputBase;
+import org.movsim.simulator.SimulationContext;
 import org.movsim.simulator.SimulationTimeStep;
 
 import com.google.common.base.Preconditions;
@@ -24,8 +24,9 @@ class ServiceProviderLogging extends FileOutputBase implements SimulationTimeSte
 
     private final ServiceProvider serviceProvider;
 
-    public ServiceProviderLogging(ServiceProvider serviceProvider) {
-        super(ProjectMetaData.getInstance().getOutputPath(), ProjectMetaData.getInstance().getProjectName());
+    public ServiceProviderLogging(SimulationContext context, ServiceProvider serviceProvider) {
+        super(context.getProjectMetaData().getOutputPath(), context.getProjectMetaData().getProjectName(),
+                context.getShutdownHooks());
         this.serviceProvider = Preconditions.checkNotNull(serviceProvider);
         writer = createWriter(String.format(extensionFormat, serviceProvider.getLabel()));
         writeHeader();
@@ -8,8 +8,10 @@ import javax.annotation.CheckForNull;
 
 import org.movsim.autogen.ServiceProviderType;
 import org.movsim.autogen.ServiceProvidersType;
+import org.movsim.simulator.SimulationContext;
 import org.movsim.simulator.SimulationTimeStep;
 import org.movsim.simulator.roadnetwork.RoadNetwork;
+import org.movsim.simulator.roadnetwork.RouteMetrics;
 import org.movsim.simulator.roadnetwork.routing.Routing;
 
 import com.google.common.base.Preconditions;
@@ -18,11 +20,13 @@ public final class ServiceProviders implements Iterable<ServiceProvider>, Simula
 
     private final Map<String, ServiceProvider> serviceProviders = new HashMap<>();
 
-    public ServiceProviders(ServiceProvidersType configuration, Routing routing, RoadNetwork roadNetwork) {
+    public ServiceProviders(SimulationContext context, ServiceProvidersType configuration, Routing routing,
+            RoadNetwork roadNetwork, RouteMetrics routeMetrics) {
         Preconditions.checkNotNull(routing);
         Preconditions.checkNotNull(roadNetwork);
         for (ServiceProviderType serviceProviderType : configuration.getServiceProvider()) {
-            ServiceProvider provider = new ServiceProvider(serviceProviderType, routing, roadNetwork);
+            ServiceProvider provider = new ServiceProvider(context, serviceProviderType, routing,
+                    roadNetwork, routeMetrics);
             String key = provider.getLabel();
             if (serviceProviders.containsKey(key)) {
                 throw new IllegalArgumentException("service provider label " + key + " already exists.");
@@ -27,8 +27,12 @@
 package org.movsim.simulator.roadnetwork;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import javax.annotation.Nullable;
 
 import org.movsim.simulator.roadnetwork.boundaries.TrafficSink;
 import org.movsim.simulator.vehicles.Vehicle;
@@ -55,6 +59,17 @@ import com.google.common.base.Preconditions;
  * <p>
  * V[n+1].pos &lt; V[n].pos &lt; V[n-1].pos ... &lt; V[1].pos &lt; V[0].pos
  * </p>
+ * <p>
+ * The rear positions of the vehicles are mirrored in a primitive array in the same order, so that the binary search for neighbours
+ * runs over contiguous memory instead of dereferencing a vehicle for each probe. The mirror is updated whenever a vehicle is added
+ * or removed and when the vehicle positions are integrated by {@link #updateVehiclePositionsAndSpeeds(double, SpeedGrid)}.
+ * </p>
+ * <p>
+ * Lookups of the neighbours of a vehicle located on the same road segment avoid the binary search: the index of the vehicle in
+ * its own lane segment is known from {@link Vehicle#laneSegmentIndex()} and the search results for the other lanes of the road
+ * segment are cached per vehicle. The cache is rebuilt in a single sweep over both sorted lanes after vehicles have been added,
+ * removed or moved, and each cached entry is verified against the current positions before it is used.
+ * </p>
  */
 public class LaneSegment implements Iterable<Vehicle> {
 
@@ -71,6 +86,15 @@ public class LaneSegment implements Iterable<Vehicle> {
     private final int lane;
     private Lanes.Type type;
     private final ArrayList<Vehicle> vehicles;
+    // rear positions of the vehicles, in the same order as the vehicles list
+    private double[] rearPositions;
+    // incremented whenever vehicles are added or removed or their positions change
+    private int modCount;
+    // per lane of the road segment: cached results of positionBinarySearch in that lane for the rear positions of the vehicles
+    // in this lane, and the modification counts of both lanes when the cache was last rebuilt
+    private int[][] searchCache;
+    private int[] searchCacheModCount;
+    private int[] searchCacheTargetModCount;
     private int removedVehicleCount; // used for calculating traffic flow
 
     /**
@@ -86,6 +110,7 @@ public class LaneSegment implements Iterable<Vehicle> {
         // assert lane >= Lanes.MOST_INNER_LANE;
         this.lane = lane;
         vehicles = new ArrayList<>(VEHICLES_PER_LANE_INITIAL_SIZE);
+        rearPositions = new double[VEHICLES_PER_LANE_INITIAL_SIZE];
         type = Lanes.Type.TRAFFIC;
     }
 
@@ -168,7 +193,11 @@ public class LaneSegment implements Iterable<Vehicle> {
      * Clears this lane segment of any vehicles.
      */
     public final void clearVehicles() {
+        for (final Vehicle vehicle : vehicles) {
+            roadSegment.afterVehicleRemoved(vehicle, this);
+        }
         vehicles.clear();
+        ++modCount;
     }
 
     /**
@@ -286,7 +315,17 @@ public class LaneSegment implements Iterable<Vehicle> {
      *            index of vehicle to remove
      */
     public void removeVehicle(int index) {
-        vehicles.remove(index);
+        removeVehicleAt(index);
+    }
+
+    /**
+     * Removes a vehicle added by {@link #addVehicleTemp(Vehicle)}.
+     * 
+     * @param index
+     *            index of vehicle to remove
+     */
+    public void removeVehicleTemp(int index) {
+        removeVehicleUnindexed(index);
     }
 
     /**
@@ -301,7 +340,7 @@ public class LaneSegment implements Iterable<Vehicle> {
         for (int i = 0; i < count; ++i) {
             final Vehicle vehicle = vehicles.get(i);
             if (vehicle.getId() == vehicleId) {
-                vehicles.remove(i);
+                removeVehicleAt(i);
                 return;
             }
         }
@@ -312,7 +351,7 @@ public class LaneSegment implements Iterable<Vehicle> {
      */
     public void removeFrontVehicleOnLane() {
         if (vehicles.size() > 0) {
-            vehicles.remove(0);
+            removeVehicleAt(0);
         }
     }
 
@@ -328,7 +367,7 @@ public class LaneSegment implements Iterable<Vehicle> {
         // remove any vehicles that have gone past the end of this road segment
         while (vehicleCount > 0 && vehicles.get(0).getRearPosition() > roadLength) {
             sink.recordRemovedVehicle(vehicles.get(0));
-            vehicles.remove(0);
+            removeVehicleAt(0);
             ++removedVehicleCount;
             --vehicleCount;
             ++count;
@@ -366,9 +405,9 @@ public class LaneSegment implements Iterable<Vehicle> {
         assert assertInvariant();
         final int index = positionBinarySearch(vehicle.getRearPosition());
         if (index < 0) {
-            vehicles.add(-index - 1, vehicle);
+            insertVehicleAt(-index - 1, vehicle);
         } else if (index == 0) {
-            vehicles.add(0, vehicle);
+            insertVehicleAt(0, vehicle);
         } else {
             // vehicle is in the same position as an existing vehicle - this should not happen
             assert false;
@@ -377,6 +416,13 @@ public class LaneSegment implements Iterable<Vehicle> {
         assert assertInvariant();
     }
 
+    /**
+     * Adds a vehicle tentatively to this lane segment, e.g. to evaluate a lane change. The vehicle stays on its own lane
+     * segment for the road network, it must be removed by {@link #removeVehicleTemp(int)}.
+     * 
+     * @param vehicle
+     * @return the index of the added vehicle
+     */
     public int addVehicleTemp(Vehicle vehicle) {
         // assert vehicle.getFrontPosition() >= 0.0;
         assert vehicle.getSpeed() >= 0.0;
@@ -386,9 +432,9 @@ public class LaneSegment implements Iterable<Vehicle> {
         int pos = 0;
         if (index < 0) {
             pos = -index - 1;
-            vehicles.add(pos, vehicle);
+            insertVehicleUnindexed(pos, vehicle);
         } else if (index == 0) {
-            vehicles.add(pos, vehicle);
+            insertVehicleUnindexed(pos, vehicle);
         } else {
             // vehicle is in the same position as an existing vehicle - this should not happen
             assert false;
@@ -413,7 +459,7 @@ public class LaneSegment implements Iterable<Vehicle> {
                 }
             }
         }
-        vehicles.add(vehicle);
+        insertVehicleAt(vehicles.size(), vehicle);
         assert laneIsSorted();
         assert assertInvariant();
     }
@@ -440,17 +486,34 @@ public class LaneSegment implements Iterable<Vehicle> {
      */
     // TODO this critical method deserves a unit test!
     public Vehicle rearVehicle(double vehiclePos) {
-        final int index = positionBinarySearch(vehiclePos);
+        final NeighbourRef rearVehicle = rearNeighbour(vehiclePos, new NeighbourRef());
+        return rearVehicle == null ? null : rearVehicle.toVehicle();
+    }
+
+    /**
+     * Finds the vehicle immediately at or behind the given position. If there is no such vehicle on this lane segment, the source lane
+     * segments are searched and the position of the vehicle found is shifted accordingly.
+     * 
+     * @param vehiclePos
+     * @param ref
+     *            the reference to be filled
+     * @return the given reference to the rear vehicle, or null if there is no rear vehicle
+     */
+    public NeighbourRef rearNeighbour(double vehiclePos, NeighbourRef ref) {
+        return rearNeighbourAt(positionBinarySearch(vehiclePos), ref);
+    }
+
+    private NeighbourRef rearNeighbourAt(int index, NeighbourRef ref) {
         final int insertionPoint = -index - 1;
         if (index >= 0) {
             // exact match found, so return the matched vehicle
             if (index < vehicles.size()) {
-                return vehicles.get(index);
+                return ref.set(vehicles.get(index));
             }
         } else {
             // get next vehicle if not past end
             if (insertionPoint < vehicles.size()) {
-                return vehicles.get(insertionPoint);
+                return ref.set(vehicles.get(insertionPoint));
             }
         }
         // index == laneVehicles[lane].size() - 1 || insertionPoint == laneVehicles[lane].size()
@@ -468,18 +531,29 @@ public class LaneSegment implements Iterable<Vehicle> {
                 source = source.sourceLaneSegment();
             } while (sourceFrontVehicle == null && source != null);
             if (sourceFrontVehicle != null) {
-                // return a copy of the front vehicle on the source road segment, with its
+                // reference the front vehicle on the source road segment, with its
                 // position set relative to the current road segment
-                final Vehicle rearVehicle = new Vehicle(sourceFrontVehicle);
-                rearVehicle.setFrontPosition(rearVehicle.getFrontPosition() - accumDistance);
-                return rearVehicle;
+                return ref.set(sourceFrontVehicle, -accumDistance, true);
             }
         }
         return null;
     }
 
+    /**
+     * Returns a reference to the vehicle behind the given vehicle.
+     * 
+     * @param vehicle
+     * @param ref
+     *            the reference to be filled
+     * @return the given reference to the next upstream vehicle, or null
+     */
+    public final NeighbourRef rearNeighbour(Vehicle vehicle, NeighbourRef ref) {
+        return rearNeighbourAt(positionSearch(vehicle), ref);
+    }
+
     public final Vehicle rearVehicle(Vehicle vehicle) {
-        return rearVehicle(vehicle.getRearPosition());
+        final NeighbourRef rearVehicle = rearNeighbour(vehicle, new NeighbourRef());
+        return rearVehicle == null ? null : rearVehicle.toVehicle();
     }
 
     // Vehicle rearVehicleOnSinkLanePosAdjusted() {
@@ -542,14 +616,30 @@ public class LaneSegment implements Iterable<Vehicle> {
      */
     // TODO this critical method deserves a unit test!
     public Vehicle frontVehicle(double vehiclePos) {
-        // index = Collections.binarySearch(vehicles, subjectVehicle, vehiclePositionComparator);
-        final int index = positionBinarySearch(vehiclePos);
+        final NeighbourRef frontVehicle = frontNeighbour(vehiclePos, new NeighbourRef());
+        return frontVehicle == null ? null : frontVehicle.toVehicle();
+    }
+
+    /**
+     * Finds the vehicle immediately in front of the given position, see {@link #frontVehicle(double)}. If there is no such vehicle on
+     * this lane segment, the sink lane segments are searched and the position of the vehicle found is shifted accordingly.
+     * 
+     * @param vehiclePos
+     * @param ref
+     *            the reference to be filled
+     * @return the given reference to the front vehicle, or null if there is no front vehicle
+     */
+    public NeighbourRef frontNeighbour(double vehiclePos, NeighbourRef ref) {
+        return frontNeighbourAt(positionBinarySearch(vehiclePos), ref);
+    }
+
+    private NeighbourRef frontNeighbourAt(int index, NeighbourRef ref) {
         final int insertionPoint = -index - 1;
         if (index > 0) {
             // exact match found
-            return vehicles.get(index - 1);
+            return ref.set(vehicles.get(index - 1));
         } else if (insertionPoint > 0) {
-            return vehicles.get(insertionPoint - 1);
+            return ref.set(vehicles.get(insertionPoint - 1));
         }
         // index == 0 or insertionPoint == 0
         // subject vehicle is front vehicle on this road segment, so check for vehicles
@@ -567,16 +657,26 @@ public class LaneSegment implements Iterable<Vehicle> {
                 sink = sink.sinkLaneSegment();
             } while (sinkRearVehicle == null && sink != null);
             if (sinkRearVehicle != null) {
-                // return a copy of the rear vehicle on the sink road segment, with its position
+                // reference the rear vehicle on the sink road segment, with its position
                 // set relative to the current road segment
-                final Vehicle frontVehicle = new Vehicle(sinkRearVehicle);
-                frontVehicle.setFrontPosition(frontVehicle.getFrontPosition() + accumDistance);
-                return frontVehicle;
+                return ref.set(sinkRearVehicle, accumDistance, true);
             }
         }
         return null;
     }
 
+    /**
+     * Returns a reference to the vehicle in front of the given vehicle.
+     * 
+     * @param vehicle
+     * @param ref
+     *            the reference to be filled
+     * @return the given reference to the next downstream vehicle, or null
+     */
+    public final NeighbourRef frontNeighbour(Vehicle vehicle, NeighbourRef ref) {
+        return frontNeighbourAt(positionSearch(vehicle), ref);
+    }
+
     /**
      * Returns the vehicle in front of the given vehicle.
      * 
@@ -584,7 +684,150 @@ public class LaneSegment implements Iterable<Vehicle> {
      * @return the next downstream vehicle
      */
     public final Vehicle frontVehicle(Vehicle vehicle) {
-        return frontVehicle(vehicle.getRearPosition());
+        final NeighbourRef frontVehicle = frontNeighbour(vehicle, new NeighbourRef());
+        return frontVehicle == null ? null : frontVehicle.toVehicle();
+    }
+
+    private void insertVehicleAt(int index, Vehicle vehicle) {
+        insertVehicleUnindexed(index, vehicle);
+        roadSegment.afterVehicleAdded(vehicle, this);
+    }
+
+    private void removeVehicleAt(int index) {
+        final Vehicle vehicle = vehicles.get(index);
+        removeVehicleUnindexed(index);
+        roadSegment.afterVehicleRemoved(vehicle, this);
+    }
+
+    /**
+     * Inserts the vehicle without updating the vehicle index of the road network, see {@link #addVehicleTemp(Vehicle)}.
+     */
+    private void insertVehicleUnindexed(int index, Vehicle vehicle) {
+        roadSegment.beforeVehicleAdded();
+        final int count = vehicles.size();
+        if (count == rearPositions.length) {
+            rearPositions = Arrays.copyOf(rearPositions, 2 * count);
+        }
+        System.arraycopy(rearPositions, index, rearPositions, index + 1, count - index);
+        rearPositions[index] = vehicle.getRearPosition();
+        vehicles.add(index, vehicle);
+        vehicle.setLaneSegmentIndex(index);
+        ++modCount;
+    }
+
+    /**
+     * Removes the vehicle without updating the vehicle index of the road network, see {@link #removeVehicleTemp(int)}.
+     */
+    private void removeVehicleUnindexed(int index) {
+        System.arraycopy(rearPositions, index + 1, rearPositions, index, vehicles.size() - index - 1);
+        vehicles.remove(index);
+        ++modCount;
+    }
+
+    /**
+     * Returns the same as {@link #positionBinarySearch(double)} for the rear position of the given vehicle, but uses the index of
+     * the vehicle in its own lane segment and the search cache of that lane segment if the vehicle is on this road segment.
+     * 
+     * @param vehicle
+     * @return index of the vehicle's rear position, or (-(insertion point) - 1) if there is no vehicle at that position
+     */
+    private int positionSearch(Vehicle vehicle) {
+        final double vehiclePos = vehicle.getRearPosition();
+        final LaneSegment ownLaneSegment = ownLaneSegment(vehicle);
+        if (ownLaneSegment != null) {
+            final int index = vehicle.laneSegmentIndex();
+            if (index >= 0 && index < ownLaneSegment.vehicles.size() && ownLaneSegment.vehicles.get(index) == vehicle
+                    && Double.compare(ownLaneSegment.rearPositions[index], vehiclePos) == 0) {
+                if (ownLaneSegment == this) {
+                    if (isSearchResult(index, vehiclePos)) {
+                        return index;
+                    }
+                } else {
+                    return ownLaneSegment.cachedPositionSearch(this, index, vehiclePos);
+                }
+            }
+        }
+        return positionBinarySearch(vehiclePos);
+    }
+
+    private LaneSegment ownLaneSegment(Vehicle vehicle) {
+        if (vehicle.roadSegmentId() != roadSegment.id()) {
+            return null;
+        }
+        final int vehicleLane = vehicle.lane();
+        if (vehicleLane == lane) {
+            return this;
+        }
+        if (lane >= Lanes.MOST_INNER_LANE && vehicleLane >= Lanes.MOST_INNER_LANE
+                && vehicleLane <= roadSegment.laneCount()) {
+            return roadSegment.laneSegment(vehicleLane);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the search result in the target lane segment for the vehicle with the given index in this lane segment. The cache
+     * entry is verified and, if outdated, the whole cache for the target lane is rebuilt in one sweep if any of the two lanes has
+     * changed since the last rebuild.
+     */
+    private int cachedPositionSearch(LaneSegment target, int index, double vehiclePos) {
+        if (searchCache == null) {
+            final int laneCount = roadSegment.laneCount();
+            searchCache = new int[laneCount + 1][];
+            searchCacheModCount = new int[laneCount + 1];
+            searchCacheTargetModCount = new int[laneCount + 1];
+        }
+        final int targetLane = target.lane;
+        int[] cache = searchCache[targetLane];
+        if (cache == null || cache.length < vehicles.size()) {
+            cache = new int[Math.max(rearPositions.length, VEHICLES_PER_LANE_INITIAL_SIZE)];
+            searchCache[targetLane] = cache;
+            rebuildSearchCache(target, cache);
+        } else if (target.isSearchResult(cache[index], vehiclePos)) {
+            return cache[index];
+        } else if (searchCacheModCount[targetLane] != modCount
+                || searchCacheTargetModCount[targetLane] != target.modCount) {
+            rebuildSearchCache(target, cache);
+        }
+        if (!target.isSearchResult(cache[index], vehiclePos)) {
+            cache[index] = target.positionBinarySearch(vehiclePos);
+        }
+        return cache[index];
+    }
+
+    /**
+     * Merges the rear positions of this lane segment with those of the target lane segment, both sorted in decreasing order.
+     */
+    private void rebuildSearchCache(LaneSegment target, int[] cache) {
+        final int count = vehicles.size();
+        final int targetCount = target.vehicles.size();
+        final double[] targetRearPositions = target.rearPositions;
+        int j = 0;
+        for (int i = 0; i < count; ++i) {
+            final double vehiclePos = rearPositions[i];
+            while (j < targetCount && Double.compare(vehiclePos, targetRearPositions[j]) < 0) {
+                ++j;
+            }
+            cache[i] = (j < targetCount && Double.compare(vehiclePos, targetRearPositions[j]) == 0) ? j : -(j + 1);
+        }
+        searchCacheModCount[target.lane] = modCount;
+        searchCacheTargetModCount[target.lane] = target.modCount;
+    }
+
+    /**
+     * Returns true if the given index is the unique result of {@link #positionBinarySearch(double)} for the given position.
+     */
+    private boolean isSearchResult(int index, double vehiclePos) {
+        final int count = vehicles.size();
+        if (index >= 0) {
+            return index < count && Double.compare(vehiclePos, rearPositions[index]) == 0
+                    && (index == 0 || Double.compare(vehiclePos, rearPositions[index - 1]) != 0)
+                    && (index + 1 == count || Double.compare(vehiclePos, rearPositions[index + 1]) != 0);
+        }
+        final int insertionPoint = -index - 1;
+        return insertionPoint <= count
+                && (insertionPoint == 0 || Double.compare(vehiclePos, rearPositions[insertionPoint - 1]) < 0)
+                && (insertionPoint == count || Double.compare(vehiclePos, rearPositions[insertionPoint]) > 0);
     }
 
     private int positionBinarySearch(double vehiclePos) {
@@ -593,7 +836,7 @@ public class LaneSegment implements Iterable<Vehicle> {
 
         while (low <= high) {
             final int mid = (low + high) >> 1;
-            final double rearPos = vehicles.get(mid).getRearPosition();
+            final double rearPos = rearPositions[mid];
             // final int compare = Double.compare(midPos, vehiclePos);
             // note vehicles are sorted in reverse order of position
             final int compare = Double.compare(vehiclePos, rearPos);
@@ -608,6 +851,29 @@ public class LaneSegment implements Iterable<Vehicle> {
         return -(low + 1); // key not found
     }
 
+    /**
+     * Updates the vehicle positions and speeds by calling vehicle.updatePositionAndSpeed for each vehicle and refreshes the
+     * rear positions used for the neighbour lookups.
+     * 
+     * @param dt
+     *            delta-t, simulation time interval, seconds
+     * @param speedGrid
+     *            the grid the new speeds are added to, may be null
+     */
+    void updateVehiclePositionsAndSpeeds(double dt, @Nullable SpeedGrid speedGrid) {
+        final int count = vehicles.size();
+        for (int i = 0; i < count; ++i) {
+            final Vehicle vehicle = vehicles.get(i);
+            vehicle.updatePositionAndSpeed(dt);
+            vehicle.setLaneSegmentIndex(i);
+            rearPositions[i] = vehicle.getRearPosition();
+            if (speedGrid != null) {
+                speedGrid.add(vehicle.getFrontPosition(), vehicle.getSpeed());
+            }
+        }
+        ++modCount;
+    }
+
     // /**
     // * <p>
     // * Update the vehicle positions and velocities by calling vehicle.updatePositionAndVelocity for
@@ -711,10 +977,12 @@ public class LaneSegment implements Iterable<Vehicle> {
                     }
                 }
                 final int laneOnNewRoadSegment = sinkLaneSegment.lane();
+                roadSegment.vehicleExited(vehicle, simulationTime);
                 vehicle.moveToNewRoadSegment(sinkLaneSegment.roadSegment(), laneOnNewRoadSegment,
                         rearPositionOnNewRoadSegment, exitEndPos);
+                ++modCount;
                 // remove vehicle from this road segment
-                vehicles.remove(0);
+                removeVehicleAt(0);
                 --count;
                 ++removedVehicleCount;
                 // put the vehicle onto the new road segment (note that even when a road segment
@@ -764,6 +1032,9 @@ public class LaneSegment implements Iterable<Vehicle> {
                     // swap the two vehicles
                     vehicles.set(i - 1, rear);
                     vehicles.set(i, front);
+                    rearPositions[i - 1] = rear.getRearPosition();
+                    rearPositions[i] = front.getRearPosition();
+                    ++modCount;
                 }
             }
         }
@@ -776,7 +1047,41 @@ public class LaneSegment implements Iterable<Vehicle> {
      */
     @Override
     public final Iterator<Vehicle> iterator() {
-        return vehicles.iterator();
+        return new VehicleIterator();
+    }
+
+    /**
+     * Iterator over the vehicles that keeps the rear positions in sync when a vehicle is removed.
+     */
+    private final class VehicleIterator implements Iterator<Vehicle> {
+        private int index;
+        private int lastIndex = -1;
+
+        @Override
+        public boolean hasNext() {
+            return index < vehicles.size();
+        }
+
+        @Override
+        public Vehicle next() {
+            if (index >= vehicles.size()) {
+                throw new NoSuchElementException();
+            }
+            lastIndex = index++;
+            final Vehicle vehicle = vehicles.get(lastIndex);
+            vehicle.setLaneSegmentIndex(lastIndex);
+            return vehicle;
+        }
+
+        @Override
+        public void remove() {
+            if (lastIndex < 0) {
+                throw new IllegalStateException();
+            }
+            removeVehicleAt(lastIndex);
+            index = lastIndex;
+            lastIndex = -1;
+        }
     }
 
     /**
@@ -784,8 +1089,11 @@ public class LaneSegment implements Iterable<Vehicle> {
      */
     public boolean assertInvariant() {
         final int roadSegmentId = roadSegment.id();
-        for (final Vehicle vehicle : vehicles) {
+        final int count = vehicles.size();
+        for (int i = 0; i < count; ++i) {
+            final Vehicle vehicle = vehicles.get(i);
             assert vehicle.roadSegmentId() == roadSegmentId;
+            assert rearPositions[i] == vehicle.getRearPosition() : "stale rear position of vehicle=" + vehicle;
             if (vehicle.lane() != lane) {
                 logger.info("vehicle lane={}, lane={}", vehicle.lane(), lane);
             }
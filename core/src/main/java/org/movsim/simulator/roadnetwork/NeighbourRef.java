@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ * 
+ * This file is part of
+ * 
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ * 
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ * 
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.simulator.roadnetwork;
+
+import org.movsim.simulator.vehicles.Vehicle;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * <p>
+ * A lightweight view onto a neighbouring vehicle as seen from a given {@link LaneSegment}.
+ * </p>
+ * <p>
+ * If the neighbour is located on an upstream or downstream road segment, its position is shifted by the accumulated length of the
+ * road segments in between, so that it is given in the coordinates of the lane segment the lookup started from. In contrast to a
+ * shifted copy of the vehicle, the view is reusable: it is filled by {@link LaneSegment#frontNeighbour(double, NeighbourRef)} and
+ * {@link LaneSegment#rearNeighbour(double, NeighbourRef)} and does not allocate.
+ * </p>
+ * <p>
+ * The acceleration and the lane-changing state of neighbours on other road segments are not exposed, as these are not part of the
+ * state that is consistent over the whole network during an update step.
+ * </p>
+ */
+public final class NeighbourRef {
+
+    private Vehicle vehicle;
+
+    private double positionOffset;
+
+    private boolean onOtherSegment;
+
+    /**
+     * Sets this view to the given vehicle on the lane segment of the lookup.
+     * 
+     * @param vehicle
+     * @return this view for convenience
+     */
+    public NeighbourRef set(Vehicle vehicle) {
+        return set(vehicle, 0, false);
+    }
+
+    NeighbourRef set(Vehicle vehicle, double positionOffset, boolean onOtherSegment) {
+        this.vehicle = Preconditions.checkNotNull(vehicle);
+        this.positionOffset = positionOffset;
+        this.onOtherSegment = onOtherSegment;
+        return this;
+    }
+
+    /**
+     * Shifts the position of the referenced vehicle by the given distance, e.g. to express it in the coordinates of a vehicle that is
+     * itself located on another road segment.
+     * 
+     * @param distance
+     * @return this view for convenience
+     */
+    public NeighbourRef shift(double distance) {
+        positionOffset += distance;
+        return this;
+    }
+
+    /**
+     * Returns the referenced vehicle. Note that its position is given in the coordinates of its own road segment.
+     * 
+     * @return the referenced vehicle
+     */
+    public Vehicle vehicle() {
+        return vehicle;
+    }
+
+    public double positionOffset() {
+        return positionOffset;
+    }
+
+    /**
+     * Returns true if the referenced vehicle is located on another road segment than the lane segment of the lookup.
+     * 
+     * @return true if the vehicle is on an upstream or downstream road segment
+     */
+    public boolean isOnOtherSegment() {
+        return onOtherSegment;
+    }
+
+    public double getFrontPosition() {
+        return vehicle.getFrontPosition() + positionOffset;
+    }
+
+    public double getRearPosition() {
+        return getFrontPosition() - vehicle.getLength();
+    }
+
+    public double getSpeed() {
+        return vehicle.getSpeed();
+    }
+
+    /**
+     * Returns the acceleration of the referenced vehicle, 0 if the vehicle is located on another road segment.
+     * 
+     * @return the acceleration
+     */
+    public double getAcc() {
+        return onOtherSegment ? 0 : vehicle.getAcc();
+    }
+
+    public double getLength() {
+        return vehicle.getLength();
+    }
+
+    public long getId() {
+        return vehicle.getId();
+    }
+
+    public int lane() {
+        return vehicle.lane();
+    }
+
+    public Vehicle.Type type() {
+        return vehicle.type();
+    }
+
+    /**
+     * Returns true if the referenced vehicle is in the process of a lane change, always false for vehicles on another road segment.
+     * 
+     * @return true if the vehicle is changing lanes
+     */
+    public boolean inProcessOfLaneChange() {
+        return !onOtherSegment && vehicle.inProcessOfLaneChange();
+    }
+
+    /**
+     * Returns a shifted copy of the referenced vehicle if it is located on another road segment, otherwise the vehicle itself.
+     * Allocates, use only if a {@link Vehicle} instance is required.
+     * 
+     * @return the vehicle positioned in the coordinates of the lane segment of the lookup
+     */
+    public Vehicle toVehicle() {
+        if (!onOtherSegment) {
+            return vehicle;
+        }
+        final Vehicle copy = new Vehicle(vehicle);
+        copy.setFrontPosition(copy.getFrontPosition() + positionOffset);
+        return copy;
+    }
+
+    @Override
+    public String toString() {
+        return "NeighbourRef [vehicle=" + vehicle + ", positionOffset=" + positionOffset + ", onOtherSegment="
+                + onOtherSegment + "]";
+    }
+}
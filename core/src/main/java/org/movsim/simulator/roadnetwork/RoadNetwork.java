@@ -13,13 +13,20 @@
 package org.movsim.simulator.roadnetwork;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 
 import org.movsim.simulator.SimulationTimeStep;
+import org.movsim.simulator.roadnetwork.controller.TrafficLight;
 import org.movsim.simulator.roadnetwork.routing.Route;
 import org.movsim.simulator.vehicles.ExternalVehiclesController;
+import org.movsim.simulator.vehicles.Vehicle;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -35,12 +42,55 @@ public class RoadNetwork implements SimulationTimeStep, Iterable<RoadSegment> {
 
     private final ArrayList<RoadSegment> roadSegments = new ArrayList<>();
 
+    /** id index of the road segments, trafficlights and vehicles */
+    private final RoadNetworkIndex idIndex = new RoadNetworkIndex();
+
     private String name;
 
     private boolean isWithCrashExit;
 
     private ExternalVehiclesController externalVehicleController;
 
+    /** pool for the parallel execution of the per-segment update phases, serial execution if null */
+    private ForkJoinPool forkJoinPool;
+
+    /**
+     * Minimum number of road segments handled by a single task. Below this size the overhead of task creation outweighs the
+     * gain of parallel execution.
+     */
+    private static final int PARALLEL_THRESHOLD = 4;
+
+    /** indices of the road segments which are updated in the current time step, see {@link RoadSegment#isQuiescent()} */
+    private final BitSet activeRoadSegments = new BitSet();
+
+    /** the active road segments in order, used for the parallel execution of the update phases */
+    private final ArrayList<RoadSegment> scheduledRoadSegments = new ArrayList<>();
+
+    /** index of the road segment in the outflow loop of the current time step, -1 outside of the outflow loop */
+    private int outflowIndex = -1;
+
+    private double outflowTime;
+
+    /** receives the travel times of the vehicles leaving road segments, may be null */
+    private TravelTimeListener travelTimeListener;
+
+    /**
+     * Listener for the travel times of vehicles on the road segments.
+     */
+    public interface TravelTimeListener {
+        /**
+         * Called when a vehicle leaves a road segment at its downstream end after having entered it at its upstream end.
+         * Only called from the serial outflow phase of a time step.
+         * 
+         * @param roadSegment
+         * @param entryTime
+         *            the simulation time at which the vehicle entered the road segment
+         * @param exitTime
+         *            the simulation time at which the vehicle left the road segment
+         */
+        void travelTimeObserved(RoadSegment roadSegment, double entryTime, double exitTime);
+    }
+
     /**
      * Sets the name of the road network.
      * 
@@ -66,12 +116,7 @@ public class RoadNetwork implements SimulationTimeStep, Iterable<RoadSegment> {
      * @return the road segment with the given id
      */
     public RoadSegment findById(int id) {
-        for (final RoadSegment roadSegment : roadSegments) {
-            if (roadSegment.id() == id) {
-                return roadSegment;
-            }
-        }
-        return null;
+        return idIndex.findById(id);
     }
 
     /**
@@ -82,12 +127,73 @@ public class RoadNetwork implements SimulationTimeStep, Iterable<RoadSegment> {
      */
     @CheckForNull
     public RoadSegment findByUserId(String userId) {
-        for (final RoadSegment roadSegment : roadSegments) {
-            if (roadSegment.userId() != null && roadSegment.userId().equals(userId)) {
-                return roadSegment;
+        return idIndex.findByUserId(userId);
+    }
+
+    /**
+     * Given its signal id, find a trafficlight in the road network.
+     * 
+     * @param signalId
+     * @return the trafficlight with the given signal id
+     */
+    @CheckForNull
+    public TrafficLight findTrafficLight(String signalId) {
+        return idIndex.findTrafficLight(signalId, roadSegments);
+    }
+
+    /**
+     * Given its id, find a vehicle on the road network.
+     * 
+     * @param vehicleId
+     * @return the vehicle with the given id, null if the vehicle is not on the road network
+     */
+    @CheckForNull
+    public Vehicle findVehicleById(long vehicleId) {
+        return idIndex.findVehicle(vehicleId);
+    }
+
+    /**
+     * Returns the lane segment the vehicle with the given id is currently on.
+     * 
+     * @param vehicleId
+     * @return the lane segment of the vehicle, null if the vehicle is not on the road network
+     */
+    @CheckForNull
+    public LaneSegment findLaneSegmentOfVehicle(long vehicleId) {
+        return idIndex.findLaneSegmentOfVehicle(vehicleId);
+    }
+
+    /**
+     * Called by a lane segment of the road network after a vehicle has been added to it.
+     */
+    void vehicleAdded(Vehicle vehicle, LaneSegment laneSegment) {
+        idIndex.vehicleAdded(vehicle, laneSegment);
+    }
+
+    /**
+     * Called by a lane segment of the road network after a vehicle has been removed from it.
+     */
+    void vehicleRemoved(Vehicle vehicle, LaneSegment laneSegment) {
+        idIndex.vehicleRemoved(vehicle, laneSegment);
+    }
+
+    /**
+     * Called by a road segment of the road network when a vehicle leaves it at its downstream end.
+     */
+    void vehicleExited(RoadSegment roadSegment, Vehicle vehicle, double exitTime) {
+        if (travelTimeListener != null) {
+            final double travelTime = vehicle.travelTimeOnRoadSegment();
+            if (!Double.isNaN(travelTime)) {
+                travelTimeListener.travelTimeObserved(roadSegment, exitTime - travelTime, exitTime);
             }
         }
-        return null;
+    }
+
+    /**
+     * Called by a road segment of the road network when its userId has been changed.
+     */
+    void userIdChanged(RoadSegment roadSegment, String oldUserId) {
+        idIndex.userIdChanged(roadSegment, oldUserId);
     }
 
     /**
@@ -100,7 +206,12 @@ public class RoadNetwork implements SimulationTimeStep, Iterable<RoadSegment> {
         RoadSegment.resetNextId();
         // TrafficFlowBase.resetNextId();
         // Vehicle.resetNextId();
+        for (final RoadSegment roadSegment : roadSegments) {
+            roadSegment.setRoadNetwork(null, -1);
+        }
         roadSegments.clear();
+        activeRoadSegments.clear();
+        idIndex.clear();
     }
 
     /**
@@ -128,7 +239,11 @@ public class RoadNetwork implements SimulationTimeStep, Iterable<RoadSegment> {
     public RoadSegment add(RoadSegment roadSegment) {
         assert roadSegment != null;
         assert roadSegment.eachLaneIsSorted();
+        final int index = roadSegments.size();
+        roadSegment.setRoadNetwork(this, index);
         roadSegments.add(roadSegment);
+        activeRoadSegments.set(index);
+        idIndex.add(roadSegment);
         return roadSegment;
     }
 
@@ -174,6 +289,15 @@ public class RoadNetwork implements SimulationTimeStep, Iterable<RoadSegment> {
      * <p>
      * The blocks can be swapped as long as each block is done serially for the whole network in exactly the above order (i),(ii),(iii).
      * </p>
+     * <p>
+     * If a pool is set (see {@link #setForkJoinPool(ForkJoinPool)}), the longitudinal update steps are distributed over the road
+     * segments in parallel. Each step is completed for the whole network before the next one starts.
+     * </p>
+     * <p>
+     * Road segments on which all update steps are without effect (no vehicles, no boundary conditions and no time-driven road
+     * objects, see {@link RoadSegment#isQuiescent()}) are suspended at the beginning of a time step and skipped by all update
+     * steps. A suspended road segment is reactivated as soon as a vehicle is added to it.
+     * </p>
      * 
      * @param dt
      *            simulation time interval, seconds.
@@ -183,54 +307,132 @@ public class RoadNetwork implements SimulationTimeStep, Iterable<RoadSegment> {
      *            the counter of performed update steps
      */
     @Override
-    public void timeStep(double dt, double simulationTime, long iterationCount) {
+    public void timeStep(final double dt, final double simulationTime, final long iterationCount) {
         // Make each type of update for each road segment, this avoids problems with vehicles
         // being updated twice (for example when a vehicle moves of the end of a road segment
         // onto the next road segment.
 
         LOG.debug("called timeStep: time={}, timestep={}", simulationTime, dt);
+        suspendQuiescentRoadSegments();
         externalVehicleController.addAndRemoveVehicles(simulationTime, this);
-        for (final RoadSegment roadSegment : roadSegments) {
-            roadSegment.updateRoadConditions(dt, simulationTime, iterationCount);
-        }
+        runPhase(new Phase() {
+            @Override
+            public void apply(RoadSegment roadSegment) {
+                roadSegment.updateRoadConditions(dt, simulationTime, iterationCount);
+            }
+        }, false);
 
-        for (RoadSegment roadSegment : roadSegments) {
-            roadSegment.makeDynamicRoutingDecisions(dt, simulationTime, iterationCount);
-        }
+        runPhase(new Phase() {
+            @Override
+            public void apply(RoadSegment roadSegment) {
+                roadSegment.makeDynamicRoutingDecisions(dt, simulationTime, iterationCount);
+            }
+        }, false);
 
         // Note: must do lane changes before vehicle positions are updated (or after outFlow) to ensure
         // the vehicle's roadSegmentId is correctly set
-        for (final RoadSegment roadSegment : roadSegments) {
-            roadSegment.makeLaneChanges(dt, simulationTime, iterationCount);
-        }
+        runPhase(new Phase() {
+            @Override
+            public void apply(RoadSegment roadSegment) {
+                roadSegment.makeLaneChanges(dt, simulationTime, iterationCount);
+            }
+        }, false);
 
-        for (final RoadSegment roadSegment : roadSegments) {
-            roadSegment.updateVehicleAccelerations(dt, simulationTime, iterationCount);
-        }
+        runPhase(new Phase() {
+            @Override
+            public void apply(RoadSegment roadSegment) {
+                roadSegment.updateVehicleAccelerations(dt, simulationTime, iterationCount);
+            }
+        }, true);
 
         externalVehicleController.setSpeeds(simulationTime);
-        for (final RoadSegment roadSegment : roadSegments) {
-            roadSegment.updateVehiclePositionsAndSpeeds(dt, simulationTime, iterationCount);
-        }
+        runPhase(new Phase() {
+            @Override
+            public void apply(RoadSegment roadSegment) {
+                roadSegment.updateVehiclePositionsAndSpeeds(dt, simulationTime, iterationCount);
+            }
+        }, true);
 
-        for (final RoadSegment roadSegment : roadSegments) {
-            roadSegment.checkForInconsistencies(simulationTime, iterationCount, isWithCrashExit);
+        runPhase(new Phase() {
+            @Override
+            public void apply(RoadSegment roadSegment) {
+                roadSegment.checkForInconsistencies(simulationTime, iterationCount, isWithCrashExit);
+            }
+        }, true);
+
+        // road segments activated by the outflow are visited later in this loop if they follow the current road segment,
+        // see activate(RoadSegment) for those preceding it
+        outflowTime = simulationTime;
+        for (int i = activeRoadSegments.nextSetBit(0); i >= 0; i = activeRoadSegments.nextSetBit(i + 1)) {
+            outflowIndex = i;
+            roadSegments.get(i).outFlow(dt, simulationTime, iterationCount);
         }
+        outflowIndex = -1;
 
-        for (final RoadSegment roadSegment : roadSegments) {
-            roadSegment.outFlow(dt, simulationTime, iterationCount);
+        runPhase(new Phase() {
+            @Override
+            public void apply(RoadSegment roadSegment) {
+                roadSegment.inFlow(dt, simulationTime, iterationCount);
+                roadSegment.updateSignalPointsAfterOutflowAndInflow(simulationTime);
+            }
+        }, false);
+    }
+
+    /**
+     * Suspends the updates of the road segments which are quiescent at the beginning of a time step.
+     */
+    private void suspendQuiescentRoadSegments() {
+        for (int i = activeRoadSegments.nextSetBit(0); i >= 0; i = activeRoadSegments.nextSetBit(i + 1)) {
+            final RoadSegment roadSegment = roadSegments.get(i);
+            if (roadSegment.isQuiescent()) {
+                roadSegment.deactivate();
+                activeRoadSegments.clear(i);
+            }
         }
+    }
 
-        for (final RoadSegment roadSegment : roadSegments) {
-            roadSegment.inFlow(dt, simulationTime, iterationCount);
-            roadSegment.updateSignalPointsAfterOutflowAndInflow(simulationTime);
+    /**
+     * Resumes the updates of a suspended road segment, called when a vehicle is added to it.
+     * 
+     * @param roadSegment
+     */
+    void activate(RoadSegment roadSegment) {
+        final int index = roadSegment.roadNetworkIndex();
+        assert roadSegments.get(index) == roadSegment;
+        activeRoadSegments.set(index);
+        if (index < outflowIndex) {
+            // the outflow loop has already passed this road segment while it was empty, so do the signal point
+            // bookkeeping of its outflow now, before the vehicle is added
+            roadSegment.updateSignalPointsBeforeOutflow(outflowTime);
         }
     }
 
+    /**
+     * Returns the number of road segments which are currently updated in the time steps.
+     * 
+     * @return the number of active road segments
+     */
+    public int activeRoadSegmentCount() {
+        return activeRoadSegments.cardinality();
+    }
+
     public void setWithCrashExit(boolean isWithCrashExit) {
         this.isWithCrashExit = isWithCrashExit;
     }
 
+    /**
+     * Sets the pool for the parallel execution of the update phases which only touch the vehicles of a single road segment
+     * (acceleration, position and speed update, consistency checks). Each phase is completed for the whole network before the
+     * next phase starts, the remaining phases (lane changes, routing decisions, road objects, outflow and inflow) are always
+     * executed serially. Setting a null pool restores the serial execution.
+     * 
+     * @param forkJoinPool
+     *            the pool, may be null
+     */
+    public void setForkJoinPool(@Nullable ForkJoinPool forkJoinPool) {
+        this.forkJoinPool = forkJoinPool;
+    }
+
     /**
      * Returns the number of vehicles on this road network.
      * 
@@ -288,7 +490,7 @@ public class RoadNetwork implements SimulationTimeStep, Iterable<RoadSegment> {
      */
     public int obstacleCount(Route route) {
         int obstacleCount = 0;
-        for (final RoadSegment roadSegment : roadSegments) {
+        for (final RoadSegment roadSegment : route) {
             obstacleCount += roadSegment.obstacleCount();
         }
         return obstacleCount;
@@ -381,4 +583,74 @@ public class RoadNetwork implements SimulationTimeStep, Iterable<RoadSegment> {
 
     }
 
+    /**
+     * Sets the listener for the travel times of the vehicles on the road segments, see {@link TravelTimeListener}.
+     * 
+     * @param travelTimeListener
+     *            the listener, may be null
+     */
+    public void setTravelTimeListener(@Nullable TravelTimeListener travelTimeListener) {
+        this.travelTimeListener = travelTimeListener;
+    }
+
+    /**
+     * Applies the phase to all active road segments. The phase is completed for the whole network when this method returns.
+     * 
+     * @param phase
+     * @param parallel
+     *            true if the phase may be executed in parallel
+     */
+    private void runPhase(Phase phase, boolean parallel) {
+        if (forkJoinPool != null && parallel) {
+            scheduledRoadSegments.clear();
+            for (int i = activeRoadSegments.nextSetBit(0); i >= 0; i = activeRoadSegments.nextSetBit(i + 1)) {
+                scheduledRoadSegments.add(roadSegments.get(i));
+            }
+            forkJoinPool.invoke(new PhaseAction(phase, scheduledRoadSegments, 0, scheduledRoadSegments.size()));
+        } else {
+            // road segments activated during the phase are visited if they follow the current road segment
+            for (int i = activeRoadSegments.nextSetBit(0); i >= 0; i = activeRoadSegments.nextSetBit(i + 1)) {
+                phase.apply(roadSegments.get(i));
+            }
+        }
+    }
+
+    /**
+     * An update step which only modifies the state of the given road segment and its vehicles.
+     */
+    private interface Phase {
+        void apply(RoadSegment roadSegment);
+    }
+
+    /**
+     * Applies a phase to a range of road segments, splitting the range recursively.
+     */
+    private static final class PhaseAction extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Phase phase;
+        private final List<RoadSegment> segments;
+        private final int from;
+        private final int to;
+
+        PhaseAction(Phase phase, List<RoadSegment> segments, int from, int to) {
+            this.phase = phase;
+            this.segments = segments;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    phase.apply(segments.get(i));
+                }
+                return;
+            }
+            final int middle = (from + to) >>> 1;
+            invokeAll(new PhaseAction(phase, segments, from, middle), new PhaseAction(phase, segments, middle, to));
+        }
+    }
 }
@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden <movsim.org@gmail.com>
+ * ----------------------------------------------------------------------------------------- This file is part of MovSim - the
+ * multi-model open-source vehicular-traffic simulator. MovSim is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version. MovSim is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU General Public License
+ * for more details. You should have received a copy of the GNU General Public License along with MovSim. If not, see
+ * <http://www.gnu.org/licenses/> or <http://www.movsim.org>.
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.simulator.roadnetwork;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.annotation.CheckForNull;
+
+import org.movsim.simulator.roadnetwork.controller.TrafficLight;
+import org.movsim.simulator.vehicles.Vehicle;
+
+/**
+ * <p>
+ * The id index of a {@link RoadNetwork}: the road segments by id and by userId, the trafficlights by signal id and the lane
+ * segment each vehicle is currently on by vehicle id. All lookups are O(1).
+ * </p>
+ * <p>
+ * The road segments are indexed when they are added to the road network. The vehicle index is updated by the lane segments
+ * whenever a vehicle is added or removed, so vehicles entering, leaving and changing road segments or lanes are tracked. The
+ * trafficlights are indexed on the first lookup, since they are added to the road segments after these have been added to the
+ * road network (see {@link org.movsim.input.network.OpenDriveHandler}); adding a road segment rebuilds the trafficlight index.
+ * </p>
+ * <p>
+ * Like the road network, the index is not thread-safe. Vehicles are only added and removed in the serial update phases.
+ * </p>
+ */
+final class RoadNetworkIndex {
+
+    private final Map<Integer, RoadSegment> roadSegmentsById = new HashMap<>();
+
+    private final Map<String, RoadSegment> roadSegmentsByUserId = new HashMap<>();
+
+    /** built on the first lookup, null if not built yet */
+    private Map<String, TrafficLight> trafficLightsBySignalId;
+
+    private final Map<Long, VehicleLocation> vehicleLocations = new HashMap<>();
+
+    void add(RoadSegment roadSegment) {
+        // the first road segment added wins if ids are not unique, like the linear search did
+        if (!roadSegmentsById.containsKey(roadSegment.id())) {
+            roadSegmentsById.put(roadSegment.id(), roadSegment);
+        }
+        addUserId(roadSegment, roadSegment.userId());
+        trafficLightsBySignalId = null;
+        for (final LaneSegment laneSegment : roadSegment.laneSegments()) {
+            for (final Vehicle vehicle : laneSegment) {
+                vehicleAdded(vehicle, laneSegment);
+            }
+        }
+    }
+
+    void clear() {
+        roadSegmentsById.clear();
+        roadSegmentsByUserId.clear();
+        trafficLightsBySignalId = null;
+        vehicleLocations.clear();
+    }
+
+    void userIdChanged(RoadSegment roadSegment, String oldUserId) {
+        if (roadSegmentsByUserId.get(oldUserId) == roadSegment) {
+            roadSegmentsByUserId.remove(oldUserId);
+        }
+        addUserId(roadSegment, roadSegment.userId());
+    }
+
+    private void addUserId(RoadSegment roadSegment, String userId) {
+        if (!roadSegmentsByUserId.containsKey(userId)) {
+            roadSegmentsByUserId.put(userId, roadSegment);
+        }
+    }
+
+    @CheckForNull
+    RoadSegment findById(int id) {
+        return roadSegmentsById.get(id);
+    }
+
+    @CheckForNull
+    RoadSegment findByUserId(String userId) {
+        return roadSegmentsByUserId.get(userId);
+    }
+
+    @CheckForNull
+    TrafficLight findTrafficLight(String signalId, Iterable<RoadSegment> roadSegments) {
+        if (trafficLightsBySignalId == null) {
+            trafficLightsBySignalId = new HashMap<>();
+            for (final RoadSegment roadSegment : roadSegments) {
+                for (final TrafficLight trafficLight : roadSegment.trafficLights()) {
+                    if (!trafficLightsBySignalId.containsKey(trafficLight.signalId())) {
+                        trafficLightsBySignalId.put(trafficLight.signalId(), trafficLight);
+                    }
+                }
+            }
+        }
+        return trafficLightsBySignalId.get(signalId);
+    }
+
+    void vehicleAdded(Vehicle vehicle, LaneSegment laneSegment) {
+        final VehicleLocation location = vehicleLocations.get(vehicle.getId());
+        if (location == null) {
+            vehicleLocations.put(vehicle.getId(), new VehicleLocation(vehicle, laneSegment));
+        } else {
+            // added to the new lane segment before removed from the old one
+            location.laneSegment = laneSegment;
+        }
+    }
+
+    void vehicleRemoved(Vehicle vehicle, LaneSegment laneSegment) {
+        final VehicleLocation location = vehicleLocations.get(vehicle.getId());
+        // ignore the removal from the old lane segment if the vehicle has already been added to the new one
+        if (location != null && location.laneSegment == laneSegment) {
+            vehicleLocations.remove(vehicle.getId());
+        }
+    }
+
+    @CheckForNull
+    Vehicle findVehicle(long vehicleId) {
+        final VehicleLocation location = vehicleLocations.get(vehicleId);
+        return location == null ? null : location.vehicle;
+    }
+
+    @CheckForNull
+    LaneSegment findLaneSegmentOfVehicle(long vehicleId) {
+        final VehicleLocation location = vehicleLocations.get(vehicleId);
+        return location == null ? null : location.laneSegment;
+    }
+
+    private static final class VehicleLocation {
+        private final Vehicle vehicle;
+        private LaneSegment laneSegment;
+
+        VehicleLocation(Vehicle vehicle, LaneSegment laneSegment) {
+            this.vehicle = vehicle;
+            this.laneSegment = laneSegment;
+        }
+    }
+}
@@ -8,15 +8,17 @@ public final class RoadNetworkUtils {
         throw new IllegalStateException("do not instanciate");
     }
 
+    /** length of the grid sections of the {@link TravelTimeType#GRID} travel time */
+    static final double GRID_LENGTH = 200;
+
     public enum TravelTimeType {
         GRID, MEAN;
     }
 
     public static double instantaneousTravelTime(Route route, TravelTimeType type) {
-        final double gridLength = 200;
         switch (type) {
         case GRID:
-            return instantaneousTravelTimeOnGrid(route, gridLength);
+            return instantaneousTravelTimeOnGrid(route, GRID_LENGTH);
         case MEAN:
             return instantaneousTravelTimeFromMeanSpeed(route);
         default:
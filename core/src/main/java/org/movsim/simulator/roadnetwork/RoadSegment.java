@@ -15,13 +15,14 @@ package org.movsim.simulator.roadnetwork;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.Set;
 
 import javax.annotation.CheckForNull;
 
 import org.jgrapht.graph.DefaultWeightedEdge;
 import org.movsim.roadmappings.RoadMapping;
+import org.movsim.simulator.MovsimConstants;
+import org.movsim.simulator.SimulationContext;
 import org.movsim.simulator.roadnetwork.boundaries.AbstractTrafficSource;
 import org.movsim.simulator.roadnetwork.boundaries.SimpleRamp;
 import org.movsim.simulator.roadnetwork.boundaries.TrafficSink;
@@ -44,7 +45,6 @@ import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterators;
-import com.google.common.collect.Lists;
 
 /**
  * <p>
@@ -91,9 +91,7 @@ public class RoadSegment extends DefaultWeightedEdge implements Iterable<Vehicle
     static final int INITIAL_ID = 1;
 
     /** vehicle's minimum speed for calculating traveltime, in m/s */
-    private static final double MIN_SPEED_TT = 1;
-
-    private static int nextId = INITIAL_ID;
+    static final double MIN_SPEED_TT = 1;
 
     private RoadSegmentDirection directionType = RoadSegmentDirection.FORWARD;
 
@@ -112,6 +110,9 @@ public class RoadSegment extends DefaultWeightedEdge implements Iterable<Vehicle
 
     private final LaneSegment laneSegments[];
 
+    /** the vehicle speeds on a fixed grid, refilled in the position integration pass */
+    private final SpeedGrid speedGrid;
+
     // TODO extend Node idea to keep information of connecting roadSegments
     private int sizeSourceRoadSegments = -1;
 
@@ -148,7 +149,16 @@ public class RoadSegment extends DefaultWeightedEdge implements Iterable<Vehicle
     private double meanFreeFlowSpeed = -1;
 
     /** static freeflow speed as maximum speed that is allowed. */
-    private double freeFlowSpeed = RoadTypeSpeeds.INSTANCE.getDefaultFreeFlowSpeed();
+    private double freeFlowSpeed = MovsimConstants.MAX_VEHICLE_SPEED;
+
+    /** the road network scheduling the updates of this road segment, null if not part of a road network */
+    private transient RoadNetwork roadNetwork;
+
+    /** index of this road segment in the road network */
+    private transient int roadNetworkIndex = -1;
+
+    /** true if this road segment is updated in the time steps of the road network */
+    private transient boolean active = true;
 
     public static class TestCar {
         public double s = 0.0; // distance
@@ -164,7 +174,7 @@ public class RoadSegment extends DefaultWeightedEdge implements Iterable<Vehicle
      * Resets the next nodeId.
      */
     public static void resetNextId() {
-        nextId = INITIAL_ID;
+        SimulationContext.getDefault().resetRoadSegmentIds();
     }
 
     /**
@@ -173,7 +183,7 @@ public class RoadSegment extends DefaultWeightedEdge implements Iterable<Vehicle
      * @return the number of road segment that have been created
      */
     public static int count() {
-        return nextId - INITIAL_ID;
+        return SimulationContext.getDefault().roadSegmentCount();
     }
 
     /**
@@ -185,23 +195,63 @@ public class RoadSegment extends DefaultWeightedEdge implements Iterable<Vehicle
      *            number of lanes in this road segment
      */
     public RoadSegment(double roadLength, int laneCount) {
+        this(SimulationContext.getDefault(), roadLength, laneCount);
+    }
+
+    /**
+     * Constructor, takes the id of the road segment from the given context.
+     * 
+     * @param context
+     * @param roadLength
+     *            road length, in meters.
+     * @param laneCount
+     *            number of lanes in this road segment
+     */
+    public RoadSegment(SimulationContext context, double roadLength, int laneCount) {
+        this(context.nextRoadSegmentId(), roadLength, laneCount);
+    }
+
+    private RoadSegment(int id, double roadLength, int laneCount) {
         assert roadLength > 0.0;
         assert laneCount >= 1 : "laneCount=" + laneCount;
         laneSegments = new LaneSegment[laneCount];
         for (int index = 0; index < laneCount; ++index) {
             laneSegments[index] = new LaneSegment(this, index + 1);
         }
-        id = nextId++;
+        this.id = id;
         assert roadLength > 0;
         this.roadLength = roadLength;
         this.laneCount = laneCount;
         this.roadObjects = new RoadObjects(this);
+        this.speedGrid = new SpeedGrid(roadLength);
         overtakingSegment = new LaneSegment(this, Lanes.OVERTAKING);
     }
 
     public RoadSegment(double roadLength, int laneCount, RoadMapping roadMapping,
             RoadSegmentDirection roadSegmentDirection) {
-        this(roadLength, laneCount);
+        this(SimulationContext.getDefault(), roadLength, laneCount, roadMapping, roadSegmentDirection);
+    }
+
+    public RoadSegment(SimulationContext context, double roadLength, int laneCount, RoadMapping roadMapping,
+            RoadSegmentDirection roadSegmentDirection) {
+        this(context.nextRoadSegmentId(), roadLength, laneCount, roadMapping, roadSegmentDirection);
+    }
+
+    /**
+     * Constructor with an id reserved before, see {@link SimulationContext#reserveRoadSegmentIds(int)}. Used for creating
+     * road segments concurrently.
+     * 
+     * @param id
+     * @param roadLength
+     *            road length, in meters.
+     * @param laneCount
+     *            number of lanes in this road segment
+     * @param roadMapping
+     * @param roadSegmentDirection
+     */
+    public RoadSegment(int id, double roadLength, int laneCount, RoadMapping roadMapping,
+            RoadSegmentDirection roadSegmentDirection) {
+        this(id, roadLength, laneCount);
         this.directionType = roadSegmentDirection;
         this.roadMapping = Preconditions.checkNotNull(roadMapping);
     }
@@ -231,7 +281,11 @@ public class RoadSegment extends DefaultWeightedEdge implements Iterable<Vehicle
      * @param userId
      */
     public final void setUserId(String userId) {
+        final String oldUserId = userId();
         this.userId = userId;
+        if (roadNetwork != null) {
+            roadNetwork.userIdChanged(this, oldUserId);
+        }
     }
 
     /**
@@ -501,6 +555,102 @@ public class RoadSegment extends DefaultWeightedEdge implements Iterable<Vehicle
      * 
      * @return the total number of vehicles on this road segment
      */
+    final void setRoadNetwork(RoadNetwork roadNetwork, int roadNetworkIndex) {
+        this.roadNetwork = roadNetwork;
+        this.roadNetworkIndex = roadNetworkIndex;
+        this.active = true;
+    }
+
+    final int roadNetworkIndex() {
+        return roadNetworkIndex;
+    }
+
+    final void deactivate() {
+        assert isQuiescent();
+        active = false;
+    }
+
+    /**
+     * Called by a lane segment of this road segment before a vehicle is added. Reactivates the updates of this road segment if
+     * they have been suspended by the road network.
+     */
+    final void beforeVehicleAdded() {
+        if (!active) {
+            active = true;
+            if (roadNetwork != null) {
+                roadNetwork.activate(this);
+            }
+        }
+    }
+
+    /**
+     * Called by a lane segment of this road segment after a vehicle has been added, updates the vehicle index of the road
+     * network.
+     */
+    final void afterVehicleAdded(Vehicle vehicle, LaneSegment laneSegment) {
+        if (roadNetwork != null) {
+            roadNetwork.vehicleAdded(vehicle, laneSegment);
+        }
+    }
+
+    /**
+     * Called by a lane segment of this road segment after a vehicle has been removed, updates the vehicle index of the road
+     * network.
+     */
+    final void afterVehicleRemoved(Vehicle vehicle, LaneSegment laneSegment) {
+        if (roadNetwork != null) {
+            roadNetwork.vehicleRemoved(vehicle, laneSegment);
+        }
+    }
+
+    /**
+     * Called when a vehicle leaves this road segment at its downstream end, reports the vehicle's travel time on this road
+     * segment to the road network.
+     * 
+     * @param vehicle
+     * @param simulationTime
+     *            the time at which the vehicle left this road segment
+     */
+    public final void vehicleExited(Vehicle vehicle, double simulationTime) {
+        if (roadNetwork != null) {
+            roadNetwork.vehicleExited(this, vehicle, simulationTime);
+        }
+    }
+
+    /**
+     * Returns true if all update steps of this road segment are without effect until a vehicle is added. This is the case if there
+     * are no vehicles, no boundary conditions, no vehicles registered by the signal points and only road objects which act on the
+     * vehicles of this road segment when they pass or are located within the road object's range.
+     * 
+     * @return true if the updates of this road segment can be suspended
+     */
+    final boolean isQuiescent() {
+        if (trafficSource != null || simpleRamp != null || sink != null) {
+            return false;
+        }
+        if (roadObjects.hasRoadObject(RoadObjectType.TRAFFICLIGHT)
+                || roadObjects.hasRoadObject(RoadObjectType.LOOPDETECTOR)
+                || roadObjects.hasRoadObject(RoadObjectType.VMS_DIVERSION)
+                || roadObjects.hasRoadObject(RoadObjectType.FLOW_CONSERVING_BOTTLENECK)) {
+            // these road objects have their own state or observe signal points of other road segments
+            return false;
+        }
+        for (final LaneSegment laneSegment : laneSegments) {
+            if (laneSegment.vehicleCount() > 0) {
+                return false;
+            }
+        }
+        if (overtakingSegment.vehicleCount() > 0) {
+            return false;
+        }
+        for (final SignalPoint signalPoint : signalPoints) {
+            if (!signalPoint.passedVehicles().isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public int getVehicleCount() {
         int vehicleCount = 0;
         for (final LaneSegment laneSegment : laneSegments) {
@@ -643,37 +793,15 @@ public class RoadSegment extends DefaultWeightedEdge implements Iterable<Vehicle
 
     /**
      * Returns the instantaneous travel time estimated on small sections within a {@code RoadSegment} with assuming the allowed freeflow
-     * speed in case of no vehicle.
+     * speed in case of no vehicle. The speeds are taken from the grid of the last position update, see {@link SpeedGrid}, and the
+     * section length is rounded to a multiple of {@link SpeedGrid#CELL_LENGTH}.
      * 
      * @return grid-based instantaneous travel time with adhoc assumed travel time if road is empty
      */
     public double instantaneousTravelTimeOnGrid(double gridLength) {
         Preconditions.checkArgument(gridLength > 0, "gridLength must be > 0");
-        double totalTravelTime = 0;
-        double startPos = 0;
-        // TODO hack here, depends on order of vehicles
-        LinkedList<Vehicle> vehicles = Lists.newLinkedList();
-        Iterators.addAll(vehicles, iterator());
-        while (startPos < roadLength) {
-            double endPos = Math.min(startPos + gridLength, roadLength);
-            double maxRoadSpeed = freeFlowSpeed; // FIXME consider speedlimits
-            totalTravelTime += travelTimeInRange(startPos, endPos, maxRoadSpeed, vehicles);
-            startPos += gridLength;
-        }
-        return totalTravelTime;
-    }
-
-    private static double travelTimeInRange(double begin, double end, double maxRoadSpeed,
-            LinkedList<Vehicle> vehicles) {
-        int count = 0;
-        double sumSpeed = 0;
-        while (!vehicles.isEmpty() && vehicles.getLast().getFrontPosition() < end) {
-            Vehicle veh = vehicles.removeLast();
-            sumSpeed += Math.max(veh.getSpeed(), MIN_SPEED_TT);
-            count++;
-        }
-        double avgSpeed = (count == 0) ? maxRoadSpeed : sumSpeed / count;
-        return (end - begin) / avgSpeed;
+        // FIXME consider speedlimits
+        return speedGrid.travelTime(gridLength, freeFlowSpeed);
     }
 
     /**
@@ -958,15 +1086,12 @@ public class RoadSegment extends DefaultWeightedEdge implements Iterable<Vehicle
      *            the number of iterations that have been executed
      */
     public void updateVehiclePositionsAndSpeeds(double dt, double simulationTime, long iterationCount) {
+        speedGrid.clear();
         for (final LaneSegment laneSegment : laneSegments) {
             assert laneSegment.laneIsSorted();
-            for (final Vehicle vehicle : laneSegment) {
-                vehicle.updatePositionAndSpeed(dt);
-            }
-        }
-        for (final Vehicle vehicle : overtakingSegment) {
-            vehicle.updatePositionAndSpeed(dt);
+            laneSegment.updateVehiclePositionsAndSpeeds(dt, speedGrid);
         }
+        overtakingSegment.updateVehiclePositionsAndSpeeds(dt, null);
         if (LOG.isDebugEnabled()) {
             LOG.debug("vehicleCount={}, roadSegment={}", getVehicleCount(), toString());
             for (Vehicle vehicle : this) {
@@ -1179,6 +1304,7 @@ public class RoadSegment extends DefaultWeightedEdge implements Iterable<Vehicle
      *            the is with crash exit
      */
     public void checkForInconsistencies(double time, long iterationCount, boolean isWithCrashExit) {
+        final NeighbourRef frontRef = new NeighbourRef();
         for (final LaneSegment laneSegment : laneSegments) {
             int index = -1;
             for (Vehicle vehicle : laneSegment) {
@@ -1186,7 +1312,7 @@ public class RoadSegment extends DefaultWeightedEdge implements Iterable<Vehicle
                 if (vehicle.type() == Vehicle.Type.OBSTACLE) {
                     continue;
                 }
-                final Vehicle vehFront = laneSegment.frontVehicle(vehicle);
+                final NeighbourRef vehFront = laneSegment.frontNeighbour(vehicle, frontRef);
                 final double netDistance = vehicle.getNetDistance(vehFront);
                 if (netDistance < 0) {
                     LOG.error("Crash happened!!!");
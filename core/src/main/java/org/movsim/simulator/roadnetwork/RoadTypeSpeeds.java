@@ -13,15 +13,16 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Preconditions;
 
-public enum RoadTypeSpeeds {
-
-    INSTANCE;
+/**
+ * Mapping of the road types to default freeflow speeds, owned by the {@link org.movsim.simulator.SimulationContext}.
+ */
+public final class RoadTypeSpeeds {
 
     private static final Logger LOG = LoggerFactory.getLogger(RoadTypeSpeeds.class);
 
     private final Map<RoadTypeEnum, Double> roadTypeSpeedMappings = new EnumMap<>(RoadTypeEnum.class);
 
-    private RoadTypeSpeeds() {
+    public RoadTypeSpeeds() {
         initWithDummyValues();
     }
 
@@ -0,0 +1,213 @@
+package org.movsim.simulator.roadnetwork;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.movsim.simulator.SimulationTimeStep;
+import org.movsim.simulator.roadnetwork.RoadNetworkUtils.TravelTimeType;
+import org.movsim.simulator.roadnetwork.routing.Route;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Shared per-segment aggregates (vehicle counts, instantaneous travel times and fuel consumption) for the route outputs and
+ * the service providers. Each aggregate is evaluated at most once per time step for each road segment of the registered
+ * routes, however many routes contain the road segment, and the route values are sums over the cached segment values.
+ * <p>
+ * The aggregates are invalidated by {@link #timeStep(double, double, long)} after the road network update and evaluated
+ * lazily on the first query of the time step. Not synchronized, the queries are made from the serial output update.
+ * </p>
+ */
+public class RouteMetrics implements SimulationTimeStep {
+
+    /** the road segments of the registered routes, in the order of their indices */
+    private final List<RoadSegment> roadSegments = new ArrayList<>();
+
+    private final Map<RoadSegment, Integer> indices = new HashMap<>();
+
+    private int[] vehicleCounts = new int[0];
+
+    private int[] obstacleCounts = new int[0];
+
+    private double[] fuelUsedLitersPerS = new double[0];
+
+    private double[] travelTimesFromMeanSpeed = new double[0];
+
+    /** the grid travel times by grid length */
+    private final Map<Double, double[]> travelTimesOnGrid = new HashMap<>();
+
+    private boolean countsValid;
+
+    private boolean fuelUsedValid;
+
+    private boolean travelTimesFromMeanSpeedValid;
+
+    /** the grid lengths of the grid travel times which are valid for the current time step */
+    private final List<Double> validGridLengths = new ArrayList<>();
+
+    /**
+     * Registers the road segments of the route. Routes are also registered with their first query.
+     *
+     * @param route
+     */
+    public void register(Route route) {
+        for (RoadSegment roadSegment : route) {
+            indexOf(roadSegment);
+        }
+    }
+
+    /**
+     * Invalidates the aggregates, must be called after each update of the road network.
+     */
+    @Override
+    public void timeStep(double dt, double simulationTime, long iterationCount) {
+        invalidate();
+    }
+
+    private void invalidate() {
+        countsValid = false;
+        fuelUsedValid = false;
+        travelTimesFromMeanSpeedValid = false;
+        validGridLengths.clear();
+    }
+
+    private int indexOf(RoadSegment roadSegment) {
+        Integer index = indices.get(roadSegment);
+        if (index == null) {
+            index = roadSegments.size();
+            roadSegments.add(Preconditions.checkNotNull(roadSegment));
+            indices.put(roadSegment, index);
+            // the new road segment has no values yet
+            invalidate();
+        }
+        return index;
+    }
+
+    /**
+     * Returns the number of vehicles on the route, including obstacles.
+     */
+    public int vehicleCount(Route route) {
+        final int[] counts = vehicleCounts(route);
+        int vehicleCount = 0;
+        for (RoadSegment roadSegment : route) {
+            vehicleCount += counts[indices.get(roadSegment)];
+        }
+        return vehicleCount;
+    }
+
+    /**
+     * Returns the number of obstacles on the route.
+     */
+    public int obstacleCount(Route route) {
+        vehicleCounts(route);
+        int obstacleCount = 0;
+        for (RoadSegment roadSegment : route) {
+            obstacleCount += obstacleCounts[indices.get(roadSegment)];
+        }
+        return obstacleCount;
+    }
+
+    private int[] vehicleCounts(Route route) {
+        register(route);
+        if (!countsValid) {
+            final int size = roadSegments.size();
+            vehicleCounts = ensureCapacity(vehicleCounts, size);
+            obstacleCounts = ensureCapacity(obstacleCounts, size);
+            for (int i = 0; i < size; i++) {
+                vehicleCounts[i] = roadSegments.get(i).getVehicleCount();
+                obstacleCounts[i] = roadSegments.get(i).getObstacleCount();
+            }
+            countsValid = true;
+        }
+        return vehicleCounts;
+    }
+
+    /**
+     * Returns the instantaneous fuel consumption of all vehicles on the route.
+     *
+     * @return the fuel consumption rate (liters per second)
+     */
+    public double instantaneousFuelUsedLiters(Route route) {
+        register(route);
+        if (!fuelUsedValid) {
+            final int size = roadSegments.size();
+            fuelUsedLitersPerS = ensureCapacity(fuelUsedLitersPerS, size);
+            for (int i = 0; i < size; i++) {
+                fuelUsedLitersPerS[i] = roadSegments.get(i).instantaneousConsumptionLitersPerSecond();
+            }
+            fuelUsedValid = true;
+        }
+        return sum(route, fuelUsedLitersPerS);
+    }
+
+    /**
+     * Returns the instantaneous travel time of the route, see {@link RoadNetworkUtils#instantaneousTravelTime}.
+     */
+    public double instantaneousTravelTime(Route route, TravelTimeType type) {
+        switch (type) {
+        case GRID:
+            return instantaneousTravelTimeOnGrid(route, RoadNetworkUtils.GRID_LENGTH);
+        case MEAN:
+            return instantaneousTravelTimeFromMeanSpeed(route);
+        default:
+            return 0;
+        }
+    }
+
+    /**
+     * Returns the instantaneous travel time of the route based on the mean speeds of the vehicles on its road segments.
+     */
+    public double instantaneousTravelTimeFromMeanSpeed(Route route) {
+        register(route);
+        if (!travelTimesFromMeanSpeedValid) {
+            final int size = roadSegments.size();
+            travelTimesFromMeanSpeed = ensureCapacity(travelTimesFromMeanSpeed, size);
+            for (int i = 0; i < size; i++) {
+                travelTimesFromMeanSpeed[i] = roadSegments.get(i).instantaneousTravelTimeFromMeanSpeed();
+            }
+            travelTimesFromMeanSpeedValid = true;
+        }
+        return sum(route, travelTimesFromMeanSpeed);
+    }
+
+    /**
+     * Returns the instantaneous travel time of the route evaluated on grid sections of its road segments.
+     *
+     * @param gridLength
+     *            the length of the grid sections
+     */
+    public double instantaneousTravelTimeOnGrid(Route route, double gridLength) {
+        Preconditions.checkArgument(gridLength > 0, "gridLength must be > 0");
+        register(route);
+        final Double key = gridLength;
+        double[] travelTimes = travelTimesOnGrid.get(key);
+        if (!validGridLengths.contains(key)) {
+            final int size = roadSegments.size();
+            travelTimes = ensureCapacity(travelTimes, size);
+            for (int i = 0; i < size; i++) {
+                travelTimes[i] = roadSegments.get(i).instantaneousTravelTimeOnGrid(gridLength);
+            }
+            travelTimesOnGrid.put(key, travelTimes);
+            validGridLengths.add(key);
+        }
+        return sum(route, travelTimes);
+    }
+
+    private double sum(Route route, double[] values) {
+        double sum = 0;
+        for (RoadSegment roadSegment : route) {
+            sum += values[indices.get(roadSegment)];
+        }
+        return sum;
+    }
+
+    private static int[] ensureCapacity(int[] values, int size) {
+        return values.length >= size ? values : new int[size];
+    }
+
+    private static double[] ensureCapacity(double[] values, int size) {
+        return values != null && values.length >= size ? values : new double[size];
+    }
+}
@@ -136,6 +136,7 @@ public abstract class AbstractTrafficSource implements SimulationTimeStep {
             vehicle.setLane(laneSegment.lane());
         }
         vehicle.setRoadSegment(roadSegment);
+        vehicle.markRoadSegmentEntry();
         laneSegment.addVehicle(vehicle);
         // status variables of entering vehicle for logging
         enteringVehCounter++;
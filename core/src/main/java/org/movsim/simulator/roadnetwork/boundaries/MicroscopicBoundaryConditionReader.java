@@ -0,0 +1,127 @@
+package org.movsim.simulator.roadnetwork.boundaries;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.annotation.CheckForNull;
+import javax.xml.bind.JAXBException;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.movsim.scenario.boundary.autogen.BoundaryConditionType;
+import org.movsim.xml.InputLoader;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Streams the boundary conditions of a single road from the (validated) microscopic boundary conditions file. Only the
+ * current &lt;BoundaryCondition&gt; element is unmarshalled, the file is closed when the last one has been read.
+ */
+public final class MicroscopicBoundaryConditionReader implements Closeable {
+
+    private final String roadId;
+
+    private InputStream inputStream;
+
+    /** positioned at the next &lt;BoundaryCondition&gt; of the road, null if closed */
+    private XMLStreamReader reader;
+
+    /**
+     * @throws IllegalStateException
+     *             if the file cannot be read or has no boundary conditions for the road
+     */
+    MicroscopicBoundaryConditionReader(File file, String roadId) {
+        this.roadId = Preconditions.checkNotNull(roadId);
+        try {
+            inputStream = new FileInputStream(file);
+            reader = MicroscopicBoundaryConditions.createStreamReader(inputStream);
+            if (!seekRoad()) {
+                close();
+                throw new IllegalStateException("no micro boundary conditions for road=" + roadId + " in file=" + file);
+            }
+        } catch (IOException | XMLStreamException e) {
+            closeQuietly();
+            throw new IllegalStateException(e.toString());
+        }
+    }
+
+    /**
+     * Moves the reader to the first boundary condition of the road.
+     */
+    private boolean seekRoad() throws XMLStreamException {
+        reader.nextTag(); // <MovsimMicroscopicBoundaryConditions>
+        int event = reader.nextTag();
+        while (event == XMLStreamConstants.START_ELEMENT) {
+            if (MicroscopicBoundaryConditions.ROAD_ELEMENT.equals(reader.getLocalName())
+                    && roadId.equals(reader.getAttributeValue(null, "id"))) {
+                reader.nextTag(); // <BoundaryConditions>
+                reader.nextTag(); // first <BoundaryCondition> or </BoundaryConditions>
+                return true;
+            }
+            MicroscopicBoundaryConditions.skipElement(reader);
+            event = reader.isStartElement() || reader.isEndElement() ? reader.getEventType() : reader.nextTag();
+        }
+        return false;
+    }
+
+    /**
+     * Reads the next boundary condition of the road.
+     *
+     * @return the boundary condition, null if all have been read
+     * @throws IllegalStateException
+     *             if the file cannot be read
+     */
+    @CheckForNull
+    public BoundaryConditionType read() {
+        if (reader == null) {
+            return null;
+        }
+        try {
+            if (!reader.isStartElement()) {
+                // </BoundaryConditions>
+                close();
+                return null;
+            }
+            BoundaryConditionType record = InputLoader.microBoundaryConditionsElementUnmarshaller()
+                    .unmarshal(reader, BoundaryConditionType.class).getValue();
+            // the unmarshaller stops at the event following the end of the element
+            if (!reader.isStartElement() && !reader.isEndElement()) {
+                reader.nextTag();
+            }
+            return record;
+        } catch (JAXBException | XMLStreamException | IOException e) {
+            closeQuietly();
+            throw new IllegalStateException(e.toString());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (reader != null) {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        } finally {
+            reader = null;
+            if (inputStream != null) {
+                inputStream.close();
+                inputStream = null;
+            }
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (IOException e) {
+            // already failed
+        }
+    }
+
+}
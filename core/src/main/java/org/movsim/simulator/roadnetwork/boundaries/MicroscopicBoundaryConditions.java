@@ -1,64 +1,127 @@
 package org.movsim.simulator.roadnetwork.boundaries;
 
 import java.io.File;
-import java.util.HashMap;
-import java.util.Map;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.Set;
 
-import javax.annotation.CheckForNull;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
-import org.movsim.scenario.boundary.autogen.BoundaryConditionsType;
-import org.movsim.scenario.boundary.autogen.MovsimMicroscopicBoundaryConditions;
-import org.movsim.scenario.boundary.autogen.RoadMicroscopicBoundaryConditionsType;
 import org.movsim.xml.InputLoader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Preconditions;
 
+/**
+ * The microscopic boundary conditions file. The file is validated and only the roads it contains are read on
+ * construction, the boundary conditions of a road are streamed by a {@link MicroscopicBoundaryConditionReader} while
+ * the simulation runs.
+ */
 public class MicroscopicBoundaryConditions {
 
     private static final Logger LOG = LoggerFactory.getLogger(MicroscopicBoundaryConditions.class);
 
-    private final Map<String, RoadMicroscopicBoundaryConditionsType> roadToBoundaryConditions;
+    static final String ROAD_ELEMENT = "RoadMicroscopicBoundaryConditions";
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = XMLInputFactory.newInstance();
+
+    private final Set<String> roadIds = new HashSet<>();
 
     private final File file;
 
     private final String timeFormat;
 
+    /**
+     * @throws IllegalStateException
+     *             if the file cannot be read or is not valid
+     */
     public MicroscopicBoundaryConditions(File file) {
         this.file = Preconditions.checkNotNull(file);
         Preconditions.checkArgument(file.exists(), "micro boundary conditions file " + file + " not found");
-        roadToBoundaryConditions = new HashMap<>();
 
-        MovsimMicroscopicBoundaryConditions input = InputLoader.unmarshallMicroBoundaryConditions(file);
-        LOG.info("loaded initial conditions from file={}", file);
-
-        this.timeFormat = input.getTimeFormat();
+        InputLoader.validateMicroBoundaryConditions(file);
+        this.timeFormat = readRoadIds();
+        LOG.info("indexed micro boundary conditions for {} roads from file={}", roadIds.size(), file);
         LOG.debug("for input file={} use time format={}", file, timeFormat);
-        fillMapping(input);
     }
 
     /**
+     * Reads the ids of the roads, skipping their boundary conditions.
+     *
+     * @return the time format
      * @throws IllegalStateException
      */
-    private void fillMapping(MovsimMicroscopicBoundaryConditions input) {
-        for (RoadMicroscopicBoundaryConditionsType roadConditions : input.getRoadMicroscopicBoundaryConditions()){
-            String roadId = roadConditions.getId();
-            if (roadToBoundaryConditions.containsKey(roadId)) {
-                throw new IllegalStateException("roadId=" + roadId + "already used in input file=" + file);
+    private String readRoadIds() {
+        try (InputStream inputStream = new FileInputStream(file)) {
+            XMLStreamReader reader = createStreamReader(inputStream);
+            try {
+                reader.nextTag(); // <MovsimMicroscopicBoundaryConditions>
+                String format = reader.getAttributeValue(null, "time_format");
+                int event = reader.nextTag();
+                while (event == XMLStreamConstants.START_ELEMENT) {
+                    String roadId = reader.getAttributeValue(null, "id");
+                    if (!roadIds.add(roadId)) {
+                        throw new IllegalStateException("roadId=" + roadId + "already used in input file=" + file);
+                    }
+                    skipElement(reader);
+                    event = reader.isStartElement() || reader.isEndElement() ? reader.getEventType() : reader.nextTag();
+                }
+                return format == null ? "" : format;
+            } finally {
+                reader.close();
             }
-            roadToBoundaryConditions.put(roadId, roadConditions);
+        } catch (IOException | XMLStreamException e) {
+            throw new IllegalStateException(e.toString());
         }
-        LOG.info("unmarshalled initial conditions for {} roads", roadToBoundaryConditions.size());
     }
 
     public String getTimeFormat() {
         return timeFormat;
     }
 
-    @CheckForNull
-    public BoundaryConditionsType getBoundaryConditions(String roadUserId) {
-        return roadToBoundaryConditions.get(roadUserId).getBoundaryConditions();
+    public boolean hasBoundaryConditions(String roadUserId) {
+        return roadIds.contains(roadUserId);
+    }
+
+    /**
+     * Opens a reader of the boundary conditions of the road in the order of the file.
+     *
+     * @throws IllegalArgumentException
+     *             if the file has no boundary conditions for the road
+     * @throws IllegalStateException
+     *             if the file cannot be read
+     */
+    public MicroscopicBoundaryConditionReader openBoundaryConditions(String roadUserId) {
+        Preconditions.checkArgument(hasBoundaryConditions(roadUserId), "no micro boundary conditions for road="
+                + roadUserId + " in file=" + file);
+        return new MicroscopicBoundaryConditionReader(file, roadUserId);
+    }
+
+    static XMLStreamReader createStreamReader(InputStream inputStream) throws XMLStreamException {
+        // the factory is thread-safe once configured, the readers are not
+        synchronized (XML_INPUT_FACTORY) {
+            return XML_INPUT_FACTORY.createXMLStreamReader(inputStream);
+        }
+    }
+
+    /** Skips the current element including its children, stops at the event following the end of the element. */
+    static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+        reader.next();
     }
 
 }
@@ -1,10 +1,10 @@
 package org.movsim.simulator.roadnetwork.boundaries;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 
 import org.movsim.scenario.boundary.autogen.BoundaryConditionType;
-import org.movsim.scenario.boundary.autogen.BoundaryConditionsType;
 import org.movsim.scenario.boundary.autogen.VehicleUserDataType;
 import org.movsim.simulator.roadnetwork.Lanes;
 import org.movsim.simulator.roadnetwork.routing.Route;
@@ -16,16 +16,35 @@ import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Preconditions;
 
+/**
+ * Creates the vehicles of the microscopic boundary conditions of a traffic source while the simulation runs. The boundary
+ * conditions are streamed through a look-ahead window of at most {@link #WINDOW_CAPACITY} records which is ordered by
+ * time, so the input only needs to be approximately ordered by time. A vehicle is created {@link #LOOK_AHEAD_SECONDS}
+ * before its entering time.
+ */
 public class MicroscopicBoundaryInputData {
 
     private static final Logger LOG = LoggerFactory.getLogger(MicroscopicBoundaryInputData.class);
 
-    private final BoundaryConditionsType boundaryConditions;
+    /** maximum number of boundary conditions read ahead */
+    static final int WINDOW_CAPACITY = 64;
+
+    /** time before the entering time at which a vehicle is created (s) */
+    static final long LOOK_AHEAD_SECONDS = 10;
+
+    private final MicroscopicBoundaryConditionReader boundaryConditions;
     private final long timeOffsetMillis;
     private final String timeFormat;
     private final Routing routing;
 
-    public MicroscopicBoundaryInputData(BoundaryConditionsType boundaryConditions, String timeFormat,
+    /** the boundary conditions read ahead by entering time (rounded to seconds) */
+    private final NavigableMap<Long, BoundaryConditionType> window = new TreeMap<>();
+
+    private long lastCreatedTime = Long.MIN_VALUE;
+
+    private int countCreated;
+
+    public MicroscopicBoundaryInputData(MicroscopicBoundaryConditionReader boundaryConditions, String timeFormat,
             long timeOffsetMillis, Routing routing) {
         this.boundaryConditions = Preconditions.checkNotNull(boundaryConditions);
         this.routing = Preconditions.checkNotNull(routing);
@@ -33,20 +52,48 @@ public class MicroscopicBoundaryInputData {
         this.timeOffsetMillis = timeOffsetMillis;
     }
 
-    public Map<Long, Vehicle> createVehicles(TrafficSourceMicro trafficSource) {
+    /**
+     * Creates the vehicles entering up to {@link #LOOK_AHEAD_SECONDS} after the simulation time and adds them to the queue
+     * of the traffic source.
+     */
+    public void createVehicles(TrafficSourceMicro trafficSource, double simulationTime) {
         Preconditions.checkNotNull(trafficSource);
-        Map<Long, Vehicle> vehicles = new HashMap<>();
-        int size = boundaryConditions.getBoundaryCondition().size();
-        LOG.info("number of vehicleBoundaryCondition entries=" + size);
-        for (BoundaryConditionType boundaryCondition : boundaryConditions.getBoundaryCondition()) {
-            Vehicle vehicle = createVehicle(boundaryCondition, trafficSource);
+        fillWindow();
+        while (!window.isEmpty() && window.firstKey() <= simulationTime + LOOK_AHEAD_SECONDS) {
+            Map.Entry<Long, BoundaryConditionType> entry = window.pollFirstEntry();
+            long time = entry.getKey();
+            if (time < lastCreatedTime) {
+                LOG.warn("micro boundary condition with time={} is out of order by more than the look-ahead window "
+                        + "on road={}, vehicle enters as soon as possible", time, trafficSource.roadSegment.userId());
+            }
+            lastCreatedTime = Math.max(lastCreatedTime, time);
+            trafficSource.addVehicleToQueue(time, createVehicle(entry.getValue(), trafficSource));
+            countCreated++;
+            fillWindow();
+        }
+    }
+
+    /**
+     * @return true if all vehicles have been created
+     */
+    public boolean isExhausted() {
+        return window.isEmpty();
+    }
+
+    private void fillWindow() {
+        while (window.size() < WINDOW_CAPACITY) {
+            BoundaryConditionType record = boundaryConditions.read();
+            if (record == null) {
+                if (window.isEmpty()) {
+                    LOG.info("created all {} vehicles of micro boundary conditions", countCreated);
+                }
+                return;
+            }
             // round to seconds
-            long time = Math.round(TimeUtilities.convertToSeconds(boundaryCondition.getTime(), timeFormat, timeOffsetMillis));
-            Preconditions.checkArgument(!vehicles.containsKey(time), "time=" + time
+            long time = Math.round(TimeUtilities.convertToSeconds(record.getTime(), timeFormat, timeOffsetMillis));
+            Preconditions.checkArgument(window.put(time, record) == null, "time=" + time
                     + " already used as micro boundary condition");
-            vehicles.put(time, vehicle);
         }
-        return vehicles;
     }
 
     private Vehicle createVehicle(BoundaryConditionType record, TrafficSourceMicro trafficSource) {
@@ -147,6 +147,7 @@ public class TrafficSink implements SimulationTimeStep {
         totalVehicleTravelTime += vehicle.totalTravelTime();
         totalVehicleFuelUsedLiters += vehicle.getEnergyModel().totalFuelUsedLiters();
         ++totalVehiclesRemoved;
+        roadSegment.vehicleExited(vehicle, simulationTime);
         if (recordDataCallback != null) {
             recordDataCallback.recordData(simulationTime, totalVehiclesRemoved, vehicle);
         }
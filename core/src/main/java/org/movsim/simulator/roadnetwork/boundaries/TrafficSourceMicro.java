@@ -29,6 +29,8 @@ package org.movsim.simulator.roadnetwork.boundaries;
 import java.util.SortedMap;
 import java.util.TreeMap;
 
+import javax.annotation.Nullable;
+
 import org.movsim.simulator.roadnetwork.LaneSegment;
 import org.movsim.simulator.roadnetwork.RoadSegment;
 import org.movsim.simulator.vehicles.TrafficCompositionGenerator;
@@ -44,8 +46,18 @@ public class TrafficSourceMicro extends AbstractTrafficSource {
 
     private final SortedMap<Long, Vehicle> vehicleQueue = new TreeMap<>();
 
+    /** creates the queued vehicles shortly before their entering time, null if all vehicles are added to the queue */
+    @Nullable
+    private final MicroscopicBoundaryInputData inputData;
+
     public TrafficSourceMicro(TrafficCompositionGenerator vehGenerator, RoadSegment roadSegment) {
+        this(vehGenerator, roadSegment, null);
+    }
+
+    public TrafficSourceMicro(TrafficCompositionGenerator vehGenerator, RoadSegment roadSegment,
+            @Nullable MicroscopicBoundaryInputData inputData) {
         super(vehGenerator, roadSegment);
+        this.inputData = inputData;
     }
 
     public void addVehicleToQueue(long time, Vehicle vehicle) {
@@ -65,6 +77,9 @@ public class TrafficSourceMicro extends AbstractTrafficSource {
     @Override
     public void timeStep(double dt, double simulationTime, long iterationCount) {
         calcApproximateInflow(dt);
+        if (inputData != null && !inputData.isExhausted()) {
+            inputData.createVehicles(this, simulationTime);
+        }
         if (vehicleQueue.isEmpty()) {
             return;
         }
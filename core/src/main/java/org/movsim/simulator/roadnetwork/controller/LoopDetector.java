@@ -27,7 +27,9 @@ package org.movsim.simulator.roadnetwork.controller;
 
 import org.movsim.output.FileDetector;
 import org.movsim.simulator.MovsimConstants;
+import org.movsim.simulator.SimulationContext;
 import org.movsim.simulator.roadnetwork.Lanes;
+import org.movsim.simulator.roadnetwork.NeighbourRef;
 import org.movsim.simulator.roadnetwork.RoadSegment;
 import org.movsim.simulator.roadnetwork.SignalPoint;
 import org.movsim.simulator.vehicles.Vehicle;
@@ -58,6 +60,8 @@ public class LoopDetector extends RoadObjectController {
 
     private final LaneQuantity[] laneQuantities;
 
+    private final NeighbourRef frontRef = new NeighbourRef();
+
     private final FileDetector fileDetector;
 
     private final SignalPoint crossSectionSignalPoint;
@@ -65,14 +69,15 @@ public class LoopDetector extends RoadObjectController {
     /**
      * Constructor
      * 
+     * @param context
      * @param roadSegment
      * @param detPosition
      * @param dtSample
      * @param logging
      * @param loggingLanes
      */
-    public LoopDetector(RoadSegment roadSegment, double detPosition, double dtSample, boolean logging,
-            boolean loggingLanes) {
+    public LoopDetector(SimulationContext context, RoadSegment roadSegment, double detPosition, double dtSample,
+            boolean logging, boolean loggingLanes) {
         super(RoadObjectType.LOOPDETECTOR, detPosition, roadSegment);
         this.dtSample = dtSample;
 
@@ -89,8 +94,8 @@ public class LoopDetector extends RoadObjectController {
 
         resetLaneAverages();
 
-        fileDetector = (logging) ? new FileDetector(this, roadSegment.userId(), roadSegment.laneCount(), loggingLanes)
-                : null;
+        fileDetector = (logging) ? new FileDetector(context, this, roadSegment.userId(), roadSegment.laneCount(),
+                loggingLanes) : null;
         if (fileDetector != null) {
             fileDetector.writeAggregatedData(0);
         }
@@ -145,8 +150,9 @@ public class LoopDetector extends RoadObjectController {
         laneQuantity.occTime += (speedVeh > 0) ? veh.getLength() / speedVeh : 0;
         laneQuantity.sumInvV += (speedVeh > 0) ? 1. / speedVeh : 0;
         // brut timegap not calculate from local detector data:
-        Vehicle vehFront = roadSegment.frontVehicleOnLane(veh);
-        double brutTimegap = (vehFront == null) ? 0 : veh.getBrutDistance(vehFront) / vehFront.getSpeed();
+        final NeighbourRef vehFront = roadSegment.laneSegment(veh.lane()).frontNeighbour(veh, frontRef);
+        double brutTimegap = (vehFront == null) ? 0 : (vehFront.getFrontPosition() - veh.getFrontPosition())
+                / vehFront.getSpeed();
         // "microscopic flow"
         laneQuantity.sumInvQ += (brutTimegap > 0) ? 1. / brutTimegap : 0;
     }
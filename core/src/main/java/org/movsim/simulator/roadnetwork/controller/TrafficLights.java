@@ -35,6 +35,7 @@ import javax.annotation.Nullable;
 import org.movsim.autogen.ControllerGroup;
 import org.movsim.network.autogen.opendrive.OpenDRIVE.Controller.Control;
 import org.movsim.output.FileTrafficLightControllerRecorder;
+import org.movsim.simulator.SimulationContext;
 import org.movsim.simulator.SimulationTimeStep;
 import org.movsim.simulator.roadnetwork.RoadNetwork;
 import org.movsim.simulator.roadnetwork.RoadSegment;
@@ -59,7 +60,8 @@ public class TrafficLights implements SimulationTimeStep {
 
     private final List<TrafficLightController> trafficLightControllers;
 
-    public TrafficLights(@Nullable org.movsim.autogen.TrafficLights trafficLightsInput, RoadNetwork roadNetwork) {
+    public TrafficLights(SimulationContext context, @Nullable org.movsim.autogen.TrafficLights trafficLightsInput,
+            RoadNetwork roadNetwork) {
         this.trafficLightControllers = new ArrayList<>();
         if (trafficLightsInput == null) {
             // trafficlights can alternatively controlled by Regulator
@@ -72,7 +74,7 @@ public class TrafficLights implements SimulationTimeStep {
             setUp(trafficLightsInput, roadNetwork);
             checkIfAllTrafficlightsAreReferenced();
             if (trafficLightsInput.isLogging()) {
-                setUpLogging(trafficLightsInput.getNTimestep());
+                setUpLogging(context, trafficLightsInput.getNTimestep());
             }
         }
     }
@@ -155,9 +157,9 @@ public class TrafficLights implements SimulationTimeStep {
         }
     }
 
-    private void setUpLogging(int nTimestep) {
+    private void setUpLogging(SimulationContext context, int nTimestep) {
         for (TrafficLightController controller : trafficLightControllers) {
-            controller.setRecorder(new FileTrafficLightControllerRecorder(controller, nTimestep));
+            controller.setRecorder(new FileTrafficLightControllerRecorder(context, controller, nTimestep));
         }
     }
 
@@ -27,12 +27,14 @@
 package org.movsim.simulator.roadnetwork.regulator;
 
 import org.movsim.autogen.RegulatorType;
+import org.movsim.input.ProjectMetaData;
 import org.movsim.simulator.roadnetwork.RoadNetwork;
 
 public class AdaptiveSpeedLimit extends Regulator {
 
-    protected AdaptiveSpeedLimit(RegulatorType regulatorType, RoadNetwork roadNetwork) {
-        super(regulatorType, roadNetwork);
+    protected AdaptiveSpeedLimit(RegulatorType regulatorType, RoadNetwork roadNetwork,
+            ProjectMetaData projectMetaData) {
+        super(regulatorType, roadNetwork, projectMetaData);
     }
 
 }
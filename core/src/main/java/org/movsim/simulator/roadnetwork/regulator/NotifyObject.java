@@ -59,10 +59,6 @@ public class NotifyObject {
         signalPoint = new SignalPoint(position, roadSegment);
         // roadNetwork already constructed: adding of signalPoint to roadSegments possible here
         roadSegment.signalPoints().add(signalPoint);
-        if (notifyObjectType.isSetId() && !Regulators.addNotifyObjectId(notifyObjectType.getId())) {
-            throw new IllegalArgumentException("NotifyObject id=" + notifyObjectType.getId() + " not unique!");
-        }
-
     }
 
     public Collection<Vehicle> getPassedVehicles() {
@@ -73,6 +69,10 @@ public class NotifyObject {
         return parameter.isSetName() ? parameter.getName() : "-";
     }
 
+    public boolean hasId() {
+        return parameter.isSetId();
+    }
+
     public String getId() {
         return parameter.isSetId() ? parameter.getId() : "-";
     }
@@ -27,12 +27,14 @@
 package org.movsim.simulator.roadnetwork.regulator;
 
 import org.movsim.autogen.RegulatorType;
+import org.movsim.input.ProjectMetaData;
 import org.movsim.simulator.roadnetwork.RoadNetwork;
 
 public class ParkingDeck extends Regulator {
 
-    public ParkingDeck(RegulatorType regulatorType, RoadNetwork roadNetwork) {
-        super(regulatorType, roadNetwork);
+    public ParkingDeck(RegulatorType regulatorType, RoadNetwork roadNetwork,
+            ProjectMetaData projectMetaData) {
+        super(regulatorType, roadNetwork, projectMetaData);
     }
 
 }
@@ -31,8 +31,6 @@ import java.io.FileNotFoundException;
 import java.util.List;
 import java.util.Set;
 
-import javax.annotation.CheckForNull;
-
 import org.movsim.autogen.NotifyObjectType;
 import org.movsim.autogen.RegulatorType;
 import org.movsim.autogen.SignalType;
@@ -66,40 +64,41 @@ public class Regulator implements SimulationTimeStep {
 
     protected RegulatorFileLogging fileLogging = null;
 
-    public static final Regulator create(RegulatorType regulatorParameter, RoadNetwork roadNetwork) {
+    public static final Regulator create(RegulatorType regulatorParameter, RoadNetwork roadNetwork,
+            ProjectMetaData projectMetaData) {
         switch (regulatorParameter.getType()) {
         case ADAPTIVE_SPEED_LIMIT:
-            return new AdaptiveSpeedLimit(regulatorParameter, roadNetwork);
+            return new AdaptiveSpeedLimit(regulatorParameter, roadNetwork, projectMetaData);
         case COMMUNICATION:
-            return new CommunicationControl(regulatorParameter, roadNetwork);
+            return new CommunicationControl(regulatorParameter, roadNetwork, projectMetaData);
         case CONTROLLED_SECTION:
-            return new ControlledSection(regulatorParameter, roadNetwork);
+            return new ControlledSection(regulatorParameter, roadNetwork, projectMetaData);
         case FERRY:
-            return new Ferry(regulatorParameter, roadNetwork);
+            return new Ferry(regulatorParameter, roadNetwork, projectMetaData);
         case PARKING_DECK:
-            return new ParkingDeck(regulatorParameter, roadNetwork);
+            return new ParkingDeck(regulatorParameter, roadNetwork, projectMetaData);
         default:
             throw new IllegalArgumentException("cannot create regulator type=" + regulatorParameter.getType());
         }
     }
 
-    protected Regulator(RegulatorType regulatorType, RoadNetwork roadNetwork) {
+    protected Regulator(RegulatorType regulatorType, RoadNetwork roadNetwork, ProjectMetaData projectMetaData) {
         this.parameter = Preconditions.checkNotNull(regulatorType);
         Preconditions.checkNotNull(roadNetwork);
         initializeNotifyObjects(roadNetwork);
         initializeTrafficLights(roadNetwork);
         if (regulatorType.isLogging()) {
-            initFileLogger();
+            initFileLogger(projectMetaData);
         }
     }
 
-    private void initFileLogger() {
+    private void initFileLogger(ProjectMetaData projectMetaData) {
         StringBuilder sb = new StringBuilder();
-        sb.append(ProjectMetaData.getInstance().getProjectName());
+        sb.append(projectMetaData.getProjectName());
         sb.append(".regulator_").append(parameter.getType().toString());
         sb.append(".id_").append(parameter.getId());
         sb.append(".csv");
-        File file = new File(ProjectMetaData.getInstance().getPathToProjectFile(), sb.toString());
+        File file = new File(projectMetaData.getPathToProjectFile(), sb.toString());
         try {
             fileLogging = new RegulatorFileLogging(file);
         } catch (FileNotFoundException e) {
@@ -109,7 +108,7 @@ public class Regulator implements SimulationTimeStep {
 
     private void initializeTrafficLights(RoadNetwork roadNetwork) {
         for (SignalType signalType : parameter.getSignal()) {
-            TrafficLight trafficLight = findTrafficSignal(signalType.getSignalId(), roadNetwork);
+            TrafficLight trafficLight = roadNetwork.findTrafficLight(signalType.getSignalId());
             if (trafficLight == null) {
                 throw new IllegalArgumentException("cannot find TrafficLight with signalId=" + signalType.getSignalId()
                         + "in roadNetwork");
@@ -119,18 +118,6 @@ public class Regulator implements SimulationTimeStep {
         }
     }
 
-    @CheckForNull
-    private static TrafficLight findTrafficSignal(String signalId, RoadNetwork roadNetwork) {
-        for (RoadSegment roadSegment : roadNetwork) {
-            for (TrafficLight trafficLight : roadSegment.trafficLights()) {
-                if (trafficLight.signalId().equals(signalId)) {
-                    return trafficLight;
-                }
-            }
-        }
-        return null;
-    }
-
     private void initializeNotifyObjects(RoadNetwork roadNetwork) {
         for (NotifyObjectType notifyObjectType : parameter.getNotifyObject()) {
             RoadSegment roadSegment = roadNetwork.findByUserId(notifyObjectType.getRoadId());
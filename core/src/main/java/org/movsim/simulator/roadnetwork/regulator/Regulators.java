@@ -34,40 +34,42 @@ import java.util.Set;
 
 import org.movsim.autogen.RegulatorType;
 import org.movsim.autogen.RegulatorsType;
+import org.movsim.input.ProjectMetaData;
 import org.movsim.simulator.SimulationRun;
 import org.movsim.simulator.SimulationTimeStep;
 import org.movsim.simulator.roadnetwork.RoadNetwork;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.base.Preconditions;
-
 public final class Regulators implements Iterable<Regulator>, SimulationTimeStep, SimulationRun.CompletionCallback {
 
     /** The Constant LOG. */
     private static final Logger LOG = LoggerFactory.getLogger(Regulators.class);
 
-    private static final Set<String> REGULATOR_ID_CACHE = new HashSet<>();
-    private static final Set<String> NOTIFY_OBJECTS_ID_CACHE = new HashSet<>();
+    private final Set<String> regulatorIds = new HashSet<>();
+    private final Set<String> notifyObjectIds = new HashSet<>();
 
     private final List<Regulator> regulators = new ArrayList<>();
 
-    public Regulators(RegulatorsType regulatorsType, RoadNetwork roadNetwork) {
-        REGULATOR_ID_CACHE.clear();
-        NOTIFY_OBJECTS_ID_CACHE.clear();
+    public Regulators(RegulatorsType regulatorsType, RoadNetwork roadNetwork, ProjectMetaData projectMetaData) {
         if (regulatorsType != null) {
-            initialize(regulatorsType, roadNetwork);
+            initialize(regulatorsType, roadNetwork, projectMetaData);
         }
     }
 
-    private void initialize(RegulatorsType regulatorsType, RoadNetwork roadNetwork) {
+    private void initialize(RegulatorsType regulatorsType, RoadNetwork roadNetwork, ProjectMetaData projectMetaData) {
         for (RegulatorType regulatorType : regulatorsType.getRegulator()) {
             if(regulatorType.isSetId()){
-                if (!REGULATOR_ID_CACHE.add(regulatorType.getId())) {
+                if (!regulatorIds.add(regulatorType.getId())) {
                     throw new IllegalArgumentException("regulator id=" + regulatorType.getId() + " not unique!");
                 }
             }
-            Regulator regulator = Regulator.create(regulatorType, roadNetwork);
+            Regulator regulator = Regulator.create(regulatorType, roadNetwork, projectMetaData);
+            for (NotifyObject notifyObject : regulator.notifyObjects) {
+                if (notifyObject.hasId() && !notifyObjectIds.add(notifyObject.getId())) {
+                    throw new IllegalArgumentException("NotifyObject id=" + notifyObject.getId() + " not unique!");
+                }
+            }
             regulators.add(regulator);
         }
     }
@@ -90,11 +92,6 @@ public final class Regulators implements Iterable<Regulator>, SimulationTimeStep
         LOG.info("simulation completed at simTime={}", simulationTime);
     }
 
-    static boolean addNotifyObjectId(String id) {
-        Preconditions.checkArgument(id != null && !id.isEmpty(), "invalid id=" + id);
-        return NOTIFY_OBJECTS_ID_CACHE.add(id);
-    }
-
     @Override
     public Iterator<Regulator> iterator() {
         return regulators.iterator();
@@ -0,0 +1,378 @@
+package org.movsim.simulator.roadnetwork.routing;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import javax.annotation.CheckForNull;
+
+import org.jgrapht.DirectedGraph;
+import org.movsim.simulator.roadnetwork.RoadSegment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * <p>
+ * Landmark lower bounds for the A* search of shortest paths (ALT). For a few landmark nodes far apart from each other the
+ * distances from and to all nodes are calculated once. By the triangle inequality they give a lower bound of the distance
+ * between any two nodes, which directs the A* search towards the destination, so a query settles only a small part of a
+ * large network.
+ * </p>
+ * <p>
+ * The bounds remain valid as long as no edge weight drops below the weight the index has been calculated with. The index can
+ * be stored next to the network file (the name of the xodr file with the extension {@value #EXTENSION}); it records a
+ * fingerprint of the graph and is ignored if the graph does not match.
+ * </p>
+ */
+final class LandmarkIndex {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LandmarkIndex.class);
+
+    public static final String EXTENSION = ".landmarks";
+
+    static final int DEFAULT_LANDMARK_COUNT = 8;
+
+    /** "MVLM" */
+    private static final int MAGIC = 0x4d564c4d;
+
+    private static final int VERSION = 1;
+
+    private static final double INFINITY = Double.POSITIVE_INFINITY;
+
+    private final long fingerprint;
+
+    /** the node ids in ascending order, the index of a node in the distance tables */
+    private final long[] vertices;
+
+    /** the distances from each landmark to all nodes */
+    private final double[][] fromLandmark;
+
+    /** the distances from all nodes to each landmark */
+    private final double[][] toLandmark;
+
+    private static final class QueueEntry implements Comparable<QueueEntry> {
+        final long vertex;
+        final double distance;
+        final double key;
+
+        QueueEntry(long vertex, double distance, double key) {
+            this.vertex = vertex;
+            this.distance = distance;
+            this.key = key;
+        }
+
+        @Override
+        public int compareTo(QueueEntry o) {
+            return Double.compare(key, o.key);
+        }
+    }
+
+    private LandmarkIndex(long fingerprint, long[] vertices, double[][] fromLandmark, double[][] toLandmark) {
+        this.fingerprint = fingerprint;
+        this.vertices = vertices;
+        this.fromLandmark = fromLandmark;
+        this.toLandmark = toLandmark;
+    }
+
+    /**
+     * Returns the landmark file of the given xodr file.
+     *
+     * @param xodrFile
+     * @return the landmark file, which need not exist
+     */
+    static File landmarkFile(File xodrFile) {
+        return new File(xodrFile.getPath() + EXTENSION);
+    }
+
+    /**
+     * Calculates the landmark index with the current weights of the graph. The landmarks are chosen one by one as the node
+     * farthest from the landmarks chosen before.
+     */
+    static LandmarkIndex create(DirectedGraph<Long, RoadSegment> graph, int landmarkCount) {
+        Preconditions.checkArgument(landmarkCount > 0, "landmarkCount=" + landmarkCount);
+        final long[] vertices = sortedVertices(graph.vertexSet());
+        final int count = Math.min(landmarkCount, vertices.length);
+        final double[][] fromLandmark = new double[count][];
+        final double[][] toLandmark = new double[count][];
+        if (count > 0) {
+            // separation of the nodes from the landmarks chosen so far, seeded by the first node
+            final double[] separation = new double[vertices.length];
+            updateSeparation(separation, distances(graph, vertices, 0, true), distances(graph, vertices, 0, false),
+                    true);
+            for (int l = 0; l < count; l++) {
+                int landmark = 0;
+                for (int i = 1; i < vertices.length; i++) {
+                    if (separation[i] > separation[landmark]) {
+                        landmark = i;
+                    }
+                }
+                fromLandmark[l] = distances(graph, vertices, landmark, true);
+                toLandmark[l] = distances(graph, vertices, landmark, false);
+                updateSeparation(separation, fromLandmark[l], toLandmark[l], false);
+                LOG.debug("landmark {} is node={}", l, vertices[landmark]);
+            }
+        }
+        LOG.info("calculated {} landmarks for graph with {} nodes", count, vertices.length);
+        return new LandmarkIndex(fingerprint(graph), vertices, fromLandmark, toLandmark);
+    }
+
+    private static void updateSeparation(double[] separation, double[] from, double[] to, boolean initial) {
+        for (int i = 0; i < separation.length; i++) {
+            final double value = (from[i] == INFINITY ? 0 : from[i]) + (to[i] == INFINITY ? 0 : to[i]);
+            separation[i] = initial ? value : Math.min(separation[i], value);
+        }
+    }
+
+    private static long[] sortedVertices(Set<Long> vertexSet) {
+        final long[] vertices = new long[vertexSet.size()];
+        int i = 0;
+        for (Long vertex : vertexSet) {
+            vertices[i++] = vertex;
+        }
+        Arrays.sort(vertices);
+        return vertices;
+    }
+
+    /**
+     * Calculates the distances from (forward) or to (backward) the source node with Dijkstra's algorithm.
+     */
+    private static double[] distances(DirectedGraph<Long, RoadSegment> graph, long[] vertices, int sourceIndex,
+            boolean forward) {
+        final double[] distances = new double[vertices.length];
+        Arrays.fill(distances, INFINITY);
+        distances[sourceIndex] = 0;
+        final PriorityQueue<QueueEntry> queue = new PriorityQueue<>();
+        queue.add(new QueueEntry(sourceIndex, 0, 0));
+        while (!queue.isEmpty()) {
+            final QueueEntry entry = queue.poll();
+            final int index = (int) entry.vertex;
+            if (entry.distance > distances[index]) {
+                continue; // outdated entry
+            }
+            final Long vertex = vertices[index];
+            for (RoadSegment edge : forward ? graph.outgoingEdgesOf(vertex) : graph.incomingEdgesOf(vertex)) {
+                final long other = forward ? graph.getEdgeTarget(edge) : graph.getEdgeSource(edge);
+                final int otherIndex = Arrays.binarySearch(vertices, other);
+                final double distance = entry.distance + graph.getEdgeWeight(edge);
+                if (distance < distances[otherIndex]) {
+                    distances[otherIndex] = distance;
+                    queue.add(new QueueEntry(otherIndex, distance, distance));
+                }
+            }
+        }
+        return distances;
+    }
+
+    int getLandmarkCount() {
+        return fromLandmark.length;
+    }
+
+    /**
+     * Returns a lower bound of the distance from the node to the target node, based on the edge weights at the time the
+     * index has been created.
+     *
+     * @return the lower bound, {@link Double#POSITIVE_INFINITY} if the target cannot be reached from the node
+     * @throws IllegalArgumentException
+     *             if a node is not known by the index
+     */
+    double lowerBound(long vertex, long target) {
+        return lowerBound(indexOf(vertex), indexOf(target));
+    }
+
+    /**
+     * Returns a lower bound of the distance between the nodes with the given indices.
+     */
+    private double lowerBound(int index, int targetIndex) {
+        double bound = 0;
+        for (int l = 0; l < fromLandmark.length; l++) {
+            // d(v,t) >= d(L,t) - d(L,v)
+            final double[] from = fromLandmark[l];
+            if (from[index] != INFINITY) {
+                bound = Math.max(bound, from[targetIndex] - from[index]);
+            }
+            // d(v,t) >= d(v,L) - d(t,L)
+            final double[] to = toLandmark[l];
+            if (to[targetIndex] != INFINITY) {
+                bound = Math.max(bound, to[index] - to[targetIndex]);
+            }
+        }
+        return bound;
+    }
+
+    /**
+     * Finds the shortest path between two nodes of the graph with the A* search.
+     *
+     * @return the road segments of the path in driving order, empty if origin and target are the same node, null if the
+     *         target cannot be reached
+     * @throws IllegalArgumentException
+     *             if a node is not known by the index
+     */
+    @CheckForNull
+    List<RoadSegment> findPath(DirectedGraph<Long, RoadSegment> graph, long origin, long target) {
+        final int targetIndex = indexOf(target);
+        final Map<Long, Double> distances = new HashMap<>();
+        final Map<Long, RoadSegment> predecessors = new HashMap<>();
+        final PriorityQueue<QueueEntry> queue = new PriorityQueue<>();
+        distances.put(origin, 0.0);
+        queue.add(new QueueEntry(origin, 0, lowerBound(indexOf(origin), targetIndex)));
+        while (!queue.isEmpty()) {
+            final QueueEntry entry = queue.poll();
+            if (entry.distance > distances.get(entry.vertex)) {
+                continue; // outdated entry
+            }
+            if (entry.vertex == target) {
+                return path(graph, predecessors, target);
+            }
+            for (RoadSegment edge : graph.outgoingEdgesOf(entry.vertex)) {
+                final Long next = graph.getEdgeTarget(edge);
+                final double distance = entry.distance + graph.getEdgeWeight(edge);
+                final Double known = distances.get(next);
+                if (known == null || distance < known) {
+                    final double bound = lowerBound(indexOf(next), targetIndex);
+                    if (bound == INFINITY) {
+                        continue; // target not reachable from next
+                    }
+                    distances.put(next, distance);
+                    predecessors.put(next, edge);
+                    queue.add(new QueueEntry(next, distance, distance + bound));
+                }
+            }
+        }
+        return null;
+    }
+
+    private static List<RoadSegment> path(DirectedGraph<Long, RoadSegment> graph, Map<Long, RoadSegment> predecessors,
+            long target) {
+        final List<RoadSegment> path = new ArrayList<>();
+        for (RoadSegment edge = predecessors.get(target); edge != null; edge = predecessors.get(graph
+                .getEdgeSource(edge))) {
+            path.add(edge);
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    private int indexOf(long vertex) {
+        final int index = Arrays.binarySearch(vertices, vertex);
+        Preconditions.checkArgument(index >= 0, "node=" + vertex + " not in landmark index");
+        return index;
+    }
+
+    /**
+     * Reads the landmark index from the file if it exists and matches the graph.
+     *
+     * @return the landmark index, null if there is no valid file
+     */
+    @CheckForNull
+    static LandmarkIndex read(File file, DirectedGraph<Long, RoadSegment> graph) {
+        if (!file.isFile()) {
+            return null;
+        }
+        final long fingerprint = fingerprint(graph);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readLong() != fingerprint) {
+                LOG.warn("landmark file {} does not match the network, ignore it.", file);
+                return null;
+            }
+            final int count = in.readInt();
+            final long[] vertices = new long[in.readInt()];
+            for (int i = 0; i < vertices.length; i++) {
+                vertices[i] = in.readLong();
+            }
+            final double[][] fromLandmark = new double[count][];
+            final double[][] toLandmark = new double[count][];
+            for (int l = 0; l < count; l++) {
+                fromLandmark[l] = readDoubles(in, vertices.length);
+                toLandmark[l] = readDoubles(in, vertices.length);
+            }
+            LOG.info("read {} landmarks from file {}", count, file);
+            return new LandmarkIndex(fingerprint, vertices, fromLandmark, toLandmark);
+        } catch (IOException e) {
+            LOG.warn("cannot read landmark file {}: {}", file, e.toString());
+            return null;
+        }
+    }
+
+    private static double[] readDoubles(DataInputStream in, int length) throws IOException {
+        final double[] values = new double[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = in.readDouble();
+        }
+        return values;
+    }
+
+    /**
+     * Writes the landmark index to the file, replacing an existing file. Failures are logged only, the index is then
+     * calculated again the next time.
+     */
+    void write(File file) {
+        final File tmpFile = new File(file.getPath() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(fingerprint);
+                out.writeInt(fromLandmark.length);
+                out.writeInt(vertices.length);
+                for (long vertex : vertices) {
+                    out.writeLong(vertex);
+                }
+                for (int l = 0; l < fromLandmark.length; l++) {
+                    for (double distance : fromLandmark[l]) {
+                        out.writeDouble(distance);
+                    }
+                    for (double distance : toLandmark[l]) {
+                        out.writeDouble(distance);
+                    }
+                }
+            }
+            Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            LOG.info("wrote landmarks to file {}", file);
+        } catch (IOException e) {
+            LOG.warn("cannot write landmark file {}: {}", file, e.toString());
+            tmpFile.delete();
+        }
+    }
+
+    /**
+     * Returns the checksum of the nodes, edges and weights of the graph.
+     */
+    private static long fingerprint(DirectedGraph<Long, RoadSegment> graph) {
+        final CRC32 crc = new CRC32();
+        final ByteBuffer buffer = ByteBuffer.allocate(3 * 8);
+        buffer.putLong(graph.vertexSet().size());
+        crc.update(buffer.array(), 0, buffer.position());
+        for (RoadSegment edge : graph.edgeSet()) {
+            buffer.clear();
+            buffer.putLong(graph.getEdgeSource(edge));
+            buffer.putLong(graph.getEdgeTarget(edge));
+            buffer.putLong(Double.doubleToLongBits(graph.getEdgeWeight(edge)));
+            crc.update(buffer.array(), 0, buffer.position());
+            final String userId = edge.userId();
+            if (userId != null) {
+                crc.update(userId.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        return crc.getValue();
+    }
+}
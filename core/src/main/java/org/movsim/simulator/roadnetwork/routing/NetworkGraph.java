@@ -28,7 +28,6 @@ package org.movsim.simulator.roadnetwork.routing;
 import java.util.HashMap;
 import java.util.Map;
 
-import org.jgrapht.WeightedGraph;
 import org.jgrapht.graph.DefaultDirectedWeightedGraph;
 import org.movsim.input.ProjectMetaData;
 import org.movsim.simulator.roadnetwork.LaneSegment;
@@ -46,13 +45,19 @@ final class NetworkGraph {
     /** The Constant LOG. */
     private static final Logger LOG = LoggerFactory.getLogger(NetworkGraph.class);
 
-    private static long vertexId = 0;
+    private long vertexId = 0;
 
     private NetworkGraph() {
         // private constructor
     }
 
-    public static WeightedGraph<Long, RoadSegment> create(RoadNetwork roadNetwork) {
+    public static DefaultDirectedWeightedGraph<Long, RoadSegment> create(RoadNetwork roadNetwork,
+            ProjectMetaData projectMetaData) {
+        return new NetworkGraph().createGraph(roadNetwork, projectMetaData);
+    }
+
+    private DefaultDirectedWeightedGraph<Long, RoadSegment> createGraph(RoadNetwork roadNetwork,
+            ProjectMetaData projectMetaData) {
         DefaultDirectedWeightedGraph<Long, RoadSegment> graph = new DefaultDirectedWeightedGraph<>(RoadSegment.class);
         HashMap<RoadSegment, Node> connections = Maps.newLinkedHashMap();
         for (final RoadSegment roadSegment : roadNetwork) {
@@ -99,13 +104,13 @@ final class NetworkGraph {
             LOG.info("weight={}, roadSegment={}", graph.getEdgeWeight(roadSegment), roadSegment.toString());
         }
 
-        if (ProjectMetaData.getInstance().isWriteDotFile()) {
-            exportToFile(graph);
+        if (projectMetaData.isWriteDotFile()) {
+            exportToFile(graph, projectMetaData.getProjectName());
         }
         return graph;
     }
 
-    private static void createOrUpdateNode(HashMap<RoadSegment, Node> connections) {
+    private void createOrUpdateNode(HashMap<RoadSegment, Node> connections) {
         Preconditions.checkArgument(connections.size() > 0);
         showConnections(connections);
         long nodeId = determineNodeId(connections);
@@ -140,8 +145,8 @@ final class NetworkGraph {
         return nodeId;
     }
 
-    private static void exportToFile(DefaultDirectedWeightedGraph<Long, RoadSegment> graph) {
-        String fileName = ProjectMetaData.getInstance().getProjectName() + GraphExporter.FILE_ENDING_DOT;
+    private static void exportToFile(DefaultDirectedWeightedGraph<Long, RoadSegment> graph, String projectName) {
+        String fileName = projectName + GraphExporter.FILE_ENDING_DOT;
         GraphExporter.exportDOT(graph, fileName);
         LOG.info("export graph to file={}", fileName);
     }
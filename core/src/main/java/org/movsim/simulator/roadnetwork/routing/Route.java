@@ -25,51 +25,71 @@
  */
 package org.movsim.simulator.roadnetwork.routing;
 
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 
 import org.movsim.simulator.roadnetwork.RoadSegment;
 import org.movsim.simulator.roadnetwork.RoadSegmentUtils;
 
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Iterators;
 
 /**
- * Iterable collection of the road segments that form a route that can be taken through the road network.
+ * Immutable sequence of the road segments that form a route that can be taken through the road network. The road segments
+ * are stored in an array together with their start positions along the route, so the index of a road segment and the
+ * position of a vehicle along the route are determined in constant time.
  */
 public class Route implements Iterable<RoadSegment> {
 
-    private final LinkedList<RoadSegment> roadSegments;
-    private String name;
-    private double length;
+    private final String name;
+
+    private final RoadSegment[] roadSegments;
+
+    /** the position of the upstream end of each road segment along the route */
+    private final double[] startPositions;
+
+    /** the index of each road segment in the route */
+    private final Map<RoadSegment, Integer> indices;
+
+    private final double length;
 
     /**
      * Constructor.
+     * 
+     * @param name
+     *            the name of the route
+     * @param roadSegments
+     *            the connected road segments of the route in driving order
+     * @throws IllegalArgumentException
+     *             if a road segment is contained twice
+     * @throws IllegalStateException
+     *             if two consecutive road segments are not connected
      */
-    public Route(String name) {
+    public Route(String name, List<RoadSegment> roadSegments) {
         Preconditions.checkArgument(!name.isEmpty(), "route without name");
-        roadSegments = new LinkedList<>();
         this.name = name;
-    }
-
-    /**
-     * Adds a road segment to the road route.
-     * 
-     * @param roadSegment
-     * @return roadSegment for convenience
-     */
-    public RoadSegment add(RoadSegment roadSegment) {
-        Preconditions.checkNotNull(roadSegment);
-        Preconditions.checkArgument(!roadSegments.contains(roadSegment), "roadSegment=" + roadSegment
-                + " already added to route.");
-
-        if (!roadSegments.isEmpty()) {
-            Preconditions.checkState(RoadSegmentUtils.isConnected(roadSegments.getLast(), roadSegment),
-                    "Segments not connected: upstream=" + roadSegments.getLast() + ", downstream=" + roadSegment);
+        final int size = roadSegments.size();
+        this.roadSegments = new RoadSegment[size];
+        this.startPositions = new double[size];
+        this.indices = new HashMap<>(2 * size);
+        double position = 0;
+        for (int i = 0; i < size; i++) {
+            final RoadSegment roadSegment = Preconditions.checkNotNull(roadSegments.get(i));
+            Preconditions.checkArgument(!indices.containsKey(roadSegment), "roadSegment=" + roadSegment
+                    + " already added to route.");
+            if (i > 0) {
+                Preconditions.checkState(RoadSegmentUtils.isConnected(this.roadSegments[i - 1], roadSegment),
+                        "Segments not connected: upstream=" + this.roadSegments[i - 1] + ", downstream=" + roadSegment);
+            }
+            this.roadSegments[i] = roadSegment;
+            startPositions[i] = position;
+            indices.put(roadSegment, i);
+            position += roadSegment.roadLength();
         }
-
-        roadSegments.add(roadSegment);
-        length += roadSegment.roadLength();
-        return roadSegment;
+        this.length = position;
     }
 
     /**
@@ -91,19 +111,60 @@ public class Route implements Iterable<RoadSegment> {
     }
 
     /**
-     * Returns the number of RoadSegmentUtils in the route.
+     * Returns the number of road segments in the route.
      * 
-     * @return the number of RoadSegmentUtils in route
+     * @return the number of road segments in route
      */
     public final int size() {
-        return roadSegments.size();
+        return roadSegments.length;
     }
 
     /**
      * Gets the road segment of the given index
      */
     public RoadSegment get(int index) {
-        return roadSegments.get(index);
+        return roadSegments[index];
+    }
+
+    /**
+     * Returns the index of the road segment in the route.
+     * 
+     * @param roadSegment
+     * @return the index, -1 if the road segment is not part of the route
+     */
+    public int indexOf(RoadSegment roadSegment) {
+        final Integer index = indices.get(roadSegment);
+        return index == null ? -1 : index;
+    }
+
+    public boolean contains(RoadSegment roadSegment) {
+        return indices.containsKey(roadSegment);
+    }
+
+    /**
+     * Returns the position of the upstream end of the road segment with the given index along the route.
+     * 
+     * @param index
+     * @return the sum of the lengths of the preceding road segments
+     */
+    public double getStartPosition(int index) {
+        return startPositions[index];
+    }
+
+    /**
+     * Converts a position on a road segment of the route to the position along the route.
+     * 
+     * @param roadSegment
+     * @param position
+     *            the position on the road segment
+     * @return the position along the route
+     * @throws IllegalArgumentException
+     *             if the road segment is not part of the route
+     */
+    public double positionOnRoute(RoadSegment roadSegment, double position) {
+        final Integer index = indices.get(roadSegment);
+        Preconditions.checkArgument(index != null, "roadSegment=" + roadSegment + " not on route=" + name);
+        return startPositions[index] + position;
     }
 
     /**
@@ -112,23 +173,23 @@ public class Route implements Iterable<RoadSegment> {
      * @return first {@code RoadSegment} of the {@code Route}
      */
     public RoadSegment getOrigin() {
-        Preconditions.checkArgument(!roadSegments.isEmpty(), "route without any roadSegments.");
-        return roadSegments.getFirst();
+        Preconditions.checkArgument(roadSegments.length > 0, "route without any roadSegments.");
+        return roadSegments[0];
     }
 
     /**
-     * Returns an iterator over all the road segments in the road network.
+     * Returns an iterator over all the road segments of the route in driving order.
      * 
-     * @return an iterator over all the road segments in the road network
+     * @return an iterator over all the road segments of the route
      */
     @Override
     public Iterator<RoadSegment> iterator() {
-        return roadSegments.iterator();
+        return Iterators.forArray(roadSegments);
     }
 
     @Override
     public String toString() {
-        return "Route [name=" + name + ", length=" + length + ", roadSegments=" + roadSegments + "]";
+        return "Route [name=" + name + ", length=" + length + ", roadSegments=" + Arrays.toString(roadSegments) + "]";
     }
 
     @Override
@@ -138,8 +199,8 @@ public class Route implements Iterable<RoadSegment> {
         long temp;
         temp = Double.doubleToLongBits(length);
         result = prime * result + (int) (temp ^ (temp >>> 32));
-        result = prime * result + ((name == null) ? 0 : name.hashCode());
-        result = prime * result + ((roadSegments == null) ? 0 : roadSegments.hashCode());
+        result = prime * result + name.hashCode();
+        result = prime * result + Arrays.hashCode(roadSegments);
         return result;
     }
 
@@ -158,18 +219,10 @@ public class Route implements Iterable<RoadSegment> {
         if (Double.doubleToLongBits(length) != Double.doubleToLongBits(other.length)) {
             return false;
         }
-        if (name == null) {
-            if (other.name != null) {
-                return false;
-            }
-        } else if (!name.equals(other.name)) {
+        if (!name.equals(other.name)) {
             return false;
         }
-        if (roadSegments == null) {
-            if (other.roadSegments != null) {
-                return false;
-            }
-        } else if (!roadSegments.equals(other.roadSegments)) {
+        if (!Arrays.equals(roadSegments, other.roadSegments)) {
             return false;
         }
         return true;
@@ -25,12 +25,23 @@
  */
 package org.movsim.simulator.roadnetwork.routing;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
-import org.jgrapht.WeightedGraph;
-import org.jgrapht.alg.DijkstraShortestPath;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+import org.jgrapht.graph.DefaultDirectedWeightedGraph;
 import org.movsim.autogen.Routes;
+import org.movsim.input.ProjectMetaData;
 import org.movsim.simulator.roadnetwork.RoadNetwork;
 import org.movsim.simulator.roadnetwork.RoadSegment;
 import org.slf4j.Logger;
@@ -49,27 +60,69 @@ public class Routing {
     private final RoadNetwork roadNetwork;
 
     // see http://jgrapht.org/ for library documentation
-    private WeightedGraph<Long, RoadSegment> graph;
+    private final DefaultDirectedWeightedGraph<Long, RoadSegment> graph;
+
+    /** guards the weights of the graph, queries may run concurrently */
+    private final ReadWriteLock graphLock = new ReentrantReadWriteLock();
+
+    /** the shortest path trees by origin node, replaced when the weights of the graph change */
+    private volatile ConcurrentMap<Long, ShortestPathTree> treeCache = new ConcurrentHashMap<>();
+
+    /** the shortest routes by route name, replaced when the weights of the graph change */
+    private volatile ConcurrentMap<String, Route> routeCache = new ConcurrentHashMap<>();
+
+    /** the landmarks for the A* search of single routes, Dijkstra's algorithm is used if null */
+    @CheckForNull
+    private LandmarkIndex landmarks;
 
-    public Routing(Routes routesInput, RoadNetwork roadNetwork) {
+    /** the travel times measured in the simulation, used for the time-dependent routes */
+    private final TravelTimeTable travelTimes;
+
+    public Routing(Routes routesInput, RoadNetwork roadNetwork, ProjectMetaData projectMetaData) {
         this.roadNetwork = Preconditions.checkNotNull(roadNetwork);
+        Preconditions.checkNotNull(projectMetaData);
         predefinedRoutes = Maps.newHashMap();
         if (routesInput != null) {
             createPredefinedRoutes(routesInput);
         }
-        graph = NetworkGraph.create(roadNetwork); // lazy init. vs. early failure!!
+        graph = NetworkGraph.create(roadNetwork, projectMetaData);
+        travelTimes = new TravelTimeTable(graph.edgeSet(), TravelTimeTable.DEFAULT_BUCKET_DURATION,
+                TravelTimeTable.DEFAULT_BUCKET_COUNT);
+        if (projectMetaData.isLandmarkRouting()) {
+            landmarks = loadLandmarks(projectMetaData);
+        }
+    }
+
+    /**
+     * Reads the landmarks stored next to the network file or calculates and stores them.
+     */
+    private LandmarkIndex loadLandmarks(ProjectMetaData projectMetaData) {
+        File file = null;
+        if (projectMetaData.hasNetworkFilename() && !projectMetaData.isXmlFromResources()) {
+            file = LandmarkIndex.landmarkFile(projectMetaData.getFile(projectMetaData.getXodrNetworkFilename()));
+            LandmarkIndex landmarkIndex = LandmarkIndex.read(file, graph);
+            if (landmarkIndex != null) {
+                return landmarkIndex;
+            }
+        }
+        LandmarkIndex landmarkIndex = LandmarkIndex.create(graph, LandmarkIndex.DEFAULT_LANDMARK_COUNT);
+        if (file != null) {
+            landmarkIndex.write(file);
+        }
+        return landmarkIndex;
     }
 
     private void createPredefinedRoutes(Routes routesInput) {
         for (org.movsim.autogen.Route routeInput : routesInput.getRoute()) {
-            Route route = new Route(routeInput.getLabel());
+            List<RoadSegment> roadSegments = new ArrayList<>();
             for (org.movsim.autogen.Road roadInput : routeInput.getRoad()) {
                 RoadSegment roadSegment = roadNetwork.findByUserId(roadInput.getId());
-                Preconditions.checkNotNull(roadSegment, "cannot create route \"" + route.getName()
+                Preconditions.checkNotNull(roadSegment, "cannot create route \"" + routeInput.getLabel()
                         + "\" with undefinied road=" + roadInput.getId()
                         + " (consider +/- in case of bidirectional roads)");
-                route.add(roadSegment);
+                roadSegments.add(roadSegment);
             }
+            Route route = new Route(routeInput.getLabel(), roadSegments);
             Route replaced = predefinedRoutes.put(route.getName(), route);
             if (replaced != null) {
                 throw new IllegalArgumentException("route with name=" + route.getName() + " already defined.");
@@ -102,45 +155,212 @@ public class Routing {
         return findRoute(start.userId(), destination.userId());
     }
 
+    /**
+     * Returns the shortest route from the start road to the destination road. The route is cached until the weights of
+     * the network graph change, the returned route is shared and must not be modified.
+     * 
+     * @throws IllegalArgumentException
+     *             if a road does not exist
+     * @throws IllegalStateException
+     *             if the destination cannot be reached
+     */
     public Route findRoute(String startRoadId, String destinationRoadId) throws IllegalStateException {
-        if (graph == null) {
-            graph = NetworkGraph.create(roadNetwork);
+        Preconditions.checkArgument(startRoadId != null && !startRoadId.isEmpty());
+        Preconditions.checkArgument(destinationRoadId != null && !destinationRoadId.isEmpty());
+        final String routeName = createRouteName(startRoadId, destinationRoadId);
+        final ConcurrentMap<String, Route> routes = routeCache;
+        Route route = routes.get(routeName);
+        if (route == null) {
+            RoadSegment startRoadSegment = findRoadSegment(startRoadId);
+            RoadSegment endRoadSegment = findRoadSegment(destinationRoadId);
+            graphLock.readLock().lock();
+            try {
+                route = createRoute(routeName, findPath(startRoadSegment, endRoadSegment), startRoadSegment,
+                        endRoadSegment);
+            } finally {
+                graphLock.readLock().unlock();
+            }
+            final Route cached = routes.putIfAbsent(routeName, route);
+            if (cached != null) {
+                route = cached;
+            }
+        }
+        return route;
+    }
+
+    /**
+     * Returns the shortest routes from the start road to each of the destination roads. The shortest path tree of the
+     * start road is calculated only once for all destinations, see {@link #findRoute(String, String)}.
+     * 
+     * @return the routes by destination road id, in the order of the destinations
+     * @throws IllegalArgumentException
+     *             if a road does not exist
+     * @throws IllegalStateException
+     *             if a destination cannot be reached
+     */
+    public Map<String, Route> findRoutes(String startRoadId, Collection<String> destinationRoadIds)
+            throws IllegalStateException {
+        Preconditions.checkArgument(startRoadId != null && !startRoadId.isEmpty());
+        final RoadSegment startRoadSegment = findRoadSegment(startRoadId);
+        final ConcurrentMap<String, Route> routes = routeCache;
+        final Map<String, Route> result = new LinkedHashMap<>();
+        ShortestPathTree tree = null;
+        for (String destinationRoadId : destinationRoadIds) {
+            Preconditions.checkArgument(destinationRoadId != null && !destinationRoadId.isEmpty());
+            final String routeName = createRouteName(startRoadId, destinationRoadId);
+            Route route = routes.get(routeName);
+            if (route == null) {
+                RoadSegment endRoadSegment = findRoadSegment(destinationRoadId);
+                graphLock.readLock().lock();
+                try {
+                    if (tree == null) {
+                        tree = shortestPathTree(startRoadSegment);
+                    }
+                    route = createRoute(routeName, tree.getPath(endRoadSegment.getDestinationNode().getId()),
+                            startRoadSegment, endRoadSegment);
+                } finally {
+                    graphLock.readLock().unlock();
+                }
+                final Route cached = routes.putIfAbsent(routeName, route);
+                if (cached != null) {
+                    route = cached;
+                }
+            }
+            result.put(destinationRoadId, route);
         }
+        return result;
+    }
+
+    /**
+     * Returns the travel times of the road segments. The table has to be registered as travel time listener of the road
+     * network to be updated during the simulation, see {@link RoadNetwork#setTravelTimeListener}.
+     */
+    public TravelTimeTable getTravelTimeTable() {
+        return travelTimes;
+    }
+
+    public Route findFastestRoute(RoadSegment start, RoadSegment destination, double departureTime)
+            throws IllegalStateException {
+        return findFastestRoute(start.userId(), destination.userId(), departureTime);
+    }
+
+    /**
+     * Returns the fastest route from the start road to the destination road for a vehicle leaving the start road at the
+     * given time, based on the travel times measured in the simulation (see {@link #getTravelTimeTable()}). Unlike the
+     * shortest routes, the fastest routes are not cached.
+     * 
+     * @param departureTime
+     *            the simulation time at which the vehicle reaches the end of the start road
+     * @throws IllegalArgumentException
+     *             if a road does not exist
+     * @throws IllegalStateException
+     *             if the destination cannot be reached
+     */
+    public Route findFastestRoute(String startRoadId, String destinationRoadId, double departureTime)
+            throws IllegalStateException {
         Preconditions.checkArgument(startRoadId != null && !startRoadId.isEmpty());
         Preconditions.checkArgument(destinationRoadId != null && !destinationRoadId.isEmpty());
+        RoadSegment startRoadSegment = findRoadSegment(startRoadId);
+        RoadSegment endRoadSegment = findRoadSegment(destinationRoadId);
+        List<RoadSegment> path;
+        graphLock.readLock().lock();
+        try {
+            path = TimeDependentSearch.findPath(graph, travelTimes, landmarks, startRoadSegment.getDestinationNode()
+                    .getId(), endRoadSegment.getDestinationNode().getId(), departureTime);
+        } finally {
+            graphLock.readLock().unlock();
+        }
+        return createRoute(createRouteName(startRoadId, destinationRoadId), path, startRoadSegment, endRoadSegment);
+    }
 
-        RoadSegment startRoadSegment = roadNetwork.findByUserId(startRoadId);
-        if (startRoadSegment == null) {
-            throw new IllegalArgumentException("cannot find roadSegment=" + startRoadId);
+    /**
+     * Sets the weight of the road segment in the network graph, by default its length. Clears the cached routes.
+     */
+    public void setWeight(RoadSegment roadSegment, double weight) {
+        Preconditions.checkArgument(weight >= 0, "negative weight=" + weight);
+        graphLock.writeLock().lock();
+        try {
+            Preconditions.checkArgument(graph.containsEdge(roadSegment), "roadSegment=" + roadSegment
+                    + " not in network graph");
+            graph.setEdgeWeight(roadSegment, weight);
+            if (landmarks != null && weight < roadSegment.roadLength()) {
+                LOG.warn("weight={} of roadSegment={} is below its length, landmark bounds are no longer valid. "
+                        + "Use Dijkstra's algorithm.", weight, roadSegment.userId());
+                landmarks = null;
+            }
+            // routes calculated concurrently with the old weights go to the replaced caches
+            treeCache = new ConcurrentHashMap<>();
+            routeCache = new ConcurrentHashMap<>();
+        } finally {
+            graphLock.writeLock().unlock();
         }
-        RoadSegment endRoadSegment = roadNetwork.findByUserId(destinationRoadId);
-        if (endRoadSegment == null) {
-            throw new IllegalArgumentException("cannot find roadSegment=" + destinationRoadId);
+    }
+
+    public double getWeight(RoadSegment roadSegment) {
+        graphLock.readLock().lock();
+        try {
+            return graph.getEdgeWeight(roadSegment);
+        } finally {
+            graphLock.readLock().unlock();
         }
+    }
 
-        Route route = new Route(createRouteName(startRoadId, destinationRoadId));
-        route.add(startRoadSegment);
+    private RoadSegment findRoadSegment(String roadId) {
+        RoadSegment roadSegment = roadNetwork.findByUserId(roadId);
+        if (roadSegment == null) {
+            throw new IllegalArgumentException("cannot find roadSegment=" + roadId);
+        }
+        return roadSegment;
+    }
 
-        LOG.debug("Shortest path from roadSegment={} to={}", startRoadId, destinationRoadId);
-        LOG.debug("From node={} to node={}", startRoadSegment.getDestinationNode().getId(), endRoadSegment
-                .getDestinationNode().getId());
+    /**
+     * Returns the shortest path tree from the destination node of the road segment. Must be called with the read lock.
+     */
+    private ShortestPathTree shortestPathTree(RoadSegment startRoadSegment) {
+        final long origin = startRoadSegment.getDestinationNode().getId();
+        final ConcurrentMap<Long, ShortestPathTree> trees = treeCache;
+        ShortestPathTree tree = trees.get(origin);
+        if (tree == null) {
+            LOG.debug("calculate shortest path tree from roadSegment={}, node={}", startRoadSegment.userId(), origin);
+            tree = new ShortestPathTree(graph, origin);
+            final ShortestPathTree cached = trees.putIfAbsent(origin, tree);
+            if (cached != null) {
+                tree = cached;
+            }
+        }
+        return tree;
+    }
 
-        List<RoadSegment> path = DijkstraShortestPath.findPathBetween(graph, startRoadSegment.getDestinationNode()
-                .getId(), endRoadSegment.getDestinationNode().getId());
+    /**
+     * Returns the shortest path from the destination node of the start road segment to the destination node of the end road
+     * segment, null if there is none. Must be called with the read lock.
+     */
+    @CheckForNull
+    private List<RoadSegment> findPath(RoadSegment startRoadSegment, RoadSegment endRoadSegment) {
+        final long from = startRoadSegment.getDestinationNode().getId();
+        final long to = endRoadSegment.getDestinationNode().getId();
+        LOG.debug("Shortest path from roadSegment={} to={}", startRoadSegment.userId(), endRoadSegment.userId());
+        LOG.debug("From node={} to node={}", from, to);
+        if (landmarks != null) {
+            return landmarks.findPath(graph, from, to);
+        }
+        return shortestPathTree(startRoadSegment).getPath(to);
+    }
 
+    private static Route createRoute(String routeName, @Nullable List<RoadSegment> path, RoadSegment startRoadSegment,
+            RoadSegment endRoadSegment) {
         if (path == null) {
-            LOG.error("cannot find route from startRoadId=" + startRoadId + " to destinationRoadId="
-                    + destinationRoadId);
-            // return null;
-            throw new IllegalStateException("cannot find route from startRoadId=" + startRoadId
-                    + " to destinationRoadId=" + destinationRoadId);
+            LOG.error("cannot find route from startRoadId=" + startRoadSegment.userId() + " to destinationRoadId="
+                    + endRoadSegment.userId());
+            throw new IllegalStateException("cannot find route from startRoadId=" + startRoadSegment.userId()
+                    + " to destinationRoadId=" + endRoadSegment.userId());
         }
 
-        for (RoadSegment roadSegment : path) {
-            route.add(roadSegment);
-            LOG.debug("add roadSegment={} to route={}", roadSegment, route.getName());
-        }
-        return route;
+        List<RoadSegment> roadSegments = new ArrayList<>(path.size() + 1);
+        roadSegments.add(startRoadSegment);
+        roadSegments.addAll(path);
+        LOG.debug("roadSegments={} of route={}", roadSegments, routeName);
+        return new Route(routeName, roadSegments);
     }
 
     private static String createRouteName(String startRoadId, String destinationRoadId) {
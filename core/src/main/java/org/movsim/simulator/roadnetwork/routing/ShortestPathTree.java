@@ -0,0 +1,95 @@
+package org.movsim.simulator.roadnetwork.routing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import javax.annotation.CheckForNull;
+
+import org.jgrapht.DirectedGraph;
+import org.movsim.simulator.roadnetwork.RoadSegment;
+
+/**
+ * The shortest paths from an origin node to all reachable nodes of the network graph, calculated once with Dijkstra's
+ * algorithm. Immutable once created, so a tree can be shared between threads.
+ */
+final class ShortestPathTree {
+
+    /** the last road segment of the shortest path to a node, no entry for the origin and unreachable nodes */
+    private final Map<Long, RoadSegment> predecessors = new HashMap<>();
+
+    private final Map<Long, Double> distances = new HashMap<>();
+
+    private static final class Entry implements Comparable<Entry> {
+        final long vertex;
+        final double distance;
+
+        Entry(long vertex, double distance) {
+            this.vertex = vertex;
+            this.distance = distance;
+        }
+
+        @Override
+        public int compareTo(Entry o) {
+            return Double.compare(distance, o.distance);
+        }
+    }
+
+    ShortestPathTree(DirectedGraph<Long, RoadSegment> graph, long origin) {
+        final PriorityQueue<Entry> queue = new PriorityQueue<>();
+        distances.put(origin, 0.0);
+        queue.add(new Entry(origin, 0));
+        while (!queue.isEmpty()) {
+            final Entry entry = queue.poll();
+            if (entry.distance > distances.get(entry.vertex)) {
+                continue; // outdated entry
+            }
+            for (RoadSegment edge : graph.outgoingEdgesOf(entry.vertex)) {
+                final Long target = graph.getEdgeTarget(edge);
+                final double distance = entry.distance + graph.getEdgeWeight(edge);
+                final Double known = distances.get(target);
+                if (known == null || distance < known) {
+                    distances.put(target, distance);
+                    predecessors.put(target, edge);
+                    queue.add(new Entry(target, distance));
+                }
+            }
+        }
+    }
+
+    boolean isReachable(long vertex) {
+        return distances.containsKey(vertex);
+    }
+
+    /**
+     * Returns the length of the shortest path to the node.
+     *
+     * @return the length, {@link Double#POSITIVE_INFINITY} if the node is not reachable
+     */
+    double getDistance(long vertex) {
+        final Double distance = distances.get(vertex);
+        return distance == null ? Double.POSITIVE_INFINITY : distance;
+    }
+
+    /**
+     * Returns the road segments of the shortest path from the origin to the node.
+     *
+     * @return the road segments in driving order, empty for the origin, null if the node is not reachable
+     */
+    @CheckForNull
+    List<RoadSegment> getPath(long vertex) {
+        if (!isReachable(vertex)) {
+            return null;
+        }
+        final List<RoadSegment> path = new ArrayList<>();
+        for (RoadSegment edge = predecessors.get(vertex); edge != null; edge = predecessors.get(edge.getOriginNode()
+                .getId())) {
+            path.add(edge);
+        }
+        Collections.reverse(path);
+        return path;
+    }
+}
@@ -0,0 +1,109 @@
+package org.movsim.simulator.roadnetwork.routing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+import org.jgrapht.DirectedGraph;
+import org.movsim.simulator.MovsimConstants;
+import org.movsim.simulator.roadnetwork.RoadSegment;
+
+/**
+ * Time-dependent search for the fastest path between two nodes of the network graph. The travel time of a road segment
+ * depends on the time at which it is entered, see {@link TravelTimeTable}. With landmarks the search is an A* search with
+ * the landmark distance bound divided by {@link MovsimConstants#MAX_VEHICLE_SPEED} as travel time bound, otherwise a
+ * time-dependent Dijkstra search.
+ */
+final class TimeDependentSearch {
+
+    private static final double INFINITY = Double.POSITIVE_INFINITY;
+
+    private static final class QueueEntry implements Comparable<QueueEntry> {
+        final long vertex;
+        final double arrivalTime;
+        final double key;
+
+        QueueEntry(long vertex, double arrivalTime, double key) {
+            this.vertex = vertex;
+            this.arrivalTime = arrivalTime;
+            this.key = key;
+        }
+
+        @Override
+        public int compareTo(QueueEntry o) {
+            return Double.compare(key, o.key);
+        }
+    }
+
+    private TimeDependentSearch() {
+        throw new IllegalStateException("do not instanciate");
+    }
+
+    /**
+     * Finds the fastest path from the origin node to the target node for a departure at the given time.
+     *
+     * @param landmarks
+     *            the landmarks for the A* search, may be null
+     * @return the road segments of the path in driving order, empty if origin and target are the same node, null if the
+     *         target cannot be reached
+     */
+    @CheckForNull
+    static List<RoadSegment> findPath(DirectedGraph<Long, RoadSegment> graph, TravelTimeTable travelTimes,
+            @Nullable LandmarkIndex landmarks, long origin, long target, double departureTime) {
+        final Map<Long, Double> arrivalTimes = new HashMap<>();
+        final Map<Long, RoadSegment> predecessors = new HashMap<>();
+        final PriorityQueue<QueueEntry> queue = new PriorityQueue<>();
+        arrivalTimes.put(origin, departureTime);
+        queue.add(new QueueEntry(origin, departureTime, departureTime + lowerBound(landmarks, origin, target)));
+        while (!queue.isEmpty()) {
+            final QueueEntry entry = queue.poll();
+            if (entry.arrivalTime > arrivalTimes.get(entry.vertex)) {
+                continue; // outdated entry
+            }
+            if (entry.vertex == target) {
+                return path(graph, predecessors, target);
+            }
+            for (RoadSegment edge : graph.outgoingEdgesOf(entry.vertex)) {
+                final Long next = graph.getEdgeTarget(edge);
+                final double arrivalTime = entry.arrivalTime + travelTimes.travelTime(edge, entry.arrivalTime);
+                final Double known = arrivalTimes.get(next);
+                if (known == null || arrivalTime < known) {
+                    final double bound = lowerBound(landmarks, next, target);
+                    if (bound == INFINITY) {
+                        continue; // target not reachable from next
+                    }
+                    arrivalTimes.put(next, arrivalTime);
+                    predecessors.put(next, edge);
+                    queue.add(new QueueEntry(next, arrivalTime, arrivalTime + bound));
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns a lower bound of the travel time from the node to the target node. The landmark bounds are based on the road
+     * lengths and each road segment takes at least its length divided by the maximum speed, see
+     * {@link TravelTimeTable#freeFlowTravelTime(RoadSegment)}.
+     */
+    private static double lowerBound(@Nullable LandmarkIndex landmarks, long vertex, long target) {
+        return landmarks == null ? 0 : landmarks.lowerBound(vertex, target) / MovsimConstants.MAX_VEHICLE_SPEED;
+    }
+
+    private static List<RoadSegment> path(DirectedGraph<Long, RoadSegment> graph, Map<Long, RoadSegment> predecessors,
+            long target) {
+        final List<RoadSegment> path = new ArrayList<>();
+        for (RoadSegment edge = predecessors.get(target); edge != null; edge = predecessors.get(graph
+                .getEdgeSource(edge))) {
+            path.add(edge);
+        }
+        Collections.reverse(path);
+        return path;
+    }
+}
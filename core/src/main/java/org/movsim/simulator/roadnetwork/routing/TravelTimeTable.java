@@ -0,0 +1,166 @@
+package org.movsim.simulator.roadnetwork.routing;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.movsim.simulator.MovsimConstants;
+import org.movsim.simulator.roadnetwork.RoadNetwork;
+import org.movsim.simulator.roadnetwork.RoadSegment;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * The travel times of the road segments, measured from the vehicles leaving them and grouped by the time at which the
+ * vehicles entered the road segments. The time buckets form a cycle of {@link #getBucketCount()} buckets (one day by
+ * default), so the travel times of a time of day are reused on the following days.
+ * <p>
+ * The travel time of a road segment entered at a given time is the mean of the bucket of that time. If the bucket has no
+ * measurements yet, the live travel time of the road segment (an exponentially smoothed mean of the latest measurements)
+ * is used, and for road segments without any measurements the free flow travel time with
+ * {@link MovsimConstants#MAX_VEHICLE_SPEED}. All travel times are bounded below by the free flow travel time, which makes
+ * it a lower bound for the time-dependent A* search.
+ * </p>
+ * <p>
+ * The table is updated in the serial outflow phase of the road network and is not synchronized, so queries must not run
+ * concurrently with the outflow.
+ * </p>
+ */
+public class TravelTimeTable implements RoadNetwork.TravelTimeListener {
+
+    /** duration of a time bucket (s) */
+    static final double DEFAULT_BUCKET_DURATION = 300;
+
+    /** number of time buckets, one day by default */
+    static final int DEFAULT_BUCKET_COUNT = 288;
+
+    /** number of measurements after which the mean of a bucket turns into a moving average */
+    static final int MAX_SAMPLES = 32;
+
+    /** weight of a new measurement in the live travel time */
+    static final double LIVE_WEIGHT = 0.25;
+
+    private final double bucketDuration;
+
+    private final int bucketCount;
+
+    /** the index of a road segment in the arrays */
+    private final Map<RoadSegment, Integer> indices = new HashMap<>();
+
+    private final double[] freeFlowTravelTimes;
+
+    /** exponentially smoothed travel times, NaN for road segments without measurements */
+    private final double[] liveTravelTimes;
+
+    /** the mean travel times by road segment and bucket, allocated with the first measurement of a road segment */
+    private final double[][] meanTravelTimes;
+
+    private final int[][] sampleCounts;
+
+    TravelTimeTable(Collection<RoadSegment> roadSegments, double bucketDuration, int bucketCount) {
+        Preconditions.checkArgument(bucketDuration > 0, "bucketDuration=" + bucketDuration);
+        Preconditions.checkArgument(bucketCount > 0, "bucketCount=" + bucketCount);
+        this.bucketDuration = bucketDuration;
+        this.bucketCount = bucketCount;
+        final int size = roadSegments.size();
+        freeFlowTravelTimes = new double[size];
+        liveTravelTimes = new double[size];
+        meanTravelTimes = new double[size][];
+        sampleCounts = new int[size][];
+        for (RoadSegment roadSegment : roadSegments) {
+            final int index = indices.size();
+            indices.put(roadSegment, index);
+            freeFlowTravelTimes[index] = roadSegment.roadLength() / MovsimConstants.MAX_VEHICLE_SPEED;
+            liveTravelTimes[index] = Double.NaN;
+        }
+    }
+
+    public double getBucketDuration() {
+        return bucketDuration;
+    }
+
+    public int getBucketCount() {
+        return bucketCount;
+    }
+
+    private int bucket(double time) {
+        return (int) (Math.floor(Math.max(0, time) / bucketDuration) % bucketCount);
+    }
+
+    private int indexOf(RoadSegment roadSegment) {
+        final Integer index = indices.get(roadSegment);
+        Preconditions.checkArgument(index != null, "roadSegment=" + roadSegment + " not in travel time table");
+        return index;
+    }
+
+    @Override
+    public void travelTimeObserved(RoadSegment roadSegment, double entryTime, double exitTime) {
+        final Integer index = indices.get(roadSegment);
+        if (index == null) {
+            return; // road segment not part of the network graph
+        }
+        final double travelTime = Math.max(freeFlowTravelTimes[index], exitTime - entryTime);
+        if (sampleCounts[index] == null) {
+            meanTravelTimes[index] = new double[bucketCount];
+            sampleCounts[index] = new int[bucketCount];
+        }
+        final int bucket = bucket(entryTime);
+        final int count = Math.min(sampleCounts[index][bucket] + 1, MAX_SAMPLES);
+        meanTravelTimes[index][bucket] += (travelTime - meanTravelTimes[index][bucket]) / count;
+        sampleCounts[index][bucket] = count;
+        final double live = liveTravelTimes[index];
+        liveTravelTimes[index] = Double.isNaN(live) ? travelTime : live + LIVE_WEIGHT * (travelTime - live);
+    }
+
+    /**
+     * Returns the expected travel time of the road segment for a vehicle entering it at the given time.
+     *
+     * @param roadSegment
+     * @param entryTime
+     *            the simulation time at which the road segment is entered
+     * @return the travel time (s)
+     * @throws IllegalArgumentException
+     *             if the road segment is not part of the network graph
+     */
+    public double travelTime(RoadSegment roadSegment, double entryTime) {
+        return travelTime(indexOf(roadSegment), entryTime);
+    }
+
+    private double travelTime(int index, double entryTime) {
+        final int[] counts = sampleCounts[index];
+        if (counts != null) {
+            final int bucket = bucket(entryTime);
+            if (counts[bucket] > 0) {
+                return meanTravelTimes[index][bucket];
+            }
+        }
+        final double live = liveTravelTimes[index];
+        return Double.isNaN(live) ? freeFlowTravelTimes[index] : live;
+    }
+
+    /**
+     * Returns the expected travel time along the road segments for a vehicle entering the first road segment at the given
+     * time.
+     *
+     * @param roadSegments
+     *            the road segments in driving order, for example a {@link Route}
+     * @param departureTime
+     *            the simulation time at which the first road segment is entered
+     * @return the travel time (s)
+     */
+    public double travelTime(Iterable<RoadSegment> roadSegments, double departureTime) {
+        double time = departureTime;
+        for (RoadSegment roadSegment : roadSegments) {
+            time += travelTime(roadSegment, time);
+        }
+        return time - departureTime;
+    }
+
+    /**
+     * Returns the travel time of the road segment with {@link MovsimConstants#MAX_VEHICLE_SPEED}, a lower bound of all
+     * travel times returned by this table.
+     */
+    double freeFlowTravelTime(RoadSegment roadSegment) {
+        return freeFlowTravelTimes[indexOf(roadSegment)];
+    }
+}
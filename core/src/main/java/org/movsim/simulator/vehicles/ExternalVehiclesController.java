@@ -12,6 +12,7 @@ import org.movsim.scenario.vehicle.autogen.ExternalVehicleType;
 import org.movsim.scenario.vehicle.autogen.MovsimExternalVehicleControl;
 import org.movsim.scenario.vehicle.autogen.SpeedDataType;
 import org.movsim.scenario.vehicle.autogen.VehicleUserDataType;
+import org.movsim.simulator.SimulationContext;
 import org.movsim.simulator.roadnetwork.LaneSegment;
 import org.movsim.simulator.roadnetwork.RoadNetwork;
 import org.movsim.simulator.roadnetwork.RoadSegment;
@@ -36,6 +37,12 @@ public class ExternalVehiclesController {
 
     private String timeFormat;
 
+    private final SimulationContext context;
+
+    public ExternalVehiclesController(SimulationContext context) {
+        this.context = Preconditions.checkNotNull(context);
+    }
+
     public void setInput(MovsimExternalVehicleControl input) {
         Preconditions.checkNotNull(input);
         this.timeFormat = input.getTimeFormat();
@@ -95,11 +102,13 @@ public class ExternalVehiclesController {
 
     private void removeVehiclesFromRoadSegments(List<Vehicle> externalVehicles, RoadNetwork roadNetwork) {
         for (Vehicle vehicle : externalVehicles) {
-            int roadSegmentId = vehicle.roadSegmentId();
-            RoadSegment roadSegment = roadNetwork.findById(roadSegmentId);
-            LaneSegment laneSegment = roadSegment.laneSegment(vehicle.lane());
+            LaneSegment laneSegment = roadNetwork.findLaneSegmentOfVehicle(vehicle.getId());
+            if (laneSegment == null) {
+                LOG.warn("externally controlled vehicle={} already left the road network", vehicle);
+                continue;
+            }
             laneSegment.removeVehicle(vehicle);
-            LOG.info("removed externally controlled vehicle={} from roadSegment={}", vehicle, roadSegment);
+            LOG.info("removed externally controlled vehicle={} from roadSegment={}", vehicle, laneSegment.roadSegment());
         }
     }
 
@@ -157,8 +166,8 @@ public class ExternalVehiclesController {
 
     private Vehicle createVehicle(ExternalVehicleType data) {
         double initialSpeed = data.getSpeedData().get(0).getSpeed();
-        Vehicle vehicle = new Vehicle(data.getPosition(), initialSpeed, data.getLane(), data.getLength(),
-                data.getWidth());
+        Vehicle vehicle = new Vehicle(context, data.getPosition(), initialSpeed, data.getLane(),
+                data.getLength(), data.getWidth());
         vehicle.setType(Vehicle.Type.EXTERNAL_CONTROL);
         for (VehicleUserDataType userData : data.getVehicleUserData()) {
             vehicle.getUserData().put(userData.getKey(), userData.getValue());
@@ -25,8 +25,8 @@
  */
 package org.movsim.simulator.vehicles;
 
-import org.movsim.input.ProjectMetaData;
 import org.movsim.io.FileOutputBase;
+import org.movsim.simulator.SimulationContext;
 import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.LongitudinalModelBase;
 
 public class FileAccelerationFunctions extends FileOutputBase {
@@ -59,13 +59,16 @@ public class FileAccelerationFunctions extends FileOutputBase {
 
     private static final double STEPWIDTH = 0.4; // too small values causes plot problems for some (stochastic) models
 
-    public static void writeToFile(double simulationTimestep, VehiclePrototype vehiclePrototype) {
-        new FileAccelerationFunctions(simulationTimestep, vehiclePrototype);
+    public static void writeToFile(SimulationContext context, double simulationTimestep,
+            VehiclePrototype vehiclePrototype) {
+        new FileAccelerationFunctions(context, simulationTimestep, vehiclePrototype);
     }
 
     /** Simulation timestep is model parameter for iterated map models (and cellular automata) */
-    private FileAccelerationFunctions(double simulationTimestep, VehiclePrototype vehiclePrototype) {
-        super(ProjectMetaData.getInstance().getOutputPath(), ProjectMetaData.getInstance().getProjectName());
+    private FileAccelerationFunctions(SimulationContext context, double simulationTimestep,
+            VehiclePrototype vehiclePrototype) {
+        super(context.getProjectMetaData().getOutputPath(), context.getProjectMetaData().getProjectName(),
+                context.getShutdownHooks());
         final String label = vehiclePrototype.getLabel();
         LongitudinalModelBase accModel = vehiclePrototype.createAccelerationModel();
 
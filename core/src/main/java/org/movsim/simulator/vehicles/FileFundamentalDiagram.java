@@ -25,8 +25,8 @@
  */
 package org.movsim.simulator.vehicles;
 
-import org.movsim.input.ProjectMetaData;
 import org.movsim.io.FileOutputBase;
+import org.movsim.simulator.SimulationContext;
 import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.EquilibriumProperties;
 import org.movsim.utilities.Units;
 
@@ -40,13 +40,16 @@ public class FileFundamentalDiagram extends FileOutputBase {
             "rho[1/km]", "s[m]", "vEq[km/h]", "Q[veh/h]");
     private static final String outputFormat = "%8.2f, %8.2f, %8.2f, %8.2f%n";
 
-    public static void writeToFile(double simulationTimestep, VehiclePrototype vehiclePrototype) {
-        new FileFundamentalDiagram(simulationTimestep, vehiclePrototype);
+    public static void writeToFile(SimulationContext context, double simulationTimestep,
+            VehiclePrototype vehiclePrototype) {
+        new FileFundamentalDiagram(context, simulationTimestep, vehiclePrototype);
     }
 
     /** Simulation timestep is model parameter for iterated map models (and cellular automata) */
-    private FileFundamentalDiagram(double simulationTimestep, VehiclePrototype vehiclePrototype) {
-        super(ProjectMetaData.getInstance().getOutputPath(), ProjectMetaData.getInstance().getProjectName());
+    private FileFundamentalDiagram(SimulationContext context, double simulationTimestep,
+            VehiclePrototype vehiclePrototype) {
+        super(context.getProjectMetaData().getOutputPath(), context.getProjectMetaData().getProjectName(),
+                context.getShutdownHooks());
         final String label = vehiclePrototype.getLabel();
         final EquilibriumProperties eqProperties = vehiclePrototype.getEquiProperties();
         writer = createWriter(String.format(extensionFormat, label));
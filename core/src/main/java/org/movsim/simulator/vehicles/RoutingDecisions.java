@@ -1,13 +1,11 @@
 package org.movsim.simulator.vehicles;
 
-import java.util.List;
-
+import org.movsim.simulator.observer.DecisionPoint;
 import org.movsim.simulator.observer.RouteAlternative;
 import org.movsim.simulator.observer.ServiceProvider;
 import org.movsim.simulator.roadnetwork.Lanes;
 import org.movsim.simulator.roadnetwork.RoadSegment;
 import org.movsim.simulator.roadnetwork.routing.Route;
-import org.movsim.utilities.MyRandom;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -25,7 +23,7 @@ public class RoutingDecisions {
     private ServiceProvider serviceProvider;
     private double uncertainty;
     private double reroutingThreshold;
-    private final double randomAlternative = MyRandom.nextDouble();
+    private double randomAlternative = NOT_INIT;
 
     private final Vehicle vehicle;
 
@@ -44,7 +42,12 @@ public class RoutingDecisions {
 
         if (lastUpdateTime == NOT_INIT) {
             // initialize update time with random (negative) offset to avoid synchronization at the inflow boundary
-            lastUpdateTime = simulationTime - MyRandom.nextDouble() * serviceProvider.getVehicleUpdateInterval();
+            lastUpdateTime = simulationTime - vehicle.random().nextDouble()
+                    * serviceProvider.getVehicleUpdateInterval();
+        }
+        if (randomAlternative == NOT_INIT) {
+            // drawn on first use, copies of the vehicle do not draw from its random stream
+            randomAlternative = vehicle.random().nextDouble();
         }
 
         if (readyForNextUpdate(serviceProvider.getVehicleUpdateInterval(), simulationTime)) {
@@ -59,14 +62,12 @@ public class RoutingDecisions {
                 decisionPointSegment = roadSegment.sinkRoadSegment(Lanes.MOST_INNER_LANE);
             }
 
-            List<RouteAlternative> alternatives = serviceProvider.getAlternativesForDecisionPoint(decisionPointSegment);
-            if (alternatives != null) {
-                serviceProvider.updateRouteAlternatives(alternatives, uncertainty);
-                RouteAlternative newRouteAlternative = serviceProvider.selectMostProbableAlternative(alternatives,
-                        randomAlternative);
+            DecisionPoint decisionPoint = serviceProvider.getDecisionPoint(decisionPointSegment);
+            if (decisionPoint != null) {
+                RouteAlternative newRouteAlternative = decisionPoint.selectAlternative(uncertainty, randomAlternative);
 
                 // quick-hack: assign exit lane to vehicle since routing capabilities not yet available in movsim
-                boolean doRerouting = (uncertainty > 0) ? true : checkForRerouting(newRouteAlternative, alternatives);
+                boolean doRerouting = (uncertainty > 0) ? true : checkForRerouting(newRouteAlternative, decisionPoint);
                 if (doRerouting) {
                     routeAlternative = newRouteAlternative;
                     assignRoute(decisionPointSegment, routeAlternative.getRoute());
@@ -75,7 +76,7 @@ public class RoutingDecisions {
         }
     }
 
-    private boolean checkForRerouting(RouteAlternative newRouteAlternative, List<RouteAlternative> alternatives) {
+    private boolean checkForRerouting(RouteAlternative newRouteAlternative, DecisionPoint decisionPoint) {
         if (routeAlternative == null) {
             return true;
         }
@@ -84,7 +85,7 @@ public class RoutingDecisions {
             return false; // no new route
         }
 
-        RouteAlternative alternativeFromLastRouting = getAlternativeFromLastUpdate(alternatives);
+        RouteAlternative alternativeFromLastRouting = getAlternativeFromLastUpdate(decisionPoint);
 
         boolean doRerouting = newRouteAlternative.getDisutility() + reroutingThreshold < alternativeFromLastRouting
                 .getDisutility();
@@ -96,13 +97,12 @@ public class RoutingDecisions {
         return doRerouting;
     }
 
-    private RouteAlternative getAlternativeFromLastUpdate(List<RouteAlternative> alternatives) {
-        for (RouteAlternative alternative : alternatives) {
-            if (alternative.getRoute().equals(routeAlternative.getRoute())) {
-                return alternative;
-            }
+    private RouteAlternative getAlternativeFromLastUpdate(DecisionPoint decisionPoint) {
+        RouteAlternative alternative = decisionPoint.getAlternative(routeAlternative.getRoute().getName());
+        if (alternative == null) {
+            throw new IllegalStateException("shouldn't come here - alternative not found");
         }
-        throw new IllegalStateException("shouldn't come here - alternative not found");
+        return alternative;
     }
 
     private void assignRoute(RoadSegment roadSegment, Route route) {
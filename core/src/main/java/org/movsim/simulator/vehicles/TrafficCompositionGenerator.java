@@ -7,7 +7,7 @@ import java.util.Set;
 
 import org.movsim.autogen.TrafficComposition;
 import org.movsim.simulator.roadnetwork.routing.Route;
-import org.movsim.utilities.MyRandom;
+import org.movsim.utilities.RandomStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -24,10 +24,22 @@ public class TrafficCompositionGenerator {
 
     private final VehicleFactory vehicleFactory;
 
-    public TrafficCompositionGenerator(TrafficComposition configuration, VehicleFactory vehicleFactory) {
+    private final RandomStream random;
+
+    /**
+     * Constructor.
+     * 
+     * @param configuration
+     * @param vehicleFactory
+     * @param random
+     *            the random stream for the choice of the vehicle types
+     */
+    public TrafficCompositionGenerator(TrafficComposition configuration, VehicleFactory vehicleFactory,
+            RandomStream random) {
         Preconditions.checkNotNull(configuration);
         this.configuration = configuration;
         this.vehicleFactory = vehicleFactory;
+        this.random = Preconditions.checkNotNull(random);
         setUpComposition();
     }
 
@@ -63,7 +75,7 @@ public class TrafficCompositionGenerator {
     }
 
     private VehicleType determineVehicleType() {
-        final double randomNumber = MyRandom.nextDouble();
+        final double randomNumber = random.nextDouble();
         double sumFraction = 0;
         for (final VehicleType vehicleType : vehicleTypes.values()) {
             sumFraction += vehicleType.getFraction();
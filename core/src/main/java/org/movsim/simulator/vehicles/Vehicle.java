@@ -17,8 +17,10 @@ import javax.annotation.Nullable;
 
 import org.movsim.autogen.VehiclePrototypeConfiguration;
 import org.movsim.simulator.MovsimConstants;
+import org.movsim.simulator.SimulationContext;
 import org.movsim.simulator.roadnetwork.LaneSegment;
 import org.movsim.simulator.roadnetwork.Lanes;
+import org.movsim.simulator.roadnetwork.NeighbourRef;
 import org.movsim.simulator.roadnetwork.RoadSegment;
 import org.movsim.simulator.roadnetwork.routing.Route;
 import org.movsim.simulator.vehicles.lanechange.LaneChangeModel;
@@ -28,7 +30,7 @@ import org.movsim.simulator.vehicles.longitudinalmodel.Noise;
 import org.movsim.simulator.vehicles.longitudinalmodel.TrafficLightApproaching;
 import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.LongitudinalModelBase;
 import org.movsim.utilities.Colors;
-import org.movsim.utilities.MyRandom;
+import org.movsim.utilities.RandomStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -67,10 +69,11 @@ public class Vehicle {
 
     protected static final int INITIAL_TEMPLATE_ID = -1;
 
-    private static long nextId = INITIAL_ID;
-
     private static long nextTemplateId = INITIAL_TEMPLATE_ID;
 
+    /** domain of the vehicles' random streams, see {@link SimulationContext#newRandomStream(String, long)} */
+    private static final String RANDOM_STREAM_DOMAIN = "vehicle";
+
     /**
      * 'Not Set' vehicle id value, guaranteed not to be used by any vehicles.
      */
@@ -110,6 +113,9 @@ public class Vehicle {
 
     private double totalTravelTime = 0;
 
+    /** total travel time when the vehicle entered the upstream end of its road segment, NaN if it started on the segment */
+    private double roadSegmentEntryTravelTime = Double.NaN;
+
     private double speed;
 
     /** The acceleration as calculated by the longitudinal driver model. */
@@ -131,6 +137,9 @@ public class Vehicle {
     /** The unique id of the vehicle. */
     final long id;
 
+    /** random stream of the vehicle, keyed by its id and shared with its copies */
+    private final RandomStream random;
+
     /** constant random number between 0 and 1 used for random output selections */
     final double randomFix;
 
@@ -141,6 +150,9 @@ public class Vehicle {
 
     private int laneOld;
 
+    /** index of this vehicle in its lane segment when last accessed, may be outdated */
+    private int laneSegmentIndex = -1;
+
     /**
      * variable for remembering new target lane when assigning to new
      * laneSegment
@@ -178,6 +190,7 @@ public class Vehicle {
     /** can be null */
     private Route route;
 
+    /** index of the next road segment on the route, Integer.MAX_VALUE if the vehicle has left its route */
     private int routeIndex;
 
     private boolean brakeLightOn;
@@ -188,6 +201,9 @@ public class Vehicle {
 
     private final RoutingDecisions routingDecisions = new RoutingDecisions(this);
 
+    /** reusable reference for neighbour lookups in the update step */
+    private final NeighbourRef neighbourRef = new NeighbourRef();
+
     // Exit Handling
     private int roadSegmentId = ROAD_SEGMENT_ID_NOT_SET;
 
@@ -201,7 +217,7 @@ public class Vehicle {
      * Resets the next id.
      */
     public static void resetNextId() {
-        nextId = INITIAL_ID;
+        SimulationContext.getDefault().resetVehicleIds();
         nextTemplateId = INITIAL_TEMPLATE_ID;
     }
 
@@ -211,7 +227,7 @@ public class Vehicle {
      * @return the id of the last vehicle created
      */
     public static long lastIdSet() {
-        return nextId - 1;
+        return INITIAL_ID + count() - 1;
     }
 
     /**
@@ -220,19 +236,34 @@ public class Vehicle {
      * @return the number of vehicles that have been created
      */
     public static long count() {
-        return nextId - INITIAL_ID;
+        return SimulationContext.getDefault().vehicleCount();
     }
 
     public Vehicle(String label, LongitudinalModelBase longitudinalModel, VehiclePrototypeConfiguration vehInput,
             @Nullable LaneChangeModel lcModel) {
+        this(SimulationContext.getDefault(), label, longitudinalModel, vehInput, lcModel);
+    }
+
+    /**
+     * Constructor, takes the id and the random stream of the vehicle from the given context.
+     * 
+     * @param context
+     * @param label
+     * @param longitudinalModel
+     * @param vehInput
+     * @param lcModel
+     */
+    public Vehicle(SimulationContext context, String label, LongitudinalModelBase longitudinalModel,
+            VehiclePrototypeConfiguration vehInput, @Nullable LaneChangeModel lcModel) {
         Preconditions.checkNotNull(longitudinalModel);
         Preconditions.checkNotNull(vehInput);
         this.label = label;
         dimensions = new VehicleDimensions(vehInput.getLength(), vehInput.getWidth());
         this.maxDeceleration = vehInput.getMaximumDeceleration();
 
-        id = nextId++;
-        randomFix = MyRandom.nextDouble();
+        id = context.nextVehicleId();
+        random = context.newRandomStream(RANDOM_STREAM_DOMAIN, id);
+        randomFix = random.nextDouble();
 
         initialize();
         this.longitudinalModel = longitudinalModel;
@@ -258,10 +289,28 @@ public class Vehicle {
      * Constructor.
      */
     public Vehicle(double rearPosition, double speed, int lane, double length, double width) {
+        this(SimulationContext.getDefault(), rearPosition, speed, lane, length, width);
+    }
+
+    /**
+     * Constructor, takes the id and the random stream of the vehicle from the given context.
+     */
+    public Vehicle(SimulationContext context, double rearPosition, double speed, int lane, double length,
+            double width) {
+        this(context, context.nextVehicleId(), rearPosition, speed, lane, length, width);
+    }
+
+    /**
+     * Constructor with an id reserved before, see {@link SimulationContext#reserveVehicleIds(int)}. Takes the random stream
+     * of the vehicle from the given context.
+     */
+    public Vehicle(SimulationContext context, long id, double rearPosition, double speed, int lane, double length,
+            double width) {
         assert rearPosition >= 0.0;
         assert speed >= 0.0;
-        id = nextId++;
-        randomFix = MyRandom.nextDouble();
+        this.id = id;
+        random = context.newRandomStream(RANDOM_STREAM_DOMAIN, id);
+        randomFix = random.nextDouble();
         dimensions = new VehicleDimensions(length, width);
         setRearPosition(rearPosition);
         this.speed = speed;
@@ -287,6 +336,7 @@ public class Vehicle {
      */
     public Vehicle(Vehicle source) {
         id = source.id;
+        random = source.random;
         randomFix = source.randomFix;
         type = source.type;
         frontPosition = source.frontPosition;
@@ -546,6 +596,19 @@ public class Vehicle {
         return frontVehicle.getRearPosition() - getFrontPosition();
     }
 
+    /**
+     * returns the net distance (from front bumper to rear bumper) to the referenced front vehicle, returns infinity gap if front
+     * vehicle is null.
+     * 
+     * @param frontVehicle
+     */
+    public double getNetDistance(NeighbourRef frontVehicle) {
+        if (frontVehicle == null) {
+            return MovsimConstants.GAP_INFINITY;
+        }
+        return frontVehicle.getRearPosition() - getFrontPosition();
+    }
+
     /**
      * returns the brut distance (net distance plus vehicle length of front vehicle) to the front vehicle, returns infinity gap
      * if front vehicle is null.
@@ -574,6 +637,20 @@ public class Vehicle {
         return getRearPosition() - rearVehicle.getFrontPosition();
     }
 
+    /**
+     * returns the net distance (from rear bumper to front bumper) to the referenced rear vehicle, returns infinity gap if rear
+     * vehicle is null.
+     * 
+     * @param rearVehicle
+     * @return
+     */
+    public double getNetDistanceToRearVehicle(NeighbourRef rearVehicle) {
+        if (rearVehicle == null) {
+            return MovsimConstants.GAP_INFINITY;
+        }
+        return getRearPosition() - rearVehicle.getFrontPosition();
+    }
+
     public final double getRelSpeed(Vehicle frontVehicle) {
         if (frontVehicle == null) {
             return 0;
@@ -581,6 +658,13 @@ public class Vehicle {
         return speed - frontVehicle.getSpeed();
     }
 
+    public final double getRelSpeed(NeighbourRef frontVehicle) {
+        if (frontVehicle == null) {
+            return 0;
+        }
+        return speed - frontVehicle.getSpeed();
+    }
+
     public void updateAcceleration(double dt, RoadSegment roadSegment, LaneSegment laneSegment,
             LaneSegment leftLaneSegment) {
 
@@ -588,9 +672,9 @@ public class Vehicle {
         // acceleration noise:
         double accError = 0;
         if (noise != null) {
-            noise.update(dt);
+            noise.update(dt, random);
             accError = noise.getAccError();
-            Vehicle frontVehicle = laneSegment.frontVehicle(this);
+            final NeighbourRef frontVehicle = laneSegment.frontNeighbour(this, neighbourRef);
             if (getNetDistance(frontVehicle) < MovsimConstants.CRITICAL_GAP) {
                 accError = Math.min(accError, 0.);
             }
@@ -675,7 +759,7 @@ public class Vehicle {
             LaneSegment firstExitLaneSegment = roadSegment.laneSegment(roadSegment.trafficLaneMax() + Lanes.TO_RIGHT);
             assert firstExitLaneSegment != null
                     && firstExitLaneSegment.type() == Lanes.Type.EXIT : "no exitLaneSegment=" + firstExitLaneSegment;
-            Vehicle frontVehicle = firstExitLaneSegment.frontVehicle(this);
+            final NeighbourRef frontVehicle = firstExitLaneSegment.frontNeighbour(this, neighbourRef);
             accToVehicleInExitLane = longitudinalModel.calcAcc(this, frontVehicle);
             accToVehicleInExitLane = Math.max(accToVehicleInExitLane, -maxDeceleration);
             if (LOG.isDebugEnabled()) {
@@ -802,6 +886,20 @@ public class Vehicle {
         targetLane = Lanes.NONE;
     }
 
+    /**
+     * Returns the index of this vehicle in its lane segment as last recorded by the lane segment. The index is a hint only and
+     * must be verified before use, since it is not updated when vehicles in front are added or removed.
+     * 
+     * @return the index of this vehicle in its lane segment, or -1 if not known
+     */
+    public final int laneSegmentIndex() {
+        return laneSegmentIndex;
+    }
+
+    public final void setLaneSegmentIndex(int laneSegmentIndex) {
+        this.laneSegmentIndex = laneSegmentIndex;
+    }
+
     public LaneChangeModel getLaneChangeModel() {
         return laneChangeModel;
     }
@@ -1034,6 +1132,7 @@ public class Vehicle {
 
         setRearPosition(newRearPosition);
         setRoadSegment(newRoadSegment);
+        markRoadSegmentEntry();
     }
 
     /**
@@ -1055,20 +1154,20 @@ public class Vehicle {
         }
 
         if (route != null && routeIndex < route.size()) {
-            RoadSegment routeRoadSegment = route.get(routeIndex);
-            ++routeIndex;
-            if (routeRoadSegment.id() != roadSegmentId) {
+            final int index = route.indexOf(roadSegment);
+            if (index < 0) {
                 LOG.warn("vehicle={} has left its route={}.", this, route.getName());
                 routeIndex = Integer.MAX_VALUE; // skip further warning logs
                 exitRoadSegmentId = ROAD_SEGMENT_ID_NOT_SET;
                 return;
             }
             // vehicle is still on track following its route
+            routeIndex = index + 1;
             if (routeIndex < route.size()) {
                 // there is another roadSegment on the route, so check if the
                 // next roadSegment is joined to an exit lane
                 RoadSegment nextRouteRoadSegment = route.get(routeIndex);
-                if (routeRoadSegment.exitsOnto(nextRouteRoadSegment.id())) {
+                if (roadSegment.exitsOnto(nextRouteRoadSegment.id())) {
                     // this vehicle needs to exit on this roadSegment
                     exitRoadSegmentId = roadSegmentId;
                 } else if (routeIndex + 1 < route.size()) {
@@ -1139,6 +1238,24 @@ public class Vehicle {
         return totalTravelTime;
     }
 
+    /**
+     * Marks that this vehicle has entered its current road segment at the upstream end. Called when the vehicle moves onto a
+     * new road segment or enters the road network at a traffic source.
+     */
+    public final void markRoadSegmentEntry() {
+        roadSegmentEntryTravelTime = totalTravelTime;
+    }
+
+    /**
+     * Returns the time this vehicle has spent on its current road segment since entering it at the upstream end.
+     * 
+     * @return the travel time on the current road segment, NaN if the vehicle has not entered the road segment at its
+     *         upstream end (for example if it has been placed on the road segment by the initial conditions)
+     */
+    public final double travelTimeOnRoadSegment() {
+        return totalTravelTime - roadSegmentEntryTravelTime;
+    }
+
     public double getMaxDeceleration() {
         return maxDeceleration;
     }
@@ -1165,6 +1282,16 @@ public class Vehicle {
         return randomFix;
     }
 
+    /**
+     * Returns the random stream of this vehicle. All random numbers concerning the vehicle (acceleration noise, stochastic
+     * models, routing decisions) are drawn from this stream, so they do not depend on the order of the vehicle updates.
+     * 
+     * @return the random stream of this vehicle
+     */
+    public RandomStream random() {
+        return random;
+    }
+
     public void setMemory(Memory memory) {
         this.memory = memory;
     }
@@ -1179,6 +1306,20 @@ public class Vehicle {
             LOG.info("vehicle changed route from={} to new route={}", this.route, newRoute);
         }
         this.route = newRoute;
+        routeIndex = 0;
+    }
+
+    /**
+     * Returns the front position of this vehicle along its route.
+     * 
+     * @return the position along the route, NaN if the vehicle has no route or is not on its route
+     */
+    public double getPositionOnRoute() {
+        if (route == null || roadSegment == null) {
+            return Double.NaN;
+        }
+        final int index = route.indexOf(roadSegment);
+        return index < 0 ? Double.NaN : route.getStartPosition(index) + frontPosition;
     }
 
     public String getRouteName() {
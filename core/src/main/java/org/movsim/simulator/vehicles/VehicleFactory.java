@@ -1,9 +1,17 @@
 package org.movsim.simulator.vehicles;
 
+import java.io.File;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import javax.annotation.Nullable;
 
@@ -12,11 +20,14 @@ import org.movsim.autogen.PersonalNavigationDeviceType;
 import org.movsim.autogen.VehiclePrototypeConfiguration;
 import org.movsim.autogen.VehiclePrototypes;
 import org.movsim.consumption.model.EnergyFlowModelFactory;
+import org.movsim.input.ProjectMetaData;
+import org.movsim.simulator.SimulationContext;
 import org.movsim.simulator.observer.ServiceProvider;
 import org.movsim.simulator.observer.ServiceProviders;
 import org.movsim.simulator.roadnetwork.routing.Route;
 import org.movsim.simulator.roadnetwork.routing.Routing;
 import org.movsim.simulator.vehicles.lanechange.LaneChangeModel;
+import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.EquilibriumPropertiesCache;
 import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.LongitudinalModelBase;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,8 +46,11 @@ public final class VehicleFactory {
 
     private final ServiceProviders serviceProviders;
 
-    public VehicleFactory(double simulationTimestep, VehiclePrototypes vehPrototypes, @Nullable Consumption consumption,
-            Routing routing, @Nullable ServiceProviders serviceProviders) {
+    private final SimulationContext context;
+
+    public VehicleFactory(SimulationContext context, double simulationTimestep, VehiclePrototypes vehPrototypes,
+            @Nullable Consumption consumption, Routing routing, @Nullable ServiceProviders serviceProviders) {
+        this.context = Preconditions.checkNotNull(context);
         Preconditions.checkNotNull(vehPrototypes);
         this.routing = Preconditions.checkNotNull(routing);
         this.serviceProviders = serviceProviders;
@@ -58,12 +72,12 @@ public final class VehicleFactory {
     public Vehicle create(VehicleType vehicleType, @Nullable Route route) {
         VehiclePrototype prototype = getPrototype(vehicleType.getVehiclePrototypeLabel());
         LongitudinalModelBase accelerationModel = prototype.createAccelerationModel();
-        accelerationModel.setRelativeRandomizationV0(vehicleType.getRelativeV0Randomization(),
-                vehicleType.getV0DistributionType());
         LaneChangeModel laneChangeModel = prototype.createLaneChangeModel();
 
-        Vehicle vehicle = new Vehicle(prototype.getLabel(), accelerationModel, prototype.getConfiguration(),
+        Vehicle vehicle = new Vehicle(context, prototype.getLabel(), accelerationModel, prototype.getConfiguration(),
                 laneChangeModel);
+        accelerationModel.setRelativeRandomizationV0(vehicleType.getRelativeV0Randomization(),
+                vehicleType.getV0DistributionType(), vehicle.random());
 
         vehicle.setRoute(route);
         vehicle.setMemory(prototype.createMemoryModel());
@@ -101,12 +115,17 @@ public final class VehicleFactory {
 
     private void initialize(double simulationTimestep, List<VehiclePrototypeConfiguration> configurations,
             @Nullable Consumption consumption) {
+        final Set<String> labels = new HashSet<>();
         for (VehiclePrototypeConfiguration typeConfig : configurations) {
-            if (vehiclePrototypes.containsKey(typeConfig.getLabel())) {
+            if (!labels.add(typeConfig.getLabel())) {
                 throw new IllegalArgumentException("ambigous vehicle prototype definition: prototype with label=\""
                         + typeConfig.getLabel() + "\" already exists.");
             }
-            VehiclePrototype vehiclePrototype = new VehiclePrototype(simulationTimestep, typeConfig);
+        }
+        final List<VehiclePrototype> prototypes = createPrototypes(simulationTimestep, configurations);
+        for (int i = 0; i < configurations.size(); i++) {
+            VehiclePrototypeConfiguration typeConfig = configurations.get(i);
+            VehiclePrototype vehiclePrototype = prototypes.get(i);
             if (typeConfig.isSetConsumptionModelName()) {
                 String consumptionModelName = typeConfig.getConsumptionModelName();
                 if (!fuelModelFactory.hasModel(consumptionModelName)) {
@@ -121,6 +140,52 @@ public final class VehicleFactory {
         }
     }
 
+    /**
+     * Creates the prototypes, which calculates their equilibrium properties. The prototypes are independent of each other
+     * and are created in parallel if the project is configured for parallel execution.
+     */
+    private List<VehiclePrototype> createPrototypes(final double simulationTimestep,
+            List<VehiclePrototypeConfiguration> configurations) {
+        final ProjectMetaData projectMetaData = context.getProjectMetaData();
+        final File cacheDirectory = projectMetaData.getEquilibriumCacheDirectory();
+        final EquilibriumPropertiesCache equilibriumCache = cacheDirectory == null ? null
+                : new EquilibriumPropertiesCache(cacheDirectory);
+        final List<VehiclePrototype> prototypes = new ArrayList<>(configurations.size());
+        final int parallelism = Math.min(projectMetaData.getParallelism(), configurations.size());
+        if (parallelism <= 1) {
+            for (VehiclePrototypeConfiguration typeConfig : configurations) {
+                prototypes.add(new VehiclePrototype(simulationTimestep, typeConfig, equilibriumCache));
+            }
+            return prototypes;
+        }
+        final ForkJoinPool forkJoinPool = new ForkJoinPool(parallelism);
+        try {
+            final List<Future<VehiclePrototype>> futures = new ArrayList<>(configurations.size());
+            for (final VehiclePrototypeConfiguration typeConfig : configurations) {
+                futures.add(forkJoinPool.submit(new Callable<VehiclePrototype>() {
+                    @Override
+                    public VehiclePrototype call() {
+                        return new VehiclePrototype(simulationTimestep, typeConfig, equilibriumCache);
+                    }
+                }));
+            }
+            for (Future<VehiclePrototype> future : futures) {
+                prototypes.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while creating the vehicle prototypes");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            forkJoinPool.shutdownNow();
+        }
+        return prototypes;
+    }
+
     public VehiclePrototype getPrototype(String label) {
         if (!vehiclePrototypes.containsKey(label)) {
             throw new IllegalArgumentException("cannot create vehicle for unknown label =\"" + label);
@@ -140,7 +205,7 @@ public final class VehicleFactory {
         LOG.info("write fundamental diagrams but ignore label {}.", ignoreLabel);
         for (VehiclePrototype vehiclePrototype : vehiclePrototypes.values()) {
             if (!ignoreLabel.equalsIgnoreCase(vehiclePrototype.getLabel())) {
-                FileFundamentalDiagram.writeToFile(simulationTimestep, vehiclePrototype);
+                FileFundamentalDiagram.writeToFile(context, simulationTimestep, vehiclePrototype);
             }
         }
     }
@@ -150,7 +215,7 @@ public final class VehicleFactory {
         LOG.info("write acceleration function but ignore label {}.", ignoreLabel);
         for (VehiclePrototype vehiclePrototype : vehiclePrototypes.values()) {
             if (!ignoreLabel.equalsIgnoreCase(vehiclePrototype.getLabel())) {
-                FileAccelerationFunctions.writeToFile(simulationTimestep, vehiclePrototype);
+                FileAccelerationFunctions.writeToFile(context, simulationTimestep, vehiclePrototype);
             }
         }
 
@@ -1,11 +1,14 @@
 package org.movsim.simulator.vehicles;
 
+import javax.annotation.Nullable;
+
 import org.movsim.autogen.VehiclePrototypeConfiguration;
 import org.movsim.consumption.model.EnergyFlowModel;
 import org.movsim.simulator.vehicles.lanechange.LaneChangeModel;
 import org.movsim.simulator.vehicles.longitudinalmodel.Memory;
 import org.movsim.simulator.vehicles.longitudinalmodel.Noise;
 import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.EquilibriumProperties;
+import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.EquilibriumPropertiesCache;
 import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.EquilibriumPropertiesImpl;
 import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.LongitudinalModelBase;
 import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.LongitudinalModelFactory;
@@ -23,11 +26,17 @@ class VehiclePrototype {
     private final double simulationTimestep;
 
     VehiclePrototype(double simulationTimestep, VehiclePrototypeConfiguration configuration) {
+        this(simulationTimestep, configuration, null);
+    }
+
+    VehiclePrototype(double simulationTimestep, VehiclePrototypeConfiguration configuration,
+            @Nullable EquilibriumPropertiesCache equilibriumCache) {
         Preconditions.checkNotNull(configuration);
         this.configuration = configuration;
         this.simulationTimestep = simulationTimestep;
         LongitudinalModelBase longModel = createAccelerationModel();
-        equiProperties = new EquilibriumPropertiesImpl(getLength(), longModel);
+        equiProperties = equilibriumCache == null ? new EquilibriumPropertiesImpl(getLength(), longModel)
+                : equilibriumCache.get(getLength(), longModel, simulationTimestep);
     }
 
     double getLength() {
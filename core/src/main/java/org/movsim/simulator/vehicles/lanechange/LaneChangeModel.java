@@ -27,6 +27,7 @@ package org.movsim.simulator.vehicles.lanechange;
 
 import org.movsim.simulator.roadnetwork.LaneSegment;
 import org.movsim.simulator.roadnetwork.Lanes;
+import org.movsim.simulator.roadnetwork.NeighbourRef;
 import org.movsim.simulator.roadnetwork.RoadSegment;
 import org.movsim.simulator.vehicles.Vehicle;
 import org.slf4j.Logger;
@@ -94,6 +95,11 @@ public class LaneChangeModel {
 
     private OvertakingViaPeer overtakingViaPeerModel;
 
+    // reusable references for the neighbour lookups
+    private final NeighbourRef frontRef = new NeighbourRef();
+    private final NeighbourRef backRef = new NeighbourRef();
+    private final NeighbourRef subjectRef = new NeighbourRef();
+
     private final org.movsim.autogen.LaneChangeModelType parameter;
 
     // Exit Handling
@@ -197,13 +203,13 @@ public class LaneChangeModel {
     }
 
     boolean isSafeLaneChange(Vehicle subjectVehicle, LaneSegment laneSegment) {
-        final Vehicle front = laneSegment.frontVehicle(subjectVehicle);
-        final Vehicle back = laneSegment.rearVehicle(subjectVehicle);
+        final NeighbourRef front = laneSegment.frontNeighbour(subjectVehicle, frontRef);
+        final NeighbourRef back = laneSegment.rearNeighbour(subjectVehicle, backRef);
         final boolean changeSafe = checkSafetyCriterion(subjectVehicle, front, back);
         return changeSafe;
     }
 
-    boolean checkSafetyCriterion(Vehicle subjectVehicle, Vehicle frontVeh, Vehicle backVeh) {
+    boolean checkSafetyCriterion(Vehicle subjectVehicle, NeighbourRef frontVeh, NeighbourRef backVeh) {
         final double safeDeceleration = lcModelMOBIL.getParameter().getSafeDeceleration();
         // check distance to front vehicle
         final double gapFront = subjectVehicle.getNetDistance(frontVeh);
@@ -214,13 +220,15 @@ public class LaneChangeModel {
 
         // check distance to vehicle at behind
         if (backVeh != null) {
-            final double gapBack = backVeh.getNetDistance(subjectVehicle);
+            final double gapBack = subjectVehicle.getNetDistanceToRearVehicle(backVeh);
             if (gapBack < lcModelMOBIL.getParameter().getMinimumGap()) {
                 LOG.debug("gapBack={}", gapBack);
                 return false;
             }
             // check acceleration of back vehicle
-            final double backNewAcc = backVeh.getLongitudinalModel().calcAcc(backVeh, subjectVehicle);
+            // subject vehicle in the coordinates of the back vehicle
+            subjectRef.set(subjectVehicle).shift(-backVeh.positionOffset());
+            final double backNewAcc = backVeh.vehicle().getLongitudinalModel().calcAcc(backVeh.vehicle(), subjectRef);
             if (backNewAcc <= -safeDeceleration) {
                 LOG.debug("gapFront = {}, gapBack = {}", gapFront, gapBack);
                 LOG.debug("backNewAcc={}, bSafe={}", backNewAcc, safeDeceleration);
@@ -294,9 +302,10 @@ public class LaneChangeModel {
                                 : LaneChangeDecision.MANDATORY_TO_RIGHT;
                     }
                     // evaluate additional motivation to leave entrance lane
-                    double accInCurrentLane = me.getLongitudinalModel()
-                            .calcAcc(me, currentLaneSegment.frontVehicle(me));
-                    double accInNewLane = me.getLongitudinalModel().calcAcc(me, newLaneSegment.frontVehicle(me));
+                    double accInCurrentLane = me.getLongitudinalModel().calcAcc(me,
+                            currentLaneSegment.frontNeighbour(me, frontRef));
+                    double accInNewLane = me.getLongitudinalModel().calcAcc(me,
+                            newLaneSegment.frontNeighbour(me, frontRef));
                     double bias = biasForMandatoryChange(distanceToRoadSegmentEnd);
                     if (accInNewLane + bias > accInCurrentLane) {
                         if (LOG.isDebugEnabled()) {
@@ -432,7 +441,8 @@ public class LaneChangeModel {
         if (roadSegment.laneCount() > 2
                 && roadSegment.laneSegment(roadSegment.laneCount()).type() == Lanes.Type.ENTRANCE
                 && currentLane == roadSegment.trafficLaneMax()) {
-            Vehicle frontVehicle = roadSegment.laneSegment(roadSegment.trafficLaneMax()).frontVehicle(me);
+            final NeighbourRef frontVehicle = roadSegment.laneSegment(roadSegment.trafficLaneMax()).frontNeighbour(me,
+                    frontRef);
             if (frontVehicle == null || frontVehicle.type() == Vehicle.Type.OBSTACLE) {
                 return LaneChangeDecision.NONE;
             }
@@ -453,7 +463,7 @@ public class LaneChangeModel {
                     // never change lane into an entrance lane
                     return LaneChangeDecision.NONE;
                 }
-                final Vehicle newFront = newLaneSegment.frontVehicle(me);
+                final NeighbourRef newFront = newLaneSegment.frontNeighbour(me, frontRef);
                 if (newFront != null) {
                     if (newFront.inProcessOfLaneChange()) {
                         return LaneChangeDecision.NONE;
@@ -463,21 +473,22 @@ public class LaneChangeModel {
                         return LaneChangeDecision.NONE;
                     }
                 }
-                final Vehicle newBack = newLaneSegment.rearVehicle(me);
+                final NeighbourRef newBack = newLaneSegment.rearNeighbour(me, backRef);
                 if (newBack != null) {
                     if (newBack.inProcessOfLaneChange()) {
                         return LaneChangeDecision.NONE;
                     }
-                    final double gapRear = newBack.getNetDistance(me);
+                    final double gapRear = me.getNetDistanceToRearVehicle(newBack);
                     if (gapRear < lcModelMOBIL.getParameter().getMinimumGap()) {
                         return LaneChangeDecision.NONE;
                     }
                 }
                 me.setLane(newLane);
                 final int index = newLaneSegment.addVehicleTemp(me);
-                final double newBackNewAcc = newBack == null ? 0 : newBack.calcAccModel(newLaneSegment, null);
+                final double newBackNewAcc = newBack == null ? 0 : MOBIL.calcAccModel(newBack, newLaneSegment,
+                        frontRef);
                 final double meNewAcc = me.calcAccModel(newLaneSegment, null);
-                newLaneSegment.removeVehicle(index);
+                newLaneSegment.removeVehicleTemp(index);
                 me.setLane(currentLane);
 
                 if (lcModelMOBIL.safetyCheckAcceleration(newBackNewAcc)
@@ -28,8 +28,10 @@ package org.movsim.simulator.vehicles.lanechange;
 import org.movsim.autogen.ModelParameterMOBIL;
 import org.movsim.simulator.roadnetwork.LaneSegment;
 import org.movsim.simulator.roadnetwork.Lanes;
+import org.movsim.simulator.roadnetwork.NeighbourRef;
 import org.movsim.simulator.roadnetwork.RoadSegment;
 import org.movsim.simulator.vehicles.Vehicle;
+import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.LongitudinalModelBase;
 import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.LongitudinalModelBase.ModelName;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -56,6 +58,13 @@ public class MOBIL {
 
     private ModelParameterMOBIL param;
 
+    // reusable references for the neighbour lookups
+    private final NeighbourRef newFrontRef = new NeighbourRef();
+    private final NeighbourRef newBackRef = new NeighbourRef();
+    private final NeighbourRef oldFrontRef = new NeighbourRef();
+    private final NeighbourRef oldBackRef = new NeighbourRef();
+    private final NeighbourRef frontRef = new NeighbourRef();
+
     /**
      * Instantiates a new MOBIL.
      * 
@@ -96,7 +105,7 @@ public class MOBIL {
             return prospectiveBalance;
         }
 
-        final Vehicle newFront = newLaneSegment.frontVehicle(me);
+        final NeighbourRef newFront = newLaneSegment.frontNeighbour(me, newFrontRef);
         if (newFront != null) {
             if (newFront.inProcessOfLaneChange()) {
                 return prospectiveBalance;
@@ -106,18 +115,18 @@ public class MOBIL {
                 return prospectiveBalance;
             }
         }
-        final Vehicle newBack = newLaneSegment.rearVehicle(me);
+        final NeighbourRef newBack = newLaneSegment.rearNeighbour(me, newBackRef);
         if (newBack != null) {
             if (newBack.inProcessOfLaneChange()) {
                 return prospectiveBalance;
             }
-            final double gapRear = newBack.getNetDistance(me);
+            final double gapRear = me.getNetDistanceToRearVehicle(newBack);
             if (gapRear < param.getMinimumGap()) {
                 return prospectiveBalance;
             }
         }
         final LaneSegment currentLaneSegment = roadSegment.laneSegment(currentLane);
-        final Vehicle oldFront = currentLaneSegment.frontVehicle(me);
+        final NeighbourRef oldFront = currentLaneSegment.frontNeighbour(me, oldFrontRef);
         if (oldFront != null) {
             if (oldFront.inProcessOfLaneChange()) {
                 return prospectiveBalance;
@@ -130,9 +139,9 @@ public class MOBIL {
         // temporarily add the current vehicle to the new lane to calculate the new accelerations
         me.setLane(newLane);
         final int index = newLaneSegment.addVehicleTemp(me);
-        final double newBackNewAcc = newBack == null ? 0 : newBack.calcAccModel(newLaneSegment, null);
+        final double newBackNewAcc = newBack == null ? 0 : calcAccModel(newBack, newLaneSegment, frontRef);
         final double meNewAcc = me.calcAccModel(newLaneSegment, null);
-        newLaneSegment.removeVehicle(index);
+        newLaneSegment.removeVehicleTemp(index);
         me.setLane(currentLane);
 
         if (safetyCheckAcceleration(newBackNewAcc)) {
@@ -147,11 +156,11 @@ public class MOBIL {
 
         // old situation for old back
         // in old situation same left lane as me
-        final Vehicle oldBack = currentLaneSegment.rearVehicle(me);
-        final double oldBackOldAcc = (oldBack != null) ? oldBack.calcAccModel(currentLaneSegment, null) : 0.0;
+        final NeighbourRef oldBack = currentLaneSegment.rearNeighbour(me, oldBackRef);
+        final double oldBackOldAcc = (oldBack != null) ? calcAccModel(oldBack, currentLaneSegment, frontRef) : 0.0;
 
         // old situation for new back: just provides the actual left-lane situation
-        final double newBackOldAcc = (newBack != null) ? newBack.calcAccModel(newLaneSegment, null) : 0.0;
+        final double newBackOldAcc = (newBack != null) ? calcAccModel(newBack, newLaneSegment, frontRef) : 0.0;
 
         // new situation for new back:
         final double oldBackNewAcc;
@@ -161,8 +170,10 @@ public class MOBIL {
             // cannot temporarily remove the current vehicle from the current lane, since we are in a loop
             // that iterates over the vehicles in the current lane. So calculate oldBackNewAcc based on just
             // the front vehicle.
-            if (currentLaneSegment.frontVehicle(me) != null) { // TODO remove quickhack for avoiding nullpointer
-                oldBackNewAcc = oldBack.getLongitudinalModel().calcAcc(oldBack, currentLaneSegment.frontVehicle(me));
+            if (oldFront != null) { // TODO remove quickhack for avoiding nullpointer
+                // front vehicle in the coordinates of the old back vehicle
+                oldFront.shift(-oldBack.positionOffset());
+                oldBackNewAcc = oldBack.vehicle().getLongitudinalModel().calcAcc(oldBack.vehicle(), oldFront);
             } else {
                 oldBackNewAcc = 0.0;
             }
@@ -218,10 +229,10 @@ public class MOBIL {
 
             final LaneSegment laneSegmentPlus = roadSegment.laneSegment(lanePlus);
             final LaneSegment laneSegmentMinus = roadSegment.laneSegment(laneMinus);
-            final Vehicle frontPlus = laneSegmentPlus.frontVehicle(me);
-            final Vehicle rearPlus = laneSegmentPlus.rearVehicle(me);
-            final Vehicle frontMinus = laneSegmentMinus.frontVehicle(me);
-            final Vehicle rearMinus = laneSegmentMinus.rearVehicle(me);
+            final NeighbourRef frontPlus = laneSegmentPlus.frontNeighbour(me, newFrontRef);
+            final NeighbourRef rearPlus = laneSegmentPlus.rearNeighbour(me, newBackRef);
+            final NeighbourRef frontMinus = laneSegmentMinus.frontNeighbour(me, oldFrontRef);
+            final NeighbourRef rearMinus = laneSegmentMinus.rearNeighbour(me, oldBackRef);
             if ((frontPlus == null) || (frontMinus == null) || (rearPlus == null) || (rearMinus == null)) {
                 return prospectiveBalance;
             }
@@ -267,6 +278,32 @@ public class MOBIL {
         return prospectiveBalance;
     }
 
+    /**
+     * Calculates the model acceleration of the referenced vehicle in the given lane segment. A vehicle located on an upstream road
+     * segment is considered at its position relative to the lane segment.
+     * 
+     * @param vehicle
+     * @param laneSegment
+     * @param frontRef
+     *            reusable reference for the front vehicle lookup
+     * @return the model acceleration
+     */
+    static double calcAccModel(NeighbourRef vehicle, LaneSegment laneSegment, NeighbourRef frontRef) {
+        if (!vehicle.isOnOtherSegment()) {
+            return vehicle.vehicle().calcAccModel(laneSegment, null);
+        }
+        final LongitudinalModelBase longitudinalModel = vehicle.vehicle().getLongitudinalModel();
+        if (longitudinalModel == null) {
+            return 0.0;
+        }
+        final NeighbourRef frontVehicle = laneSegment.frontNeighbour(vehicle.getRearPosition(), frontRef);
+        if (frontVehicle != null) {
+            // front vehicle in the coordinates of the vehicle's own road segment
+            frontVehicle.shift(-vehicle.positionOffset());
+        }
+        return longitudinalModel.calcAcc(vehicle.vehicle(), frontVehicle, 1.0, 1.0, 1.0);
+    }
+
     public ModelParameterMOBIL getParameter() {
         // remark: returned object is not immutable
         return param;
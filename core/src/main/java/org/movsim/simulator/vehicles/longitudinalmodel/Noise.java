@@ -26,7 +26,7 @@
 package org.movsim.simulator.vehicles.longitudinalmodel;
 
 import org.movsim.autogen.NoiseParameter;
-import org.movsim.utilities.MyRandom;
+import org.movsim.utilities.RandomStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -83,10 +83,12 @@ public class Noise {
      * 
      * @param dt
      *            simulation time interval, seconds
+     * @param random
+     *            the random stream of the vehicle
      */
-    public void update(double dt) {
+    public void update(double dt, RandomStream random) {
 
-        final double randomMu0Sigma1 = getUniformlyDistributedRealization();
+        final double randomMu0Sigma1 = getUniformlyDistributedRealization(random);
 
         if (isWienerProcess) {
             final double betaAcc = Math.exp(-dt / tauRelaxAcc);
@@ -105,8 +107,8 @@ public class Noise {
      * 
      * @return random variable realization
      */
-    private static double getUniformlyDistributedRealization() {
-        final double randomVar = MyRandom.nextDouble();
+    private static double getUniformlyDistributedRealization(RandomStream random) {
+        final double randomVar = random.nextDouble();
         final double randomMu0Sigma1 = SQRT12 * (randomVar - 0.5);
         return randomMu0Sigma1;
     }
@@ -31,6 +31,7 @@ import java.util.LinkedList;
 
 import org.movsim.autogen.TrafficLightStatus;
 import org.movsim.simulator.MovsimConstants;
+import org.movsim.simulator.roadnetwork.NeighbourRef;
 import org.movsim.simulator.roadnetwork.RoadSegment;
 import org.movsim.simulator.roadnetwork.controller.TrafficLight;
 import org.movsim.simulator.vehicles.Vehicle;
@@ -200,12 +201,15 @@ public class TrafficLightApproaching {
     private static double calcEffectiveFrontVehicleLengths(Vehicle me, TrafficLight trafficLight,
             double distanceToSecondTrafficlight) {
         double sumEffectiveLengths = 0;
-        Vehicle frontVehicle = trafficLight.roadSegment().laneSegment(me.lane()).frontVehicle(me);
-        while (frontVehicle != null && me.getBrutDistance(frontVehicle) < distanceToSecondTrafficlight) {
-            sumEffectiveLengths += frontVehicle.getEffectiveLength();
-            Vehicle prevFront = frontVehicle;
-            frontVehicle = trafficLight.roadSegment().laneSegment(frontVehicle.lane()).frontVehicle(frontVehicle);
-            if (frontVehicle != null && prevFront.getId() == frontVehicle.getId()) {
+        final NeighbourRef frontRef = new NeighbourRef();
+        NeighbourRef frontVehicle = trafficLight.roadSegment().laneSegment(me.lane()).frontNeighbour(me, frontRef);
+        while (frontVehicle != null
+                && frontVehicle.getFrontPosition() - me.getFrontPosition() < distanceToSecondTrafficlight) {
+            sumEffectiveLengths += frontVehicle.vehicle().getEffectiveLength();
+            final long prevFrontId = frontVehicle.getId();
+            frontVehicle = trafficLight.roadSegment().laneSegment(frontVehicle.lane())
+                    .frontNeighbour(frontVehicle.getRearPosition(), frontRef);
+            if (frontVehicle != null && prevFrontId == frontVehicle.getId()) {
                 // FIXME seems to be a real bug: get back the *same* vehicle when its entered the downstream roadsegment
                 break;
             }
@@ -1,5 +1,6 @@
 package org.movsim.simulator.vehicles.longitudinalmodel.acceleration;
 
+import org.movsim.simulator.roadnetwork.NeighbourRef;
 import org.movsim.simulator.vehicles.Vehicle;
 import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.parameter.IModelParameterCCS;
 import org.slf4j.Logger;
@@ -61,7 +62,7 @@ public class CCS extends LongitudinalModelBase {
     }
 
     @Override
-    public double calcAcc(Vehicle me, final Vehicle frontVehicle) {
+    public double calcAcc(Vehicle me, final NeighbourRef frontVehicle) {
         // Local dynamical variables
         final double s = me.getNetDistance(frontVehicle);
         final double v = me.getSpeed();
@@ -109,7 +110,7 @@ public class CCS extends LongitudinalModelBase {
     }
 
     @Override
-    public double calcAcc(Vehicle me, Vehicle frontVehicle, double alphaT, double alphaV0, double alphaA) {
+    public double calcAcc(Vehicle me, NeighbourRef frontVehicle, double alphaT, double alphaV0, double alphaA) {
         // wave start hack 300 = 1min
         if (wave == Waves.FOURWAVES) {
             if ((me.roadSegmentId() <= 7 && counter < 1500) || (me.roadSegmentId() <= 5 && counter < 3000)
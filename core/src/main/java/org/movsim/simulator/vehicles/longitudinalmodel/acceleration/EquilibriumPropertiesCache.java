@@ -0,0 +1,202 @@
+package org.movsim.simulator.vehicles.longitudinalmodel.acceleration;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * <p>
+ * On-disk cache of the equilibrium speed tables calculated by {@link EquilibriumPropertiesImpl}. The relaxation is only
+ * done once for a model with given parameters, later starts read the table from the cache directory.
+ * </p>
+ * <p>
+ * A table is stored in its own file named by the hash of the model name, the model parameters, the vehicle length and the
+ * simulation timestep. Files are written to a temporary file first and then moved, so concurrent simulations (e.g. of a
+ * parameter scan) may share a cache directory. A file that cannot be read is ignored and the table is calculated again.
+ * </p>
+ */
+public final class EquilibriumPropertiesCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EquilibriumPropertiesCache.class);
+
+    /** Version of the cached tables, to be incremented when the relaxation in EquilibriumPropertiesImpl changes. */
+    private static final int VERSION = 1;
+
+    private static final String FILE_PREFIX = "equilibrium-";
+
+    private static final String FILE_EXTENSION = ".bin";
+
+    private static final Comparator<Field> BY_NAME = new Comparator<Field>() {
+        @Override
+        public int compare(Field o1, Field o2) {
+            return o1.getName().compareTo(o2.getName());
+        }
+    };
+
+    private final File directory;
+
+    /**
+     * Constructor.
+     *
+     * @param directory
+     *            the cache directory, created when the first table is stored
+     */
+    public EquilibriumPropertiesCache(File directory) {
+        this.directory = Preconditions.checkNotNull(directory);
+    }
+
+    /**
+     * Returns the equilibrium properties of the model, from the cache if the table has been calculated before.
+     *
+     * @param vehicleLength
+     * @param model
+     * @param simulationTimestep
+     *            the simulation timestep, used by the discrete-time models
+     * @return the equilibrium properties
+     */
+    public EquilibriumProperties get(double vehicleLength, LongitudinalModelBase model, double simulationTimestep) {
+        if (!model.hasDesiredSpeed()) {
+            return new EquilibriumPropertiesImpl(vehicleLength, model);
+        }
+        final File file = new File(directory, FILE_PREFIX + key(vehicleLength, model, simulationTimestep)
+                + FILE_EXTENSION);
+        final double[] vEqTab = read(file);
+        if (vEqTab != null) {
+            LOG.info("read equilibrium properties of model={} from cache file={}", model.modelName(), file);
+            return new EquilibriumPropertiesImpl(vehicleLength, vEqTab);
+        }
+        final EquilibriumPropertiesImpl equilibriumProperties = new EquilibriumPropertiesImpl(vehicleLength, model);
+        write(file, equilibriumProperties.getVEqTable());
+        return equilibriumProperties;
+    }
+
+    private static double[] read(File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != VERSION || in.readInt() != EquilibriumPropertiesImpl.NRHO) {
+                LOG.warn("ignore outdated equilibrium cache file={}", file);
+                return null;
+            }
+            final double[] vEqTab = new double[EquilibriumPropertiesImpl.NRHO];
+            for (int i = 0; i < vEqTab.length; i++) {
+                vEqTab[i] = in.readDouble();
+            }
+            return vEqTab;
+        } catch (IOException e) {
+            LOG.warn("cannot read equilibrium cache file={}: {}", file, e.toString());
+            return null;
+        }
+    }
+
+    private void write(File file, double[] vEqTab) {
+        File tmpFile = null;
+        try {
+            if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+                throw new IOException("cannot create directory " + directory);
+            }
+            tmpFile = File.createTempFile(FILE_PREFIX, ".tmp", directory);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+                out.writeInt(VERSION);
+                out.writeInt(vEqTab.length);
+                for (double vEq : vEqTab) {
+                    out.writeDouble(vEq);
+                }
+            }
+            Files.move(tmpFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            LOG.warn("cannot write equilibrium cache file={}: {}", file, e.toString());
+            if (tmpFile != null) {
+                tmpFile.delete();
+            }
+        }
+    }
+
+    /**
+     * Returns the hash of everything the equilibrium speed table depends on.
+     */
+    static String key(double vehicleLength, LongitudinalModelBase model, double simulationTimestep) {
+        final StringBuilder sb = new StringBuilder();
+        sb.append(VERSION).append('|').append(EquilibriumPropertiesImpl.NRHO).append('|').append(model.modelName())
+                .append('|').append(vehicleLength).append('|').append(simulationTimestep).append('|');
+        appendCanonical(sb, model.getParameter());
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-1").digest(
+                    sb.toString().getBytes(StandardCharsets.UTF_8));
+            final StringBuilder hex = new StringBuilder(2 * digest.length);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Appends the values of all fields of the (generated) parameter bean, the beans have neither equals nor toString.
+     */
+    private static void appendCanonical(StringBuilder sb, Object value) {
+        if (value == null || value instanceof Number || value instanceof Boolean || value instanceof String
+                || value instanceof Enum) {
+            sb.append(value);
+        } else if (value instanceof Iterable) {
+            sb.append('[');
+            for (Object element : (Iterable<?>) value) {
+                appendCanonical(sb, element);
+                sb.append(',');
+            }
+            sb.append(']');
+        } else {
+            sb.append(value.getClass().getName()).append('{');
+            try {
+                for (Field field : fields(value.getClass())) {
+                    sb.append(field.getName()).append('=');
+                    appendCanonical(sb, field.get(value));
+                    sb.append(';');
+                }
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+            sb.append('}');
+        }
+    }
+
+    private static List<Field> fields(Class<?> beanClass) {
+        final List<Field> fields = new ArrayList<>();
+        for (Class<?> c = beanClass; c != null && c != Object.class; c = c.getSuperclass()) {
+            final List<Field> declaredFields = new ArrayList<>();
+            for (Field field : c.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers())) {
+                    field.setAccessible(true);
+                    declaredFields.add(field);
+                }
+            }
+            Collections.sort(declaredFields, BY_NAME);
+            fields.addAll(declaredFields);
+        }
+        return fields;
+    }
+}
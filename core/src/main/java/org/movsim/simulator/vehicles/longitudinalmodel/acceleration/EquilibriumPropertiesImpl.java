@@ -25,6 +25,9 @@
  */
 package org.movsim.simulator.vehicles.longitudinalmodel.acceleration;
 
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
 import org.movsim.autogen.ModelParameterOVMFVDM;
 import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.LongitudinalModelBase.ModelName;
 import org.movsim.utilities.LinearInterpolatedFunction;
@@ -44,7 +47,7 @@ public class EquilibriumPropertiesImpl implements EquilibriumProperties {
     private static final Logger LOG = LoggerFactory.getLogger(EquilibriumPropertiesImpl.class);
 
     /** Discretization steps for tabulated function. Time-critical. */
-    private static final int NRHO = 51;
+    static final int NRHO = 51;
 
     /** The maximum density */
     private final double rhoMax;
@@ -55,16 +58,38 @@ public class EquilibriumPropertiesImpl implements EquilibriumProperties {
     /** The density at maximum flow */
     double rhoQMax = 0;
 
+    /** The equilibrium speeds at the densities {@link #getRho(int)}, null if the model has no desired speed. */
+    @CheckForNull
+    private final double[] vEqTab;
+
     private final LinearInterpolatedFunction vEqFunction;
 
     public EquilibriumPropertiesImpl(double vehicleLength, LongitudinalModelBase model) {
+        this(vehicleLength, Preconditions.checkNotNull(model), null);
+    }
+
+    /**
+     * Creates the equilibrium properties from an equilibrium speed table calculated before, see {@link #getVEqTable()}.
+     */
+    EquilibriumPropertiesImpl(double vehicleLength, double[] vEqTab) {
+        this(vehicleLength, null, Preconditions.checkNotNull(vEqTab));
+    }
+
+    private EquilibriumPropertiesImpl(double vehicleLength, @Nullable LongitudinalModelBase model,
+            @Nullable double[] vEqTab) {
         this.rhoMax = 1.0 / Math.max(vehicleLength, TINY_VALUE);
         if (vehicleLength < TINY_VALUE) {
             LOG.warn("vehicle length is artifically small={}, asume finite length {}", vehicleLength, TINY_VALUE);
         }
 
-        if (model.hasDesiredSpeed()) {
-            vEqFunction = calcEquilibriumSpeedFunction(model);
+        this.vEqTab = vEqTab == null && model.hasDesiredSpeed() ? calcEquilibriumSpeedTable(model) : vEqTab;
+        if (this.vEqTab != null) {
+            Preconditions.checkArgument(this.vEqTab.length == NRHO, "expected " + NRHO + " equilibrium speeds");
+            double[] rhoTab = new double[NRHO];
+            for (int ir = 0; ir < NRHO; ir++) {
+                rhoTab[ir] = getRho(ir);
+            }
+            vEqFunction = new LinearInterpolatedFunction(rhoTab, this.vEqTab.clone());
             calcRhoQMax();
         } else {
             double[] xDummy = new double[] { 0 };
@@ -108,6 +133,16 @@ public class EquilibriumPropertiesImpl implements EquilibriumProperties {
         return vEqFunction.getNumberOfDataPoints();
     }
 
+    /**
+     * Returns the equilibrium speeds at the densities {@link #getRho(int)}.
+     * 
+     * @return the equilibrium speeds, null if the model has no desired speed
+     */
+    @CheckForNull
+    double[] getVEqTable() {
+        return vEqTab == null ? null : vEqTab.clone();
+    }
+
     /**
      * Calculates equilibrium velocity {@literal vEq} as a function of the density {@literal rho}.
      * 
@@ -116,7 +151,7 @@ public class EquilibriumPropertiesImpl implements EquilibriumProperties {
      * arbitrary vehicle.
      * 
      */
-    private LinearInterpolatedFunction calcEquilibriumSpeedFunction(LongitudinalModelBase model) {
+    private double[] calcEquilibriumSpeedTable(LongitudinalModelBase model) {
         LOG.info("calc equilibrium speed as function of density for model={}", model.modelName());
         if (!model.hasDesiredSpeed()) {
             throw new IllegalArgumentException("longitudinal model " + model.modelName()
@@ -140,10 +175,8 @@ public class EquilibriumPropertiesImpl implements EquilibriumProperties {
         }
 
         double[] vEqTab = new double[NRHO];
-        double[] rhoTab = new double[NRHO];
 
         vEqTab[0] = v0; // start with rho=0
-        rhoTab[0] = 0;
         for (int ir = 1; ir < vEqTab.length; ir++) {
             // final double rho = rhoMax * ir / vEqTab.length;
             final double rho = getRho(ir);
@@ -161,10 +194,9 @@ public class EquilibriumPropertiesImpl implements EquilibriumProperties {
                 }
             }
             vEqTab[ir] = vIteration;
-            rhoTab[ir] = rho;
         }
 
-        return new LinearInterpolatedFunction(rhoTab, vEqTab);
+        return vEqTab;
     }
 
     // calculate Qmax, and abscissa rhoQmax from veqtab
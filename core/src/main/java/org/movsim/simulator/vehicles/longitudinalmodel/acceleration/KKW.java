@@ -26,9 +26,10 @@
 package org.movsim.simulator.vehicles.longitudinalmodel.acceleration;
 
 import org.movsim.autogen.DistributionTypeEnum;
+import org.movsim.simulator.roadnetwork.NeighbourRef;
 import org.movsim.simulator.vehicles.Vehicle;
 import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.parameter.IModelParameterKKW;
-import org.movsim.utilities.MyRandom;
+import org.movsim.utilities.RandomStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -73,7 +74,8 @@ class KKW extends LongitudinalModelBase {
     }
 
     @Override
-    public void setRelativeRandomizationV0(double relRandomizationFactor, DistributionTypeEnum distributionType) {
+    public void setRelativeRandomizationV0(double relRandomizationFactor, DistributionTypeEnum distributionType,
+            RandomStream random) {
         // no modification of desired speed by randomization.
     }
 
@@ -83,18 +85,18 @@ class KKW extends LongitudinalModelBase {
     }
 
     @Override
-    public double calcAcc(Vehicle me, Vehicle frontVehicle, double alphaT, double alphaV0, double alphaA) {
+    public double calcAcc(Vehicle me, NeighbourRef frontVehicle, double alphaT, double alphaV0, double alphaA) {
         // Local dynamical variables
         final double s = me.getNetDistance(frontVehicle);
         final double v = me.getSpeed();
         final double dv = me.getRelSpeed(frontVehicle);
 
-        return acc(s, v, dv, alphaT, alphaV0);
+        return acc(s, v, dv, alphaT, alphaV0, me.random());
     }
 
     @Override
     public double calcAccSimple(double s, double v, double dv) {
-        return acc(s, v, dv, 1.0, 1.0);
+        return acc(s, v, dv, 1.0, 1.0, randomStream());
     }
 
     /**
@@ -110,9 +112,11 @@ class KKW extends LongitudinalModelBase {
      *            the alpha t
      * @param alphaV0
      *            the alpha v0
+     * @param random
+     *            the random stream
      * @return the double
      */
-    private double acc(double s, double v, double dv, double alphaT, double alphaV0) {
+    private double acc(double s, double v, double dv, double alphaT, double alphaV0, RandomStream random) {
 
         final int v0Loc = (int) (alphaV0 * getDesiredSpeed() + 0.5); // adapt v0 spatially
         final int vLoc = (int) (v + 0.5);
@@ -134,7 +138,7 @@ class KKW extends LongitudinalModelBase {
         vtilde = Math.max(0, vtilde);
 
         // stochastic part
-        final double r1 = MyRandom.nextDouble(); // noise terms ~ G(0,1)
+        final double r1 = random.nextDouble(); // noise terms ~ G(0,1)
         final int xi = (r1 < pb) ? -1 : (r1 < pb + pa) ? 1 : 0;
 
         int vNew = 0;
@@ -25,9 +25,10 @@
  */
 package org.movsim.simulator.vehicles.longitudinalmodel.acceleration;
 
+import org.movsim.simulator.roadnetwork.NeighbourRef;
 import org.movsim.simulator.vehicles.Vehicle;
 import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.parameter.IModelParameterKrauss;
-import org.movsim.utilities.MyRandom;
+import org.movsim.utilities.RandomStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -69,7 +70,7 @@ class Krauss extends LongitudinalModelBase {
     }
 
     @Override
-    public double calcAcc(Vehicle me, Vehicle frontVehicle, double alphaT, double alphaV0, double alphaA) {
+    public double calcAcc(Vehicle me, NeighbourRef frontVehicle, double alphaT, double alphaV0, double alphaA) {
         final double s = me.getNetDistance(frontVehicle);
         final double v = me.getSpeed();
         final double dv = me.getRelSpeed(frontVehicle);
@@ -77,12 +78,12 @@ class Krauss extends LongitudinalModelBase {
         final double localT = alphaT * T;
         final double localV0 = Math.min(alphaV0 * getDesiredSpeed(), me.getEffectiveSpeedlimit());
 
-        return acc(s, v, dv, localT, localV0);
+        return acc(s, v, dv, localT, localV0, me.random());
     }
 
     @Override
     public double calcAccSimple(double s, double v, double dv) {
-        return acc(s, v, dv, T, getDesiredSpeed());
+        return acc(s, v, dv, T, getDesiredSpeed(), randomStream());
     }
 
     /**
@@ -100,9 +101,11 @@ class Krauss extends LongitudinalModelBase {
      * @param v0Local
      *            the v0 local
      * 
+     * @param random
+     *            the random stream
      * @return the double
      */
-    private double acc(double s, double v, double dv, double TLocal, double v0Local) {
+    private double acc(double s, double v, double dv, double TLocal, double v0Local, RandomStream random) {
         final double vp = v - dv;
         /**
          * safe speed; complicated formula in PRE 55, 5601 (1997) is essentially the vSafe formula for the simple Gipps
@@ -127,7 +130,7 @@ class Krauss extends LongitudinalModelBase {
          * recognized/treated in the PRE publication
          */
         final double vLower = (1 - param.getEpsilon()) * vUpper + param.getEpsilon() * Math.max(0, (v - b * TLocal));
-        final double r = MyRandom.nextDouble(); // instance of uniform(0,1) distribution
+        final double r = random.nextDouble(); // instance of uniform(0,1) distribution
         final double vNew = vLower + r * (vUpper - vLower);
         final double aWanted = (vNew - v) / TLocal;
 
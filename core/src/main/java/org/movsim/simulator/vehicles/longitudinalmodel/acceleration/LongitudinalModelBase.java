@@ -27,9 +27,11 @@ package org.movsim.simulator.vehicles.longitudinalmodel.acceleration;
 
 import org.movsim.autogen.DistributionTypeEnum;
 import org.movsim.simulator.roadnetwork.LaneSegment;
+import org.movsim.simulator.roadnetwork.NeighbourRef;
 import org.movsim.simulator.vehicles.Vehicle;
 import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.parameter.IModelParameter;
 import org.movsim.utilities.MyRandom;
+import org.movsim.utilities.RandomStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -104,6 +106,13 @@ public abstract class LongitudinalModelBase {
     private final double scalingLength;
     protected double v0RandomizationFactor = 1;
 
+    /** reusable references for the front vehicle lookups, models are not shared between vehicles */
+    private final NeighbourRef frontVehicleRef = new NeighbourRef();
+    private final NeighbourRef frontVehicleLeftRef = new NeighbourRef();
+
+    /** random stream of stochastic models evaluated without a vehicle, created on demand */
+    private RandomStream randomStream;
+
     protected LongitudinalModelBase(ModelName modelName) {
         this.modelName = modelName;
         this.scalingLength = ScalingHelper.getScalingLength(modelName);
@@ -207,18 +216,34 @@ public abstract class LongitudinalModelBase {
      * 
      * @param relRandomizationFactor
      *            the new relative randomization v0
+     * @param random
+     *            the random stream of the vehicle
      */
-    public void setRelativeRandomizationV0(double relRandomizationFactor, DistributionTypeEnum distributionType) {
+    public void setRelativeRandomizationV0(double relRandomizationFactor, DistributionTypeEnum distributionType,
+            RandomStream random) {
         if (distributionType == DistributionTypeEnum.GAUSSIAN) {
-            v0RandomizationFactor = MyRandom.getGaussiansDistributedRandomizedFactor(relRandomizationFactor, 3);
+            v0RandomizationFactor = random.getGaussiansDistributedRandomizedFactor(relRandomizationFactor, 3);
         } else {
-            v0RandomizationFactor = MyRandom.getUniformlyDistributedRandomizedFactor(relRandomizationFactor);
+            v0RandomizationFactor = random.getUniformlyDistributedRandomizedFactor(relRandomizationFactor);
         }
         Preconditions.checkArgument(v0RandomizationFactor > 0, "relative v0 randomization factor must be > 0");
         LOG.debug("randomization (of type={}) of desired speeds with randomization factor=", distributionType,
                 v0RandomizationFactor);
     }
 
+    /**
+     * Returns the random stream for stochastic models if the acceleration is not calculated for a vehicle, see
+     * {@link #calcAccSimple(double, double, double)}.
+     * 
+     * @return the random stream of this model
+     */
+    protected RandomStream randomStream() {
+        if (randomStream == null) {
+            randomStream = MyRandom.newStream("accelerationModel", modelName.ordinal());
+        }
+        return randomStream;
+    }
+
     final static double calcSmoothFraction(double speedMe, double speedFront) {
         final double widthDeltaSpeed = 1; // parameter
         double x = 0; // limiting case: consider only acceleration in vehicle's lane
@@ -253,7 +278,7 @@ public abstract class LongitudinalModelBase {
         }
 
         // check left-vehicle's speed
-        final Vehicle newFrontLeft = leftLaneSegment.frontVehicle(me);
+        final NeighbourRef newFrontLeft = leftLaneSegment.frontNeighbour(me, frontVehicleLeftRef);
         if (newFrontLeft == null) {
             return accInOwnLane;
         }
@@ -292,7 +317,7 @@ public abstract class LongitudinalModelBase {
     public double calcAcc(Vehicle me, LaneSegment laneSegment, double alphaT, double alphaV0, double alphaA) {
         // By default only consider the vehicle in front when calculating acceleration.
         // LDMs that consider more than the front vehicle should override this method.
-        final Vehicle frontVehicle = laneSegment.frontVehicle(me);
+        final NeighbourRef frontVehicle = laneSegment.frontNeighbour(me, frontVehicleRef);
         return calcAcc(me, frontVehicle, alphaT, alphaV0, alphaA);
     }
 
@@ -306,7 +331,7 @@ public abstract class LongitudinalModelBase {
      * @param alphaA
      * @return the calculated acceleration
      */
-    public abstract double calcAcc(Vehicle me, Vehicle frontVehicle, double alphaT, double alphaV0, double alphaA);
+    public abstract double calcAcc(Vehicle me, NeighbourRef frontVehicle, double alphaT, double alphaV0, double alphaA);
 
     /**
      * Calculates the acceleration of vehicle me.
@@ -315,10 +340,22 @@ public abstract class LongitudinalModelBase {
      * @param frontVehicle
      * @return the calculated acceleration
      */
-    public double calcAcc(Vehicle me, Vehicle frontVehicle) {
+    public double calcAcc(Vehicle me, NeighbourRef frontVehicle) {
         return calcAcc(me, frontVehicle, 1.0, 1.0, 1.0);
     }
 
+    /**
+     * Calculates the acceleration of vehicle me.
+     * 
+     * @param me
+     * @param frontVehicle
+     *            the front vehicle, positioned in the coordinates of vehicle me
+     * @return the calculated acceleration
+     */
+    public double calcAcc(Vehicle me, Vehicle frontVehicle) {
+        return calcAcc(me, frontVehicle == null ? null : new NeighbourRef().set(frontVehicle));
+    }
+
     /**
      * Calculates the vehicular acceleration.
      * 
@@ -26,9 +26,10 @@
 package org.movsim.simulator.vehicles.longitudinalmodel.acceleration;
 
 import org.movsim.autogen.DistributionTypeEnum;
+import org.movsim.simulator.roadnetwork.NeighbourRef;
 import org.movsim.simulator.vehicles.Vehicle;
 import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.parameter.IModelParameterNSM;
-import org.movsim.utilities.MyRandom;
+import org.movsim.utilities.RandomStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -59,7 +60,8 @@ class NSM extends LongitudinalModelBase {
     }
 
     @Override
-    public void setRelativeRandomizationV0(double relRandomizationFactor, DistributionTypeEnum distributionType) {
+    public void setRelativeRandomizationV0(double relRandomizationFactor, DistributionTypeEnum distributionType,
+            RandomStream random) {
         // no modification of desired speed by randomization.
     }
 
@@ -69,7 +71,7 @@ class NSM extends LongitudinalModelBase {
     }
 
     @Override
-    public double calcAcc(Vehicle me, Vehicle frontVehicle, double alphaT, double alphaV0, double alphaA) {
+    public double calcAcc(Vehicle me, NeighbourRef frontVehicle, double alphaT, double alphaV0, double alphaA) {
         // local dynamical variables
         final double s = me.getNetDistance(frontVehicle);
         final double v = me.getSpeed();
@@ -85,12 +87,12 @@ class NSM extends LongitudinalModelBase {
             }
         }
 
-        return acc(s, v, dv, localV0);
+        return acc(s, v, dv, localV0, me.random());
     }
 
     @Override
     public double calcAccSimple(double s, double v, double dv) {
-        return acc(s, v, dv, getDesiredSpeed());
+        return acc(s, v, dv, getDesiredSpeed(), randomStream());
     }
 
     /**
@@ -106,14 +108,16 @@ class NSM extends LongitudinalModelBase {
      *            the local T
      * @param localV0
      *            the local v0
+     * @param random
+     *            the random stream
      * @return the double
      */
-    private double acc(double s, double v, double dv, double localV0) {
+    private double acc(double s, double v, double dv, double localV0, RandomStream random) {
         final int localIntegerV0 = (int) (localV0 + 0.5);
         final int vLocal = (int) (v + 0.5);
         int vNew = 0;
 
-        final double r1 = MyRandom.nextDouble();
+        final double r1 = random.nextDouble();
         final double pb = (vLocal < 1) ? param.getPSlowStart() : param.getPSlowdown();
         final int slowdown = (r1 < pb) ? 1 : 0;
 
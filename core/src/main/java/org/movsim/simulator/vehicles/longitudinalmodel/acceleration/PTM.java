@@ -1,6 +1,7 @@
 package org.movsim.simulator.vehicles.longitudinalmodel.acceleration;
 
 import org.movsim.autogen.NoiseParameter;
+import org.movsim.simulator.roadnetwork.NeighbourRef;
 import org.movsim.simulator.vehicles.Vehicle;
 import org.movsim.simulator.vehicles.longitudinalmodel.Noise;
 import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.parameter.IModelParameter;
@@ -88,7 +89,7 @@ class PTM extends LongitudinalModelBase {
     }
 
     @Override
-    public double calcAcc(Vehicle me, Vehicle frontVehicle, double alphaT, double alphaV0, double alphaA) {
+    public double calcAcc(Vehicle me, NeighbourRef frontVehicle, double alphaT, double alphaV0, double alphaA) {
         // Local dynamical variables
         final double s = me.getNetDistance(frontVehicle);
         final double v = me.getSpeed();
@@ -107,7 +108,7 @@ class PTM extends LongitudinalModelBase {
         // final double localA = alphaA * param.getA();
 
         // update dynamical variables in class scope
-        wienerProcess.update(dt);
+        wienerProcess.update(dt, me.random());
 
         return acc(s, v, dv, alphaT, localV0, 1);
     }
@@ -0,0 +1,153 @@
+package org.movsim.input.network;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.movsim.input.ProjectMetaData;
+import org.movsim.simulator.SimulationContext;
+import org.movsim.simulator.roadnetwork.LaneSegment;
+import org.movsim.simulator.roadnetwork.RoadNetwork;
+import org.movsim.simulator.roadnetwork.RoadSegment;
+import org.movsim.simulator.roadnetwork.controller.RoadObject;
+import org.movsim.simulator.vehicles.Vehicle;
+
+public class OpenDriveReaderTest {
+
+    private static final String SIM_PATH = "../sim/";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testStreamedNetworkEqualsUnmarshalledNetwork() throws Exception {
+        // junctions, trafficlights, bidirectional roads and road objects
+        assertSameNetwork("features/output/city_example.xodr");
+        assertSameNetwork("features/bidirectional/highway_intersection_unidirectional_entry_exit.xodr");
+        assertSameNetwork("features/bidirectional/ruralroad.xodr");
+        assertSameNetwork("buildingBlocks/trafficlight.xodr");
+        assertSameNetwork("buildingBlocks/onramp.xodr");
+    }
+
+    @Test
+    public void testParallelNetworkEqualsSerialNetwork() throws Exception {
+        assertSameParallelNetwork("features/output/city_example.xodr");
+        assertSameParallelNetwork("buildingBlocks/onramp.xodr");
+        assertSameParallelNetwork("buildingBlocks/trafficlight.xodr");
+        // entrance lanes with obstacles
+        assertSameParallelNetwork("features/regulators/regulator.xodr");
+    }
+
+    @Test
+    public void testCompiledNetworkEqualsStreamedNetwork() throws Exception {
+        assertSameCompiledNetwork("features/output/city_example.xodr");
+        assertSameCompiledNetwork("features/bidirectional/ruralroad.xodr");
+        assertSameCompiledNetwork("buildingBlocks/trafficlight.xodr");
+    }
+
+    @Test
+    public void testOutdatedCompiledNetworkIsIgnored() throws Exception {
+        final File file = copyToFolder("buildingBlocks/onramp.xodr");
+        final File compiledFile = CompiledNetwork.compile(file);
+        try (FileWriter writer = new FileWriter(file, true)) {
+            writer.write("\n<!-- modified -->\n");
+        }
+        assertTrue(compiledFile.exists());
+        final RoadNetwork roadNetwork = new RoadNetwork();
+        assertFalse(CompiledNetwork.read(file, new OpenDriveHandler(new SimulationContext(new ProjectMetaData()),
+                roadNetwork)));
+        assertEquals(0, roadNetwork.size());
+
+        final RoadNetwork loaded = new RoadNetwork();
+        assertTrue(OpenDriveReader.loadRoadNetwork(new SimulationContext(new ProjectMetaData()), loaded, file));
+        final RoadNetwork unmarshalled = new RoadNetwork();
+        assertTrue(OpenDriveHandler.loadRoadNetwork(new SimulationContext(new ProjectMetaData()), unmarshalled, file));
+        assertEquals(describe(unmarshalled), describe(loaded));
+    }
+
+    private void assertSameCompiledNetwork(String filename) throws Exception {
+        final File file = copyToFolder(filename);
+        final RoadNetwork streamed = new RoadNetwork();
+        assertTrue(OpenDriveReader.loadRoadNetwork(new SimulationContext(new ProjectMetaData()), streamed, file));
+
+        assertTrue(CompiledNetwork.compile(file).exists());
+        final RoadNetwork compiled = new RoadNetwork();
+        final OpenDriveHandler handler = new OpenDriveHandler(new SimulationContext(new ProjectMetaData()), compiled);
+        assertTrue(CompiledNetwork.read(file, handler));
+        assertTrue(handler.finish());
+
+        assertEquals(filename, describe(streamed), describe(compiled));
+    }
+
+    private static void assertSameParallelNetwork(String filename) throws Exception {
+        final File file = new File(SIM_PATH + filename);
+        final RoadNetwork serial = new RoadNetwork();
+        assertTrue(OpenDriveReader.loadRoadNetwork(new SimulationContext(new ProjectMetaData()), serial, file));
+        final ProjectMetaData projectMetaData = new ProjectMetaData();
+        projectMetaData.setParallelism(4);
+        final RoadNetwork parallel = new RoadNetwork();
+        assertTrue(OpenDriveReader.loadRoadNetwork(new SimulationContext(projectMetaData), parallel, file));
+
+        assertEquals(filename, describe(serial), describe(parallel));
+    }
+
+    private File copyToFolder(String filename) throws IOException {
+        final File source = new File(SIM_PATH + filename);
+        final File copy = new File(folder.getRoot(), source.getName());
+        Files.copy(source.toPath(), copy.toPath());
+        return copy;
+    }
+
+    private static void assertSameNetwork(String filename) throws Exception {
+        final File file = new File(SIM_PATH + filename);
+        assertTrue(file.getAbsolutePath(), file.exists());
+
+        final RoadNetwork unmarshalled = new RoadNetwork();
+        assertTrue(OpenDriveHandler.loadRoadNetwork(new SimulationContext(new ProjectMetaData()), unmarshalled, file));
+        final RoadNetwork streamed = new RoadNetwork();
+        assertTrue(OpenDriveReader.loadRoadNetwork(new SimulationContext(new ProjectMetaData()), streamed, file));
+
+        assertEquals(filename, describe(unmarshalled), describe(streamed));
+    }
+
+    private static String describe(RoadNetwork roadNetwork) {
+        final StringBuilder sb = new StringBuilder();
+        for (RoadSegment roadSegment : roadNetwork) {
+            sb.append(roadSegment.id()).append(' ').append(roadSegment.userId()).append(' ')
+                    .append(roadSegment.roadLength()).append(' ').append(roadSegment.laneCount()).append(' ')
+                    .append(roadSegment.getFreeFlowSpeed()).append(' ').append(roadSegment.hasSink()).append(' ')
+                    .append(roadSegment.hasPeer() ? roadSegment.getPeerRoadSegment().userId() : "-").append('\n');
+            for (LaneSegment laneSegment : roadSegment.laneSegments()) {
+                sb.append("  lane ").append(laneSegment.lane()).append(' ').append(laneSegment.type()).append(' ')
+                        .append(laneSegment.obstacleCount()).append(describeVehicles(laneSegment)).append(" source=")
+                        .append(describe(laneSegment.sourceLaneSegment())).append(" sink=")
+                        .append(describe(laneSegment.sinkLaneSegment())).append('\n');
+            }
+            for (RoadObject roadObject : roadSegment.roadObjects()) {
+                sb.append("  object ").append(roadObject.getType()).append(' ').append(roadObject.position())
+                        .append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String describeVehicles(LaneSegment laneSegment) {
+        final StringBuilder sb = new StringBuilder();
+        for (Vehicle vehicle : laneSegment) {
+            sb.append(" vehicle=").append(vehicle.getId());
+        }
+        return sb.toString();
+    }
+
+    private static String describe(LaneSegment laneSegment) {
+        return laneSegment == null ? "-" : laneSegment.roadSegment().userId() + ":" + laneSegment.lane();
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ * 
+ * This file is part of
+ * 
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ * 
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ * 
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.scan;
+
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.movsim.autogen.Inflow;
+import org.movsim.autogen.Movsim;
+import org.movsim.autogen.Road;
+import org.movsim.autogen.Scenario;
+import org.movsim.autogen.Simulation;
+import org.movsim.autogen.TrafficComposition;
+import org.movsim.autogen.TrafficSourceType;
+import org.movsim.autogen.VehicleType;
+
+public class InputPathTest {
+
+    private static final double delta = 1e-9;
+
+    private Movsim movsim;
+
+    @Before
+    public void setUp() {
+        final Simulation simulation = new Simulation();
+        simulation.setTrafficComposition(new TrafficComposition());
+        for (String label : Arrays.asList("ACC1", "ACC2")) {
+            final VehicleType vehicleType = new VehicleType();
+            vehicleType.setLabel(label);
+            vehicleType.setFraction(0.5);
+            simulation.getTrafficComposition().getVehicleType().add(vehicleType);
+        }
+        for (String id : Arrays.asList("1", "2")) {
+            final Road road = new Road();
+            road.setId(id);
+            road.setTrafficSource(new TrafficSourceType());
+            road.getTrafficSource().getInflow().add(new Inflow());
+            road.getTrafficSource().getInflow().add(new Inflow());
+            simulation.getRoad().add(road);
+        }
+        final Scenario scenario = new Scenario();
+        scenario.setSimulation(simulation);
+        movsim = new Movsim();
+        movsim.setScenario(scenario);
+    }
+
+    @Test
+    public void testSetAttribute() {
+        InputPath.parse("Movsim/Scenario/Simulation/@duration").setValue(movsim, "3600");
+        assertEquals(3600, movsim.getScenario().getSimulation().getDuration(), delta);
+        InputPath.parse("Scenario/Simulation/@crash_exit").setValue(movsim, "true");
+        assertEquals(true, movsim.getScenario().getSimulation().isCrashExit());
+    }
+
+    @Test
+    public void testAttributePredicate() {
+        InputPath.parse("Scenario/Simulation/TrafficComposition/VehicleType[@label='ACC2']/@fraction").setValue(movsim,
+                "0.3");
+        final List<VehicleType> vehicleTypes = movsim.getScenario().getSimulation().getTrafficComposition()
+                .getVehicleType();
+        assertEquals(0.5, vehicleTypes.get(0).getFraction(), delta);
+        assertEquals(0.3, vehicleTypes.get(1).getFraction(), delta);
+    }
+
+    @Test
+    public void testIndexAndListSelection() {
+        InputPath.parse("Scenario/Simulation/Road[@id='2']/TrafficSource/Inflow[2]/@q_per_hour").setValue(movsim,
+                "1800");
+        InputPath.parse("Scenario/Simulation/Road/TrafficSource/Inflow[1]/@v").setValue(movsim, "20");
+        final List<Road> roads = movsim.getScenario().getSimulation().getRoad();
+        assertEquals(0, roads.get(0).getTrafficSource().getInflow().get(1).getQPerHour(), delta);
+        assertEquals(1800, roads.get(1).getTrafficSource().getInflow().get(1).getQPerHour(), delta);
+        assertEquals(20, roads.get(0).getTrafficSource().getInflow().get(0).getV(), delta);
+        assertEquals(20, roads.get(1).getTrafficSource().getInflow().get(0).getV(), delta);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoMatch() {
+        InputPath.parse("Scenario/Simulation/Road[@id='3']/TrafficSource/Inflow/@v").setValue(movsim, "20");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidValue() {
+        InputPath.parse("Scenario/Simulation/@duration").setValue(movsim, "long");
+    }
+
+    @Test
+    public void testRange() {
+        assertEquals(Arrays.asList("0", "0.1", "0.2", "0.25"),
+                ScanAxis.range(BigDecimal.ZERO, new BigDecimal("0.25"), new BigDecimal("0.1")));
+        assertEquals(Collections.singletonList("1000"),
+                ScanAxis.range(new BigDecimal("1000"), new BigDecimal("1000"), BigDecimal.ONE));
+    }
+
+    @Test
+    public void testFullFactorial() {
+        final InputPath path = InputPath.parse("Scenario/Simulation/@duration");
+        final List<ScanCase> cases = ScanCase.fullFactorial(
+                Arrays.asList(new ScanAxis("a", Arrays.asList(path), Arrays.asList("1", "2")), new ScanAxis("b",
+                        Arrays.asList(path), Arrays.asList("x", "y", "z"))), 2, 42);
+        assertEquals(12, cases.size());
+        assertEquals(Arrays.asList("1", "x"), cases.get(1).getValues());
+        assertEquals(1, cases.get(1).getReplication());
+        assertEquals(43, cases.get(1).getSeed());
+        assertEquals(Arrays.asList("2", "z"), cases.get(11).getValues());
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ * 
+ * This file is part of
+ * 
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ * 
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ * 
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.scan;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Properties;
+
+import org.junit.Test;
+
+public class ScanConfigurationTest {
+
+    private static Properties properties(String... keyValues) {
+        final Properties properties = new Properties();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            properties.setProperty(keyValues[i], keyValues[i + 1]);
+        }
+        return properties;
+    }
+
+    @Test
+    public void testFullFactorial() {
+        final ScanConfiguration configuration = ScanConfiguration.parse(properties("axis.2.path",
+                "Scenario/Simulation/@duration", "axis.2.values", "600, 1200", "axis.1.name", "inflow", "axis.1.path",
+                "Scenario/Simulation/Road/TrafficSource/Inflow/@q_per_hour", "axis.1.range", "1000, 2000, 400",
+                "replications", "3", "threads", "2"));
+        assertEquals(2, configuration.getAxes().size());
+        assertEquals("inflow", configuration.getAxes().get(0).getName());
+        assertEquals(Arrays.asList("1000", "1400", "1800", "2000"), configuration.getAxes().get(0).getValues());
+        assertEquals(Arrays.asList("600", "1200"), configuration.getAxes().get(1).getValues());
+        assertEquals(2, configuration.getThreads());
+        assertFalse(configuration.hasSeed());
+        assertFalse(configuration.hasRefinement());
+        assertEquals(4 * 2 * 3, configuration.caseCount());
+    }
+
+    @Test
+    public void testRefinement() {
+        final ScanConfiguration configuration = ScanConfiguration.parse(properties("axis.1.path",
+                "Scenario/Simulation/@duration", "axis.1.values", "600, 1200", "replications", "2", "seed", "7",
+                "refinement.tolerance", "10", "refinement.response", "totalTravelTime"));
+        assertEquals(7, configuration.getSeed());
+        assertTrue(configuration.hasRefinement());
+        final RefinementCriteria refinement = configuration.getRefinement();
+        assertEquals(ScanResponse.TOTAL_TRAVEL_TIME, refinement.getResponse());
+        assertEquals(10, refinement.getTolerance(), 0);
+        assertEquals(2, refinement.getMaxReplications());
+        assertEquals(Integer.MAX_VALUE, refinement.getBudget());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownKey() {
+        ScanConfiguration.parse(properties("axis.1.path", "Scenario/Simulation/@duration", "axis.1.values", "600",
+                "refinement.tolerence", "10"));
+    }
+}
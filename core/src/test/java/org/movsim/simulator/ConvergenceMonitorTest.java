@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ * 
+ * This file is part of
+ * 
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ * 
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ * 
+ * -----------------------------------------------------------------------------------------
+ */
+
+package org.movsim.simulator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class ConvergenceMonitorTest {
+
+    private static final double dt = 1;
+
+    /** a quantity which relaxes exponentially to 100 with the relaxation time tau */
+    private static ConvergenceMonitor.Quantity relaxation(final double tau) {
+        return new ConvergenceMonitor.Quantity() {
+            @Override
+            public String name() {
+                return "relaxation";
+            }
+
+            @Override
+            public double value(double simulationTime) {
+                return 100 * (1 - Math.exp(-simulationTime / tau));
+            }
+        };
+    }
+
+    private static double stopTime(ConvergenceMonitor monitor, double duration) {
+        monitor.reset();
+        for (double time = dt; time <= duration; time += dt) {
+            if (monitor.isSatisfied(time)) {
+                return time;
+            }
+        }
+        return Double.NaN;
+    }
+
+    @Test
+    public void testStopsAfterHoldTime() {
+        final double window = 100;
+        final double holdTime = 200;
+        final ConvergenceMonitor monitor = new ConvergenceMonitor(Arrays.asList(relaxation(100)), window, 0.01,
+                holdTime, 10);
+        final double stopTime = stopTime(monitor, 10000);
+        // the relative change of the window means is about 0.4*exp(-(t-200)/100), it falls below 1% at t=569s
+        assertTrue(stopTime >= 569 + holdTime);
+        assertTrue(stopTime < 569 + holdTime + 20);
+        assertEquals(ConvergenceMonitor.CONVERGED, monitor.reason());
+        // the monitor restarts after a reset
+        assertEquals(stopTime, stopTime(monitor, 10000), 0);
+    }
+
+    @Test
+    public void testNotConverged() {
+        final ConvergenceMonitor monitor = new ConvergenceMonitor(Arrays.asList(relaxation(10), relaxation(10000)), 100,
+                0.01, 0, 10);
+        assertTrue(Double.isNaN(stopTime(monitor, 1000)));
+        assertFalse(monitor.isSatisfied(1000));
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2010, 2011, 2012 by Arne Kesting, Martin Treiber, Ralph Germ, Martin Budden
+ * <movsim.org@gmail.com>
+ * -----------------------------------------------------------------------------------------
+ * 
+ * This file is part of
+ * 
+ * MovSim - the multi-model open-source vehicular-traffic simulator.
+ * 
+ * MovSim is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * MovSim is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with MovSim. If not, see <http://www.gnu.org/licenses/>
+ * or <http://www.movsim.org>.
+ * 
+ * -----------------------------------------------------------------------------------------
+ */
+
+
+package org.movsim.simulator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+import org.junit.Test;
+import org.movsim.input.ProjectMetaData;
+import org.movsim.simulator.roadnetwork.RoadSegment;
+import org.movsim.simulator.vehicles.Vehicle;
+
+public class SimulationContextTest {
+
+    @Test
+    public void testContextsAreIsolated() {
+        final SimulationContext first = new SimulationContext(new ProjectMetaData());
+        final SimulationContext second = new SimulationContext(new ProjectMetaData());
+        assertNotSame(first.getShutdownHooks(), second.getShutdownHooks());
+        assertNotSame(first.getRoadTypeSpeeds(), second.getRoadTypeSpeeds());
+
+        final RoadSegment roadSegment = new RoadSegment(first, 1000.0, 1);
+        assertEquals(roadSegment.id(), new RoadSegment(second, 1000.0, 1).id());
+        assertEquals(1, first.roadSegmentCount());
+
+        final Vehicle vehicle = new Vehicle(first, 0.0, 0.0, 1, 5.0, 2.0);
+        new Vehicle(first, 10.0, 0.0, 1, 5.0, 2.0);
+        assertEquals(vehicle.getId(), new Vehicle(second, 0.0, 0.0, 1, 5.0, 2.0).getId());
+        assertEquals(2, first.vehicleCount());
+        assertEquals(1, second.vehicleCount());
+    }
+
+    @Test
+    public void testRandomStreamsDependOnSeed() {
+        final SimulationContext first = new SimulationContext(new ProjectMetaData());
+        final SimulationContext second = new SimulationContext(new ProjectMetaData());
+        first.setSeed(42);
+        second.setSeed(42);
+        assertEquals(first.newRandomStream("vehicle", 1).nextLong(), second.newRandomStream("vehicle", 1).nextLong());
+    }
+}
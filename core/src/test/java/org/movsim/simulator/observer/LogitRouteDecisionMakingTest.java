@@ -0,0 +1,69 @@
+package org.movsim.simulator.observer;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Collections;
+
+import org.junit.Test;
+import org.movsim.simulator.roadnetwork.RoadSegment;
+import org.movsim.simulator.roadnetwork.routing.Route;
+
+public class LogitRouteDecisionMakingTest {
+
+    private static final double DELTA = 1e-12;
+
+    private static RouteAlternative[] createAlternatives(double... disutilities) {
+        final RouteAlternative[] alternatives = new RouteAlternative[disutilities.length];
+        for (int i = 0; i < disutilities.length; i++) {
+            alternatives[i] = new RouteAlternative(new Route("A" + i, Collections.<RoadSegment> emptyList()));
+            alternatives[i].setDisutility(disutilities[i]);
+        }
+        return alternatives;
+    }
+
+    @Test
+    public void testStochasticProbabilities() {
+        final RouteAlternative[] alternatives = createAlternatives(100, 110, 120);
+        final double[] cumulative = new double[3];
+        LogitRouteDecisionMaking.calcProbabilities(alternatives, 10, cumulative);
+        final double denom = 1 + Math.exp(-1) + Math.exp(-2);
+        assertEquals(1 / denom, alternatives[0].getProbability(), DELTA);
+        assertEquals(Math.exp(-1) / denom, alternatives[1].getProbability(), DELTA);
+        assertEquals(Math.exp(-2) / denom, alternatives[2].getProbability(), DELTA);
+        assertEquals((1 + Math.exp(-1)) / denom, cumulative[1], DELTA);
+        assertEquals(1, cumulative[2], 0);
+    }
+
+    @Test
+    public void testLargeDifferencesDoNotOverflow() {
+        final RouteAlternative[] alternatives = createAlternatives(1e6, 10);
+        final double[] cumulative = new double[2];
+        LogitRouteDecisionMaking.calcProbabilities(alternatives, 0.1, cumulative);
+        assertEquals(0, alternatives[0].getProbability(), DELTA);
+        assertEquals(1, alternatives[1].getProbability(), DELTA);
+        assertEquals(1, LogitRouteDecisionMaking.selectAlternative(cumulative, 0));
+    }
+
+    @Test
+    public void testDeterministicChoice() {
+        final RouteAlternative[] alternatives = createAlternatives(30, 10, 20);
+        final double[] cumulative = new double[3];
+        LogitRouteDecisionMaking.calcProbabilities(alternatives, 0, cumulative);
+        assertEquals(0, alternatives[0].getProbability(), 0);
+        assertEquals(1, alternatives[1].getProbability(), 0);
+        assertEquals(1, LogitRouteDecisionMaking.selectAlternative(cumulative, 0));
+        assertEquals(1, LogitRouteDecisionMaking.selectAlternative(cumulative, 0.999));
+    }
+
+    @Test
+    public void testSelectByCumulativeDistribution() {
+        final double[] cumulative = { 0.2, 0.2, 0.7, 1 };
+        assertEquals(0, LogitRouteDecisionMaking.selectAlternative(cumulative, 0));
+        assertEquals(0, LogitRouteDecisionMaking.selectAlternative(cumulative, 0.19));
+        // the second alternative has zero probability
+        assertEquals(2, LogitRouteDecisionMaking.selectAlternative(cumulative, 0.2));
+        assertEquals(2, LogitRouteDecisionMaking.selectAlternative(cumulative, 0.5));
+        assertEquals(3, LogitRouteDecisionMaking.selectAlternative(cumulative, 0.7));
+        assertEquals(3, LogitRouteDecisionMaking.selectAlternative(cumulative, 0.99));
+    }
+}
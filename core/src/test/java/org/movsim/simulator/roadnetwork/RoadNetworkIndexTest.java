@@ -0,0 +1,91 @@
+package org.movsim.simulator.roadnetwork;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+import org.movsim.autogen.LaneChangeModelType;
+import org.movsim.autogen.ModelParameterMOBIL;
+import org.movsim.simulator.vehicles.Vehicle;
+import org.movsim.simulator.vehicles.lanechange.LaneChangeModel;
+import org.movsim.simulator.vehicles.longitudinalmodel.acceleration.IDM;
+
+public class RoadNetworkIndexTest {
+
+    private static Vehicle newVehicle(double rearPosition, double speed, int lane) {
+        final Vehicle vehicle = new Vehicle(rearPosition, speed, lane, 5.0, 2.5);
+        vehicle.setLongitudinalModel(new IDM(33.0, 0.5, 3.0, 1.5, 2.0, 5.0));
+        vehicle.setSpeedlimit(80.0 / 3.6);
+        return vehicle;
+    }
+
+    private static LaneChangeModel newLaneChangeModel(Vehicle vehicle) {
+        final ModelParameterMOBIL param = new ModelParameterMOBIL();
+        param.setMinimumGap(4.0);
+        param.setSafeDeceleration(5.0);
+        param.setPoliteness(0.2);
+        param.setThresholdAcceleration(0.3);
+        param.setRightBiasAcceleration(0.1);
+        final LaneChangeModelType lcType = new LaneChangeModelType();
+        lcType.setModelParameterMOBIL(param);
+        lcType.setEuropeanRules(true);
+        lcType.setCritSpeedEur(5);
+        return new LaneChangeModel(vehicle, lcType);
+    }
+
+    @Test
+    public void testFindRoadSegments() {
+        final RoadNetwork roadNetwork = new RoadNetwork();
+        final RoadSegment r0 = new RoadSegment(1000.0, 1);
+        r0.setUserId("r0");
+        final RoadSegment r1 = new RoadSegment(1000.0, 1);
+        roadNetwork.add(r0);
+        roadNetwork.add(r1);
+
+        assertSame(r0, roadNetwork.findById(r0.id()));
+        assertSame(r1, roadNetwork.findById(r1.id()));
+        assertSame(r0, roadNetwork.findByUserId("r0"));
+        // without userId the id is used
+        assertSame(r1, roadNetwork.findByUserId(Integer.toString(r1.id())));
+
+        r1.setUserId("r1");
+        assertSame(r1, roadNetwork.findByUserId("r1"));
+        assertNull(roadNetwork.findByUserId(Integer.toString(r1.id())));
+        assertNull(roadNetwork.findByUserId("r2"));
+    }
+
+    @Test
+    public void testVehicleLocationFollowsVehicle() {
+        final RoadNetwork roadNetwork = new RoadNetwork();
+        final RoadSegment r0 = new RoadSegment(1000.0, 2);
+        final RoadSegment r1 = new RoadSegment(1000.0, 2);
+        Link.addJoin(r0, r1);
+        // vehicles added before the road segment is added to the network are indexed as well
+        final Vehicle obstacle = new Vehicle(600.0, 0.0, Lanes.LANE1, 5.0, 2.5);
+        r0.addVehicle(obstacle);
+        roadNetwork.add(r0);
+        roadNetwork.add(r1);
+        assertSame(obstacle, roadNetwork.findVehicleById(obstacle.getId()));
+
+        final Vehicle vehicle = newVehicle(593.0, 5.0, Lanes.LANE1);
+        vehicle.setLaneChangeModel(newLaneChangeModel(vehicle));
+        r0.addVehicle(vehicle);
+        assertSame(vehicle, roadNetwork.findVehicleById(vehicle.getId()));
+        assertSame(r0.laneSegment(Lanes.LANE1), roadNetwork.findLaneSegmentOfVehicle(vehicle.getId()));
+
+        // the lane change model evaluates both lanes by adding the vehicle tentatively
+        r0.makeLaneChanges(0.25, 0.0, 0);
+        assertSame(r0.laneSegment(Lanes.LANE2), roadNetwork.findLaneSegmentOfVehicle(vehicle.getId()));
+        assertSame(r0.laneSegment(Lanes.LANE1), roadNetwork.findLaneSegmentOfVehicle(obstacle.getId()));
+
+        vehicle.setRearPosition(1001.0);
+        r0.outFlow(0.25, 0.0, 0);
+        assertSame(r1.laneSegment(Lanes.LANE2), roadNetwork.findLaneSegmentOfVehicle(vehicle.getId()));
+        assertSame(vehicle, roadNetwork.findVehicleById(vehicle.getId()));
+
+        r1.clearVehicles();
+        assertNull(roadNetwork.findVehicleById(vehicle.getId()));
+        assertNull(roadNetwork.findLaneSegmentOfVehicle(vehicle.getId()));
+        assertSame(obstacle, roadNetwork.findVehicleById(obstacle.getId()));
+    }
+}
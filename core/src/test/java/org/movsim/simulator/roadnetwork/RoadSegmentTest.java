@@ -27,6 +27,10 @@
 package org.movsim.simulator.roadnetwork;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import java.util.Iterator;
 
@@ -681,6 +685,93 @@ public class RoadSegmentTest {
         assertEquals(y1.getId(), fV.getId());
     }
 
+    /**
+     * Test method for {@link org.movsim.simulator.roadnetwork.LaneSegment#frontNeighbour(double, NeighbourRef)} and
+     * {@link org.movsim.simulator.roadnetwork.LaneSegment#rearNeighbour(double, NeighbourRef)}
+     */
+    @Test
+    public final void testNeighbourRefJoin() {
+        RoadSegment.resetNextId();
+        Vehicle.resetNextId();
+
+        final RoadSegment r0 = new RoadSegment(1000.0, 1);
+        final RoadSegment r1 = new RoadSegment(200.0, 1);
+        Link.addJoin(r0, r1);
+
+        final Vehicle v1 = newVehicle(5.0, 1.0, Lanes.LANE1);
+        r1.addVehicle(v1);
+        final Vehicle v0 = newVehicle(990.0, 3.0, Lanes.LANE1);
+        r0.addVehicle(v0);
+
+        final NeighbourRef ref = new NeighbourRef();
+        NeighbourRef fV = r0.laneSegment(Lanes.LANE1).frontNeighbour(995.0, ref);
+        assertSame(ref, fV);
+        assertSame(v1, fV.vehicle());
+        assertTrue(fV.isOnOtherSegment());
+        assertEquals(1005.0, fV.getRearPosition(), delta);
+        assertEquals(v1.getFrontPosition(), fV.vehicle().getFrontPosition(), 0.0);
+        assertEquals(r0.laneSegment(Lanes.LANE1).frontVehicle(995.0).getRearPosition(), fV.getRearPosition(), 0.0);
+
+        fV = r0.laneSegment(Lanes.LANE1).frontNeighbour(985.0, ref);
+        assertSame(v0, fV.vehicle());
+        assertFalse(fV.isOnOtherSegment());
+        assertEquals(990.0, fV.getRearPosition(), delta);
+
+        final NeighbourRef rV = r1.laneSegment(Lanes.LANE1).rearNeighbour(0.0, ref);
+        assertSame(v0, rV.vehicle());
+        assertTrue(rV.isOnOtherSegment());
+        assertEquals(-10.0, rV.getRearPosition(), delta);
+        assertEquals(r1.laneSegment(Lanes.LANE1).rearVehicle(0.0).getFrontPosition(), rV.getFrontPosition(), 0.0);
+
+        assertNull(r1.laneSegment(Lanes.LANE1).frontNeighbour(10.0, ref));
+    }
+
+    /**
+     * Test method for {@link org.movsim.simulator.roadnetwork.LaneSegment#frontNeighbour(Vehicle, NeighbourRef)} and
+     * {@link org.movsim.simulator.roadnetwork.LaneSegment#rearNeighbour(Vehicle, NeighbourRef)} using the cached search in the
+     * adjacent lane
+     */
+    @Test
+    public final void testNeighbourInAdjacentLane() {
+        RoadSegment.resetNextId();
+        Vehicle.resetNextId();
+
+        final RoadSegment r0 = new RoadSegment(1000.0, 2);
+        final LaneSegment lane1 = r0.laneSegment(Lanes.LANE1);
+        final LaneSegment lane2 = r0.laneSegment(Lanes.LANE2);
+        final Vehicle v0 = newVehicle(900.0, 1.0, Lanes.LANE1);
+        r0.addVehicle(v0);
+        final Vehicle v1 = newVehicle(700.0, 1.0, Lanes.LANE1);
+        r0.addVehicle(v1);
+        final Vehicle v2 = newVehicle(500.0, 1.0, Lanes.LANE1);
+        r0.addVehicle(v2);
+        final Vehicle w0 = newVehicle(800.0, 1.0, Lanes.LANE2);
+        r0.addVehicle(w0);
+        final Vehicle w1 = newVehicle(600.0, 1.0, Lanes.LANE2);
+        r0.addVehicle(w1);
+
+        final NeighbourRef ref = new NeighbourRef();
+        for (final Vehicle vehicle : lane1) {
+            assertSame(lane1.frontVehicle(vehicle.getRearPosition()), lane1.frontVehicle(vehicle));
+        }
+        assertNull(lane2.frontNeighbour(v0, ref));
+        assertSame(w0, lane2.rearNeighbour(v0, ref).vehicle());
+        assertSame(w0, lane2.frontNeighbour(v1, ref).vehicle());
+        assertSame(w1, lane2.rearNeighbour(v1, ref).vehicle());
+        assertSame(w1, lane2.frontNeighbour(v2, ref).vehicle());
+        assertNull(lane2.rearNeighbour(v2, ref));
+
+        // cached results must follow changes of the adjacent lane
+        lane2.removeVehicle(w0);
+        assertNull(lane2.frontNeighbour(v1, ref));
+        assertSame(w1, lane2.rearNeighbour(v0, ref).vehicle());
+        final Vehicle w2 = newVehicle(750.0, 1.0, Lanes.LANE2);
+        r0.addVehicle(w2);
+        assertSame(w2, lane2.frontNeighbour(v1, ref).vehicle());
+        assertSame(w2, lane2.rearNeighbour(v0, ref).vehicle());
+        assertSame(w1, lane2.frontNeighbour(v2, ref).vehicle());
+    }
+
     /**
      * Test method for {@link org.movsim.simulator.roadnetwork.RoadSegment#makeLaneChanges(double, double, long)}
      */
@@ -0,0 +1,64 @@
+package org.movsim.simulator.roadnetwork;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.movsim.simulator.roadnetwork.routing.Route;
+import org.movsim.simulator.vehicles.Vehicle;
+
+public class RouteMetricsTest {
+
+    private RoadSegment r0;
+    private RoadSegment r1;
+    private RoadSegment r2;
+    private Route route01;
+    private Route route12;
+    private RouteMetrics routeMetrics;
+
+    @Before
+    public void setUp() {
+        r0 = new RoadSegment(1000, 1);
+        r1 = new RoadSegment(500, 1);
+        r2 = new RoadSegment(500, 1);
+        Link.addJoin(r0, r1);
+        Link.addJoin(r1, r2);
+        route01 = new Route("route01", Arrays.asList(r0, r1));
+        route12 = new Route("route12", Arrays.asList(r1, r2));
+        routeMetrics = new RouteMetrics();
+    }
+
+    private static Vehicle newVehicle(double rearPosition) {
+        return new Vehicle(rearPosition, 0.0, Lanes.LANE1, 5.0, 2.5);
+    }
+
+    @Test
+    public void testVehicleCountOfSharedRoadSegment() {
+        r0.addVehicle(newVehicle(100));
+        r1.addVehicle(newVehicle(200));
+        r2.addVehicle(newVehicle(300));
+        r2.addVehicle(newVehicle(100));
+        assertEquals(2, routeMetrics.vehicleCount(route01));
+        assertEquals(3, routeMetrics.vehicleCount(route12));
+    }
+
+    @Test
+    public void testValuesUpdatedAfterTimeStep() {
+        r1.addVehicle(newVehicle(200));
+        assertEquals(1, routeMetrics.vehicleCount(route01));
+        r0.addVehicle(newVehicle(100));
+        // unchanged within the time step
+        assertEquals(1, routeMetrics.vehicleCount(route01));
+        routeMetrics.timeStep(0.1, 0.1, 1);
+        assertEquals(2, routeMetrics.vehicleCount(route01));
+    }
+
+    @Test
+    public void testNewRouteInvalidatesValues() {
+        assertEquals(0, routeMetrics.vehicleCount(route01));
+        r2.addVehicle(newVehicle(100));
+        assertEquals(1, routeMetrics.vehicleCount(route12));
+    }
+}
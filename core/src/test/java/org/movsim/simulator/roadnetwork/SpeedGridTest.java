@@ -0,0 +1,41 @@
+package org.movsim.simulator.roadnetwork;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class SpeedGridTest {
+
+    private static final double DELTA = 1e-9;
+
+    private static final double FREE_FLOW_SPEED = 20;
+
+    @Test
+    public void testEmptyRoadTakesFreeFlowSpeed() {
+        final SpeedGrid speedGrid = new SpeedGrid(450);
+        assertEquals(450 / FREE_FLOW_SPEED, speedGrid.travelTime(200, FREE_FLOW_SPEED), DELTA);
+    }
+
+    @Test
+    public void testMeanSpeedOfSections() {
+        final SpeedGrid speedGrid = new SpeedGrid(450);
+        speedGrid.add(50, 10);
+        speedGrid.add(150, 5);
+        speedGrid.add(420, 0); // minimum speed
+        speedGrid.add(460, 1); // beyond road end, not counted
+        // sections [0,200), [200,400), [400,450)
+        final double expected = 200 / 7.5 + 200 / FREE_FLOW_SPEED + 50 / RoadSegment.MIN_SPEED_TT;
+        assertEquals(expected, speedGrid.travelTime(200, FREE_FLOW_SPEED), DELTA);
+        // sections of a single cell
+        final double expectedCells = 100 / 10.0 + 100 / 5.0 + 200 / FREE_FLOW_SPEED + 50 / RoadSegment.MIN_SPEED_TT;
+        assertEquals(expectedCells, speedGrid.travelTime(100, FREE_FLOW_SPEED), DELTA);
+    }
+
+    @Test
+    public void testClear() {
+        final SpeedGrid speedGrid = new SpeedGrid(300);
+        speedGrid.add(50, 5);
+        speedGrid.clear();
+        assertEquals(300 / FREE_FLOW_SPEED, speedGrid.travelTime(300, FREE_FLOW_SPEED), DELTA);
+    }
+}
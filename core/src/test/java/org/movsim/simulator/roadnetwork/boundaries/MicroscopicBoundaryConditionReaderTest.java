@@ -0,0 +1,90 @@
+package org.movsim.simulator.roadnetwork.boundaries;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.movsim.scenario.boundary.autogen.BoundaryConditionType;
+
+public class MicroscopicBoundaryConditionReaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File createFile() throws IOException {
+        File file = folder.newFile("micro_bc.xml");
+        try (PrintWriter writer = new PrintWriter(file, "UTF-8")) {
+            writer.println("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+            writer.println("<MovsimMicroscopicBoundaryConditions time_format=\"HH:mm:ss\">");
+            writer.println("  <RoadMicroscopicBoundaryConditions id=\"1\">");
+            writer.println("    <BoundaryConditions>");
+            writer.println("      <BoundaryCondition time=\"00:00:10\" label=\"ACC1\" speed=\"30\" />");
+            writer.println("    </BoundaryConditions>");
+            writer.println("  </RoadMicroscopicBoundaryConditions>");
+            writer.println("  <RoadMicroscopicBoundaryConditions id=\"2\">");
+            writer.println("    <BoundaryConditions>");
+            writer.println("      <BoundaryCondition time=\"00:00:20\" label=\"ACC1\">");
+            writer.println("        <VehicleUserData key=\"comment\" value=\"first car\" />");
+            writer.println("      </BoundaryCondition>");
+            writer.println("      <!-- comment -->");
+            writer.println("      <BoundaryCondition time=\"00:00:30\" label=\"ACC2\" lane=\"2\" />");
+            writer.println("    </BoundaryConditions>");
+            writer.println("  </RoadMicroscopicBoundaryConditions>");
+            writer.println("  <RoadMicroscopicBoundaryConditions id=\"3\">");
+            writer.println("    <BoundaryConditions />");
+            writer.println("  </RoadMicroscopicBoundaryConditions>");
+            writer.println("</MovsimMicroscopicBoundaryConditions>");
+        }
+        return file;
+    }
+
+    @Test
+    public void testIndexRoads() throws IOException {
+        MicroscopicBoundaryConditions boundaryConditions = new MicroscopicBoundaryConditions(createFile());
+        assertEquals("HH:mm:ss", boundaryConditions.getTimeFormat());
+        assertTrue(boundaryConditions.hasBoundaryConditions("1"));
+        assertTrue(boundaryConditions.hasBoundaryConditions("3"));
+        assertFalse(boundaryConditions.hasBoundaryConditions("4"));
+    }
+
+    @Test
+    public void testReadBoundaryConditionsOfRoad() throws IOException {
+        MicroscopicBoundaryConditions boundaryConditions = new MicroscopicBoundaryConditions(createFile());
+        MicroscopicBoundaryConditionReader reader = boundaryConditions.openBoundaryConditions("2");
+
+        BoundaryConditionType first = reader.read();
+        assertEquals("00:00:20", first.getTime());
+        assertEquals("ACC1", first.getLabel());
+        assertEquals(1, first.getVehicleUserData().size());
+        assertEquals("first car", first.getVehicleUserData().get(0).getValue());
+
+        BoundaryConditionType second = reader.read();
+        assertEquals("00:00:30", second.getTime());
+        assertEquals("ACC2", second.getLabel());
+        int lane = second.getLane();
+        assertEquals(2, lane);
+
+        assertNull(reader.read());
+        assertNull(reader.read());
+    }
+
+    @Test
+    public void testReadEmptyBoundaryConditions() throws IOException {
+        MicroscopicBoundaryConditions boundaryConditions = new MicroscopicBoundaryConditions(createFile());
+        assertNull(boundaryConditions.openBoundaryConditions("3").read());
+        assertEquals("00:00:10", boundaryConditions.openBoundaryConditions("1").read().getTime());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownRoad() throws IOException {
+        new MicroscopicBoundaryConditions(createFile()).openBoundaryConditions("4");
+    }
+}
@@ -0,0 +1,71 @@
+package org.movsim.simulator.roadnetwork.routing;
+
+import java.util.Random;
+
+import org.movsim.simulator.roadnetwork.Link;
+import org.movsim.simulator.roadnetwork.RoadNetwork;
+import org.movsim.simulator.roadnetwork.RoadSegment;
+
+/**
+ * Generates a square grid of intersections joined by one road in each direction. Each road has one lane for every
+ * direction a vehicle may take at the next intersection, so every road is connected to all roads leaving it.
+ */
+final class GridNetwork {
+
+    private static final int DIRECTIONS = 4;
+
+    private static final int[] DX = { 1, 0, -1, 0 };
+
+    private static final int[] DY = { 0, 1, 0, -1 };
+
+    private GridNetwork() {
+        throw new IllegalStateException("do not instanciate");
+    }
+
+    static String userId(int x, int y, int direction) {
+        return "r_" + x + "_" + y + "_" + direction;
+    }
+
+    /**
+     * Creates the grid network with random road lengths between 100 and 1000 m. The road leaving the intersection (x,y) in
+     * the given direction has the user id {@link #userId(int, int, int)}.
+     */
+    static RoadNetwork create(int size, long seed) {
+        final Random random = new Random(seed);
+        final RoadNetwork roadNetwork = new RoadNetwork();
+        final RoadSegment[][][] roads = new RoadSegment[size][size][DIRECTIONS];
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                for (int d = 0; d < DIRECTIONS; d++) {
+                    if (isInside(x + DX[d], y + DY[d], size)) {
+                        final RoadSegment roadSegment = new RoadSegment(100 + 900 * random.nextDouble(), DIRECTIONS);
+                        roadSegment.setUserId(userId(x, y, d));
+                        roadNetwork.add(roadSegment);
+                        roads[x][y][d] = roadSegment;
+                    }
+                }
+            }
+        }
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                for (int in = 0; in < DIRECTIONS; in++) {
+                    // the road arriving from direction in leaves the neighbour in the opposite direction
+                    if (!isInside(x + DX[in], y + DY[in], size)) {
+                        continue;
+                    }
+                    final RoadSegment incoming = roads[x + DX[in]][y + DY[in]][(in + 2) % DIRECTIONS];
+                    for (int out = 0; out < DIRECTIONS; out++) {
+                        if (roads[x][y][out] != null) {
+                            Link.addLanePair(out + 1, incoming, in + 1, roads[x][y][out]);
+                        }
+                    }
+                }
+            }
+        }
+        return roadNetwork;
+    }
+
+    private static boolean isInside(int x, int y, int size) {
+        return x >= 0 && y >= 0 && x < size && y < size;
+    }
+}
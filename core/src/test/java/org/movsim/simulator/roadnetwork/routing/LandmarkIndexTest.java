@@ -0,0 +1,104 @@
+package org.movsim.simulator.roadnetwork.routing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.util.List;
+
+import org.jgrapht.graph.DefaultDirectedWeightedGraph;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.movsim.input.ProjectMetaData;
+import org.movsim.simulator.roadnetwork.RoadNetwork;
+import org.movsim.simulator.roadnetwork.RoadSegment;
+
+public class LandmarkIndexTest {
+
+    private static final int GRID_SIZE = 6;
+
+    private static final double TOLERANCE = 1e-6;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static double length(DefaultDirectedWeightedGraph<Long, RoadSegment> graph, List<RoadSegment> path) {
+        double length = 0;
+        for (RoadSegment roadSegment : path) {
+            length += graph.getEdgeWeight(roadSegment);
+        }
+        return length;
+    }
+
+    private static void assertSameDistances(DefaultDirectedWeightedGraph<Long, RoadSegment> graph,
+            LandmarkIndex landmarks) {
+        for (Long origin : graph.vertexSet()) {
+            final ShortestPathTree tree = new ShortestPathTree(graph, origin);
+            for (Long target : graph.vertexSet()) {
+                final List<RoadSegment> path = landmarks.findPath(graph, origin, target);
+                assertNotNull(path);
+                assertEquals(tree.getDistance(target), length(graph, path), TOLERANCE);
+            }
+        }
+    }
+
+    @Test
+    public void testPathsAreShortest() {
+        final DefaultDirectedWeightedGraph<Long, RoadSegment> graph = NetworkGraph.create(
+                GridNetwork.create(GRID_SIZE, 42), new ProjectMetaData());
+        final LandmarkIndex landmarks = LandmarkIndex.create(graph, 4);
+        assertEquals(4, landmarks.getLandmarkCount());
+        assertSameDistances(graph, landmarks);
+
+        // bounds remain valid for increased weights
+        for (RoadSegment roadSegment : graph.edgeSet()) {
+            if (roadSegment.userId().endsWith("_0")) {
+                graph.setEdgeWeight(roadSegment, 3 * roadSegment.roadLength());
+            }
+        }
+        assertSameDistances(graph, landmarks);
+    }
+
+    @Test
+    public void testWriteAndRead() {
+        final DefaultDirectedWeightedGraph<Long, RoadSegment> graph = NetworkGraph.create(
+                GridNetwork.create(GRID_SIZE, 42), new ProjectMetaData());
+        final File file = new File(folder.getRoot(), "grid.xodr" + LandmarkIndex.EXTENSION);
+        LandmarkIndex.create(graph, 4).write(file);
+
+        final LandmarkIndex landmarks = LandmarkIndex.read(file, graph);
+        assertNotNull(landmarks);
+        assertEquals(4, landmarks.getLandmarkCount());
+        assertSameDistances(graph, landmarks);
+
+        // another network does not match
+        final DefaultDirectedWeightedGraph<Long, RoadSegment> other = NetworkGraph.create(
+                GridNetwork.create(GRID_SIZE, 43), new ProjectMetaData());
+        assertNull(LandmarkIndex.read(file, other));
+    }
+
+    @Test
+    public void testRoutingWithLandmarks() {
+        final RoadNetwork roadNetwork = GridNetwork.create(GRID_SIZE, 7);
+        final ProjectMetaData projectMetaData = new ProjectMetaData();
+        projectMetaData.setLandmarkRouting(true);
+        final Routing landmarkRouting = new Routing(null, roadNetwork, projectMetaData);
+        final Routing dijkstraRouting = new Routing(null, roadNetwork, new ProjectMetaData());
+
+        final String start = GridNetwork.userId(0, 0, 0);
+        final String destination = GridNetwork.userId(GRID_SIZE - 1, GRID_SIZE - 1, 2);
+        final Route route = landmarkRouting.findRoute(start, destination);
+        assertEquals(dijkstraRouting.findRoute(start, destination).getLength(), route.getLength(), TOLERANCE);
+        assertEquals("from_" + start + "_" + destination, route.getName());
+
+        // a weight below the road length falls back to Dijkstra's algorithm
+        final RoadSegment shortcut = roadNetwork.findByUserId(GridNetwork.userId(2, 2, 1));
+        landmarkRouting.setWeight(shortcut, 0);
+        dijkstraRouting.setWeight(shortcut, 0);
+        final Route shortcutRoute = landmarkRouting.findRoute(GridNetwork.userId(0, 2, 0), destination);
+        final Route expected = dijkstraRouting.findRoute(GridNetwork.userId(0, 2, 0), destination);
+        assertEquals(expected.getLength(), shortcutRoute.getLength(), TOLERANCE);
+    }
+}
@@ -0,0 +1,81 @@
+package org.movsim.simulator.roadnetwork.routing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.movsim.simulator.roadnetwork.Link;
+import org.movsim.simulator.roadnetwork.RoadSegment;
+
+public class RouteTest {
+
+    private static final double DELTA = 1e-9;
+
+    private RoadSegment r0;
+    private RoadSegment r1;
+    private RoadSegment r2;
+    private RoadSegment other;
+
+    @Before
+    public void setUp() {
+        r0 = new RoadSegment(1000, 2);
+        r1 = new RoadSegment(300, 2);
+        r2 = new RoadSegment(500, 2);
+        other = new RoadSegment(100, 2);
+        Link.addJoin(r0, r1);
+        Link.addJoin(r1, r2);
+    }
+
+    @Test
+    public void testIndexAndPositions() {
+        final Route route = new Route("route", Arrays.asList(r0, r1, r2));
+        assertEquals(3, route.size());
+        assertEquals(1800, route.getLength(), DELTA);
+        assertSame(r0, route.getOrigin());
+        assertSame(r1, route.get(1));
+        assertEquals(2, route.indexOf(r2));
+        assertEquals(-1, route.indexOf(other));
+        assertTrue(route.contains(r1));
+        assertFalse(route.contains(other));
+        assertEquals(0, route.getStartPosition(0), DELTA);
+        assertEquals(1300, route.getStartPosition(2), DELTA);
+        assertEquals(1050, route.positionOnRoute(r1, 50), DELTA);
+    }
+
+    @Test
+    public void testIterationInDrivingOrder() {
+        final Iterator<RoadSegment> iterator = new Route("route", Arrays.asList(r0, r1, r2)).iterator();
+        assertSame(r0, iterator.next());
+        assertSame(r1, iterator.next());
+        assertSame(r2, iterator.next());
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void testEquals() {
+        assertEquals(new Route("route", Arrays.asList(r0, r1)), new Route("route", Arrays.asList(r0, r1)));
+        assertFalse(new Route("route", Arrays.asList(r0, r1)).equals(new Route("route", Arrays.asList(r1, r2))));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPositionOfRoadSegmentNotOnRoute() {
+        new Route("route", Arrays.asList(r0, r1)).positionOnRoute(other, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicateRoadSegment() {
+        Link.addJoin(r2, r0);
+        new Route("route", Arrays.asList(r0, r1, r2, r0));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testUnconnectedRoadSegments() {
+        new Route("route", Arrays.asList(r0, r2));
+    }
+}
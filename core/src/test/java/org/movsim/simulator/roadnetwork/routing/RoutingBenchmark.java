@@ -0,0 +1,85 @@
+package org.movsim.simulator.roadnetwork.routing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.jgrapht.alg.DijkstraShortestPath;
+import org.jgrapht.graph.DefaultDirectedWeightedGraph;
+import org.movsim.input.ProjectMetaData;
+import org.movsim.simulator.roadnetwork.RoadSegment;
+
+/**
+ * Compares the query latency of the jgrapht Dijkstra search with the A* search with landmarks on generated grid networks.
+ * Not run as a test; run the main method with the grid sizes as arguments, e.g. {@code 50 100 200}.
+ */
+public final class RoutingBenchmark {
+
+    private static final int QUERIES = 200;
+
+    private static final int WARMUP_QUERIES = 50;
+
+    private RoutingBenchmark() {
+        throw new IllegalStateException("do not instanciate");
+    }
+
+    public static void main(String[] args) {
+        final String[] sizes = args.length > 0 ? args : new String[] { "20", "50", "100" };
+        System.out.println("grid     nodes  landmarks(ms)  dijkstra(ms/query)  landmarks(ms/query)");
+        for (String size : sizes) {
+            run(Integer.parseInt(size));
+        }
+    }
+
+    private static void run(int size) {
+        final DefaultDirectedWeightedGraph<Long, RoadSegment> graph = NetworkGraph.create(GridNetwork.create(size, 42),
+                new ProjectMetaData());
+        long start = System.nanoTime();
+        final LandmarkIndex landmarks = LandmarkIndex.create(graph, LandmarkIndex.DEFAULT_LANDMARK_COUNT);
+        final double preprocessingMillis = (System.nanoTime() - start) / 1e6;
+
+        final List<Long> vertices = new ArrayList<>(graph.vertexSet());
+        final Random random = new Random(1);
+        final long[][] queries = new long[WARMUP_QUERIES + QUERIES][2];
+        for (long[] query : queries) {
+            query[0] = vertices.get(random.nextInt(vertices.size()));
+            do {
+                query[1] = vertices.get(random.nextInt(vertices.size()));
+            } while (query[1] == query[0]);
+        }
+
+        double dijkstraLength = 0;
+        double landmarkLength = 0;
+        long dijkstraNanos = 0;
+        long landmarkNanos = 0;
+        for (int i = 0; i < queries.length; i++) {
+            start = System.nanoTime();
+            final List<RoadSegment> dijkstraPath = DijkstraShortestPath.findPathBetween(graph, queries[i][0],
+                    queries[i][1]);
+            final long dijkstraTime = System.nanoTime() - start;
+            start = System.nanoTime();
+            final List<RoadSegment> landmarkPath = landmarks.findPath(graph, queries[i][0], queries[i][1]);
+            final long landmarkTime = System.nanoTime() - start;
+            if (i >= WARMUP_QUERIES) {
+                dijkstraNanos += dijkstraTime;
+                landmarkNanos += landmarkTime;
+                dijkstraLength += length(graph, dijkstraPath);
+                landmarkLength += length(graph, landmarkPath);
+            }
+        }
+        if (Math.abs(dijkstraLength - landmarkLength) > 1e-6 * dijkstraLength) {
+            throw new IllegalStateException("different path lengths: dijkstra=" + dijkstraLength + ", landmarks="
+                    + landmarkLength);
+        }
+        System.out.println(String.format("%4dx%-4d %6d %14.1f %19.3f %20.3f", size, size, vertices.size(),
+                preprocessingMillis, dijkstraNanos / 1e6 / QUERIES, landmarkNanos / 1e6 / QUERIES));
+    }
+
+    private static double length(DefaultDirectedWeightedGraph<Long, RoadSegment> graph, List<RoadSegment> path) {
+        double length = 0;
+        for (RoadSegment roadSegment : path) {
+            length += graph.getEdgeWeight(roadSegment);
+        }
+        return length;
+    }
+}
@@ -0,0 +1,104 @@
+package org.movsim.simulator.roadnetwork.routing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.movsim.input.ProjectMetaData;
+import org.movsim.simulator.roadnetwork.Link;
+import org.movsim.simulator.roadnetwork.RoadNetwork;
+import org.movsim.simulator.roadnetwork.RoadSegment;
+
+public class RoutingTest {
+
+    private RoadSegment r0;
+    private RoadSegment r1;
+    private RoadSegment r2;
+    private RoadSegment r3;
+    private RoadSegment r4;
+    private Routing routing;
+
+    private static RoadSegment newRoadSegment(RoadNetwork roadNetwork, String userId, double length, int laneCount) {
+        final RoadSegment roadSegment = new RoadSegment(length, laneCount);
+        roadSegment.setUserId(userId);
+        roadNetwork.add(roadSegment);
+        return roadSegment;
+    }
+
+    /**
+     * r0 forks into the long road r1 and the short roads r2 and r4, which merge into r3.
+     */
+    @Before
+    public void setUp() {
+        final RoadNetwork roadNetwork = new RoadNetwork();
+        r0 = newRoadSegment(roadNetwork, "r0", 1000, 2);
+        r1 = newRoadSegment(roadNetwork, "r1", 1000, 1);
+        r2 = newRoadSegment(roadNetwork, "r2", 300, 1);
+        r4 = newRoadSegment(roadNetwork, "r4", 300, 1);
+        r3 = newRoadSegment(roadNetwork, "r3", 1000, 2);
+        Link.addLanePair(1, r0, 1, r1);
+        Link.addLanePair(2, r0, 1, r2);
+        Link.addJoin(r2, r4);
+        Link.addLanePair(1, r1, 1, r3);
+        Link.addLanePair(1, r4, 2, r3);
+        routing = new Routing(null, roadNetwork, new ProjectMetaData());
+    }
+
+    private static void assertRoute(Route route, RoadSegment... roadSegments) {
+        assertEquals(roadSegments.length, route.size());
+        for (int i = 0; i < roadSegments.length; i++) {
+            assertSame(roadSegments[i], route.get(i));
+        }
+    }
+
+    @Test
+    public void testFindShortestRoute() {
+        final Route route = routing.findRoute("r0", "r3");
+        assertEquals("from_r0_r3", route.getName());
+        assertRoute(route, r0, r2, r4, r3);
+        assertSame(route, routing.findRoute("r0", "r3"));
+        assertRoute(routing.findRoute("r0", "r0"), r0);
+    }
+
+    @Test
+    public void testFindRoutesToManyDestinations() {
+        final Map<String, Route> routes = routing.findRoutes("r0", Arrays.asList("r3", "r1", "r4"));
+        assertEquals(Arrays.asList("r3", "r1", "r4"), Arrays.asList(routes.keySet().toArray()));
+        assertRoute(routes.get("r3"), r0, r2, r4, r3);
+        assertRoute(routes.get("r1"), r0, r1);
+        assertRoute(routes.get("r4"), r0, r2, r4);
+        assertSame(routes.get("r3"), routing.findRoute("r0", "r3"));
+    }
+
+    @Test
+    public void testWeightChangeInvalidatesCache() {
+        final Route route = routing.findRoute("r0", "r3");
+        assertEquals(300, routing.getWeight(r2), 0);
+        routing.setWeight(r2, 2000);
+        final Route rerouted = routing.findRoute("r0", "r3");
+        assertNotSame(route, rerouted);
+        assertRoute(rerouted, r0, r1, r3);
+    }
+
+    @Test
+    public void testFindFastestRouteByDepartureTime() {
+        final TravelTimeTable travelTimes = routing.getTravelTimeTable();
+        // r2 is congested in the first bucket and free in the second
+        travelTimes.travelTimeObserved(r2, 10, 200);
+        travelTimes.travelTimeObserved(r2, 400, 410);
+        assertRoute(routing.findFastestRoute("r0", "r3", 0), r0, r1, r3);
+        assertRoute(routing.findFastestRoute("r0", "r3", 400), r0, r2, r4, r3);
+        // the shortest route does not depend on the travel times
+        assertRoute(routing.findRoute("r0", "r3"), r0, r2, r4, r3);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testUnreachableDestination() {
+        routing.findRoute("r3", "r0");
+    }
+}
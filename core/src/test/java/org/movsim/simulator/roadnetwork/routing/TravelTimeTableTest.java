@@ -0,0 +1,66 @@
+package org.movsim.simulator.roadnetwork.routing;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.movsim.simulator.MovsimConstants;
+import org.movsim.simulator.roadnetwork.RoadSegment;
+
+public class TravelTimeTableTest {
+
+    private static final double DELTA = 1e-9;
+
+    private RoadSegment r1;
+    private RoadSegment r2;
+    private TravelTimeTable travelTimes;
+
+    @Before
+    public void setUp() {
+        r1 = new RoadSegment(1000, 1);
+        r2 = new RoadSegment(500, 1);
+        travelTimes = new TravelTimeTable(Arrays.asList(r1, r2), 300, 4);
+    }
+
+    @Test
+    public void testFreeFlowTravelTimeWithoutMeasurements() {
+        assertEquals(1000 / MovsimConstants.MAX_VEHICLE_SPEED, travelTimes.travelTime(r1, 0), DELTA);
+        assertEquals(1000 / MovsimConstants.MAX_VEHICLE_SPEED, travelTimes.freeFlowTravelTime(r1), DELTA);
+    }
+
+    @Test
+    public void testMeanOfBucket() {
+        travelTimes.travelTimeObserved(r1, 10, 110);
+        travelTimes.travelTimeObserved(r1, 250, 450);
+        assertEquals(150, travelTimes.travelTime(r1, 0), DELTA);
+        assertEquals(150, travelTimes.travelTime(r1, 299), DELTA);
+        // the buckets form a cycle
+        assertEquals(150, travelTimes.travelTime(r1, 4 * 300 + 100), DELTA);
+    }
+
+    @Test
+    public void testLiveTravelTimeForEmptyBucket() {
+        travelTimes.travelTimeObserved(r1, 10, 110);
+        travelTimes.travelTimeObserved(r1, 310, 330);
+        assertEquals(20, travelTimes.travelTime(r1, 300), DELTA);
+        final double live = 100 + TravelTimeTable.LIVE_WEIGHT * (20 - 100);
+        assertEquals(live, travelTimes.travelTime(r1, 600), DELTA);
+    }
+
+    @Test
+    public void testTravelTimeBoundedByFreeFlow() {
+        travelTimes.travelTimeObserved(r2, 10, 10.1);
+        assertEquals(travelTimes.freeFlowTravelTime(r2), travelTimes.travelTime(r2, 10), DELTA);
+    }
+
+    @Test
+    public void testTravelTimeOfRoute() {
+        travelTimes.travelTimeObserved(r1, 100, 300);
+        // r2 is entered at 300, in the second bucket
+        travelTimes.travelTimeObserved(r2, 0, 50);
+        travelTimes.travelTimeObserved(r2, 300, 330);
+        assertEquals(230, travelTimes.travelTime(Arrays.asList(r1, r2), 100), DELTA);
+    }
+}
@@ -0,0 +1,70 @@
+package org.movsim.simulator.vehicles.longitudinalmodel.acceleration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class EquilibriumPropertiesCacheTest {
+
+    private static final double VEHICLE_LENGTH = 5;
+
+    private static final double TIMESTEP = 0.2;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testCachedPropertiesEqualCalculatedProperties() {
+        final IDM idm = new IDM(33, 1, 1.5, 1.5, 2, 0);
+        final EquilibriumProperties calculated = new EquilibriumPropertiesImpl(VEHICLE_LENGTH, idm);
+
+        final EquilibriumPropertiesCache cache = new EquilibriumPropertiesCache(folder.getRoot());
+        assertSameProperties(calculated, cache.get(VEHICLE_LENGTH, idm, TIMESTEP));
+        assertEquals(1, folder.getRoot().listFiles().length);
+        // read from the file
+        assertSameProperties(calculated, cache.get(VEHICLE_LENGTH, new IDM(33, 1, 1.5, 1.5, 2, 0), TIMESTEP));
+        assertEquals(1, folder.getRoot().listFiles().length);
+    }
+
+    @Test
+    public void testKeyDependsOnParametersAndLength() {
+        final String key = EquilibriumPropertiesCache.key(VEHICLE_LENGTH, new IDM(33, 1, 1.5, 1.5, 2, 0), TIMESTEP);
+        assertEquals(key, EquilibriumPropertiesCache.key(VEHICLE_LENGTH, new IDM(33, 1, 1.5, 1.5, 2, 0), TIMESTEP));
+        assertFalse(key.equals(EquilibriumPropertiesCache.key(VEHICLE_LENGTH, new IDM(33, 1, 1.5, 1.4, 2, 0),
+                TIMESTEP)));
+        assertFalse(key.equals(EquilibriumPropertiesCache.key(6, new IDM(33, 1, 1.5, 1.5, 2, 0), TIMESTEP)));
+    }
+
+    @Test
+    public void testUnreadableFileIsIgnored() throws IOException {
+        final IDM idm = new IDM(33, 1, 1.5, 1.5, 2, 0);
+        final EquilibriumPropertiesCache cache = new EquilibriumPropertiesCache(folder.getRoot());
+        cache.get(VEHICLE_LENGTH, idm, TIMESTEP);
+        final File file = folder.getRoot().listFiles()[0];
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[] { 0, 0, 0, 1 });
+        }
+        assertSameProperties(new EquilibriumPropertiesImpl(VEHICLE_LENGTH, idm),
+                cache.get(VEHICLE_LENGTH, idm, TIMESTEP));
+        assertTrue(file.length() > 4);
+    }
+
+    private static void assertSameProperties(EquilibriumProperties expected, EquilibriumProperties actual) {
+        assertEquals(expected.getVEqCount(), actual.getVEqCount());
+        assertEquals(expected.getQMax(), actual.getQMax(), 0);
+        assertEquals(expected.getRhoQMax(), actual.getRhoQMax(), 0);
+        for (int i = 0; i < expected.getVEqCount(); i++) {
+            final double rho = expected.getRho(i);
+            assertEquals(rho, actual.getRho(i), 0);
+            assertEquals(expected.getVEq(rho), actual.getVEq(rho), 0);
+        }
+    }
+}